@@ -3,7 +3,8 @@
  * 示例4：数组
  * 
  * 本示例展示了Java中数组的声明、初始化和操作，
- * 包括一维数组和多维数组的使用方法，以及Arrays工具类的常用方法。
+ * 包括一维数组和多维数组的使用方法，Arrays工具类的常用方法，
+ * 以及大数组的并行排序、填充和前缀和（ParallelArrays）、连续存储的矩阵（IntMatrix）。
  */
 import java.util.Arrays;
 
@@ -96,6 +97,19 @@ public class ArrayExamples {
             System.out.println();
         }
         
+        // 二维数组的每一行都是独立的对象，大矩阵可以改用连续存储的IntMatrix
+        System.out.println("使用IntMatrix表示同样的矩阵:");
+        IntMatrix flatMatrix1 = new IntMatrix(3, 4);    // 相当于new int[3][4]
+        IntMatrix flatMatrix2 = IntMatrix.of(matrix2);  // 从二维数组复制
+        flatMatrix1.set(0, 0, 1);
+        System.out.println("flatMatrix1.get(0, 0) = " + flatMatrix1.get(0, 0));
+        System.out.println("flatMatrix2.get(1, 2) = " + flatMatrix2.get(1, 2));
+        System.out.print(flatMatrix2);
+        System.out.println("flatMatrix2的转置:");
+        System.out.print(flatMatrix2.transpose());
+        System.out.println("flatMatrix2 × 转置 = ");
+        System.out.print(flatMatrix2.multiply(flatMatrix2.transpose()));
+        
         // 5. Arrays工具类
         System.out.println("\n===== Arrays工具类 =====");
         
@@ -136,5 +150,23 @@ public class ArrayExamples {
         } catch (ArrayIndexOutOfBoundsException e) {
             System.out.println("捕获到数组越界异常: " + e.getMessage());
         }
+        
+        // 7. 大数组的并行操作
+        System.out.println("\n===== 大数组的并行操作 =====");
+        
+        // 数组很大时，Arrays.sort/fill只用一个线程，ParallelArrays可以利用多个CPU核心
+        ParallelArrays parallelArrays = new ParallelArrays();
+        int[] bigArray = new int[1_000_000];
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < bigArray.length; i++) {
+            bigArray[i] = random.nextInt(1000);
+        }
+        parallelArrays.sort(bigArray);  // 并行基数排序
+        System.out.println("并行排序后前10个元素: " + Arrays.toString(Arrays.copyOf(bigArray, 10)));
+        
+        int[] ones = new int[10];
+        parallelArrays.fill(ones, 1);
+        parallelArrays.prefixSum(ones);  // 前缀和：ones[i] = ones[0] + ... + ones[i]
+        System.out.println("全1数组的前缀和: " + Arrays.toString(ones));
     }
 }
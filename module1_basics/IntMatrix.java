@@ -0,0 +1,305 @@
+/**
+ * 模块一：基础语法与环境搭建
+ * 连续存储的int矩阵
+ *
+ * int[][]实际上是"数组的数组"：每一行都是堆上的一个独立对象，行与行之间不一定相邻，
+ * 按列访问时每一步都要跳到另一个对象上，CPU缓存和硬件预取几乎失效。
+ * IntMatrix把所有元素放在一个一维int数组中：
+ * - ROW_MAJOR（行优先）：第r行第c列位于 r * cols + c，同一行的元素相邻
+ * - COLUMN_MAJOR（列优先）：位于 c * rows + r，同一列的元素相邻，适合按列扫描
+ * 转置按64×64的分块（tile）进行，使每次处理的数据都能放进缓存；乘法按64行的行块（i）和
+ * 64的k块分块，j方向遍历整行，最内层循环对B的一行和结果的一行做连续访问；
+ * 乘法和按行的操作按行块在ForkJoinPool中并行执行。
+ */
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+public class IntMatrix {
+    /**
+     * 存储顺序
+     */
+    public enum Layout {
+        ROW_MAJOR,
+        COLUMN_MAJOR
+    }
+
+    // 分块大小：64×64个int = 16KB
+    static final int TILE = 64;
+
+    private final int rows;
+    private final int cols;
+    private final Layout layout;
+    private final int[] data;
+
+    public IntMatrix(int rows, int cols) {
+        this(rows, cols, Layout.ROW_MAJOR);
+    }
+
+    public IntMatrix(int rows, int cols, Layout layout) {
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("非法的矩阵大小: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.layout = layout;
+        this.data = new int[rows * cols];
+    }
+
+    /**
+     * 从二维数组创建行优先矩阵（每行长度必须相同）
+     */
+    public static IntMatrix of(int[][] values) {
+        int rows = values.length;
+        int cols = rows == 0 ? 0 : values[0].length;
+        IntMatrix matrix = new IntMatrix(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            if (values[r].length != cols) {
+                throw new IllegalArgumentException("第" + r + "行的长度" + values[r].length + "与第0行不同: " + cols);
+            }
+            System.arraycopy(values[r], 0, matrix.data, r * cols, cols);
+        }
+        return matrix;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public Layout layout() {
+        return layout;
+    }
+
+    // 元素在data中的下标
+    private int index(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + col + ")超出" + rows + "x" + cols);
+        }
+        return layout == Layout.ROW_MAJOR ? row * cols + col : col * rows + row;
+    }
+
+    public int get(int row, int col) {
+        return data[index(row, col)];
+    }
+
+    public void set(int row, int col, int value) {
+        data[index(row, col)] = value;
+    }
+
+    /**
+     * 转换为二维数组
+     */
+    public int[][] toArray() {
+        IntMatrix rowMajor = toLayout(Layout.ROW_MAJOR);
+        int[][] result = new int[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(rowMajor.data, r * cols, result[r], 0, cols);
+        }
+        return result;
+    }
+
+    /**
+     * 转换为指定存储顺序，顺序相同时返回自身
+     */
+    public IntMatrix toLayout(Layout target) {
+        if (target == layout) {
+            return this;
+        }
+        IntMatrix result = new IntMatrix(rows, cols, target);
+        // 行优先的rows×cols矩阵与列优先的cols×rows矩阵存储完全相同，换顺序就是对存储做一次转置
+        if (layout == Layout.ROW_MAJOR) {
+            transposeTiled(data, rows, cols, result.data);
+        } else {
+            transposeTiled(data, cols, rows, result.data);
+        }
+        return result;
+    }
+
+    /**
+     * 分块转置，结果保持相同的存储顺序
+     */
+    public IntMatrix transpose() {
+        IntMatrix result = new IntMatrix(cols, rows, layout);
+        if (layout == Layout.ROW_MAJOR) {
+            transposeTiled(data, rows, cols, result.data);
+        } else {
+            transposeTiled(data, cols, rows, result.data);
+        }
+        return result;
+    }
+
+    /**
+     * 把行优先的height×width矩阵src转置为行优先的width×height矩阵dst。
+     * 逐元素转置时，读src是顺序的，写dst却每次跨越一整行；
+     * 分块后每个64×64的块在缓存中完成读写，再处理下一块
+     */
+    static void transposeTiled(int[] src, int height, int width, int[] dst) {
+        for (int ii = 0; ii < height; ii += TILE) {
+            int iEnd = Math.min(ii + TILE, height);
+            for (int jj = 0; jj < width; jj += TILE) {
+                int jEnd = Math.min(jj + TILE, width);
+                for (int i = ii; i < iEnd; i++) {
+                    int srcRow = i * width;
+                    for (int j = jj; j < jEnd; j++) {
+                        dst[j * height + i] = src[srcRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 矩阵乘法 this × other，结果为行优先矩阵（int溢出时回绕）
+     *
+     * 按i-k-j顺序计算：最内层循环顺序读取other的一行、顺序累加到结果的一行，JIT可以向量化；
+     * 再按k分块，一块other的行在处理同一行块的64行时常驻缓存。结果按行块并行计算，互不重叠。
+     *
+     * 注意最内层循环没有直接写data：对同一个int[]用两个不同的偏移量读写时，
+     * JIT无法排除两段区域重叠，就不会向量化。因此other按行拆成独立的数组（O(n²)的复制），
+     * 每个行块在自己的累加行中计算，最后再复制回结果。
+     */
+    public IntMatrix multiply(IntMatrix other) {
+        if (cols != other.rows) {
+            throw new IllegalArgumentException("无法相乘: " + rows + "x" + cols + " × " + other.rows + "x" + other.cols);
+        }
+        int[] a = toLayout(Layout.ROW_MAJOR).data;
+        int[] b = other.toLayout(Layout.ROW_MAJOR).data;
+        int n = cols;
+        int p = other.cols;
+        int[][] bRows = new int[n][];
+        for (int k = 0; k < n; k++) {
+            bRows[k] = Arrays.copyOfRange(b, k * p, k * p + p);
+        }
+        IntMatrix result = new IntMatrix(rows, p);
+        int[] c = result.data;
+        int blocks = (rows + TILE - 1) / TILE;
+        forEachBlock(blocks, block ->
+                multiplyRows(a, bRows, c, block * TILE, Math.min(block * TILE + TILE, rows), n, p));
+        return result;
+    }
+
+    // 计算结果的第iStart到iEnd-1行：a为?×n的行优先矩阵，bRows为n×p矩阵的各行
+    // 只对i和k分块：B的TILE行（TILE×p个int）在k块内被行块中的每一行重复使用；
+    // 再对j分块会让最内层循环过短，实测反而更慢
+    static void multiplyRows(int[] a, int[][] bRows, int[] c, int iStart, int iEnd, int n, int p) {
+        int[][] acc = new int[iEnd - iStart][p];
+        for (int kk = 0; kk < n; kk += TILE) {
+            int kEnd = Math.min(kk + TILE, n);
+            for (int i = iStart; i < iEnd; i++) {
+                int[] accRow = acc[i - iStart];
+                int aRow = i * n;
+                for (int k = kk; k < kEnd; k++) {
+                    int aik = a[aRow + k];
+                    int[] bRow = bRows[k];
+                    for (int j = 0; j < p; j++) {
+                        accRow[j] += aik * bRow[j];
+                    }
+                }
+            }
+        }
+        for (int i = iStart; i < iEnd; i++) {
+            System.arraycopy(acc[i - iStart], 0, c, i * p, p);
+        }
+    }
+
+    /**
+     * 按行处理的回调：第row行的第c个元素位于data[offset + c * stride]
+     */
+    public interface RowConsumer {
+        void accept(int row, int[] data, int offset, int stride);
+    }
+
+    /**
+     * 并行地对每一行执行consumer，不同行可能在不同线程中执行
+     */
+    public void forEachRowParallel(RowConsumer consumer) {
+        int offsetStep = layout == Layout.ROW_MAJOR ? cols : 1;
+        int stride = layout == Layout.ROW_MAJOR ? 1 : rows;
+        int blocks = (rows + TILE - 1) / TILE;
+        forEachBlock(blocks, block -> {
+            for (int r = block * TILE, end = Math.min(r + TILE, rows); r < end; r++) {
+                consumer.accept(r, data, r * offsetStep, stride);
+            }
+        });
+    }
+
+    /**
+     * 并行地对每个元素执行op并写回
+     */
+    public void mapInPlace(IntUnaryOperator op) {
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() << 2, data.length >>> 15));
+        forEachBlock(chunks, chunk -> {
+            int from = (int) ((long) data.length * chunk / chunks);
+            int to = (int) ((long) data.length * (chunk + 1) / chunks);
+            for (int i = from; i < to; i++) {
+                data[i] = op.applyAsInt(data[i]);
+            }
+        });
+    }
+
+    /**
+     * 并行计算每一行的和
+     */
+    public long[] rowSums() {
+        long[] sums = new long[rows];
+        forEachRowParallel((row, values, offset, stride) -> {
+            long sum = 0;
+            for (int c = 0, i = offset; c < cols; c++, i += stride) {
+                sum += values[i];
+            }
+            sums[row] = sum;
+        });
+        return sums;
+    }
+
+    /**
+     * 计算每一列的和：按存储顺序扫描，行优先时逐行累加到各列，列优先时逐列求和
+     */
+    public long[] columnSums() {
+        long[] sums = new long[cols];
+        if (layout == Layout.ROW_MAJOR) {
+            for (int r = 0; r < rows; r++) {
+                int offset = r * cols;
+                for (int c = 0; c < cols; c++) {
+                    sums[c] += data[offset + c];
+                }
+            }
+        } else {
+            for (int c = 0; c < cols; c++) {
+                long sum = 0;
+                for (int i = c * rows, end = i + rows; i < end; i++) {
+                    sum += data[i];
+                }
+                sums[c] = sum;
+            }
+        }
+        return sums;
+    }
+
+    private static void forEachBlock(int blocks, IntConsumer body) {
+        if (blocks <= 1) {
+            if (blocks == 1) {
+                body.accept(0);
+            }
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new ParallelArrays.ChunkTask(body, 0, blocks));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                sb.append(get(r, c)).append('\t');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * 模块一：基础语法与环境搭建
+ * 示例6：矩阵存储方式基准测试
+ *
+ * 比较int[][]与连续存储的IntMatrix在大矩阵上的耗时，体现缓存局部性的影响：
+ * - 按行求和、按列求和：int[][]按列访问时每个元素都在不同的行对象中；
+ *   IntMatrix可以换成列优先存储，按列扫描也是顺序访问
+ * - 转置：int[][]逐元素转置 vs IntMatrix分块转置
+ * - 乘法：int[][]的i-j-k与i-k-j循环 vs IntMatrix分块并行乘法
+ * 乘法是O(n³)，i-j-k循环在4096阶时要运行很久，因此乘法单独使用较小的默认阶数。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java MatrixBenchmark [矩阵阶数] [乘法矩阵阶数] [测量轮数]
+ * 例如：
+ *   java -Xmx2g MatrixBenchmark 4096 1024 3
+ */
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class MatrixBenchmark {
+    private static final int WARMUP_ROUNDS = 1;
+
+    // 防止JIT把没有使用结果的计算优化掉
+    static volatile long blackhole;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        System.out.println("===== 矩阵存储方式基准测试 =====");
+        System.out.println("矩阵阶数: " + n + "，乘法矩阵阶数: " + m + "，CPU核心数: "
+                + Runtime.getRuntime().availableProcessors() + "，测量轮数: " + rounds);
+        System.out.printf("%-40s %12s %12s%n", "操作", "平均(ms)", "最短(ms)");
+
+        int[][] jagged = randomMatrix(n, n, 42);
+        IntMatrix rowMajor = IntMatrix.of(jagged);
+        IntMatrix columnMajor = rowMajor.toLayout(IntMatrix.Layout.COLUMN_MAJOR);
+
+        // 按行求和
+        long[] expectedRows = time("int[][] 按行求和", rounds, () -> {
+            long[] sums = new long[n];
+            for (int r = 0; r < n; r++) {
+                long sum = 0;
+                for (int c = 0; c < n; c++) {
+                    sum += jagged[r][c];
+                }
+                sums[r] = sum;
+            }
+            return sums;
+        });
+        long[] rowSums = time("IntMatrix(行优先) rowSums", rounds, rowMajor::rowSums);
+        check("按行求和", Arrays.equals(expectedRows, rowSums));
+
+        // 按列求和
+        long[] expectedColumns = time("int[][] 按列求和（逐列遍历）", rounds, () -> {
+            long[] sums = new long[n];
+            for (int c = 0; c < n; c++) {
+                long sum = 0;
+                for (int r = 0; r < n; r++) {
+                    sum += jagged[r][c];  // 每一步都跳到另一个行对象
+                }
+                sums[c] = sum;
+            }
+            return sums;
+        });
+        long[] columnSums = time("IntMatrix(行优先) columnSums", rounds, rowMajor::columnSums);
+        check("按列求和（行优先）", Arrays.equals(expectedColumns, columnSums));
+        columnSums = time("IntMatrix(列优先) columnSums", rounds, columnMajor::columnSums);
+        check("按列求和（列优先）", Arrays.equals(expectedColumns, columnSums));
+
+        // 转置
+        int[][] expectedTranspose = time("int[][] 逐元素转置", rounds, () -> {
+            int[][] result = new int[n][n];
+            for (int r = 0; r < n; r++) {
+                for (int c = 0; c < n; c++) {
+                    result[c][r] = jagged[r][c];
+                }
+            }
+            return result;
+        });
+        IntMatrix transposed = time("IntMatrix 分块转置", rounds, rowMajor::transpose);
+        check("转置", Arrays.deepEquals(expectedTranspose, transposed.toArray()));
+
+        // 乘法
+        int[][] a = randomMatrix(m, m, 1);
+        int[][] b = randomMatrix(m, m, 2);
+        IntMatrix flatA = IntMatrix.of(a);
+        IntMatrix flatB = IntMatrix.of(b);
+        time("int[][] 乘法 i-j-k (" + m + "阶)", rounds, () -> {
+            int[][] c = new int[m][m];
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < m; j++) {
+                    int sum = 0;
+                    for (int k = 0; k < m; k++) {
+                        sum += a[i][k] * b[k][j];  // b按列访问
+                    }
+                    c[i][j] = sum;
+                }
+            }
+            return c;
+        });
+        int[][] expectedProduct = time("int[][] 乘法 i-k-j (" + m + "阶)", rounds, () -> {
+            int[][] c = new int[m][m];
+            for (int i = 0; i < m; i++) {
+                int[] cRow = c[i];
+                for (int k = 0; k < m; k++) {
+                    int aik = a[i][k];
+                    int[] bRow = b[k];
+                    for (int j = 0; j < m; j++) {
+                        cRow[j] += aik * bRow[j];
+                    }
+                }
+            }
+            return c;
+        });
+        IntMatrix product = time("IntMatrix 分块并行乘法 (" + m + "阶)", rounds, () -> flatA.multiply(flatB));
+        check("乘法", Arrays.deepEquals(expectedProduct, product.toArray()));
+    }
+
+    private static int[][] randomMatrix(int rows, int cols, long seed) {
+        Random random = new Random(seed);
+        int[][] matrix = new int[rows][cols];
+        for (int[] row : matrix) {
+            for (int c = 0; c < cols; c++) {
+                row[c] = random.nextInt(100);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * 预热后测量rounds轮，返回最后一轮的结果用于校验
+     */
+    private static <T> T time(String name, int rounds, Supplier<T> action) {
+        T result = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            result = action.get();
+        }
+        long total = 0;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long begin = System.nanoTime();
+            result = action.get();
+            long elapsed = System.nanoTime() - begin;
+            total += elapsed;
+            best = Math.min(best, elapsed);
+        }
+        blackhole = total + (result == null ? 0 : 1);
+        System.out.printf("%-40s %12.2f %12.2f%n", name, total / 1e6 / rounds, best / 1e6);
+        return result;
+    }
+
+    private static void check(String name, boolean ok) {
+        if (!ok) {
+            throw new IllegalStateException(name + "的结果不正确");
+        }
+        System.out.println("  -> " + name + "结果校验通过");
+    }
+}
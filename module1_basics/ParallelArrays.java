@@ -0,0 +1,521 @@
+/**
+ * 模块一：基础语法与环境搭建
+ * 并行数组工具
+ *
+ * Arrays工具类的sort、fill等方法只使用一个线程，数组达到数亿个元素时，
+ * 排序和扫描会成为批处理任务的瓶颈。本类基于ForkJoinPool提供多核并行版本：
+ * - sort(int[]) / sort(long[])：并行LSD基数排序，每轮按8位分桶，
+ *   各线程先统计本段的桶计数，再按全局偏移量把元素分散到辅助数组中；
+ *   所有元素该位相同的轮次直接跳过
+ * - sort(T[], Comparator)：并行归并排序，两半并行排序后再并行归并，是稳定排序
+ * - prefixSum / prefix：两遍扫描的并行前缀和（先求各段总和，再各段加上前面的偏移量）
+ * - fill / copy：把数组切成多段并行填充或复制
+ *
+ * 注意：基数排序和归并排序都需要一个与原数组等长的辅助数组，内存占用翻倍。
+ * 数组较小时直接调用Arrays中对应的单线程方法，避免任务调度开销。
+ */
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.LongBinaryOperator;
+
+public class ParallelArrays {
+    // 小于该长度时不并行
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    // 每段至少包含的元素数
+    private static final int MIN_CHUNK = 1 << 15;
+
+    // 基数排序每轮处理的位数和桶数
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+
+    private final ForkJoinPool pool;
+
+    public ParallelArrays() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelArrays(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // 把长度为length的数组分成多少段：每个线程约4段，便于负载均衡
+    private int chunkCount(int length) {
+        int byParallelism = pool.getParallelism() << 2;
+        int bySize = Math.max(1, length / MIN_CHUNK);
+        return Math.min(byParallelism, bySize);
+    }
+
+    // 第chunk段的起始下标
+    private static int chunkStart(int length, int chunks, int chunk) {
+        return (int) ((long) length * chunk / chunks);
+    }
+
+    // 并行执行body(0) ... body(chunks-1)
+    private void invokeChunks(int chunks, IntConsumer body) {
+        if (chunks == 1) {
+            body.accept(0);
+        } else {
+            pool.invoke(new ChunkTask(body, 0, chunks));
+        }
+    }
+
+    /**
+     * 对段编号区间二分拆分的任务
+     */
+    static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer body;
+        private final int lo;
+        private final int hi;
+
+        ChunkTask(IntConsumer body, int lo, int hi) {
+            this.body = body;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                body.accept(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(body, lo, mid), new ChunkTask(body, mid, hi));
+        }
+    }
+
+    // ===== 基数排序 =====
+
+    /**
+     * 并行基数排序int数组（升序）
+     */
+    public void sort(int[] a) {
+        int n = a.length;
+        if (n < SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        int chunks = chunkCount(n);
+        int[][] counts = new int[chunks][RADIX];
+        int[] src = a;
+        int[] dst = new int[n];
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            // 最高位字节翻转符号位，使负数排在正数前面
+            int flip = shift == Integer.SIZE - RADIX_BITS ? RADIX >>> 1 : 0;
+            if (radixPass(src, dst, shift, flip, chunks, counts)) {
+                int[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+        }
+        if (src != a) {
+            copy(src, 0, a, 0, n);
+        }
+    }
+
+    // 执行一轮分桶，所有元素在该位上相同时跳过并返回false
+    private boolean radixPass(int[] src, int[] dst, int shift, int flip, int chunks, int[][] counts) {
+        int n = src.length;
+        invokeChunks(chunks, c -> {
+            int[] count = counts[c];
+            Arrays.fill(count, 0);
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                count[((src[i] >>> shift) & RADIX_MASK) ^ flip]++;
+            }
+        });
+        if (!toOffsets(counts, n)) {
+            return false;
+        }
+        invokeChunks(chunks, c -> {
+            int[] offset = counts[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                int value = src[i];
+                dst[offset[((value >>> shift) & RADIX_MASK) ^ flip]++] = value;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 并行基数排序long数组（升序）
+     */
+    public void sort(long[] a) {
+        int n = a.length;
+        if (n < SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        int chunks = chunkCount(n);
+        int[][] counts = new int[chunks][RADIX];
+        long[] src = a;
+        long[] dst = new long[n];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            int flip = shift == Long.SIZE - RADIX_BITS ? RADIX >>> 1 : 0;
+            if (radixPass(src, dst, shift, flip, chunks, counts)) {
+                long[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+        }
+        if (src != a) {
+            copy(src, 0, a, 0, n);
+        }
+    }
+
+    private boolean radixPass(long[] src, long[] dst, int shift, int flip, int chunks, int[][] counts) {
+        int n = src.length;
+        invokeChunks(chunks, c -> {
+            int[] count = counts[c];
+            Arrays.fill(count, 0);
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                count[((int) (src[i] >>> shift) & RADIX_MASK) ^ flip]++;
+            }
+        });
+        if (!toOffsets(counts, n)) {
+            return false;
+        }
+        invokeChunks(chunks, c -> {
+            int[] offset = counts[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                long value = src[i];
+                dst[offset[((int) (value >>> shift) & RADIX_MASK) ^ flip]++] = value;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 把各段的桶计数原地转换为写入偏移量：
+     * 桶d在第c段的偏移 = 所有更小的桶的总数 + 第0..c-1段中桶d的个数。
+     * 如果所有元素都落在同一个桶里，本轮无需移动，返回false
+     */
+    private static boolean toOffsets(int[][] counts, int n) {
+        int position = 0;
+        for (int d = 0; d < RADIX; d++) {
+            int bucketStart = position;
+            for (int[] count : counts) {
+                int c = count[d];
+                count[d] = position;
+                position += c;
+            }
+            if (position - bucketStart == n) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ===== 归并排序 =====
+
+    /**
+     * 并行稳定归并排序
+     */
+    public <T> void sort(T[] a, Comparator<? super T> comparator) {
+        int n = a.length;
+        if (n < SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(a, comparator);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        T[] buffer = (T[]) Array.newInstance(a.getClass().getComponentType(), n);
+        int leafSize = Math.max(MIN_CHUNK, n / (pool.getParallelism() << 2));
+        pool.invoke(new MergeSortTask<>(a, buffer, 0, n, true, leafSize, comparator));
+    }
+
+    /**
+     * 对a[lo, hi)排序，结果放在a中（resultInA为true）或buffer中。
+     * 两个子区间的结果放在另一个数组里，再归并回来，避免每层都复制一次
+     */
+    static final class MergeSortTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] a;
+        private final T[] buffer;
+        private final int lo;
+        private final int hi;
+        private final boolean resultInA;
+        private final int leafSize;
+        private final Comparator<? super T> comparator;
+
+        MergeSortTask(T[] a, T[] buffer, int lo, int hi, boolean resultInA, int leafSize,
+                      Comparator<? super T> comparator) {
+            this.a = a;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+            this.resultInA = resultInA;
+            this.leafSize = leafSize;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= leafSize) {
+                Arrays.sort(a, lo, hi, comparator);  // TimSort，稳定
+                if (!resultInA) {
+                    System.arraycopy(a, lo, buffer, lo, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new MergeSortTask<>(a, buffer, lo, mid, !resultInA, leafSize, comparator),
+                    new MergeSortTask<>(a, buffer, mid, hi, !resultInA, leafSize, comparator));
+            T[] src = resultInA ? buffer : a;
+            T[] dst = resultInA ? a : buffer;
+            new MergeTask<>(src, lo, mid, mid, hi, dst, lo, leafSize, comparator).compute();
+        }
+    }
+
+    /**
+     * 并行归并两个有序区间：取较长区间的中点作为分界，在另一个区间中二分查找对应位置，
+     * 两侧分别归并。相等元素始终左区间在前，保证稳定
+     */
+    static final class MergeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final T[] dst;
+        private final int out;
+        private final int threshold;
+        private final Comparator<? super T> comparator;
+
+        MergeTask(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out, int threshold,
+                  Comparator<? super T> comparator) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.threshold = threshold;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int len1 = hi1 - lo1;
+            int len2 = hi2 - lo2;
+            if (len1 + len2 <= threshold) {
+                mergeSequential();
+                return;
+            }
+            int split1;
+            int split2;
+            if (len1 >= len2) {
+                split1 = (lo1 + hi1) >>> 1;
+                // 右区间中严格小于分界元素的排在它前面
+                split2 = lowerBound(src, lo2, hi2, src[split1], comparator);
+            } else {
+                split2 = (lo2 + hi2) >>> 1;
+                // 左区间中小于等于分界元素的排在它前面
+                split1 = upperBound(src, lo1, hi1, src[split2], comparator);
+            }
+            int outMid = out + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask<>(src, lo1, split1, lo2, split2, dst, out, threshold, comparator),
+                    new MergeTask<>(src, split1, hi1, split2, hi2, dst, outMid, threshold, comparator));
+        }
+
+        private void mergeSequential() {
+            int i = lo1;
+            int j = lo2;
+            int k = out;
+            while (i < hi1 && j < hi2) {
+                dst[k++] = comparator.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+            }
+            System.arraycopy(src, i, dst, k, hi1 - i);
+            System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+        }
+    }
+
+    // 第一个不小于key的位置
+    private static <T> int lowerBound(T[] a, int lo, int hi, T key, Comparator<? super T> comparator) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(a[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // 第一个大于key的位置
+    private static <T> int upperBound(T[] a, int lo, int hi, T key, Comparator<? super T> comparator) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(a[mid], key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // ===== 前缀和 =====
+
+    /**
+     * 原地计算包含式前缀和：a[i] = a[0] + ... + a[i]（溢出时按int回绕）
+     */
+    public void prefixSum(int[] a) {
+        int n = a.length;
+        int chunks = n < SEQUENTIAL_THRESHOLD ? 1 : chunkCount(n);
+        int[] offsets = new int[chunks];
+        // 第一遍：各段求和
+        invokeChunks(chunks, c -> {
+            int sum = 0;
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                sum += a[i];
+            }
+            offsets[c] = sum;
+        });
+        exclusiveScan(offsets);
+        // 第二遍：各段从自己的偏移量开始累加
+        invokeChunks(chunks, c -> {
+            int sum = offsets[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                sum += a[i];
+                a[i] = sum;
+            }
+        });
+    }
+
+    public void prefixSum(long[] a) {
+        int n = a.length;
+        int chunks = n < SEQUENTIAL_THRESHOLD ? 1 : chunkCount(n);
+        long[] offsets = new long[chunks];
+        invokeChunks(chunks, c -> {
+            long sum = 0;
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                sum += a[i];
+            }
+            offsets[c] = sum;
+        });
+        long acc = 0;
+        for (int c = 0; c < chunks; c++) {
+            long total = offsets[c];
+            offsets[c] = acc;
+            acc += total;
+        }
+        invokeChunks(chunks, c -> {
+            long sum = offsets[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                sum += a[i];
+                a[i] = sum;
+            }
+        });
+    }
+
+    /**
+     * 原地计算包含式前缀运算，op必须满足结合律，identity为其单位元
+     */
+    public void prefix(long[] a, long identity, LongBinaryOperator op) {
+        int n = a.length;
+        int chunks = n < SEQUENTIAL_THRESHOLD ? 1 : chunkCount(n);
+        long[] offsets = new long[chunks];
+        invokeChunks(chunks, c -> {
+            long acc = identity;
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                acc = op.applyAsLong(acc, a[i]);
+            }
+            offsets[c] = acc;
+        });
+        long acc = identity;
+        for (int c = 0; c < chunks; c++) {
+            long total = offsets[c];
+            offsets[c] = acc;
+            acc = op.applyAsLong(acc, total);
+        }
+        invokeChunks(chunks, c -> {
+            long value = offsets[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                value = op.applyAsLong(value, a[i]);
+                a[i] = value;
+            }
+        });
+    }
+
+    private static void exclusiveScan(int[] values) {
+        int acc = 0;
+        for (int i = 0; i < values.length; i++) {
+            int value = values[i];
+            values[i] = acc;
+            acc += value;
+        }
+    }
+
+    // ===== 填充与复制 =====
+
+    public void fill(int[] a, int value) {
+        int n = a.length;
+        if (n < SEQUENTIAL_THRESHOLD) {
+            Arrays.fill(a, value);
+            return;
+        }
+        int chunks = chunkCount(n);
+        invokeChunks(chunks, c -> Arrays.fill(a, chunkStart(n, chunks, c), chunkStart(n, chunks, c + 1), value));
+    }
+
+    public void fill(long[] a, long value) {
+        int n = a.length;
+        if (n < SEQUENTIAL_THRESHOLD) {
+            Arrays.fill(a, value);
+            return;
+        }
+        int chunks = chunkCount(n);
+        invokeChunks(chunks, c -> Arrays.fill(a, chunkStart(n, chunks, c), chunkStart(n, chunks, c + 1), value));
+    }
+
+    /**
+     * 与System.arraycopy参数相同，但src和dst不能是同一数组的重叠区间
+     */
+    public void copy(int[] src, int srcPos, int[] dst, int dstPos, int length) {
+        if (length < SEQUENTIAL_THRESHOLD) {
+            System.arraycopy(src, srcPos, dst, dstPos, length);
+            return;
+        }
+        int chunks = chunkCount(length);
+        invokeChunks(chunks, c -> {
+            int from = chunkStart(length, chunks, c);
+            System.arraycopy(src, srcPos + from, dst, dstPos + from, chunkStart(length, chunks, c + 1) - from);
+        });
+    }
+
+    public void copy(long[] src, int srcPos, long[] dst, int dstPos, int length) {
+        if (length < SEQUENTIAL_THRESHOLD) {
+            System.arraycopy(src, srcPos, dst, dstPos, length);
+            return;
+        }
+        int chunks = chunkCount(length);
+        invokeChunks(chunks, c -> {
+            int from = chunkStart(length, chunks, c);
+            System.arraycopy(src, srcPos + from, dst, dstPos + from, chunkStart(length, chunks, c + 1) - from);
+        });
+    }
+
+    public int[] copyOf(int[] src, int newLength) {
+        int[] result = new int[newLength];
+        copy(src, 0, result, 0, Math.min(src.length, newLength));
+        return result;
+    }
+
+    public long[] copyOf(long[] src, int newLength) {
+        long[] result = new long[newLength];
+        copy(src, 0, result, 0, Math.min(src.length, newLength));
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * 模块一：基础语法与环境搭建
+ * 示例5：并行数组操作基准测试
+ *
+ * 比较ParallelArrays与Arrays中单线程、并行方法的耗时：
+ * - int[] / long[]排序：Arrays.sort、Arrays.parallelSort、ParallelArrays.sort（基数排序）
+ * - 对象排序：Arrays.sort、Arrays.parallelSort、ParallelArrays.sort（并行归并排序）
+ * - 前缀和：顺序循环、Arrays.parallelPrefix、ParallelArrays.prefixSum
+ * - 填充与复制：Arrays.fill、System.arraycopy与对应的并行版本
+ * 每项先预热再测量多轮，输出平均和最短耗时；排序结果都会与Arrays.sort的结果比对。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java ParallelArraysBenchmark [元素个数] [测量轮数]
+ * 例如：
+ *   java -Xmx4g ParallelArraysBenchmark 20000000 5
+ */
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class ParallelArraysBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+
+    // 防止JIT把没有使用结果的计算优化掉
+    static volatile long blackhole;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        ParallelArrays parallel = new ParallelArrays();
+
+        System.out.println("===== 并行数组操作基准测试 =====");
+        System.out.println("元素个数: " + size + "，CPU核心数: " + Runtime.getRuntime().availableProcessors()
+                + "，测量轮数: " + rounds);
+        System.out.printf("%-36s %12s %12s%n", "操作", "平均(ms)", "最短(ms)");
+
+        Random random = new Random(42);
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+        }
+
+        // int[]排序
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        int[] workInts = new int[size];
+        time("int[] Arrays.sort", rounds, () -> System.arraycopy(ints, 0, workInts, 0, size),
+                () -> Arrays.sort(workInts));
+        time("int[] Arrays.parallelSort", rounds, () -> System.arraycopy(ints, 0, workInts, 0, size),
+                () -> Arrays.parallelSort(workInts));
+        time("int[] ParallelArrays.sort", rounds, () -> System.arraycopy(ints, 0, workInts, 0, size),
+                () -> parallel.sort(workInts));
+        check("int[]排序", Arrays.equals(expectedInts, workInts));
+
+        // long[]排序
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        long[] workLongs = new long[size];
+        time("long[] Arrays.sort", rounds, () -> System.arraycopy(longs, 0, workLongs, 0, size),
+                () -> Arrays.sort(workLongs));
+        time("long[] Arrays.parallelSort", rounds, () -> System.arraycopy(longs, 0, workLongs, 0, size),
+                () -> Arrays.parallelSort(workLongs));
+        time("long[] ParallelArrays.sort", rounds, () -> System.arraycopy(longs, 0, workLongs, 0, size),
+                () -> parallel.sort(workLongs));
+        check("long[]排序", Arrays.equals(expectedLongs, workLongs));
+
+        // 对象排序：按值的绝对值排序，绝对值相同的元素检验稳定性
+        int objectCount = Math.max(1, size / 4);
+        Integer[] boxed = new Integer[objectCount];
+        for (int i = 0; i < objectCount; i++) {
+            boxed[i] = ints[i] % 100_000;
+        }
+        Comparator<Integer> byAbs = Comparator.comparingInt(Math::abs);
+        Integer[] expectedBoxed = boxed.clone();
+        Arrays.sort(expectedBoxed, byAbs);
+        Integer[] workBoxed = new Integer[objectCount];
+        String objects = "Integer[" + objectCount + "] ";
+        time(objects + "Arrays.sort", rounds, () -> System.arraycopy(boxed, 0, workBoxed, 0, objectCount),
+                () -> Arrays.sort(workBoxed, byAbs));
+        time(objects + "Arrays.parallelSort", rounds,
+                () -> System.arraycopy(boxed, 0, workBoxed, 0, objectCount),
+                () -> Arrays.parallelSort(workBoxed, byAbs));
+        time(objects + "ParallelArrays.sort", rounds,
+                () -> System.arraycopy(boxed, 0, workBoxed, 0, objectCount),
+                () -> parallel.sort(workBoxed, byAbs));
+        // 两者都是稳定排序，结果中每个位置的对象应完全相同
+        boolean stable = true;
+        for (int i = 0; i < objectCount; i++) {
+            stable &= expectedBoxed[i] == workBoxed[i];
+        }
+        check("对象排序（稳定）", stable);
+
+        // 前缀和
+        long[] expectedPrefix = longs.clone();
+        for (int i = 1; i < size; i++) {
+            expectedPrefix[i] += expectedPrefix[i - 1];
+        }
+        time("long[] 前缀和 顺序循环", rounds, () -> System.arraycopy(longs, 0, workLongs, 0, size), () -> {
+            for (int i = 1; i < size; i++) {
+                workLongs[i] += workLongs[i - 1];
+            }
+        });
+        time("long[] Arrays.parallelPrefix", rounds, () -> System.arraycopy(longs, 0, workLongs, 0, size),
+                () -> Arrays.parallelPrefix(workLongs, Long::sum));
+        time("long[] ParallelArrays.prefixSum", rounds,
+                () -> System.arraycopy(longs, 0, workLongs, 0, size),
+                () -> parallel.prefixSum(workLongs));
+        check("前缀和", Arrays.equals(expectedPrefix, workLongs));
+
+        // 填充与复制
+        time("long[] Arrays.fill", rounds, () -> { }, () -> Arrays.fill(workLongs, 7L));
+        time("long[] ParallelArrays.fill", rounds, () -> { }, () -> parallel.fill(workLongs, 7L));
+        time("long[] System.arraycopy", rounds, () -> { },
+                () -> System.arraycopy(longs, 0, workLongs, 0, size));
+        time("long[] ParallelArrays.copy", rounds, () -> { },
+                () -> parallel.copy(longs, 0, workLongs, 0, size));
+        check("复制", Arrays.equals(longs, workLongs));
+    }
+
+    /**
+     * 先执行setup（不计时）再执行action（计时），预热后测量rounds轮
+     */
+    private static void time(String name, int rounds, Runnable setup, Runnable action) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            setup.run();
+            action.run();
+        }
+        long total = 0;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            setup.run();
+            long begin = System.nanoTime();
+            action.run();
+            long elapsed = System.nanoTime() - begin;
+            total += elapsed;
+            best = Math.min(best, elapsed);
+        }
+        blackhole = total;
+        System.out.printf("%-36s %12.2f %12.2f%n", name, total / 1e6 / rounds, best / 1e6);
+    }
+
+    private static void check(String name, boolean ok) {
+        if (!ok) {
+            throw new IllegalStateException(name + "的结果不正确");
+        }
+        System.out.println("  -> " + name + "结果校验通过");
+    }
+}
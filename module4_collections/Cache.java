@@ -0,0 +1,64 @@
+/**
+ * 模块四：集合框架&泛型
+ * 有界缓存接口
+ *
+ * 实现类：
+ * - LruCache：基于访问顺序的LinkedHashMap，按条目数或权重限制大小，支持写入后过期
+ * - TinyLfuCache：W-TinyLFU，用频率草图决定新条目能否挤掉旧条目，能抵抗扫描和一次性访问
+ * - StripedCache：把键按哈希分到多个加锁的分段中，供多线程并发访问
+ * 除StripedCache外，实现类都不是线程安全的。
+ */
+import java.util.function.Function;
+
+public interface Cache<K, V> {
+    /**
+     * 计算条目权重的函数，权重必须为非负数
+     */
+    @FunctionalInterface
+    interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * 返回缓存的值，不存在或已过期时返回null。会记录命中/未命中
+     */
+    V get(K key);
+
+    /**
+     * 放入键值对，必要时淘汰其他条目
+     */
+    void put(K key, V value);
+
+    /**
+     * 删除键，返回原来的值（不存在时返回null）
+     */
+    V remove(K key);
+
+    /**
+     * 命中时返回缓存的值，否则用loader加载并放入缓存（loader返回null时不缓存）
+     */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 当前条目数（可能包含尚未清理的过期条目）
+     */
+    int size();
+
+    /**
+     * 立即清理所有过期条目
+     */
+    void cleanUp();
+
+    void clear();
+
+    CacheStats stats();
+}
@@ -0,0 +1,62 @@
+/**
+ * 模块四：集合框架&泛型
+ * 缓存统计信息（不可变快照）
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 因容量不足被淘汰的条目数
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 因过期被清理的条目数
+     */
+    public long expirationCount() {
+        return expirationCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * 两份统计之和，用于合并多个分段的统计
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount,
+                evictionCount + other.evictionCount, expirationCount + other.expirationCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("命中率=%.2f%%, 命中=%d, 未命中=%d, 淘汰=%d, 过期=%d",
+                hitRate() * 100, hitCount, missCount, evictionCount, expirationCount);
+    }
+}
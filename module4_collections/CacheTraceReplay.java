@@ -0,0 +1,190 @@
+/**
+ * 模块四：集合框架&泛型
+ * 示例6：缓存访问轨迹回放
+ *
+ * 把一串键（访问轨迹）依次交给缓存：命中就继续，未命中就放入缓存，统计命中率和吞吐量。
+ * 内置的合成轨迹：
+ * - Zipf：少数键被频繁访问的典型热点分布
+ * - Zipf+扫描：Zipf访问中周期性夹杂大段只访问一次的新键（类似全表扫描），LRU的热点会被冲掉
+ * - 循环：按顺序循环访问比缓存稍多的键，LRU每次都恰好淘汰下一个要访问的键
+ * 也可以传入轨迹文件（每行一个键）回放真实访问记录。
+ * 最后用多个线程回放Zipf轨迹，比较单锁缓存与分段缓存的吞吐量。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java CacheTraceReplay [线程数] [轨迹文件]
+ */
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+public class CacheTraceReplay {
+    private static final int ITEMS = 100_000;
+    private static final int REQUESTS = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+
+        System.out.println("===== 缓存访问轨迹回放 =====");
+        Map<String, Integer[]> traces = new LinkedHashMap<>();
+        traces.put("Zipf(0.99)", zipfTrace(ITEMS, 0.99, REQUESTS, 1));
+        traces.put("Zipf+扫描", zipfWithScans(ITEMS, 0.99, REQUESTS, 2));
+        traces.put("循环(12000个键)", loopTrace(12_000, REQUESTS));
+        if (args.length > 1) {
+            traces.put(Paths.get(args[1]).getFileName().toString(), readTrace(args[1]));
+        }
+
+        List<String> names = Arrays.asList("LruCache", "TinyLfuCache", "StripedCache(TinyLFU×16)");
+        List<IntFunction<Cache<Integer, Integer>>> factories = new ArrayList<>();
+        factories.add(LruCache::new);
+        factories.add(TinyLfuCache::new);
+        factories.add(size -> StripedCache.tinyLfu(16, size));
+
+        System.out.printf("%n%-18s %8s %-26s %10s %12s %12s%n",
+                "轨迹", "容量", "策略", "命中率", "淘汰数", "吞吐(Mops/s)");
+        for (Map.Entry<String, Integer[]> trace : traces.entrySet()) {
+            for (int size : new int[]{1_000, 10_000}) {
+                for (int p = 0; p < names.size(); p++) {
+                    Cache<Integer, Integer> cache = factories.get(p).apply(size);
+                    long begin = System.nanoTime();
+                    CacheStats stats = replay(cache, trace.getValue(), 0, trace.getValue().length);
+                    long elapsed = System.nanoTime() - begin;
+                    System.out.printf("%-18s %8d %-26s %9.2f%% %12d %12.2f%n", trace.getKey(), size, names.get(p),
+                            stats.hitRate() * 100, stats.evictionCount(), trace.getValue().length * 1e3 / elapsed);
+                }
+            }
+        }
+
+        // 多线程吞吐量：单锁（只有1个分段）与64个分段
+        System.out.println("\n===== 并发吞吐量（Zipf，容量10000，" + threads + "个线程） =====");
+        Integer[] zipf = traces.get("Zipf(0.99)");
+        concurrentReplay("单锁 LruCache", StripedCache.lru(1, 10_000), zipf, threads);
+        concurrentReplay("分段 LruCache×64", StripedCache.lru(64, 10_000), zipf, threads);
+        concurrentReplay("单锁 TinyLfuCache", StripedCache.tinyLfu(1, 10_000), zipf, threads);
+        concurrentReplay("分段 TinyLfuCache×64", StripedCache.tinyLfu(64, 10_000), zipf, threads);
+    }
+
+    static CacheStats replay(Cache<Integer, Integer> cache, Integer[] trace, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Integer key = trace[i];
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        return cache.stats();
+    }
+
+    private static void concurrentReplay(String name, Cache<Integer, Integer> cache, Integer[] trace, int threads)
+            throws InterruptedException {
+        // 预热：先单线程回放一遍
+        replay(cache, trace, 0, trace.length);
+        CacheStats before = cache.stats();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            // 每个线程从轨迹的不同位置开始，避免所有线程同时访问相同的键
+            int offset = (int) ((long) trace.length * t / threads);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                replay(cache, trace, offset, trace.length);
+                replay(cache, trace, 0, offset);
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        CacheStats after = cache.stats();
+        long requests = after.requestCount() - before.requestCount();
+        double hitRate = (double) (after.hitCount() - before.hitCount()) / requests;
+        System.out.printf("%-22s 吞吐 %8.2f Mops/s，命中率 %.2f%%%n", name, requests * 1e3 / elapsed, hitRate * 100);
+    }
+
+    // 服从Zipf分布的访问轨迹：排名为k的键的访问概率与1/k^exponent成正比
+    private static Integer[] zipfTrace(int items, double exponent, int requests, long seed) {
+        double[] cdf = new double[items];
+        double sum = 0;
+        for (int k = 0; k < items; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        Integer[] keys = boxedKeys(items);
+        Random random = new Random(seed);
+        Integer[] trace = new Integer[requests];
+        for (int i = 0; i < requests; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            trace[i] = keys[Math.min(rank < 0 ? -rank - 1 : rank, items - 1)];
+        }
+        return trace;
+    }
+
+    // 每5万次Zipf访问后插入2万个只访问一次的新键
+    private static Integer[] zipfWithScans(int items, double exponent, int requests, long seed) {
+        Integer[] zipf = zipfTrace(items, exponent, requests, seed);
+        Integer[] trace = new Integer[requests];
+        int next = items;
+        for (int i = 0, z = 0; i < requests; ) {
+            for (int j = 0; j < 50_000 && i < requests; j++) {
+                trace[i++] = zipf[z++];
+            }
+            for (int j = 0; j < 20_000 && i < requests; j++) {
+                trace[i++] = next++;
+            }
+        }
+        return trace;
+    }
+
+    private static Integer[] loopTrace(int items, int requests) {
+        Integer[] keys = boxedKeys(items);
+        Integer[] trace = new Integer[requests];
+        for (int i = 0; i < requests; i++) {
+            trace[i] = keys[i % items];
+        }
+        return trace;
+    }
+
+    // 预先装箱，回放时不再创建Integer
+    private static Integer[] boxedKeys(int items) {
+        Integer[] keys = new Integer[items];
+        for (int i = 0; i < items; i++) {
+            keys[i] = i;
+        }
+        return keys;
+    }
+
+    // 每行一个键，相同的行映射到同一个编号
+    private static Integer[] readTrace(String path) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<Integer> trace = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+            String key = line.trim();
+            if (!key.isEmpty()) {
+                Integer id = ids.get(key);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(key, id);
+                }
+                trace.add(id);
+            }
+        }
+        return trace.toArray(new Integer[0]);
+    }
+}
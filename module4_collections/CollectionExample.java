@@ -3,7 +3,8 @@
  * 示例1：Collection集合
  * 
  * 本示例展示了Java集合框架中Collection接口的常用实现类，
- * 包括List接口（ArrayList, LinkedList）和Set接口（HashSet, TreeSet）的使用。
+ * 包括List接口（ArrayList, LinkedList）和Set接口（HashSet, TreeSet）的使用，
+ * 以及节省内存的ObjHashSet、IntHashSet、RoaringBitmap和SortedArraySet。
  */
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -98,6 +99,24 @@ public class CollectionExample {
         hashSet.remove("C++");
         System.out.println("删除后的HashSet: " + hashSet);
         
+        // 大量元素去重时，开放寻址的集合不为每个元素创建节点
+        ObjHashSet<String> compactSet = new ObjHashSet<>();
+        hashSet.forEach(compactSet::add);
+        compactSet.add("Go");
+        System.out.println("ObjHashSet内容: " + compactSet + "，是否包含'Java': " + compactSet.contains("Java"));
+        
+        // int ID可以直接存放：IntHashSet不装箱，RoaringBitmap对密集的ID每个只用不到1字节
+        IntHashSet idSet = new IntHashSet();
+        RoaringBitmap idBitmap = new RoaringBitmap();
+        for (int id = 1000; id < 101_000; id += 2) {
+            idSet.add(id);
+            idBitmap.add(id);
+        }
+        System.out.println("IntHashSet大小: " + idSet.size() + "，约" + idSet.estimatedBytes() / 1024 + "KB");
+        System.out.println("RoaringBitmap大小: " + idBitmap.size() + "，约" + idBitmap.estimatedBytes() / 1024 + "KB，"
+                + idBitmap.containerSummary());
+        System.out.println("是否包含ID 5000: " + idBitmap.contains(5000) + "，ID 5001: " + idBitmap.contains(5001));
+        
         // 4. TreeSet示例
         System.out.println("\n===== TreeSet示例 =====");
         
@@ -124,6 +143,11 @@ public class CollectionExample {
         System.out.println("大于3的元素: " + treeSet.tailSet(3, false));
         System.out.println("1到7之间的元素: " + treeSet.subSet(1, true, 7, true));
         
+        // 构建后只读的有序集合可以换成SortedArraySet：元素存放在一个排序的数组中，二分查找
+        SortedArraySet<Integer> sortedSet = SortedArraySet.copyOf(treeSet);
+        System.out.println("SortedArraySet内容: " + sortedSet + "，第3个元素: " + sortedSet.get(2));
+        System.out.println("大于等于4的最小元素: " + sortedSet.ceiling(4) + "，小于7的元素: " + sortedSet.headSet(7));
+        
         // 5. 遍历集合的方式
         System.out.println("\n===== 遍历集合的方式 =====");
         
@@ -0,0 +1,853 @@
+/**
+ * 模块四：集合框架&泛型
+ * 支持区间聚合的并发有序Map（值为double）
+ *
+ * TreeMap<String, Double>每个条目是一个红黑树节点加一个Double对象，只能单线程使用，
+ * 对一个区间求和也只能逐个遍历。本类是一棵B+树：
+ * - 叶子节点按键有序保存最多32个键和double值，叶子之间用双向链表相连，区间遍历只需顺着链表走
+ * - 内部节点除了分隔键和子节点，还保存每个子树的条目数、和、最小值、最大值（增强节点）。
+ *   对区间[from, to]聚合时，只有两条边界路径需要向下查找，中间被完全覆盖的子树直接使用保存的结果，
+ *   因此sum/min/max/count只需O(log n)次节点访问，而不是遍历区间内的所有条目
+ * - 修改时沿着从叶子到根的路径重新计算各层的聚合值（重新计算而非增减，避免浮点误差累积）
+ * - 删除时不做节点合并，只回收变空的节点；树高只在插入导致分裂时增长
+ * - 并发：ReentrantReadWriteLock，查询和区间聚合可以并行，修改互斥
+ *
+ * subMap/headMap/tailMap返回实时的区间视图，视图的forEach在读锁内顺着叶子链表遍历，
+ * Cursor每次在读锁内复制一个叶子中的条目到自己的缓冲区，之后从上次的键继续定位，
+ * 两者遍历时都不为条目创建任何对象。Cursor不在两次调用之间持有锁，能看到遍历期间的修改（弱一致）。
+ */
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjDoubleConsumer;
+
+public class ConcurrentDoubleTreeMap<K> {
+    // 叶子节点最多的键数，也是内部节点最多的子节点数
+    static final int ORDER = 32;
+
+    private abstract static class Node {
+        int size;
+    }
+
+    private static final class Leaf extends Node {
+        // 多留一个位置：先插入，超过ORDER后再分裂
+        final Object[] keys = new Object[ORDER + 1];
+        final double[] values = new double[ORDER + 1];
+        Leaf prev;
+        Leaf next;
+    }
+
+    /**
+     * children[i]中的键不小于keys[i - 1]且小于keys[i]；
+     * counts/sums/mins/maxs[i]是子树children[i]的聚合值
+     */
+    private static final class Internal extends Node {
+        final Object[] keys = new Object[ORDER];
+        final Node[] children = new Node[ORDER + 1];
+        final int[] counts = new int[ORDER + 1];
+        final double[] sums = new double[ORDER + 1];
+        final double[] mins = new double[ORDER + 1];
+        final double[] maxs = new double[ORDER + 1];
+    }
+
+    /**
+     * 区间聚合结果
+     */
+    public static final class Aggregate {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void add(long count, double sum, double min, double max) {
+            this.count += count;
+            this.sum += sum;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double sum() {
+            return sum;
+        }
+
+        /**
+         * 区间为空时返回NaN
+         */
+        public double min() {
+            return count == 0 ? Double.NaN : min;
+        }
+
+        /**
+         * 区间为空时返回NaN
+         */
+        public double max() {
+            return count == 0 ? Double.NaN : max;
+        }
+
+        /**
+         * 区间为空时返回NaN
+         */
+        public double average() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("条目数=%d, 和=%.2f, 最小=%.2f, 最大=%.2f, 平均=%.2f",
+                    count, sum, min(), max(), average());
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final double noEntryValue;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Leaf();
+    // 从根到叶子经过的内部节点层数，根是叶子时为0
+    private int height;
+    private int size;
+    // 修改都在写锁内进行，从根到叶子的路径复用这两个数组
+    private Internal[] pathNodes = new Internal[8];
+    private int[] pathIndex = new int[8];
+
+    /**
+     * 按键的自然顺序排序，不存在的键返回NaN
+     */
+    public ConcurrentDoubleTreeMap() {
+        this(null, Double.NaN);
+    }
+
+    /**
+     * @param comparator   键的比较器，null表示自然顺序
+     * @param noEntryValue 键不存在时get()/put()/remove()返回的值
+     */
+    public ConcurrentDoubleTreeMap(Comparator<? super K> comparator, double noEntryValue) {
+        this.comparator = comparator;
+        this.noEntryValue = noEntryValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return comparator != null ? comparator.compare((K) a, (K) b) : ((Comparable<Object>) a).compareTo(b);
+    }
+
+    // ---------- 查找 ----------
+
+    // 在叶子中二分查找key，找到时返回下标，否则返回 ~插入位置
+    private int search(Leaf leaf, Object key) {
+        int lo = 0;
+        int hi = leaf.size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(leaf.keys[mid], key);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return ~lo;
+    }
+
+    // key所在子树的下标：不大于key的分隔键个数
+    private int childIndex(Internal node, Object key) {
+        int lo = 0;
+        int hi = node.size - 2;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(node.keys[mid], key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private Leaf leafFor(Object key) {
+        Node node = root;
+        for (int d = 0; d < height; d++) {
+            Internal internal = (Internal) node;
+            node = internal.children[childIndex(internal, key)];
+        }
+        return (Leaf) node;
+    }
+
+    // 与leafFor相同，同时把经过的节点和子节点下标记录到路径数组中
+    private Leaf descend(Object key) {
+        Node node = root;
+        for (int d = 0; d < height; d++) {
+            Internal internal = (Internal) node;
+            int i = childIndex(internal, key);
+            pathNodes[d] = internal;
+            pathIndex[d] = i;
+            node = internal.children[i];
+        }
+        return (Leaf) node;
+    }
+
+    private Leaf firstLeaf() {
+        Node node = root;
+        for (int d = 0; d < height; d++) {
+            node = ((Internal) node).children[0];
+        }
+        return (Leaf) node;
+    }
+
+    private Leaf lastLeaf() {
+        Node node = root;
+        for (int d = 0; d < height; d++) {
+            Internal internal = (Internal) node;
+            node = internal.children[internal.size - 1];
+        }
+        return (Leaf) node;
+    }
+
+    // 叶子中第一个大于（inclusive时为大于等于）bound的下标
+    private int lowerIndex(Leaf leaf, Object bound, boolean inclusive) {
+        int lo = 0;
+        int hi = leaf.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(leaf.keys[mid], bound);
+            if (c < 0 || (c == 0 && !inclusive)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public double get(Object key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public double getOrDefault(Object key, double defaultValue) {
+        Objects.requireNonNull(key);
+        lock.readLock().lock();
+        try {
+            Leaf leaf = leafFor(key);
+            int pos = search(leaf, key);
+            return pos >= 0 ? leaf.values[pos] : defaultValue;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean containsKey(Object key) {
+        Objects.requireNonNull(key);
+        lock.readLock().lock();
+        try {
+            return search(leafFor(key), key) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public K firstKey() {
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            return (K) firstLeaf().keys[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public K lastKey() {
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            Leaf leaf = lastLeaf();
+            return (K) leaf.keys[leaf.size - 1];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // ---------- 修改 ----------
+
+    /**
+     * 放入键值对，返回原来的值（不存在时返回noEntryValue）
+     */
+    public double put(K key, double value) {
+        Objects.requireNonNull(key);
+        lock.writeLock().lock();
+        try {
+            Leaf leaf = descend(key);
+            int pos = search(leaf, key);
+            if (pos >= 0) {
+                double previous = leaf.values[pos];
+                leaf.values[pos] = value;
+                updatePath();
+                return previous;
+            }
+            insert(leaf, ~pos, key, value);
+            return noEntryValue;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 把key的值加上delta（不存在时从0开始），返回新值
+     */
+    public double addTo(K key, double delta) {
+        Objects.requireNonNull(key);
+        lock.writeLock().lock();
+        try {
+            Leaf leaf = descend(key);
+            int pos = search(leaf, key);
+            if (pos >= 0) {
+                double value = leaf.values[pos] += delta;
+                updatePath();
+                return value;
+            }
+            insert(leaf, ~pos, key, delta);
+            return delta;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除key，返回原来的值（不存在时返回noEntryValue）
+     */
+    public double remove(Object key) {
+        Objects.requireNonNull(key);
+        lock.writeLock().lock();
+        try {
+            Leaf leaf = descend(key);
+            int pos = search(leaf, key);
+            if (pos < 0) {
+                return noEntryValue;
+            }
+            double previous = leaf.values[pos];
+            int moved = leaf.size - pos - 1;
+            System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, moved);
+            System.arraycopy(leaf.values, pos + 1, leaf.values, pos, moved);
+            leaf.keys[--leaf.size] = null;
+            size--;
+
+            // 叶子变空时从父节点中删除，父节点变空时继续向上删除
+            boolean removeChild = leaf.size == 0 && height > 0;
+            if (removeChild) {
+                if (leaf.prev != null) {
+                    leaf.prev.next = leaf.next;
+                }
+                if (leaf.next != null) {
+                    leaf.next.prev = leaf.prev;
+                }
+            }
+            for (int d = height - 1; d >= 0; d--) {
+                Internal parent = pathNodes[d];
+                if (removeChild) {
+                    removeChild(parent, pathIndex[d]);
+                    removeChild = parent.size == 0 && d > 0;
+                } else {
+                    updateSlot(parent, pathIndex[d]);
+                }
+            }
+            // 根只剩一个子节点时降低树高
+            while (height > 0 && root.size == 1) {
+                root = ((Internal) root).children[0];
+                height--;
+            }
+            if (height > 0 && root.size == 0) {
+                root = new Leaf();
+                height = 0;
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = new Leaf();
+            height = 0;
+            size = 0;
+            Arrays.fill(pathNodes, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 值改变后重新计算路径上各层的聚合值
+    private void updatePath() {
+        for (int d = height - 1; d >= 0; d--) {
+            updateSlot(pathNodes[d], pathIndex[d]);
+        }
+    }
+
+    // 重新计算parent.children[i]的聚合值
+    private static void updateSlot(Internal parent, int i) {
+        Node child = parent.children[i];
+        int count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        if (child instanceof Leaf) {
+            Leaf leaf = (Leaf) child;
+            count = leaf.size;
+            for (int j = 0; j < leaf.size; j++) {
+                double v = leaf.values[j];
+                sum += v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        } else {
+            Internal internal = (Internal) child;
+            for (int j = 0; j < internal.size; j++) {
+                count += internal.counts[j];
+                sum += internal.sums[j];
+                min = Math.min(min, internal.mins[j]);
+                max = Math.max(max, internal.maxs[j]);
+            }
+        }
+        parent.counts[i] = count;
+        parent.sums[i] = sum;
+        parent.mins[i] = min;
+        parent.maxs[i] = max;
+    }
+
+    // 在叶子的pos处插入，必要时逐层向上分裂
+    private void insert(Leaf leaf, int pos, Object key, double value) {
+        int moved = leaf.size - pos;
+        System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, moved);
+        System.arraycopy(leaf.values, pos, leaf.values, pos + 1, moved);
+        leaf.keys[pos] = key;
+        leaf.values[pos] = value;
+        leaf.size++;
+        size++;
+
+        Node sibling = null;
+        Object separator = null;
+        if (leaf.size > ORDER) {
+            Leaf right = splitLeaf(leaf);
+            sibling = right;
+            separator = right.keys[0];
+        }
+        for (int d = height - 1; d >= 0; d--) {
+            Internal parent = pathNodes[d];
+            int i = pathIndex[d];
+            updateSlot(parent, i);
+            if (sibling != null) {
+                insertChild(parent, i + 1, separator, sibling);
+                updateSlot(parent, i + 1);
+                if (parent.size > ORDER) {
+                    int mid = (parent.size + 1) / 2;
+                    separator = parent.keys[mid - 1];
+                    sibling = splitInternal(parent, mid);
+                } else {
+                    sibling = null;
+                }
+            }
+        }
+        if (sibling != null) {
+            // 根节点分裂，树高加1
+            Internal newRoot = new Internal();
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.keys[0] = separator;
+            newRoot.size = 2;
+            updateSlot(newRoot, 0);
+            updateSlot(newRoot, 1);
+            root = newRoot;
+            height++;
+            if (height == pathNodes.length) {
+                pathNodes = Arrays.copyOf(pathNodes, height * 2);
+                pathIndex = Arrays.copyOf(pathIndex, height * 2);
+            }
+        }
+    }
+
+    // 把叶子的后一半移到新叶子中，返回新叶子
+    private static Leaf splitLeaf(Leaf leaf) {
+        int mid = leaf.size / 2;
+        Leaf right = new Leaf();
+        int moved = leaf.size - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, moved);
+        System.arraycopy(leaf.values, mid, right.values, 0, moved);
+        Arrays.fill(leaf.keys, mid, leaf.size, null);
+        right.size = moved;
+        leaf.size = mid;
+        right.next = leaf.next;
+        if (right.next != null) {
+            right.next.prev = right;
+        }
+        right.prev = leaf;
+        leaf.next = right;
+        return right;
+    }
+
+    // 把第mid个及之后的子节点移到新节点中，keys[mid - 1]由调用方提升到上一层
+    private static Internal splitInternal(Internal node, int mid) {
+        Internal right = new Internal();
+        int moved = node.size - mid;
+        System.arraycopy(node.children, mid, right.children, 0, moved);
+        System.arraycopy(node.counts, mid, right.counts, 0, moved);
+        System.arraycopy(node.sums, mid, right.sums, 0, moved);
+        System.arraycopy(node.mins, mid, right.mins, 0, moved);
+        System.arraycopy(node.maxs, mid, right.maxs, 0, moved);
+        System.arraycopy(node.keys, mid, right.keys, 0, moved - 1);
+        Arrays.fill(node.children, mid, node.size, null);
+        Arrays.fill(node.keys, mid - 1, node.size - 1, null);
+        right.size = moved;
+        node.size = mid;
+        return right;
+    }
+
+    // 在下标index处插入子节点，separator是它与左边子节点之间的分隔键
+    private static void insertChild(Internal parent, int index, Object separator, Node child) {
+        int moved = parent.size - index;
+        System.arraycopy(parent.children, index, parent.children, index + 1, moved);
+        System.arraycopy(parent.counts, index, parent.counts, index + 1, moved);
+        System.arraycopy(parent.sums, index, parent.sums, index + 1, moved);
+        System.arraycopy(parent.mins, index, parent.mins, index + 1, moved);
+        System.arraycopy(parent.maxs, index, parent.maxs, index + 1, moved);
+        System.arraycopy(parent.keys, index - 1, parent.keys, index, moved);
+        parent.children[index] = child;
+        parent.keys[index - 1] = separator;
+        parent.size++;
+    }
+
+    // 删除下标index处的子节点及其左侧的分隔键（index为0时删除右侧的分隔键）
+    private static void removeChild(Internal parent, int index) {
+        int moved = parent.size - index - 1;
+        System.arraycopy(parent.children, index + 1, parent.children, index, moved);
+        System.arraycopy(parent.counts, index + 1, parent.counts, index, moved);
+        System.arraycopy(parent.sums, index + 1, parent.sums, index, moved);
+        System.arraycopy(parent.mins, index + 1, parent.mins, index, moved);
+        System.arraycopy(parent.maxs, index + 1, parent.maxs, index, moved);
+        if (parent.size > 1) {
+            int keyIndex = Math.max(index - 1, 0);
+            System.arraycopy(parent.keys, keyIndex + 1, parent.keys, keyIndex, parent.size - 2 - keyIndex);
+            parent.keys[parent.size - 2] = null;
+        }
+        parent.size--;
+        parent.children[parent.size] = null;
+    }
+
+    // ---------- 区间视图 ----------
+
+    /**
+     * 键在[fromKey, toKey]之间的视图，两端是否包含由参数决定
+     */
+    public RangeView subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        Objects.requireNonNull(fromKey);
+        Objects.requireNonNull(toKey);
+        if (compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new RangeView(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * 键在[fromKey, toKey)之间的视图
+     */
+    public RangeView subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    /**
+     * 键小于（inclusive时为小于等于）toKey的视图
+     */
+    public RangeView headMap(K toKey, boolean inclusive) {
+        return new RangeView(null, false, Objects.requireNonNull(toKey), inclusive);
+    }
+
+    /**
+     * 键大于等于（inclusive为false时为大于）fromKey的视图
+     */
+    public RangeView tailMap(K fromKey, boolean inclusive) {
+        return new RangeView(Objects.requireNonNull(fromKey), inclusive, null, false);
+    }
+
+    /**
+     * 包含所有条目的视图
+     */
+    public RangeView all() {
+        return new RangeView(null, false, null, false);
+    }
+
+    /**
+     * 按键的顺序遍历所有条目
+     */
+    public void forEach(ObjDoubleConsumer<? super K> action) {
+        all().forEach(action);
+    }
+
+    /**
+     * 区间视图，反映Map的实时内容；from/to为null表示该端不受限制
+     */
+    public final class RangeView {
+        private final K from;
+        private final boolean fromInclusive;
+        private final K to;
+        private final boolean toInclusive;
+
+        private RangeView(K from, boolean fromInclusive, K to, boolean toInclusive) {
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+        }
+
+        private boolean tooLow(Object key) {
+            if (from == null) {
+                return false;
+            }
+            int c = compare(key, from);
+            return c < 0 || (c == 0 && !fromInclusive);
+        }
+
+        private boolean tooHigh(Object key) {
+            if (to == null) {
+                return false;
+            }
+            int c = compare(key, to);
+            return c > 0 || (c == 0 && !toInclusive);
+        }
+
+        /**
+         * 在读锁内按键的顺序遍历区间内的条目，遍历期间其他线程的修改会等待
+         */
+        @SuppressWarnings("unchecked")
+        public void forEach(ObjDoubleConsumer<? super K> action) {
+            lock.readLock().lock();
+            try {
+                Leaf leaf;
+                int i;
+                if (from == null) {
+                    leaf = firstLeaf();
+                    i = 0;
+                } else {
+                    leaf = leafFor(from);
+                    i = lowerIndex(leaf, from, fromInclusive);
+                }
+                for (; leaf != null; leaf = leaf.next, i = 0) {
+                    for (; i < leaf.size; i++) {
+                        Object key = leaf.keys[i];
+                        if (tooHigh(key)) {
+                            return;
+                        }
+                        action.accept((K) key, leaf.values[i]);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 区间内的条目数、和、最小值、最大值，O(log n)
+         */
+        public Aggregate aggregate() {
+            Aggregate result = new Aggregate();
+            lock.readLock().lock();
+            try {
+                aggregate(root, height, from != null, to != null, result);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return result;
+        }
+
+        // checkLow/checkHigh为false表示该子树的键已确定不低于下界/不高于上界
+        private void aggregate(Node node, int level, boolean checkLow, boolean checkHigh, Aggregate result) {
+            if (level == 0) {
+                Leaf leaf = (Leaf) node;
+                for (int i = checkLow ? lowerIndex(leaf, from, fromInclusive) : 0; i < leaf.size; i++) {
+                    if (checkHigh && tooHigh(leaf.keys[i])) {
+                        break;
+                    }
+                    result.add(leaf.values[i]);
+                }
+                return;
+            }
+            Internal internal = (Internal) node;
+            int lo = checkLow ? childIndex(internal, from) : 0;
+            int hi = checkHigh ? childIndex(internal, to) : internal.size - 1;
+            if (lo == hi) {
+                aggregate(internal.children[lo], level - 1, checkLow, checkHigh, result);
+                return;
+            }
+            aggregate(internal.children[lo], level - 1, checkLow, false, result);
+            // 中间的子树完全落在区间内，直接使用保存的聚合值
+            for (int i = lo + 1; i < hi; i++) {
+                result.add(internal.counts[i], internal.sums[i], internal.mins[i], internal.maxs[i]);
+            }
+            aggregate(internal.children[hi], level - 1, false, checkHigh, result);
+        }
+
+        public long count() {
+            return aggregate().count();
+        }
+
+        public double sum() {
+            return aggregate().sum();
+        }
+
+        public double min() {
+            return aggregate().min();
+        }
+
+        public double max() {
+            return aggregate().max();
+        }
+
+        public double average() {
+            return aggregate().average();
+        }
+
+        /**
+         * 创建一个可重复使用的游标
+         */
+        public Cursor cursor() {
+            return new Cursor(this);
+        }
+    }
+
+    /**
+     * 区间游标：
+     * <pre>
+     * Cursor cursor = map.subMap(a, b).cursor();
+     * while (cursor.next()) {
+     *     use(cursor.key(), cursor.value());
+     * }
+     * </pre>
+     */
+    public final class Cursor {
+        private final RangeView view;
+        private final Object[] keys = new Object[ORDER + 1];
+        private final double[] values = new double[ORDER + 1];
+        private int position;
+        private int limit;
+        private boolean started;
+        private boolean exhausted;
+
+        private Cursor(RangeView view) {
+            this.view = view;
+            reset();
+        }
+
+        /**
+         * 回到区间开头
+         */
+        public void reset() {
+            position = -1;
+            limit = 0;
+            started = false;
+            exhausted = false;
+        }
+
+        /**
+         * 移动到下一个条目，没有更多条目时返回false
+         */
+        public boolean next() {
+            if (position + 1 < limit) {
+                position++;
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            fill();
+            position = 0;
+            return limit > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K key() {
+            return (K) keys[position];
+        }
+
+        public double value() {
+            return values[position];
+        }
+
+        // 在读锁内定位到上次的位置之后，复制一个叶子中的剩余条目
+        private void fill() {
+            lock.readLock().lock();
+            try {
+                Leaf leaf;
+                int i;
+                if (!started) {
+                    started = true;
+                    if (view.from == null) {
+                        leaf = firstLeaf();
+                        i = 0;
+                    } else {
+                        leaf = leafFor(view.from);
+                        i = lowerIndex(leaf, view.from, view.fromInclusive);
+                    }
+                } else {
+                    Object lastKey = keys[limit - 1];
+                    leaf = leafFor(lastKey);
+                    i = lowerIndex(leaf, lastKey, false);
+                }
+                if (i == leaf.size) {
+                    leaf = leaf.next;
+                    i = 0;
+                }
+                limit = 0;
+                if (leaf == null) {
+                    exhausted = true;
+                    return;
+                }
+                for (; i < leaf.size; i++) {
+                    Object key = leaf.keys[i];
+                    if (view.tooHigh(key)) {
+                        exhausted = true;
+                        break;
+                    }
+                    keys[limit] = key;
+                    values[limit] = leaf.values[i];
+                    limit++;
+                }
+                if (leaf.next == null) {
+                    exhausted = true;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * 模块四：集合框架&泛型
+ * 用于TinyLFU的访问频率草图（Count-Min Sketch）
+ *
+ * 为每个访问过的键精确计数需要与键数量成正比的内存。Count-Min Sketch只用一个固定大小的计数器表：
+ * 每个键映射到4个计数器，访问时把这4个计数器各加1，查询时取其中的最小值。
+ * 不同的键可能共用计数器，因此估计值只会偏大、不会偏小。
+ * - 每个计数器4位（最大15），一个long存放16个计数器，表的大小与缓存容量相当
+ * - 累计访问次数达到容量的10倍时，所有计数器减半（老化），让频率反映最近一段时间的热度
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int size = Math.max(1, Math.min(maximumSize, 1 << 30));
+        int length = Integer.highestOneBit(size - 1) << 1;
+        table = new long[Math.max(length, 1)];
+        tableMask = table.length - 1;
+        sampleSize = (int) Math.min(10L * size, Integer.MAX_VALUE);
+    }
+
+    // 第i个哈希函数对应的long下标
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /**
+     * 估计key的访问次数（0~15）
+     */
+    int frequency(Object key) {
+        int hash = PrimitiveHashing.mix(key.hashCode());
+        // 用哈希值的低2位在long中选择一组16个计数器中的4个
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int shift = (start + i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    void increment(Object key) {
+        int hash = PrimitiveHashing.mix(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    // 第index个long中的第offset个计数器加1，已达到最大值时返回false
+    private boolean incrementAt(int index, int offset) {
+        int shift = offset << 2;
+        long mask = 0xFL << shift;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << shift;
+            return true;
+        }
+        return false;
+    }
+
+    // 所有计数器减半
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * 模块四：集合框架&泛型
+ * int到int的开放寻址哈希表
+ *
+ * HashMap<Integer, Integer>中每个条目都是一个Node对象，键和值又各是一个Integer对象，
+ * 一个条目大约占用50~80字节。本类把键和值分别存放在两个int数组中：
+ * - 线性探测：冲突时依次检查下一个槽位，连续的内存访问对缓存友好
+ * - 删除时把后面的元素前移填补空位（backward shift），不留"墓碑"，探测链不会越来越长
+ * - 键0用作空槽位标记，真正的键0单独保存在字段中
+ * - get、put、addTo、merge、forEach都直接使用int，不装箱，插入时不创建任何对象
+ * 一个条目平均只占 8字节 / 负载因子 ≈ 11~21字节。
+ */
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+public class IntIntMap {
+    private static final int FREE = 0;
+
+    /**
+     * 遍历键值对的回调
+     */
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private final float loadFactor;
+    private final int noEntryValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int threshold;
+    // 表中的元素数，不含键0
+    private int size;
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expectedSize) {
+        this(expectedSize, 0, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param noEntryValue 键不存在时get()/put()/remove()返回的值
+     */
+    public IntIntMap(int expectedSize, int noEntryValue, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("负载因子必须在(0, 1)之间: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = PrimitiveHashing.threshold(capacity, loadFactor);
+    }
+
+    // 返回key所在的槽位；不存在时返回 ~插入位置（负数）
+    private int slot(int key) {
+        int i = PrimitiveHashing.mix(key) & mask;
+        int k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        int slot = slot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE ? hasFreeKey : slot(key) >= 0;
+    }
+
+    /**
+     * 放入键值对，返回原来的值（不存在时返回noEntryValue）
+     */
+    public int put(int key, int value) {
+        if (key == FREE) {
+            int previous = hasFreeKey ? freeKeyValue : noEntryValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insertAt(~slot, key, value);
+        return noEntryValue;
+    }
+
+    /**
+     * 把key的值加上delta（不存在时从noEntryValue开始），返回新值
+     */
+    public int addTo(int key, int delta) {
+        if (key == FREE) {
+            freeKeyValue = (hasFreeKey ? freeKeyValue : noEntryValue) + delta;
+            hasFreeKey = true;
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            return values[slot] += delta;
+        }
+        int value = noEntryValue + delta;
+        insertAt(~slot, key, value);
+        return value;
+    }
+
+    /**
+     * 键不存在时放入value，存在时放入function(原值, value)，返回新值
+     */
+    public int merge(int key, int value, IntBinaryOperator function) {
+        if (key == FREE) {
+            freeKeyValue = hasFreeKey ? function.applyAsInt(freeKeyValue, value) : value;
+            hasFreeKey = true;
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            return values[slot] = function.applyAsInt(values[slot], value);
+        }
+        insertAt(~slot, key, value);
+        return value;
+    }
+
+    private void insertAt(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 删除key，返回原来的值（不存在时返回noEntryValue）
+     */
+    public int remove(int key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return noEntryValue;
+            }
+            hasFreeKey = false;
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        int previous = values[slot];
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
+
+    // 删除slot上的元素，并把探测链上后面的元素前移
+    private void shiftKeys(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int k = keys[i];
+            if (k == FREE) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(PrimitiveHashing.mix(k) & mask, gap, i, mask)) {
+                keys[gap] = k;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("元素过多: " + size);
+        }
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != FREE) {
+                int slot = PrimitiveHashing.mix(k) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE, freeKeyValue);
+        }
+        int[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != FREE) {
+                consumer.accept(k[i], v[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size + (hasFreeKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFreeKey = false;
+    }
+
+    /**
+     * 两个数组占用的内存估算（字节）
+     */
+    public long estimatedBytes() {
+        return 2L * (PrimitiveHashing.ARRAY_HEADER_BYTES + (long) keys.length * Integer.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
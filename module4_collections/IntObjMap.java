@@ -0,0 +1,252 @@
+/**
+ * 模块四：集合框架&泛型
+ * int到对象的开放寻址哈希表
+ *
+ * 用来替代HashMap<Integer, V>：键存放在int[]中，值存放在Object[]中，
+ * 线性探测，删除时前移后续元素；键0作为空槽位标记，真正的键0单独保存。
+ * 值可以为null，用containsKey区分"不存在"和"值为null"。
+ */
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+public class IntObjMap<V> {
+    private static final int FREE = 0;
+
+    /**
+     * 遍历键值对的回调
+     */
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    private final float loadFactor;
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+    // 表中的元素数，不含键0
+    private int size;
+    private boolean hasFreeKey;
+    private V freeKeyValue;
+
+    public IntObjMap() {
+        this(16);
+    }
+
+    public IntObjMap(int expectedSize) {
+        this(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntObjMap(int expectedSize, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("负载因子必须在(0, 1)之间: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = PrimitiveHashing.threshold(capacity, loadFactor);
+    }
+
+    // 返回key所在的槽位；不存在时返回 ~插入位置（负数）
+    private int slot(int key) {
+        int i = PrimitiveHashing.mix(key) & mask;
+        int k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    public V get(int key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        int slot = slot(key);
+        return slot >= 0 ? (V) values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE ? hasFreeKey : slot(key) >= 0;
+    }
+
+    /**
+     * 放入键值对，返回原来的值（不存在时返回null）
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == FREE) {
+            V previous = freeKeyValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insertAt(~slot, key, value);
+        return null;
+    }
+
+    /**
+     * 键不存在时用mappingFunction创建值并放入，返回键对应的值。
+     * mappingFunction的参数是int，不会为键创建Integer
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                freeKeyValue = mappingFunction.apply(key);
+                hasFreeKey = true;
+            }
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        V value = mappingFunction.apply(key);
+        // mappingFunction可能修改了本表，重新查找插入位置
+        slot = slot(key);
+        if (slot >= 0) {
+            values[slot] = value;
+        } else {
+            insertAt(~slot, key, value);
+        }
+        return value;
+    }
+
+    private void insertAt(int slot, int key, V value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 删除key，返回原来的值（不存在时返回null）
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == FREE) {
+            V previous = freeKeyValue;
+            hasFreeKey = false;
+            freeKeyValue = null;
+            return previous;
+        }
+        int slot = slot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
+
+    // 删除slot上的元素，并把探测链上后面的元素前移
+    private void shiftKeys(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int k = keys[i];
+            if (k == FREE) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(PrimitiveHashing.mix(k) & mask, gap, i, mask)) {
+                keys[gap] = k;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+        // 释放对值的引用，便于垃圾回收
+        values[gap] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("元素过多: " + size);
+        }
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != FREE) {
+                int slot = PrimitiveHashing.mix(k) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE, freeKeyValue);
+        }
+        int[] k = keys;
+        Object[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != FREE) {
+                consumer.accept(k[i], (V) v[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size + (hasFreeKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        size = 0;
+        hasFreeKey = false;
+        freeKeyValue = null;
+    }
+
+    /**
+     * 两个数组占用的内存估算（字节，不含值对象本身，引用按4字节的压缩指针计算）
+     */
+    public long estimatedBytes() {
+        return 2L * (PrimitiveHashing.ARRAY_HEADER_BYTES + (long) keys.length * Integer.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * 模块四：集合框架&泛型
+ * 示例5：Properties文件与内存映射键值存储的对比
+ *
+ * 用同样的N个配置项比较：
+ * - Properties：store()重写整个文件，load()重新解析所有条目
+ * - MappedKeyValueStore：逐条追加写入，正常关闭后再次打开只需映射索引
+ * 另外测量随机查询、修改10%的条目（只追加，不重写）、压缩，以及非正常关闭后重建索引的耗时。
+ * 非正常关闭通过"不调用close()就重新打开"来模拟。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java KeyValueStoreBenchmark [条目数] [目录]
+ * 例如：
+ *   java KeyValueStoreBenchmark 1000000 /tmp/kv
+ */
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.Random;
+
+public class KeyValueStoreBenchmark {
+    private static final int LOOKUPS = 1_000_000;
+
+    // 防止JIT把没有使用结果的计算优化掉
+    static volatile long blackhole;
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("kv-benchmark");
+        Files.createDirectories(dir);
+        Path propertiesPath = dir.resolve("config.properties");
+        Path storePath = dir.resolve("config.kv");
+        Files.deleteIfExists(storePath);
+        Files.deleteIfExists(storePath.resolveSibling(storePath.getFileName() + ".index"));
+
+        System.out.println("===== Properties与内存映射键值存储对比 =====");
+        System.out.println("条目数: " + n + "，目录: " + dir);
+        System.out.printf("%-36s %12s%n", "操作", "耗时(ms)");
+
+        // Properties
+        Properties properties = new Properties();
+        for (int i = 0; i < n; i++) {
+            properties.setProperty(key(i), value(i, 0));
+        }
+        long begin = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(propertiesPath)) {
+            properties.store(out, "benchmark");
+        }
+        print("Properties.store（写入全部）", begin);
+        begin = System.nanoTime();
+        Properties loaded = new Properties();
+        try (InputStream in = Files.newInputStream(propertiesPath)) {
+            loaded.load(in);
+        }
+        print("Properties.load（解析全部）", begin);
+        check("Properties条目数", loaded.size() == n);
+
+        // MappedKeyValueStore
+        begin = System.nanoTime();
+        try (MappedKeyValueStore store = MappedKeyValueStore.open(storePath)) {
+            for (int i = 0; i < n; i++) {
+                store.put(key(i), value(i, 0));
+            }
+        }
+        print("MappedKeyValueStore 写入全部并关闭", begin);
+
+        begin = System.nanoTime();
+        MappedKeyValueStore store = MappedKeyValueStore.open(storePath);
+        print("MappedKeyValueStore 打开（正常关闭后）", begin);
+        check("打开时不需要重建索引", !store.indexRebuilt() && store.size() == n);
+
+        Random random = new Random(42);
+        begin = System.nanoTime();
+        long length = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            length += store.get(key(random.nextInt(n))).length();
+        }
+        print("MappedKeyValueStore " + LOOKUPS + "次随机get", begin);
+        random = new Random(42);
+        begin = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            length += loaded.getProperty(key(random.nextInt(n))).length();
+        }
+        print("Properties " + LOOKUPS + "次随机getProperty", begin);
+        blackhole = length;
+
+        // 增量修改：只追加被修改的条目
+        begin = System.nanoTime();
+        for (int i = 0; i < n; i += 10) {
+            store.put(key(i), value(i, 1));
+        }
+        store.sync();
+        print("修改10%的条目并sync", begin);
+        System.out.printf("  -> 数据 %.1f MB，其中可回收 %.1f MB%n",
+                store.dataBytes() / 1048576.0, store.garbageBytes() / 1048576.0);
+
+        // 模拟崩溃：不关闭就重新打开，索引需要从数据文件重建
+        begin = System.nanoTime();
+        MappedKeyValueStore recovered = MappedKeyValueStore.open(storePath);
+        print("非正常关闭后打开（重建索引）", begin);
+        check("重建后的内容", recovered.indexRebuilt() && recovered.size() == n
+                && value(10, 1).equals(recovered.get(key(10))) && value(11, 0).equals(recovered.get(key(11))));
+
+        begin = System.nanoTime();
+        recovered.compact();
+        print("compact", begin);
+        System.out.printf("  -> 压缩后数据 %.1f MB%n", recovered.dataBytes() / 1048576.0);
+        recovered.close();
+
+        begin = System.nanoTime();
+        try (MappedKeyValueStore reopened = MappedKeyValueStore.open(storePath)) {
+            print("压缩并关闭后再次打开", begin);
+            check("压缩后的内容", !reopened.indexRebuilt() && reopened.size() == n
+                    && value(n - 1, (n - 1) % 10 == 0 ? 1 : 0).equals(reopened.get(key(n - 1))));
+        }
+    }
+
+    private static String key(int i) {
+        return "app.module" + (i % 100) + ".setting" + i;
+    }
+
+    private static String value(int i, int version) {
+        return "value-" + i + "-v" + version;
+    }
+
+    private static void print(String name, long begin) {
+        System.out.printf("%-36s %12.2f%n", name, (System.nanoTime() - begin) / 1e6);
+    }
+
+    private static void check(String name, boolean ok) {
+        if (!ok) {
+            throw new IllegalStateException(name + "不正确");
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * 模块四：集合框架&泛型
+ * long的开放寻址哈希集合
+ *
+ * HashSet<Long>的每个元素是一个Node加一个Long，大约占用55~65字节；
+ * 本类把元素直接存放在一个long[]中，一个元素平均只占 8字节 / 负载因子 ≈ 11~21字节：
+ * - 线性探测，删除时前移后续元素，不留"墓碑"
+ * - 0用作空槽位标记，真正的元素0单独用一个字段记录
+ * 适合超出int范围的ID（例如时间戳加序号组成的ID）；ID能放进int时，IntHashSet或RoaringBitmap更省内存。
+ */
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+public class LongHashSet {
+    private static final long FREE = 0L;
+
+    private final float loadFactor;
+    private long[] elements;
+    private int mask;
+    private int threshold;
+    // 表中的元素数，不含0
+    private int size;
+    private boolean hasFreeKey;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        this(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongHashSet(int expectedSize, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("负载因子必须在(0, 1)之间: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    private void allocate(int capacity) {
+        elements = new long[capacity];
+        mask = capacity - 1;
+        threshold = PrimitiveHashing.threshold(capacity, loadFactor);
+    }
+
+    // 返回element所在的槽位；不存在时返回 ~插入位置（负数）
+    private int slot(long element) {
+        int i = PrimitiveHashing.mix(element) & mask;
+        long e;
+        while ((e = elements[i]) != FREE) {
+            if (e == element) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    public boolean contains(long element) {
+        return element == FREE ? hasFreeKey : slot(element) >= 0;
+    }
+
+    /**
+     * 加入元素，已存在时返回false
+     */
+    public boolean add(long element) {
+        if (element == FREE) {
+            boolean added = !hasFreeKey;
+            hasFreeKey = true;
+            return added;
+        }
+        int slot = slot(element);
+        if (slot >= 0) {
+            return false;
+        }
+        elements[~slot] = element;
+        if (++size > threshold) {
+            rehash(elements.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * 删除元素，不存在时返回false
+     */
+    public boolean remove(long element) {
+        if (element == FREE) {
+            boolean removed = hasFreeKey;
+            hasFreeKey = false;
+            return removed;
+        }
+        int slot = slot(element);
+        if (slot < 0) {
+            return false;
+        }
+        shiftKeys(slot);
+        size--;
+        return true;
+    }
+
+    // 删除slot上的元素，并把探测链上后面的元素前移
+    private void shiftKeys(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long e = elements[i];
+            if (e == FREE) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(PrimitiveHashing.mix(e) & mask, gap, i, mask)) {
+                elements[gap] = e;
+                gap = i;
+            }
+        }
+        elements[gap] = FREE;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("元素过多: " + size);
+        }
+        long[] oldElements = elements;
+        allocate(newCapacity);
+        for (long e : oldElements) {
+            if (e != FREE) {
+                int slot = PrimitiveHashing.mix(e) & mask;
+                while (elements[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                elements[slot] = e;
+            }
+        }
+    }
+
+    public void forEach(LongConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE);
+        }
+        for (long e : elements) {
+            if (e != FREE) {
+                consumer.accept(e);
+            }
+        }
+    }
+
+    public int size() {
+        return size + (hasFreeKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(elements, FREE);
+        size = 0;
+        hasFreeKey = false;
+    }
+
+    /**
+     * 数组占用的内存估算（字节）
+     */
+    public long estimatedBytes() {
+        return PrimitiveHashing.ARRAY_HEADER_BYTES + (long) elements.length * Long.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(element -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(element);
+        });
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * 模块四：集合框架&泛型
+ * long到long的开放寻址哈希表
+ *
+ * 与IntIntMap结构相同：键和值分别存放在两个long数组中，线性探测，删除时前移后续元素，
+ * 键0作为空槽位标记、真正的键0单独保存。适合ID到计数、时间戳到偏移量之类的映射，
+ * 相比HashMap<Long, Long>省去了每个条目的Node和两个Long对象。
+ */
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+
+public class LongLongMap {
+    private static final long FREE = 0L;
+
+    /**
+     * 遍历键值对的回调
+     */
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private final float loadFactor;
+    private final long noEntryValue;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int threshold;
+    // 表中的元素数，不含键0
+    private int size;
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    public LongLongMap(int expectedSize) {
+        this(expectedSize, 0L, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param noEntryValue 键不存在时get()/put()/remove()返回的值
+     */
+    public LongLongMap(int expectedSize, long noEntryValue, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("负载因子必须在(0, 1)之间: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = PrimitiveHashing.threshold(capacity, loadFactor);
+    }
+
+    // 返回key所在的槽位；不存在时返回 ~插入位置（负数）
+    private int slot(long key) {
+        int i = PrimitiveHashing.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    public long get(long key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        int slot = slot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE ? hasFreeKey : slot(key) >= 0;
+    }
+
+    /**
+     * 放入键值对，返回原来的值（不存在时返回noEntryValue）
+     */
+    public long put(long key, long value) {
+        if (key == FREE) {
+            long previous = hasFreeKey ? freeKeyValue : noEntryValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            long previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        insertAt(~slot, key, value);
+        return noEntryValue;
+    }
+
+    /**
+     * 把key的值加上delta（不存在时从noEntryValue开始），返回新值
+     */
+    public long addTo(long key, long delta) {
+        if (key == FREE) {
+            freeKeyValue = (hasFreeKey ? freeKeyValue : noEntryValue) + delta;
+            hasFreeKey = true;
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            return values[slot] += delta;
+        }
+        long value = noEntryValue + delta;
+        insertAt(~slot, key, value);
+        return value;
+    }
+
+    /**
+     * 键不存在时放入value，存在时放入function(原值, value)，返回新值
+     */
+    public long merge(long key, long value, LongBinaryOperator function) {
+        if (key == FREE) {
+            freeKeyValue = hasFreeKey ? function.applyAsLong(freeKeyValue, value) : value;
+            hasFreeKey = true;
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot >= 0) {
+            return values[slot] = function.applyAsLong(values[slot], value);
+        }
+        insertAt(~slot, key, value);
+        return value;
+    }
+
+    private void insertAt(int slot, long key, long value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 删除key，返回原来的值（不存在时返回noEntryValue）
+     */
+    public long remove(long key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return noEntryValue;
+            }
+            hasFreeKey = false;
+            return freeKeyValue;
+        }
+        int slot = slot(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        long previous = values[slot];
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
+
+    // 删除slot上的元素，并把探测链上后面的元素前移
+    private void shiftKeys(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long k = keys[i];
+            if (k == FREE) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(PrimitiveHashing.mix(k) & mask, gap, i, mask)) {
+                keys[gap] = k;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("元素过多: " + size);
+        }
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != FREE) {
+                int slot = PrimitiveHashing.mix(k) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE, freeKeyValue);
+        }
+        long[] k = keys;
+        long[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != FREE) {
+                consumer.accept(k[i], v[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size + (hasFreeKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFreeKey = false;
+    }
+
+    /**
+     * 两个数组占用的内存估算（字节）
+     */
+    public long estimatedBytes() {
+        return 2L * (PrimitiveHashing.ARRAY_HEADER_BYTES + (long) keys.length * Long.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * 模块四：集合框架&泛型
+ * 基于LinkedHashMap的LRU缓存
+ *
+ * LinkedHashMap以accessOrder=true构造时，每次get/put都会把条目移到链表末尾，
+ * 链表头部就是最久未使用的条目；插入新键后会调用removeEldestEntry()，
+ * 本类在其中从头部开始淘汰，直到总权重不超过上限。
+ * - 按条目数限制：每个条目权重为1
+ * - 按权重限制：由Weigher计算每个条目的权重（例如字节数），一次插入可能淘汰多个条目
+ * - 写入后过期：读取时发现过期就删除并视为未命中，cleanUp()清理全部过期条目
+ * 非线程安全，并发访问请使用StripedCache。
+ */
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class LruCache<K, V> implements Cache<K, V> {
+    private static final class CacheEntry<V> {
+        final V value;
+        final int weight;
+        // 过期时间（ticker的纳秒值），0表示不过期
+        final long expiresAt;
+
+        CacheEntry(V value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 插入新键后由LinkedHashMap回调，按权重淘汰最久未使用的条目
+     */
+    private final class AccessOrderMap extends LinkedHashMap<K, CacheEntry<V>> {
+        private static final long serialVersionUID = 1L;
+
+        AccessOrderMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+            evictOverweight();
+            // 已经自己删除了条目，按约定返回false
+            return false;
+        }
+    }
+
+    private final AccessOrderMap map = new AccessOrderMap();
+    private final long maximumWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private long totalWeight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * 最多maximumSize个条目，不过期
+     */
+    public LruCache(int maximumSize) {
+        this(maximumSize, (key, value) -> 1, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param maximumWeight         所有条目权重之和的上限
+     * @param weigher               计算条目权重
+     * @param expireAfterWrite      写入后多久过期，0表示不过期
+     */
+    public LruCache(long maximumWeight, Weigher<? super K, ? super V> weigher, long expireAfterWrite, TimeUnit unit) {
+        this(maximumWeight, weigher, expireAfterWrite, unit, System::nanoTime);
+    }
+
+    /**
+     * @param ticker 纳秒时钟，测试时可以传入可控的时钟
+     */
+    public LruCache(long maximumWeight, Weigher<? super K, ? super V> weigher, long expireAfterWrite, TimeUnit unit,
+                    LongSupplier ticker) {
+        if (maximumWeight < 0 || expireAfterWrite < 0) {
+            throw new IllegalArgumentException("maximumWeight和expireAfterWrite不能为负数");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.ticker = ticker;
+    }
+
+    private boolean isExpired(CacheEntry<V> entry, long now) {
+        return entry.expiresAt != 0 && now - entry.expiresAt >= 0;
+    }
+
+    @Override
+    public V get(K key) {
+        CacheEntry<V> entry = map.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (expireAfterWriteNanos > 0 && isExpired(entry, ticker.getAsLong())) {
+            map.remove(key);
+            totalWeight -= entry.weight;
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("权重不能为负数: " + weight);
+        }
+        if (weight > maximumWeight) {
+            // 单个条目就超过上限，不缓存，同时删除旧值
+            remove(key);
+            evictionCount++;
+            return;
+        }
+        long expiresAt = 0;
+        if (expireAfterWriteNanos > 0) {
+            // 避免恰好算出0而被当成"不过期"
+            expiresAt = (ticker.getAsLong() + expireAfterWriteNanos) | 1;
+        }
+        totalWeight += weight;
+        CacheEntry<V> previous = map.put(key, new CacheEntry<>(value, weight, expiresAt));
+        if (previous != null) {
+            // 替换已有的键不会回调removeEldestEntry，权重变大时在这里淘汰
+            totalWeight -= previous.weight;
+            evictOverweight();
+        }
+    }
+
+    // 从最久未使用的一端淘汰，直到总权重不超过上限
+    private void evictOverweight() {
+        if (totalWeight <= maximumWeight) {
+            return;
+        }
+        long now = expireAfterWriteNanos > 0 ? ticker.getAsLong() : 0;
+        Iterator<CacheEntry<V>> it = map.values().iterator();
+        while (totalWeight > maximumWeight && it.hasNext()) {
+            CacheEntry<V> eldest = it.next();
+            it.remove();
+            totalWeight -= eldest.weight;
+            if (expireAfterWriteNanos > 0 && isExpired(eldest, now)) {
+                expirationCount++;
+            } else {
+                evictionCount++;
+            }
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        CacheEntry<V> entry = map.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        totalWeight -= entry.weight;
+        return entry.value;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    public long weightedSize() {
+        return totalWeight;
+    }
+
+    @Override
+    public void cleanUp() {
+        if (expireAfterWriteNanos == 0) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        Iterator<CacheEntry<V>> it = map.values().iterator();
+        while (it.hasNext()) {
+            CacheEntry<V> entry = it.next();
+            if (isExpired(entry, now)) {
+                it.remove();
+                totalWeight -= entry.weight;
+                expirationCount++;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        totalWeight = 0;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, expirationCount);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Map.Entry<K, CacheEntry<V>> e : map.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(e.getKey()).append('=').append(e.getValue().value);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -3,7 +3,8 @@
  * 示例3：Map集合
  * 
  * 本示例展示了Java集合框架中Map接口的常用实现类，
- * 包括HashMap、TreeMap的使用，以及Properties类的应用。
+ * 包括HashMap、TreeMap（及支持区间聚合的ConcurrentDoubleTreeMap）的使用，Properties类的应用及其内存映射存储，
+ * 最后用ObjIntMap、IntIntMap演示不装箱的基本类型Map。
  */
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -12,9 +13,9 @@ import java.util.TreeMap;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Collection;
-import java.io.FileOutputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class MapExample {
     public static void main(String[] args) {
@@ -105,6 +106,17 @@ public class MapExample {
         System.out.println("小于'王主管'的条目: " + salaries.headMap("王主管"));
         System.out.println("大于等于'王主管'的条目: " + salaries.tailMap("王主管"));
         
+        // 多线程读写、按区间统计时使用ConcurrentDoubleTreeMap：值不装箱，区间聚合为O(log n)
+        ConcurrentDoubleTreeMap<String> salaryIndex = new ConcurrentDoubleTreeMap<>();
+        salaries.forEach(salaryIndex::put);
+        salaryIndex.addTo("赵助理", 500);
+        ConcurrentDoubleTreeMap<String>.RangeView head = salaryIndex.headMap("王主管", false);
+        System.out.print("小于'王主管'的条目:");
+        head.forEach((name, salary) -> System.out.print(" " + name + "=" + salary));
+        System.out.println();
+        System.out.println("小于'王主管'的工资统计: " + head.aggregate());
+        System.out.println("大于等于'王主管'的工资总和: " + salaryIndex.tailMap("王主管", true).sum());
+        
         // 4. LinkedHashMap示例（保持插入顺序）
         System.out.println("\n===== LinkedHashMap示例 =====");
         
@@ -120,6 +132,32 @@ public class MapExample {
         // LinkedHashMap保持插入顺序
         System.out.println("LinkedHashMap内容: " + linkedHashMap);
         
+        // accessOrder为true时按访问顺序排列，最近访问的条目移到末尾
+        // 重写removeEldestEntry，插入新条目后超过容量就删除最久未访问的条目，即一个简单的LRU缓存
+        final int capacity = 3;
+        LinkedHashMap<String, String> lruMap = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+        lruMap.put("first", "第一");
+        lruMap.put("second", "第二");
+        lruMap.put("third", "第三");
+        lruMap.get("first");  // 访问first，它变成最近使用的条目
+        lruMap.put("fourth", "第四");  // 超过容量，淘汰最久未访问的second
+        System.out.println("访问顺序的LinkedHashMap: " + lruMap);
+        
+        // LruCache在此基础上支持按权重限制、过期时间和命中统计
+        LruCache<String, String> cache = new LruCache<>(3);
+        cache.put("first", "第一");
+        cache.put("second", "第二");
+        cache.put("third", "第三");
+        cache.get("first");
+        cache.put("fourth", "第四");
+        cache.get("second");  // 已被淘汰，未命中
+        System.out.println("LruCache内容: " + cache + "，统计: " + cache.stats());
+        
         // 5. Properties类（特殊的Map，用于处理属性文件）
         System.out.println("\n===== Properties类示例 =====");
         
@@ -140,18 +178,60 @@ public class MapExample {
         System.out.println("所有属性名: " + properties.stringPropertyNames());
         
         try {
-            // 将属性保存到文件
-            String filePath = "database.properties";
-            properties.store(new FileOutputStream(filePath), "Database Configuration");
-            System.out.println("属性已保存到文件: " + filePath);
+            // 将属性保存到内存映射的键值存储：只追加发生变化的条目，不重写整个文件
+            Path storePath = Paths.get("database.kv");
+            try (MappedKeyValueStore store = MappedKeyValueStore.open(storePath)) {
+                store.putAll(properties);
+                store.put("password", "654321");  // 修改只追加一条记录
+                System.out.println("属性已保存到: " + storePath + "，条目数: " + store.size());
+            }
             
-            // 从文件加载属性
-            Properties loadedProps = new Properties();
-            loadedProps.load(new FileInputStream(filePath));
-            System.out.println("从文件加载的属性: " + loadedProps);
-            System.out.println("从文件加载的URL: " + loadedProps.getProperty("url"));
+            // 重新打开：直接映射磁盘上的哈希索引，不需要重新解析所有条目
+            try (MappedKeyValueStore loadedStore = MappedKeyValueStore.open(storePath)) {
+                Properties loadedProps = loadedStore.toProperties();
+                System.out.println("从存储加载的属性: " + loadedProps);
+                System.out.println("从存储加载的URL: " + loadedStore.get("url"));
+                System.out.println("修改后的密码: " + loadedStore.get("password"));
+                
+                // 回收被覆盖的旧记录
+                System.out.println("可回收的字节数: " + loadedStore.garbageBytes());
+                loadedStore.compact();
+                System.out.println("压缩后的数据字节数: " + loadedStore.dataBytes());
+            }
         } catch (IOException e) {
             System.out.println("文件操作异常: " + e.getMessage());
         }
+        
+        // 6. 基本类型Map（开放寻址，不装箱）
+        System.out.println("\n===== 基本类型Map示例 =====");
+        
+        // 与上面的scores相同的成绩表，分数直接存放在int[]中
+        ObjIntMap<String> primitiveScores = new ObjIntMap<>();
+        primitiveScores.put("张三", 95);
+        primitiveScores.put("李四", 88);
+        primitiveScores.put("王五", 75);
+        primitiveScores.put("赵六", 90);
+        
+        // get直接返回int，不存在时返回noEntryValue（默认为0）
+        System.out.println("张三的分数: " + primitiveScores.get("张三"));
+        System.out.println("不存在的学生的分数: " + primitiveScores.get("钱七"));
+        
+        // addTo和merge在原地修改int值，不创建Integer
+        primitiveScores.addTo("王五", 5);
+        primitiveScores.merge("李四", 92, Math::max);
+        System.out.println("加分后王五的分数: " + primitiveScores.get("王五"));
+        System.out.println("取较高分后李四的分数: " + primitiveScores.get("李四"));
+        
+        primitiveScores.remove("赵六");
+        System.out.println("删除后的成绩表: " + primitiveScores);
+        
+        // forEach的回调参数是int
+        primitiveScores.forEach((student, score) ->
+            System.out.println(student + ": " + (score >= 80 ? "良好" : "及格")));
+        
+        // 统计每个分数段的人数：键和值都是int
+        IntIntMap histogram = new IntIntMap();
+        primitiveScores.forEach((student, score) -> histogram.addTo(score / 10 * 10, 1));
+        System.out.println("分数段人数: " + histogram);
     }
 }
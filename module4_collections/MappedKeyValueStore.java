@@ -0,0 +1,687 @@
+/**
+ * 模块四：集合框架&泛型
+ * 基于内存映射文件的追加式键值存储
+ *
+ * Properties.store()每次都重写整个文件，load()每次都重新解析所有条目，条目很多时启动很慢。
+ * 本类把String键值对保存在两个内存映射文件中：
+ * - 数据文件（xxx）：只追加的记录日志。每条记录为
+ *     [CRC32 4字节][键长度 4字节][值长度 4字节，-1表示删除][键UTF-8字节][值UTF-8字节]
+ *   修改和删除都是追加一条新记录，不重写已有内容，旧记录成为"垃圾"，由compact()回收
+ * - 索引文件（xxx.index）：磁盘上的开放寻址哈希表，每个槽位8字节 [哈希值][记录偏移]，
+ *   线性探测，删除时前移后续槽位（与IntIntMap等相同）。打开时直接映射，不需要解析数据，
+ *   查询只需访问一个槽位和一条记录，因此百万条目的存储也能立即打开
+ *
+ * 崩溃恢复：
+ * - 索引文件头中有"已正常关闭"标记，第一次修改前清除并刷盘，close()时先刷数据文件再恢复标记
+ * - 打开时若标记未恢复、索引缺失或与数据文件的代数（generation）不一致，就扫描数据文件重建索引：
+ *   逐条校验CRC，遇到第一条不完整的记录即认为日志到此结束，并把其后的内容清零，
+ *   防止之后追加的记录与残留的旧数据拼接起来
+ * - compact()把存活记录写入新的数据文件和索引文件，刷盘后用原子重命名替换旧文件，
+ *   新文件的代数加1；若在两次重命名之间崩溃，代数不一致会触发重建
+ * 注意：Windows上无法替换仍被映射的文件，compact()只适用于类Unix系统。
+ */
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+public class MappedKeyValueStore implements Closeable {
+    private static final int DATA_MAGIC = 0x4B564454;   // "KVDT"
+    private static final int INDEX_MAGIC = 0x4B564958;  // "KVIX"
+    private static final int VERSION = 1;
+
+    // 数据文件头：魔数、版本、代数
+    private static final int DATA_HEADER = 16;
+    // 索引文件头：魔数、版本、代数、槽位数、条目数、垃圾字节数、数据末尾、关闭标记
+    private static final int INDEX_HEADER = 64;
+    private static final int SLOT_BYTES = 8;
+    private static final int RECORD_HEADER = 12;
+    private static final int TOMBSTONE = -1;
+
+    private static final int CLEAN = 1;
+    private static final int DIRTY = 0;
+
+    private static final int MIN_DATA_CAPACITY = 1 << 16;
+    // 单个MappedByteBuffer最大2GB，记录偏移用int保存
+    private static final int MAX_DATA_CAPACITY = 1 << 30;
+    private static final int MIN_INDEX_CAPACITY = 1 << 10;
+    private static final int MAX_INDEX_CAPACITY = 1 << 27;
+    // 保存的哈希值最高位总为1，0表示空槽位
+    private static final int USED = 0x80000000;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel dataChannel;
+    private MappedByteBuffer data;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private long generation;
+    private int dataEnd;
+    private int capacity;
+    private int mask;
+    private int threshold;
+    private int size;
+    private long garbageBytes;
+    // 索引文件头中的关闭标记是否已清除
+    private boolean dirty;
+    private boolean indexRebuilt;
+    private boolean closed;
+
+    private MappedKeyValueStore(Path dataPath) {
+        this.dataPath = dataPath;
+        this.indexPath = dataPath.resolveSibling(dataPath.getFileName() + ".index");
+    }
+
+    /**
+     * 打开（不存在时创建）存储，索引文件为同目录下的"文件名.index"
+     */
+    public static MappedKeyValueStore open(Path dataPath) throws IOException {
+        MappedKeyValueStore store = new MappedKeyValueStore(dataPath.toAbsolutePath());
+        try {
+            store.openFiles();
+        } catch (IOException | RuntimeException e) {
+            store.closeChannels();
+            throw e;
+        }
+        return store;
+    }
+
+    private void openFiles() throws IOException {
+        dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = dataChannel.size();
+        if (length == 0) {
+            // 新文件使用随机的代数，避免误用同名的旧索引文件
+            generation = ThreadLocalRandom.current().nextLong();
+            data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, MIN_DATA_CAPACITY);
+            writeDataHeader(data, generation);
+        } else {
+            if (length < DATA_HEADER || length > MAX_DATA_CAPACITY) {
+                throw new IOException("不是有效的数据文件: " + dataPath);
+            }
+            data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (data.getInt(0) != DATA_MAGIC || data.getInt(4) != VERSION) {
+                throw new IOException("不是有效的数据文件: " + dataPath);
+            }
+            generation = data.getLong(8);
+        }
+        if (!openIndex()) {
+            rebuildIndex();
+        }
+    }
+
+    // 打开已有的索引；索引不存在、已损坏、与数据文件不匹配或上次没有正常关闭时返回false
+    private boolean openIndex() throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = channel.size();
+        if (length >= INDEX_HEADER) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            int slots = buffer.getInt(16);
+            long end = buffer.getLong(32);
+            if (buffer.getInt(0) == INDEX_MAGIC && buffer.getInt(4) == VERSION
+                    && buffer.getLong(8) == generation && buffer.getInt(40) == CLEAN
+                    && slots >= MIN_INDEX_CAPACITY && slots <= MAX_INDEX_CAPACITY && Integer.bitCount(slots) == 1
+                    && length == INDEX_HEADER + (long) slots * SLOT_BYTES
+                    && end >= DATA_HEADER && end <= data.capacity()) {
+                indexChannel = channel;
+                index = buffer;
+                setCapacity(slots);
+                size = buffer.getInt(20);
+                garbageBytes = buffer.getLong(24);
+                dataEnd = (int) end;
+                return true;
+            }
+        }
+        channel.close();
+        return false;
+    }
+
+    // 扫描数据文件重建索引
+    private void rebuildIndex() throws IOException {
+        Mapping mapping = Mapping.create(indexPath, INDEX_HEADER + (long) MIN_INDEX_CAPACITY * SLOT_BYTES);
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        indexChannel = mapping.channel;
+        index = mapping.buffer;
+        setCapacity(MIN_INDEX_CAPACITY);
+        size = 0;
+        garbageBytes = 0;
+        writeIndexHeader(index, generation, capacity, 0, 0, DATA_HEADER, DIRTY);
+        dirty = true;
+
+        int offset = DATA_HEADER;
+        int length;
+        while ((length = validRecordLength(offset)) > 0) {
+            byte[] key = readKey(offset);
+            apply(offset, key, hash(key));
+            offset += length;
+        }
+        dataEnd = offset;
+        zeroTail(offset);
+        indexRebuilt = true;
+    }
+
+    // 把offset之后的非零内容清零（只写需要修改的位置，避免把全部预分配的页都变成脏页）
+    private void zeroTail(int from) {
+        int limit = data.capacity();
+        int i = from;
+        for (; i < limit && (i & 7) != 0; i++) {
+            if (data.get(i) != 0) {
+                data.put(i, (byte) 0);
+            }
+        }
+        for (; i + 8 <= limit; i += 8) {
+            if (data.getLong(i) != 0) {
+                data.putLong(i, 0L);
+            }
+        }
+        for (; i < limit; i++) {
+            if (data.get(i) != 0) {
+                data.put(i, (byte) 0);
+            }
+        }
+    }
+
+    // 位于offset的记录完整且校验通过时返回其长度，否则返回-1
+    private int validRecordLength(int offset) {
+        int limit = data.capacity();
+        if (offset > limit - RECORD_HEADER) {
+            return -1;
+        }
+        int keyLength = data.getInt(offset + 4);
+        int valueLength = data.getInt(offset + 8);
+        if (keyLength < 0 || valueLength < TOMBSTONE) {
+            return -1;
+        }
+        long length = (long) RECORD_HEADER + keyLength + Math.max(valueLength, 0);
+        if (offset + length > limit) {
+            return -1;
+        }
+        return data.getInt(offset) == checksum(offset, (int) length) ? (int) length : -1;
+    }
+
+    // 记录中CRC之后部分的校验和
+    private int checksum(int offset, int length) {
+        ByteBuffer buffer = data.duplicate();
+        buffer.limit(offset + length);
+        buffer.position(offset + 4);
+        crc.reset();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+
+    private int recordLength(int offset) {
+        return RECORD_HEADER + data.getInt(offset + 4) + Math.max(data.getInt(offset + 8), 0);
+    }
+
+    private byte[] readKey(int offset) {
+        byte[] key = new byte[data.getInt(offset + 4)];
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(offset + RECORD_HEADER);
+        buffer.get(key);
+        return key;
+    }
+
+    private String readValue(int offset) {
+        int keyLength = data.getInt(offset + 4);
+        byte[] value = new byte[data.getInt(offset + 8)];
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(offset + RECORD_HEADER + keyLength);
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (data.getInt(offset + 4) != key.length) {
+            return false;
+        }
+        int start = offset + RECORD_HEADER;
+        for (int i = 0; i < key.length; i++) {
+            if (data.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean valueEquals(int offset, byte[] value) {
+        if (data.getInt(offset + 8) != value.length) {
+            return false;
+        }
+        int start = offset + RECORD_HEADER + data.getInt(offset + 4);
+        for (int i = 0; i < value.length; i++) {
+            if (data.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] key) {
+        int h = 0;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        return PrimitiveHashing.mix(h) | USED;
+    }
+
+    // ---------- 索引槽位 ----------
+
+    private void setCapacity(int slots) {
+        capacity = slots;
+        mask = slots - 1;
+        threshold = PrimitiveHashing.threshold(slots, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    private int slotHash(int slot) {
+        return index.getInt(INDEX_HEADER + slot * SLOT_BYTES);
+    }
+
+    private int slotOffset(int slot) {
+        return index.getInt(INDEX_HEADER + slot * SLOT_BYTES + 4);
+    }
+
+    private static void setSlot(ByteBuffer buffer, int slot, int hash, int offset) {
+        buffer.putInt(INDEX_HEADER + slot * SLOT_BYTES, hash);
+        buffer.putInt(INDEX_HEADER + slot * SLOT_BYTES + 4, offset);
+    }
+
+    // 返回key所在的槽位；不存在时返回 ~插入位置（负数）
+    private int find(byte[] key, int hash) {
+        int i = hash & mask;
+        int h;
+        while ((h = slotHash(i)) != 0) {
+            if (h == hash && keyEquals(slotOffset(i), key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    // 把位于offset的记录应用到索引上
+    private void apply(int offset, byte[] key, int hash) throws IOException {
+        int slot = find(key, hash);
+        if (data.getInt(offset + 8) == TOMBSTONE) {
+            // 删除记录本身在压缩后也不再需要
+            garbageBytes += RECORD_HEADER + key.length;
+            if (slot >= 0) {
+                garbageBytes += recordLength(slotOffset(slot));
+                removeSlot(slot);
+                size--;
+            }
+        } else if (slot >= 0) {
+            garbageBytes += recordLength(slotOffset(slot));
+            setSlot(index, slot, hash, offset);
+        } else {
+            setSlot(index, ~slot, hash, offset);
+            if (++size > threshold) {
+                resizeIndex(capacity << 1);
+            }
+        }
+    }
+
+    // 删除slot上的槽位，并把探测链上后面的槽位前移
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int h = slotHash(i);
+            if (h == 0) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(h & mask, gap, i, mask)) {
+                setSlot(index, gap, h, slotOffset(i));
+                gap = i;
+            }
+        }
+        setSlot(index, gap, 0, 0);
+    }
+
+    // 在临时文件中建立更大的索引，再用重命名替换。运行期间索引总带有未关闭标记，
+    // 替换过程中崩溃只会导致下次打开时重建，因此这里不需要刷盘
+    private void resizeIndex(int newCapacity) throws IOException {
+        if (newCapacity > MAX_INDEX_CAPACITY) {
+            throw new IllegalStateException("条目过多: " + size);
+        }
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        Mapping mapping = Mapping.create(temp, INDEX_HEADER + (long) newCapacity * SLOT_BYTES);
+        writeIndexHeader(mapping.buffer, generation, newCapacity, size, garbageBytes, dataEnd, DIRTY);
+        int newMask = newCapacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            int h = slotHash(i);
+            if (h != 0) {
+                int slot = h & newMask;
+                while (mapping.buffer.getInt(INDEX_HEADER + slot * SLOT_BYTES) != 0) {
+                    slot = (slot + 1) & newMask;
+                }
+                setSlot(mapping.buffer, slot, h, slotOffset(i));
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexChannel.close();
+        indexChannel = mapping.channel;
+        index = mapping.buffer;
+        setCapacity(newCapacity);
+    }
+
+    // ---------- 追加记录 ----------
+
+    // 第一次修改前清除关闭标记并刷盘，保证之后的任何崩溃都会在下次打开时触发重建
+    private void markDirty() {
+        if (!dirty) {
+            index.putInt(40, DIRTY);
+            index.force();
+            dirty = true;
+        }
+    }
+
+    private void ensureDataCapacity(int length) throws IOException {
+        long needed = (long) dataEnd + length;
+        if (needed <= data.capacity()) {
+            return;
+        }
+        if (needed > MAX_DATA_CAPACITY) {
+            throw new IllegalStateException("数据文件超过" + MAX_DATA_CAPACITY + "字节，请先调用compact()");
+        }
+        long newCapacity = data.capacity();
+        while (newCapacity < needed) {
+            newCapacity <<= 1;
+        }
+        // 映射超出文件末尾的区域时，文件会自动扩展，新区域全部为0
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(newCapacity, MAX_DATA_CAPACITY));
+    }
+
+    // 追加一条记录（value为null表示删除），返回记录的偏移
+    private int append(byte[] key, byte[] value) throws IOException {
+        int length = RECORD_HEADER + key.length + (value == null ? 0 : value.length);
+        markDirty();
+        ensureDataCapacity(length);
+        int offset = dataEnd;
+        data.putInt(offset + 4, key.length);
+        data.putInt(offset + 8, value == null ? TOMBSTONE : value.length);
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(offset + RECORD_HEADER);
+        buffer.put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+        // 最后写入校验和，只写了一半的记录在重建时校验失败
+        data.putInt(offset, checksum(offset, length));
+        dataEnd += length;
+        return offset;
+    }
+
+    // ---------- 公共接口 ----------
+
+    public synchronized String get(String key) {
+        ensureOpen();
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        int slot = find(k, hash(k));
+        return slot >= 0 ? readValue(slotOffset(slot)) : null;
+    }
+
+    public synchronized boolean containsKey(String key) {
+        ensureOpen();
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        return find(k, hash(k)) >= 0;
+    }
+
+    /**
+     * 放入键值对，返回原来的值。值没有变化时不追加记录
+     */
+    public synchronized String put(String key, String value) throws IOException {
+        ensureOpen();
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(k);
+        int slot = find(k, hash);
+        String previous = null;
+        if (slot >= 0) {
+            int offset = slotOffset(slot);
+            if (valueEquals(offset, v)) {
+                return value;
+            }
+            previous = readValue(offset);
+        }
+        apply(append(k, v), k, hash);
+        return previous;
+    }
+
+    /**
+     * 删除键，返回原来的值（不存在时返回null）
+     */
+    public synchronized String remove(String key) throws IOException {
+        ensureOpen();
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(k);
+        int slot = find(k, hash);
+        if (slot < 0) {
+            return null;
+        }
+        String previous = readValue(slotOffset(slot));
+        apply(append(k, null), k, hash);
+        return previous;
+    }
+
+    public synchronized void putAll(Properties properties) throws IOException {
+        for (String name : properties.stringPropertyNames()) {
+            put(name, properties.getProperty(name));
+        }
+    }
+
+    /**
+     * 按索引顺序（无序）遍历所有键值对
+     */
+    public synchronized void forEach(BiConsumer<String, String> consumer) {
+        ensureOpen();
+        for (int i = 0; i < capacity; i++) {
+            if (slotHash(i) != 0) {
+                int offset = slotOffset(i);
+                consumer.accept(new String(readKey(offset), StandardCharsets.UTF_8), readValue(offset));
+            }
+        }
+    }
+
+    public synchronized Properties toProperties() {
+        Properties properties = new Properties();
+        forEach(properties::setProperty);
+        return properties;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 数据文件中已使用的字节数
+     */
+    public synchronized long dataBytes() {
+        return dataEnd;
+    }
+
+    /**
+     * 已被覆盖或删除、可由compact()回收的字节数
+     */
+    public synchronized long garbageBytes() {
+        return garbageBytes;
+    }
+
+    /**
+     * 打开时是否因为没有正常关闭等原因重建了索引
+     */
+    public synchronized boolean indexRebuilt() {
+        return indexRebuilt;
+    }
+
+    public Path path() {
+        return dataPath;
+    }
+
+    /**
+     * 把已写入的数据和索引刷到磁盘
+     */
+    public synchronized void sync() {
+        ensureOpen();
+        data.force();
+        writeIndexHeader(index, generation, capacity, size, garbageBytes, dataEnd, DIRTY);
+        index.force();
+    }
+
+    /**
+     * 只保留存活的记录，写入新的数据文件和索引文件后原子地替换旧文件
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+        long newGeneration = generation + 1;
+        int liveBytes = (int) (dataEnd - DATA_HEADER - garbageBytes);
+        long newDataCapacity = MIN_DATA_CAPACITY;
+        while (newDataCapacity < DATA_HEADER + (long) liveBytes) {
+            newDataCapacity <<= 1;
+        }
+        Path dataTemp = dataPath.resolveSibling(dataPath.getFileName() + ".compact");
+        Path indexTemp = indexPath.resolveSibling(indexPath.getFileName() + ".compact");
+        Mapping newData = Mapping.create(dataTemp, newDataCapacity);
+        Mapping newIndex;
+        try {
+            newIndex = Mapping.create(indexTemp, INDEX_HEADER + (long) capacity * SLOT_BYTES);
+        } catch (IOException e) {
+            newData.channel.close();
+            throw e;
+        }
+        try {
+            writeDataHeader(newData.buffer, newGeneration);
+            ByteBuffer source = data.duplicate();
+            ByteBuffer target = newData.buffer.duplicate();
+            target.position(DATA_HEADER);
+            // 槽位数相同，每个槽位原样复制，只替换记录偏移，探测顺序保持不变
+            for (int i = 0; i < capacity; i++) {
+                int h = slotHash(i);
+                if (h != 0) {
+                    int offset = slotOffset(i);
+                    source.limit(source.capacity());
+                    source.position(offset);
+                    source.limit(offset + recordLength(offset));
+                    setSlot(newIndex.buffer, i, h, target.position());
+                    target.put(source);
+                }
+            }
+            int newEnd = target.position();
+            writeIndexHeader(newIndex.buffer, newGeneration, capacity, size, 0, newEnd, DIRTY);
+            newData.buffer.force();
+            newIndex.buffer.force();
+            Files.move(dataTemp, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTemp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            closeChannels();
+            dataChannel = newData.channel;
+            data = newData.buffer;
+            indexChannel = newIndex.channel;
+            index = newIndex.buffer;
+            generation = newGeneration;
+            dataEnd = newEnd;
+            garbageBytes = 0;
+            dirty = true;
+        } catch (IOException | RuntimeException e) {
+            newData.channel.close();
+            newIndex.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 刷盘后写入正常关闭标记。下次打开时直接使用索引，不需要扫描数据文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            data.force();
+            writeIndexHeader(index, generation, capacity, size, garbageBytes, dataEnd, CLEAN);
+            index.force();
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("存储已关闭: " + dataPath);
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        try {
+            if (dataChannel != null) {
+                dataChannel.close();
+            }
+        } finally {
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        }
+    }
+
+    private static void writeDataHeader(ByteBuffer buffer, long generation) {
+        buffer.putInt(0, DATA_MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, generation);
+    }
+
+    private static void writeIndexHeader(ByteBuffer buffer, long generation, int capacity, int size,
+                                         long garbageBytes, int dataEnd, int state) {
+        buffer.putInt(0, INDEX_MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, generation);
+        buffer.putInt(16, capacity);
+        buffer.putInt(20, size);
+        buffer.putLong(24, garbageBytes);
+        buffer.putLong(32, dataEnd);
+        buffer.putInt(40, state);
+    }
+
+    /**
+     * 文件通道及其映射
+     */
+    private static final class Mapping {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        private Mapping(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // 创建（或清空）文件并映射size字节
+        static Mapping create(Path path, long size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Mapping(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+}
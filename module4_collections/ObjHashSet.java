@@ -0,0 +1,196 @@
+/**
+ * 模块四：集合框架&泛型
+ * 开放寻址的对象哈希集合
+ *
+ * HashSet内部就是一个HashMap，每个元素都要一个Node对象（约32字节）加上table中的一个引用，
+ * 再算上负载因子，一个元素大约占用40~48字节（不含元素对象本身）。本类只用两个数组：
+ * - 元素存放在Object[]中，null表示空槽位，因此不支持null元素
+ * - 扰动后的哈希值存放在并行的int[]中：探测时先比较哈希值，相同时才调用equals；扩容时也不再调用hashCode()
+ * - 线性探测，删除时前移后续元素，不留"墓碑"
+ * 一个元素平均只占 8字节 / 负载因子 ≈ 11~21字节。
+ */
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+public class ObjHashSet<E> {
+    // 保存的哈希值最高位总为1，0表示空槽位；槽位数不超过2^30，最高位不影响定位
+    private static final int USED = 0x80000000;
+
+    private final float loadFactor;
+    private Object[] elements;
+    private int[] hashes;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    public ObjHashSet() {
+        this(16);
+    }
+
+    public ObjHashSet(int expectedSize) {
+        this(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public ObjHashSet(int expectedSize, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("负载因子必须在(0, 1)之间: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    private void allocate(int capacity) {
+        elements = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = PrimitiveHashing.threshold(capacity, loadFactor);
+    }
+
+    private static int hash(Object element) {
+        return PrimitiveHashing.mix(element.hashCode()) | USED;
+    }
+
+    // 返回element所在的槽位；不存在时返回 ~插入位置（负数）
+    private int slot(Object element, int hash) {
+        int i = hash & mask;
+        int h;
+        while ((h = hashes[i]) != 0) {
+            if (h == hash) {
+                Object e = elements[i];
+                if (e == element || e.equals(element)) {
+                    return i;
+                }
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    public boolean contains(Object element) {
+        return slot(element, hash(Objects.requireNonNull(element))) >= 0;
+    }
+
+    /**
+     * 加入元素，已存在时返回false
+     */
+    public boolean add(E element) {
+        int hash = hash(Objects.requireNonNull(element));
+        int slot = slot(element, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        slot = ~slot;
+        elements[slot] = element;
+        hashes[slot] = hash;
+        if (++size > threshold) {
+            rehash(elements.length << 1);
+        }
+        return true;
+    }
+
+    public boolean addAll(Collection<? extends E> collection) {
+        boolean changed = false;
+        for (E element : collection) {
+            changed |= add(element);
+        }
+        return changed;
+    }
+
+    /**
+     * 删除元素，不存在时返回false
+     */
+    public boolean remove(Object element) {
+        int slot = slot(element, hash(Objects.requireNonNull(element)));
+        if (slot < 0) {
+            return false;
+        }
+        shiftKeys(slot);
+        size--;
+        return true;
+    }
+
+    // 删除slot上的元素，并把探测链上后面的元素前移
+    private void shiftKeys(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int h = hashes[i];
+            if (h == 0) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(h & mask, gap, i, mask)) {
+                elements[gap] = elements[i];
+                hashes[gap] = h;
+                gap = i;
+            }
+        }
+        elements[gap] = null;
+        hashes[gap] = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("元素过多: " + size);
+        }
+        Object[] oldElements = elements;
+        int[] oldHashes = hashes;
+        allocate(newCapacity);
+        for (int i = 0; i < oldElements.length; i++) {
+            int h = oldHashes[i];
+            if (h != 0) {
+                int slot = h & mask;
+                while (hashes[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                elements[slot] = oldElements[i];
+                hashes[slot] = h;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> consumer) {
+        Object[] e = elements;
+        for (int i = 0; i < e.length; i++) {
+            if (e[i] != null) {
+                consumer.accept((E) e[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(elements, null);
+        Arrays.fill(hashes, 0);
+        size = 0;
+    }
+
+    /**
+     * 两个数组占用的内存估算（字节，不含元素对象本身，引用按4字节的压缩指针计算）
+     */
+    public long estimatedBytes() {
+        return 2L * PrimitiveHashing.ARRAY_HEADER_BYTES + (long) elements.length * 2 * Integer.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(element -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(element);
+        });
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * 模块四：集合框架&泛型
+ * 对象到int的开放寻址哈希表
+ *
+ * 用来替代HashMap<String, Integer>这样的计数表、成绩表：
+ * - 键存放在Object[]中，null表示空槽位，因此不支持null键
+ * - 扰动后的哈希值与值交替存放在同一个int[]中：探测时先比较哈希值，
+ *   只有哈希值相同才去读键并调用equals，避免为每个冲突的键访问一次键对象
+ *   （对String而言还要再访问一次内部的数组），哈希值和值也总在同一条缓存行中
+ * - 线性探测，删除时前移后续元素，不留"墓碑"
+ * - get返回int，addTo/merge直接在int[]上修改，不创建Integer，也不创建Node
+ * 键对象本身仍然在堆上（例如String），节省的是每个条目的Node和Integer。
+ */
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ObjIntConsumer;
+
+public class ObjIntMap<K> {
+    // 保存的哈希值最高位总为1，0表示空槽位；槽位数不超过2^30，最高位不影响定位
+    private static final int USED = 0x80000000;
+
+    private final float loadFactor;
+    private final int noEntryValue;
+    private Object[] keys;
+    // entries[2 * i]为槽位i的哈希值（0表示空），entries[2 * i + 1]为槽位i的值
+    private int[] entries;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    public ObjIntMap() {
+        this(16);
+    }
+
+    public ObjIntMap(int expectedSize) {
+        this(expectedSize, 0, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param noEntryValue 键不存在时get()/put()/remove()返回的值
+     */
+    public ObjIntMap(int expectedSize, int noEntryValue, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("负载因子必须在(0, 1)之间: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.capacityFor(expectedSize, loadFactor));
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        entries = new int[capacity << 1];
+        mask = capacity - 1;
+        threshold = PrimitiveHashing.threshold(capacity, loadFactor);
+    }
+
+    private static int hash(Object key) {
+        return PrimitiveHashing.mix(key.hashCode()) | USED;
+    }
+
+    // 返回key所在的槽位；不存在时返回 ~插入位置（负数）
+    private int slot(Object key, int hash) {
+        int i = hash & mask;
+        int h;
+        while ((h = entries[i << 1]) != 0) {
+            if (h == hash) {
+                Object k = keys[i];
+                if (k == key || k.equals(key)) {
+                    return i;
+                }
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    private int slot(Object key) {
+        return slot(key, hash(Objects.requireNonNull(key)));
+    }
+
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    public int get(Object key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public int getOrDefault(Object key, int defaultValue) {
+        int slot = slot(key);
+        return slot >= 0 ? entries[(slot << 1) + 1] : defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return slot(key) >= 0;
+    }
+
+    /**
+     * 放入键值对，返回原来的值（不存在时返回noEntryValue）
+     */
+    public int put(K key, int value) {
+        int hash = hash(Objects.requireNonNull(key));
+        int slot = slot(key, hash);
+        if (slot >= 0) {
+            int previous = entries[(slot << 1) + 1];
+            entries[(slot << 1) + 1] = value;
+            return previous;
+        }
+        insertAt(~slot, hash, key, value);
+        return noEntryValue;
+    }
+
+    /**
+     * 把key的值加上delta（不存在时从noEntryValue开始），返回新值
+     */
+    public int addTo(K key, int delta) {
+        int hash = hash(Objects.requireNonNull(key));
+        int slot = slot(key, hash);
+        if (slot >= 0) {
+            return entries[(slot << 1) + 1] += delta;
+        }
+        int value = noEntryValue + delta;
+        insertAt(~slot, hash, key, value);
+        return value;
+    }
+
+    /**
+     * 键不存在时放入value，存在时放入function(原值, value)，返回新值
+     */
+    public int merge(K key, int value, IntBinaryOperator function) {
+        int hash = hash(Objects.requireNonNull(key));
+        int slot = slot(key, hash);
+        if (slot >= 0) {
+            int index = (slot << 1) + 1;
+            return entries[index] = function.applyAsInt(entries[index], value);
+        }
+        insertAt(~slot, hash, key, value);
+        return value;
+    }
+
+    private void insertAt(int slot, int hash, K key, int value) {
+        keys[slot] = key;
+        entries[slot << 1] = hash;
+        entries[(slot << 1) + 1] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 删除key，返回原来的值（不存在时返回noEntryValue）
+     */
+    public int remove(Object key) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        int previous = entries[(slot << 1) + 1];
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
+
+    // 删除slot上的元素，并把探测链上后面的元素前移
+    private void shiftKeys(int slot) {
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int h = entries[i << 1];
+            if (h == 0) {
+                break;
+            }
+            if (PrimitiveHashing.canShift(h & mask, gap, i, mask)) {
+                keys[gap] = keys[i];
+                entries[gap << 1] = h;
+                entries[(gap << 1) + 1] = entries[(i << 1) + 1];
+                gap = i;
+            }
+        }
+        keys[gap] = null;
+        entries[gap << 1] = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("元素过多: " + size);
+        }
+        Object[] oldKeys = keys;
+        int[] oldEntries = entries;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int h = oldEntries[i << 1];
+            if (h != 0) {
+                // 直接使用保存的哈希值，扩容时不再调用hashCode()
+                int slot = h & mask;
+                while (entries[slot << 1] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                entries[slot << 1] = h;
+                entries[(slot << 1) + 1] = oldEntries[(i << 1) + 1];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super K> consumer) {
+        Object[] k = keys;
+        int[] e = entries;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != null) {
+                consumer.accept((K) k[i], e[(i << 1) + 1]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(entries, 0);
+        size = 0;
+    }
+
+    /**
+     * 两个数组占用的内存估算（字节，不含键对象本身，引用按4字节的压缩指针计算）
+     */
+    public long estimatedBytes() {
+        return 2L * PrimitiveHashing.ARRAY_HEADER_BYTES + (long) keys.length * 3 * Integer.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * 模块四：集合框架&泛型
+ * 开放寻址哈希表的公共工具
+ *
+ * ObjIntMap、IntIntMap、LongLongMap、IntObjMap以及ObjHashSet、IntHashSet、LongHashSet共用的哈希扰动与容量计算。
+ * 开放寻址表的槽位数必须是2的幂，用"哈希值 & (容量-1)"定位；
+ * 线性探测对哈希值的低位分布非常敏感（例如连续的整数键会聚成一团），
+ * 因此先乘以黄金分割常数再把高位异或到低位，使低位也充分混合。
+ */
+final class PrimitiveHashing {
+    // 最大槽位数
+    static final int MAX_CAPACITY = 1 << 30;
+
+    // 默认负载因子：线性探测超过0.75后探测长度增长很快
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    // 数组对象头的大致大小（开启压缩指针的64位JVM）
+    static final int ARRAY_HEADER_BYTES = 16;
+
+    private static final int INT_PHI = 0x9E3779B9;
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    private PrimitiveHashing() {
+    }
+
+    static int mix(int h) {
+        h *= INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * LONG_PHI;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * 能以负载因子容纳expectedSize个元素的最小2的幂槽位数
+     */
+    static int capacityFor(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize不能为负数: " + expectedSize);
+        }
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("元素过多: " + expectedSize);
+        }
+        return Math.max(4, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    /**
+     * 槽位数为capacity时的扩容阈值
+     */
+    static int threshold(int capacity, float loadFactor) {
+        return capacity == MAX_CAPACITY ? MAX_CAPACITY - 1 : (int) (capacity * loadFactor);
+    }
+
+    /**
+     * 线性探测删除时判断能否把槽位slot上的元素前移到空位gap：
+     * 元素的理想位置ideal到slot的距离不小于gap到slot的距离时，前移后仍能被探测到
+     */
+    static boolean canShift(int ideal, int gap, int slot, int mask) {
+        return ((slot - ideal) & mask) >= ((slot - gap) & mask);
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * 模块四：集合框架&泛型
+ * 示例4：基本类型Map的内存占用报告
+ *
+ * 分别用HashMap和对应的基本类型Map存放同样的N个条目，比较堆内存占用和构建、查询耗时：
+ * - HashMap<String, Integer>   vs ObjIntMap<String>
+ * - HashMap<Integer, Integer>  vs IntIntMap
+ * - HashMap<Long, Long>        vs LongLongMap
+ * - HashMap<Integer, String>   vs IntObjMap<String>
+ * String键和String值预先创建并在整个测试期间保持引用，因此统计的只是Map本身
+ * （Node、Integer/Long、table数组）占用的内存。
+ * 查询按打乱后的顺序进行：HashMap的Node按插入顺序分配在相邻的内存中，
+ * 若按插入顺序查询，会因为内存局部性而显得比实际使用时快。
+ * 内存通过多次System.gc()后前后两次的已用堆之差测量，只是近似值；
+ * 同时列出基本类型Map按数组长度计算的估算值作为参照。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java PrimitiveMapMemoryReport [条目数]
+ * 例如：
+ *   java -Xmx2g PrimitiveMapMemoryReport 1000000
+ */
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+public class PrimitiveMapMemoryReport {
+    // 防止JIT把没有使用结果的计算优化掉
+    static volatile long blackhole;
+
+    // 测量期间保持对Map的引用，避免被回收
+    static Object retained;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("===== 基本类型Map内存占用报告 =====");
+        System.out.println("条目数: " + n + "，最大堆: " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + "MB");
+
+        String[] names = new String[n];
+        int[] intKeys = new int[n];
+        long[] longKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = "学生" + i;
+            // 打散的键，避免连续整数恰好落在连续槽位里
+            intKeys[i] = i * 0x61C88647 + 1;
+            longKeys[i] = (long) i * 0x9E3779B97F4A7C15L + 1;
+        }
+        // 查询顺序：0..n-1的随机排列
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(42);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        System.out.printf("%n%-28s %12s %12s %12s %12s %12s%n",
+                "实现", "实测(MB)", "估算(MB)", "字节/条目", "构建(ms)", "查询(ms)");
+
+        // String -> int
+        report("HashMap<String, Integer>", () -> {
+            Map<String, Integer> map = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(names[i], i);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(names[i]);
+            }
+            return sum;
+        }, null, n);
+        report("ObjIntMap<String>", () -> {
+            ObjIntMap<String> map = new ObjIntMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(names[i], i);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(names[i]);
+            }
+            return sum;
+        }, ObjIntMap::estimatedBytes, n);
+
+        // int -> int
+        report("HashMap<Integer, Integer>", () -> {
+            Map<Integer, Integer> map = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(intKeys[i], i);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(intKeys[i]);
+            }
+            return sum;
+        }, null, n);
+        report("IntIntMap", () -> {
+            IntIntMap map = new IntIntMap();
+            for (int i = 0; i < n; i++) {
+                map.put(intKeys[i], i);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(intKeys[i]);
+            }
+            return sum;
+        }, IntIntMap::estimatedBytes, n);
+
+        // long -> long
+        report("HashMap<Long, Long>", () -> {
+            Map<Long, Long> map = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(longKeys[i], (long) i);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(longKeys[i]);
+            }
+            return sum;
+        }, null, n);
+        report("LongLongMap", () -> {
+            LongLongMap map = new LongLongMap();
+            for (int i = 0; i < n; i++) {
+                map.put(longKeys[i], i);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(longKeys[i]);
+            }
+            return sum;
+        }, LongLongMap::estimatedBytes, n);
+
+        // int -> String
+        report("HashMap<Integer, String>", () -> {
+            Map<Integer, String> map = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(intKeys[i], names[i]);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(intKeys[i]).length();
+            }
+            return sum;
+        }, null, n);
+        report("IntObjMap<String>", () -> {
+            IntObjMap<String> map = new IntObjMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(intKeys[i], names[i]);
+            }
+            return map;
+        }, map -> {
+            long sum = 0;
+            for (int i : order) {
+                sum += map.get(intKeys[i]).length();
+            }
+            return sum;
+        }, IntObjMap::estimatedBytes, n);
+
+        // 计数场景：merge/addTo不装箱
+        System.out.println("\n===== 计数场景（每个键累加10次） =====");
+        long begin = System.nanoTime();
+        Map<String, Integer> boxedCounts = new HashMap<>();
+        for (int round = 0; round < 10; round++) {
+            for (int i : order) {
+                boxedCounts.merge(names[i], 1, Integer::sum);
+            }
+        }
+        long boxedNanos = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        ObjIntMap<String> counts = new ObjIntMap<>();
+        for (int round = 0; round < 10; round++) {
+            for (int i : order) {
+                counts.addTo(names[i], 1);
+            }
+        }
+        long primitiveNanos = System.nanoTime() - begin;
+        if (counts.size() != boxedCounts.size() || counts.get(names[n - 1]) != boxedCounts.get(names[n - 1])) {
+            throw new IllegalStateException("计数结果不一致");
+        }
+        System.out.printf("HashMap.merge: %.2f ms，ObjIntMap.addTo: %.2f ms%n",
+                boxedNanos / 1e6, primitiveNanos / 1e6);
+
+        // 保持键和值数组在测量期间一直可达
+        blackhole += names.length + intKeys.length + longKeys.length;
+    }
+
+    /**
+     * 构建一个Map，测量其占用的堆内存，再对所有键查询一遍
+     *
+     * @param estimator 按数组长度估算内存的方法，HashMap传null
+     */
+    private static <M> void report(String name, Supplier<M> builder, ToLongFunction<M> lookup,
+                                   ToLongFunction<M> estimator, int n) {
+        long before = usedHeap();
+        long begin = System.nanoTime();
+        M map = builder.get();
+        long buildNanos = System.nanoTime() - begin;
+        retained = map;
+        long bytes = usedHeap() - before;
+
+        begin = System.nanoTime();
+        blackhole += lookup.applyAsLong(map);
+        long lookupNanos = System.nanoTime() - begin;
+
+        String estimated = estimator == null ? "-" : String.format("%.1f", estimator.applyAsLong(map) / 1048576.0);
+        System.out.printf("%-28s %12.1f %12s %12.1f %12.2f %12.2f%n", name, bytes / 1048576.0, estimated,
+                (double) bytes / n, buildNanos / 1e6, lookupNanos / 1e6);
+        retained = null;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // 多次GC直到已用内存不再下降
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * 模块四：集合框架&泛型
+ * 压缩位图（Roaring Bitmap）
+ *
+ * 存放大量比较密集的int ID（例如1亿个用户ID去重）时，HashSet<Integer>每个元素约50字节，
+ * IntHashSet也要5~11字节，而一个覆盖全部ID范围的位图每个可能的ID只要1位。
+ * 但普通位图在ID稀疏时又很浪费。Roaring Bitmap把int按高16位分成若干块，每块最多65536个元素，
+ * 每块根据自己的元素数选择存储方式：
+ * - 数组容器：元素不超过4096个时，把低16位排序存放在char[]中，每个元素2字节，二分查找
+ * - 位图容器：元素超过4096个时，使用固定8KB的位图（1024个long），每个可能的元素1位
+ * 4096正是两者大小相等的分界点，因此每块都不会超过8KB，也不会比排序的char数组更大。
+ * 块的高16位有序存放在char[]中，查找时先二分找到块，再在块内查找，contains与元素数基本无关。
+ * 元素按无符号顺序遍历（负数排在正数之后）。
+ * 完整的Roaring实现还有游程容器（连续区间只记录起点和长度），本类为简洁起见没有实现。
+ */
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class RoaringBitmap {
+    // 数组容器最多保存的元素数，超过后转为位图容器
+    static final int ARRAY_MAX = 4096;
+
+    private abstract static class Container {
+        abstract boolean contains(char low);
+
+        // 返回加入或删除后应该保存的容器（可能换成另一种容器）
+        abstract Container add(char low);
+
+        abstract Container remove(char low);
+
+        abstract int cardinality();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract long estimatedBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values = new char[4];
+        int cardinality;
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            i = ~i;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                char v = values[i];
+                bitmap.words[v >>> 6] |= 1L << v;
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        long estimatedBytes() {
+            // 对象头+字段约16字节，再加char数组
+            return 16 + PrimitiveHashing.ARRAY_HEADER_BYTES + (long) values.length * Character.BYTES;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int cardinality;
+
+        @Override
+        boolean contains(char low) {
+            // long的移位只取低6位，1L << low 即 1L << (low % 64)
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) != 0) {
+                words[low >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[cardinality];
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    array.values[array.cardinality++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    consumer.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+                    // 清除最低位的1
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long estimatedBytes() {
+            return 16 + PrimitiveHashing.ARRAY_HEADER_BYTES + (long) words.length * Long.BYTES;
+        }
+    }
+
+    // 各块的高16位（无符号有序）与对应的容器
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int containerCount;
+    private int size;
+
+    private static char highBits(int x) {
+        return (char) (x >>> 16);
+    }
+
+    private static char lowBits(int x) {
+        return (char) x;
+    }
+
+    private int containerIndex(char high) {
+        return Arrays.binarySearch(keys, 0, containerCount, high);
+    }
+
+    public boolean contains(int x) {
+        int i = containerIndex(highBits(x));
+        return i >= 0 && containers[i].contains(lowBits(x));
+    }
+
+    /**
+     * 加入元素，已存在时返回false
+     */
+    public boolean add(int x) {
+        char high = highBits(x);
+        int i = containerIndex(high);
+        if (i < 0) {
+            i = ~i;
+            if (containerCount == keys.length) {
+                keys = Arrays.copyOf(keys, containerCount * 2);
+                containers = Arrays.copyOf(containers, containerCount * 2);
+            }
+            System.arraycopy(keys, i, keys, i + 1, containerCount - i);
+            System.arraycopy(containers, i, containers, i + 1, containerCount - i);
+            keys[i] = high;
+            containers[i] = new ArrayContainer();
+            containerCount++;
+        }
+        Container container = containers[i];
+        int before = container.cardinality();
+        containers[i] = container = container.add(lowBits(x));
+        if (container.cardinality() == before) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * 删除元素，不存在时返回false
+     */
+    public boolean remove(int x) {
+        int i = containerIndex(highBits(x));
+        if (i < 0) {
+            return false;
+        }
+        Container container = containers[i];
+        int before = container.cardinality();
+        containers[i] = container = container.remove(lowBits(x));
+        if (container.cardinality() == before) {
+            return false;
+        }
+        size--;
+        if (container.cardinality() == 0) {
+            // 块变空时删除整个块
+            System.arraycopy(keys, i + 1, keys, i, containerCount - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, containerCount - i - 1);
+            containers[--containerCount] = null;
+        }
+        return true;
+    }
+
+    /**
+     * 按无符号顺序遍历所有元素
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        containerCount = 0;
+        size = 0;
+    }
+
+    /**
+     * 数组容器和位图容器的个数，用于观察数据的分布
+     */
+    public String containerSummary() {
+        int bitmaps = 0;
+        for (int i = 0; i < containerCount; i++) {
+            if (containers[i] instanceof BitmapContainer) {
+                bitmaps++;
+            }
+        }
+        return String.format("%d个块（数组容器%d个，位图容器%d个）", containerCount, containerCount - bitmaps, bitmaps);
+    }
+
+    /**
+     * 所有容器和索引数组占用的内存估算（字节）
+     */
+    public long estimatedBytes() {
+        long bytes = 2L * PrimitiveHashing.ARRAY_HEADER_BYTES + (long) keys.length * (Character.BYTES + Integer.BYTES);
+        for (int i = 0; i < containerCount; i++) {
+            bytes += containers[i].estimatedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(x -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(x);
+        });
+        return sb.append(']').toString();
+    }
+}
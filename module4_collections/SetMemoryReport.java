@@ -0,0 +1,284 @@
+/**
+ * 模块四：集合框架&泛型
+ * 示例8：紧凑集合的内存占用与查询报告
+ *
+ * 分别用JDK的集合和紧凑集合存放同样的N个元素，比较堆内存占用、构建耗时和成员判断耗时：
+ * - String：HashSet、TreeSet vs ObjHashSet、SortedArraySet
+ * - 密集的int ID（从[0, 2N)中随机选出N个）：HashSet、TreeSet vs IntHashSet、RoaringBitmap
+ * - 稀疏的int ID（从整个int范围中随机选出N个）：RoaringBitmap退化为每块只有少量元素的数组容器
+ * - long ID：HashSet vs LongHashSet
+ * 元素对象（String）预先创建并在整个测试期间保持引用，统计的只是集合本身占用的内存。
+ * 成员判断对2N个值各查一次（一半存在、一半不存在），按打乱后的顺序进行。
+ * 内存通过多次System.gc()后前后两次的已用堆之差测量，只是近似值；
+ * 同时列出紧凑集合按数组长度计算的估算值作为参照。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java SetMemoryReport [元素数]
+ * 例如：
+ *   java -Xmx2g SetMemoryReport 1000000
+ */
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+public class SetMemoryReport {
+    // 防止JIT把没有使用结果的计算优化掉
+    static volatile long blackhole;
+
+    // 测量期间保持对集合的引用，避免被回收
+    static Object retained;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("===== 紧凑集合内存占用报告 =====");
+        System.out.println("元素数: " + n + "，最大堆: " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + "MB");
+
+        Random random = new Random(42);
+        // 0..2n-1的随机排列：前n个作为集合中的元素，后n个用来查询不存在的情况
+        int[] dense = permutation(2 * n, random);
+        int[] sparse = new int[2 * n];
+        long[] longs = new long[2 * n];
+        String[] names = new String[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            sparse[i] = dense[i] * 0x61C88647;
+            longs[i] = 1_600_000_000_000L * 1000 + (long) dense[i] * 7919;
+            names[i] = "用户" + dense[i];
+        }
+        // 查询顺序：0..2n-1的另一个随机排列
+        int[] order = permutation(2 * n, random);
+
+        System.out.printf("%n%-26s %10s %10s %12s %10s %14s%n",
+                "实现", "实测(MB)", "估算(MB)", "字节/元素", "构建(ms)", "查询(ns/次)");
+
+        // String
+        report("HashSet<String>", () -> {
+            Set<String> set = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                set.add(names[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(names[i]) ? 1 : 0;
+            }
+            return hits;
+        }, null, n);
+        report("TreeSet<String>", () -> {
+            Set<String> set = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                set.add(names[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(names[i]) ? 1 : 0;
+            }
+            return hits;
+        }, null, n);
+        report("ObjHashSet<String>", () -> {
+            ObjHashSet<String> set = new ObjHashSet<>();
+            for (int i = 0; i < n; i++) {
+                set.add(names[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(names[i]) ? 1 : 0;
+            }
+            return hits;
+        }, ObjHashSet::estimatedBytes, n);
+        report("SortedArraySet<String>", () -> SortedArraySet.copyOf(Arrays.asList(names).subList(0, n)), set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(names[i]) ? 1 : 0;
+            }
+            return hits;
+        }, SortedArraySet::estimatedBytes, n);
+
+        // 密集的int ID
+        System.out.println();
+        report("HashSet<Integer>", () -> {
+            Set<Integer> set = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                set.add(dense[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(dense[i]) ? 1 : 0;
+            }
+            return hits;
+        }, null, n);
+        report("TreeSet<Integer>", () -> {
+            Set<Integer> set = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                set.add(dense[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(dense[i]) ? 1 : 0;
+            }
+            return hits;
+        }, null, n);
+        report("IntHashSet", () -> {
+            IntHashSet set = new IntHashSet();
+            for (int i = 0; i < n; i++) {
+                set.add(dense[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(dense[i]) ? 1 : 0;
+            }
+            return hits;
+        }, IntHashSet::estimatedBytes, n);
+        RoaringBitmap denseBitmap = report("RoaringBitmap", () -> {
+            RoaringBitmap set = new RoaringBitmap();
+            for (int i = 0; i < n; i++) {
+                set.add(dense[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(dense[i]) ? 1 : 0;
+            }
+            return hits;
+        }, RoaringBitmap::estimatedBytes, n);
+
+        // 稀疏的int ID
+        System.out.println();
+        report("IntHashSet（稀疏）", () -> {
+            IntHashSet set = new IntHashSet();
+            for (int i = 0; i < n; i++) {
+                set.add(sparse[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(sparse[i]) ? 1 : 0;
+            }
+            return hits;
+        }, IntHashSet::estimatedBytes, n);
+        RoaringBitmap sparseBitmap = report("RoaringBitmap（稀疏）", () -> {
+            RoaringBitmap set = new RoaringBitmap();
+            for (int i = 0; i < n; i++) {
+                set.add(sparse[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(sparse[i]) ? 1 : 0;
+            }
+            return hits;
+        }, RoaringBitmap::estimatedBytes, n);
+
+        // long ID
+        System.out.println();
+        report("HashSet<Long>", () -> {
+            Set<Long> set = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                set.add(longs[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(longs[i]) ? 1 : 0;
+            }
+            return hits;
+        }, null, n);
+        report("LongHashSet", () -> {
+            LongHashSet set = new LongHashSet();
+            for (int i = 0; i < n; i++) {
+                set.add(longs[i]);
+            }
+            return set;
+        }, set -> {
+            long hits = 0;
+            for (int i : order) {
+                hits += set.contains(longs[i]) ? 1 : 0;
+            }
+            return hits;
+        }, LongHashSet::estimatedBytes, n);
+
+        System.out.println("\n密集ID的RoaringBitmap: " + denseBitmap.containerSummary());
+        System.out.println("稀疏ID的RoaringBitmap: " + sparseBitmap.containerSummary());
+
+        // 保持元素数组在测量期间一直可达
+        blackhole += names.length + dense.length + sparse.length + longs.length;
+    }
+
+    private static int[] permutation(int n, Random random) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+
+    /**
+     * 构建一个集合，测量其占用的堆内存，再对2N个值各做一次成员判断
+     *
+     * @param estimator 按数组长度估算内存的方法，JDK集合传null
+     */
+    private static <S> S report(String name, Supplier<S> builder, ToLongFunction<S> lookup,
+                                ToLongFunction<S> estimator, int n) {
+        long before = usedHeap();
+        long begin = System.nanoTime();
+        S set = builder.get();
+        long buildNanos = System.nanoTime() - begin;
+        retained = set;
+        long bytes = usedHeap() - before;
+
+        begin = System.nanoTime();
+        long hits = lookup.applyAsLong(set);
+        long lookupNanos = System.nanoTime() - begin;
+        if (hits != n) {
+            throw new IllegalStateException(name + "的查询结果不正确: " + hits);
+        }
+        blackhole += hits;
+
+        String estimated = estimator == null ? "-" : String.format("%.1f", estimator.applyAsLong(set) / 1048576.0);
+        System.out.printf("%-26s %10.1f %10s %12.1f %10.2f %14.1f%n", name, bytes / 1048576.0, estimated,
+                (double) bytes / n, buildNanos / 1e6, (double) lookupNanos / (2L * n));
+        retained = null;
+        return set;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // 多次GC直到已用内存不再下降
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * 模块四：集合框架&泛型
+ * 基于有序数组的不可变集合
+ *
+ * TreeSet的每个元素都是一个红黑树节点（约40字节），查找时沿着指针在堆上跳来跳去。
+ * 对于构建后只做查询的集合（例如字典、白名单、去重后的ID列表），本类把元素排序去重后
+ * 存放在一个数组中，每个元素只占一个引用（4字节），contains用二分查找，O(log n)。
+ * - 实现SortedSet，可以直接替代只读的TreeSet
+ * - subSet/headSet/tailSet返回共享同一数组的视图，不复制元素
+ * - 不可变：add/remove等修改方法抛出UnsupportedOperationException，可以安全地在线程间共享
+ */
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedSet;
+
+public final class SortedArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
+    private final Object[] elements;
+    // 本集合（或视图）在数组中的范围[from, to)
+    private final int from;
+    private final int to;
+    private final Comparator<? super E> comparator;
+
+    private SortedArraySet(Object[] elements, int from, int to, Comparator<? super E> comparator) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+        this.comparator = comparator;
+    }
+
+    /**
+     * 按自然顺序排序去重
+     */
+    public static <E extends Comparable<? super E>> SortedArraySet<E> copyOf(Collection<? extends E> collection) {
+        return copyOf(collection, null);
+    }
+
+    /**
+     * 按comparator排序去重，comparator为null时使用自然顺序
+     */
+    public static <E> SortedArraySet<E> copyOf(Collection<? extends E> collection, Comparator<? super E> comparator) {
+        Object[] elements = collection.toArray();
+        for (Object element : elements) {
+            Objects.requireNonNull(element);
+        }
+        @SuppressWarnings("unchecked")
+        Comparator<Object> order = comparator != null ? (Comparator<Object>) comparator : null;
+        Arrays.sort(elements, order);
+        // 排序后相等的元素相邻，原地去重
+        int size = 0;
+        for (Object element : elements) {
+            if (size == 0 || compare(order, elements[size - 1], element) != 0) {
+                elements[size++] = element;
+            }
+        }
+        if (size < elements.length) {
+            elements = Arrays.copyOf(elements, size);
+        }
+        return new SortedArraySet<>(elements, 0, size, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Comparator<Object> comparator, Object a, Object b) {
+        return comparator != null ? comparator.compare(a, b) : ((Comparable<Object>) a).compareTo(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return compare((Comparator<Object>) comparator, a, b);
+    }
+
+    /**
+     * 二分查找，找到时返回数组下标，否则返回 ~插入位置（在[from, to]之间）
+     */
+    private int search(Object element) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(elements[mid], element);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return ~lo;
+    }
+
+    // 第一个不小于element的元素的数组下标
+    private int lowerBound(Object element) {
+        int i = search(element);
+        return i >= 0 ? i : ~i;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && search(o) >= 0;
+    }
+
+    /**
+     * 元素在集合中的排名（从0开始），不存在时返回-1
+     */
+    public int indexOf(Object o) {
+        int i = o == null ? -1 : search(o);
+        return i >= 0 ? i - from : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= to - from) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + (to - from));
+        }
+        return (E) elements[from + index];
+    }
+
+    /**
+     * 不小于element的最小元素，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E ceiling(E element) {
+        int i = lowerBound(element);
+        return i < to ? (E) elements[i] : null;
+    }
+
+    /**
+     * 不大于element的最大元素，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E floor(E element) {
+        int i = search(element);
+        if (i >= 0) {
+            return (E) elements[i];
+        }
+        i = ~i - 1;
+        return i >= from ? (E) elements[i] : null;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return (E) elements[next++];
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOfRange(elements, from, to);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return new SortedArraySet<>(elements, lowerBound(fromElement), lowerBound(toElement), comparator);
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return new SortedArraySet<>(elements, from, lowerBound(toElement), comparator);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return new SortedArraySet<>(elements, lowerBound(fromElement), to, comparator);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E first() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return (E) elements[from];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E last() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return (E) elements[to - 1];
+    }
+
+    /**
+     * 数组占用的内存估算（字节，不含元素对象本身；视图与原集合共享同一个数组）
+     */
+    public long estimatedBytes() {
+        return PrimitiveHashing.ARRAY_HEADER_BYTES + (long) elements.length * Integer.BYTES;
+    }
+}
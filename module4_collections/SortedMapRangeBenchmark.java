@@ -0,0 +1,192 @@
+/**
+ * 模块四：集合框架&泛型
+ * 示例7：有序Map的区间查询基准测试
+ *
+ * 比较TreeMap<Integer, Double>、ConcurrentSkipListMap<Integer, Double>与ConcurrentDoubleTreeMap<Integer>：
+ * - 构建：按打乱的顺序插入N个条目
+ * - 区间求和：TreeMap和ConcurrentSkipListMap只能遍历subMap中的每个条目并拆箱；
+ *   ConcurrentDoubleTreeMap既可以遍历（forEach，不创建对象），也可以用增强节点直接聚合（O(log n)）
+ * - 并发：多个线程同时做区间求和，并混入少量更新
+ * 键预先装箱并保持引用，测试期间不再创建Integer。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java SortedMapRangeBenchmark [条目数] [线程数]
+ */
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.ObjDoubleConsumer;
+
+public class SortedMapRangeBenchmark {
+    // 防止JIT把没有使用结果的计算优化掉
+    static volatile double blackhole;
+
+    /**
+     * 可重复使用的求和器，遍历时不创建对象
+     */
+    private static final class Summer implements ObjDoubleConsumer<Object> {
+        double sum;
+
+        @Override
+        public void accept(Object key, double value) {
+            sum += value;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        if (n < 2) {
+            throw new IllegalArgumentException("条目数至少为2: " + n);
+        }
+
+        System.out.println("===== 有序Map区间查询基准测试 =====");
+        System.out.println("条目数: " + n);
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        Integer[] shuffled = keys.clone();
+        Random random = new Random(42);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+
+        // 1. 构建
+        System.out.println("\n----- 构建（乱序插入） -----");
+        long begin = System.nanoTime();
+        TreeMap<Integer, Double> treeMap = new TreeMap<>();
+        for (Integer key : shuffled) {
+            treeMap.put(key, salary(key));
+        }
+        printTime("TreeMap", begin);
+        begin = System.nanoTime();
+        ConcurrentSkipListMap<Integer, Double> skipList = new ConcurrentSkipListMap<>();
+        for (Integer key : shuffled) {
+            skipList.put(key, salary(key));
+        }
+        printTime("ConcurrentSkipListMap", begin);
+        begin = System.nanoTime();
+        ConcurrentDoubleTreeMap<Integer> doubleTree = new ConcurrentDoubleTreeMap<>();
+        for (Integer key : shuffled) {
+            doubleTree.put(key, salary(key));
+        }
+        printTime("ConcurrentDoubleTreeMap", begin);
+
+        // 2. 单线程区间求和
+        System.out.println("\n----- 区间求和（单线程，每次查询的平均耗时） -----");
+        System.out.printf("%-12s %14s %14s %14s %14s%n", "区间宽度", "TreeMap", "SkipList", "DT.forEach", "DT.sum");
+        Summer summer = new Summer();
+        for (int width : new int[]{100, 10_000, n / 2}) {
+            int queries = Math.max(20, 20_000_000 / Math.max(width, 1000));
+            int[] starts = new int[queries];
+            for (int q = 0; q < queries; q++) {
+                starts[q] = random.nextInt(Math.max(1, n - width));
+            }
+            // 先各跑一遍预热，再计时
+            double tree = 0;
+            double skip = 0;
+            double each = 0;
+            double aggregate = 0;
+            for (int round = 0; round < 2; round++) {
+                tree = timeQueries(starts, width, keys, (from, to) -> sumValues(treeMap, from, to));
+                skip = timeQueries(starts, width, keys, (from, to) -> sumValues(skipList, from, to));
+                each = timeQueries(starts, width, keys, (from, to) -> {
+                    summer.sum = 0;
+                    doubleTree.subMap(from, to).forEach(summer);
+                    return summer.sum;
+                });
+                aggregate = timeQueries(starts, width, keys, (from, to) -> doubleTree.subMap(from, to).sum());
+            }
+            System.out.printf("%-12d %12.2fµs %12.2fµs %12.2fµs %12.2fµs%n", width, tree, skip, each, aggregate);
+        }
+
+        // 3. 并发：95%区间求和 + 5%更新
+        System.out.println("\n----- 并发区间求和（" + threads + "个线程，宽度" + Math.min(10_000, n - 1) + "，5%更新） -----");
+        concurrent("ConcurrentSkipListMap", threads, keys, (from, to) -> sumValues(skipList, from, to),
+                key -> skipList.put(key, salary(key) + 1));
+        concurrent("ConcurrentDoubleTreeMap", threads, keys, (from, to) -> doubleTree.subMap(from, to).sum(),
+                key -> doubleTree.addTo(key, 1));
+    }
+
+    interface RangeQuery {
+        double sum(Integer from, Integer to);
+    }
+
+    interface Update {
+        void apply(Integer key);
+    }
+
+    private static double salary(int key) {
+        return 5000 + key % 20_000;
+    }
+
+    private static double sumValues(NavigableMap<Integer, Double> map, Integer from, Integer to) {
+        double sum = 0;
+        for (Double value : map.subMap(from, true, to, false).values()) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    // 返回每次查询的平均微秒数
+    private static double timeQueries(int[] starts, int width, Integer[] keys, RangeQuery query) {
+        double sink = 0;
+        long begin = System.nanoTime();
+        for (int start : starts) {
+            sink += query.sum(keys[start], keys[Math.min(start + width, keys.length - 1)]);
+        }
+        long elapsed = System.nanoTime() - begin;
+        blackhole = sink;
+        return elapsed / 1e3 / starts.length;
+    }
+
+    private static void concurrent(String name, int threads, Integer[] keys, RangeQuery query, Update update)
+            throws InterruptedException {
+        int operations = 2_000;
+        // 条目数不足时缩小区间，否则nextInt(keys.length - width)的参数不为正
+        int width = Math.min(10_000, keys.length - 1);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                double sink = 0;
+                for (int i = 0; i < operations; i++) {
+                    int from = random.nextInt(keys.length - width);
+                    if (random.nextInt(100) < 5) {
+                        update.apply(keys[from]);
+                    } else {
+                        sink += query.sum(keys[from], keys[from + width]);
+                    }
+                }
+                blackhole = sink;
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-24s 吞吐 %12.0f ops/s%n", name, (double) operations * threads * 1e9 / elapsed);
+    }
+
+    private static void printTime(String name, long begin) {
+        System.out.printf("%-24s %8.1f ms%n", name, (System.nanoTime() - begin) / 1e6);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * 模块四：集合框架&泛型
+ * 分段加锁的并发缓存
+ *
+ * LRU和TinyLFU在get时也要修改链表，读操作同样需要互斥，整个缓存一把锁会让所有线程排队。
+ * StripedCache把键按哈希值分到2的幂个分段中，每个分段是一个独立的非线程安全缓存，由自己的锁保护，
+ * 访问不同分段的线程互不阻塞。代价是淘汰只在分段内进行，总容量需要平均分给各分段，
+ * 热点集中在少数分段时命中率会略低于同容量的单个缓存。
+ */
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class StripedCache<K, V> implements Cache<K, V> {
+    private final Cache<K, V>[] segments;
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes        分段数，向上取整为2的幂
+     * @param segmentFactory 创建每个分段的缓存，容量应为总容量除以分段数
+     */
+    @SuppressWarnings("unchecked")
+    public StripedCache(int stripes, Supplier<? extends Cache<K, V>> segmentFactory) {
+        int n = roundStripes(stripes);
+        segments = (Cache<K, V>[]) new Cache<?, ?>[n];
+        locks = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = segmentFactory.get();
+            locks[i] = new ReentrantLock();
+        }
+        mask = n - 1;
+    }
+
+    // 分段数向上取整为2的幂
+    private static int roundStripes(int stripes) {
+        if (stripes <= 0 || stripes > (1 << 16)) {
+            throw new IllegalArgumentException("分段数必须在1到65536之间: " + stripes);
+        }
+        return Math.max(1, Integer.highestOneBit(stripes - 1) << 1);
+    }
+
+    /**
+     * 总容量为maximumSize的分段TinyLFU缓存
+     */
+    public static <K, V> StripedCache<K, V> tinyLfu(int stripes, int maximumSize) {
+        int perSegment = Math.max(1, maximumSize / roundStripes(stripes));
+        return new StripedCache<>(stripes, () -> new TinyLfuCache<>(perSegment));
+    }
+
+    /**
+     * 总容量为maximumSize的分段LRU缓存
+     */
+    public static <K, V> StripedCache<K, V> lru(int stripes, int maximumSize) {
+        int perSegment = Math.max(1, maximumSize / roundStripes(stripes));
+        return new StripedCache<>(stripes, () -> new LruCache<>(perSegment));
+    }
+
+    public int stripes() {
+        return segments.length;
+    }
+
+    private int stripeOf(Object key) {
+        // 用高16位选择分段：段内FrequencySketch使用同一哈希的低位，
+        // 若也用低位，同一分段内的键低位相同，草图中的计数器选择会退化
+        return (PrimitiveHashing.mix(key.hashCode()) >>> 16) & mask;
+    }
+
+    @Override
+    public V get(K key) {
+        int i = stripeOf(key);
+        locks[i].lock();
+        try {
+            return segments[i].get(key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int i = stripeOf(key);
+        locks[i].lock();
+        try {
+            segments[i].put(key, value);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        int i = stripeOf(key);
+        locks[i].lock();
+        try {
+            return segments[i].remove(key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * 在分段锁内加载，同一个键只会被加载一次；加载期间同一分段的其他访问会等待
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        int i = stripeOf(key);
+        locks[i].lock();
+        try {
+            return segments[i].computeIfAbsent(key, loader);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                size += segments[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void cleanUp() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].cleanUp();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * 各分段统计之和（逐个分段加锁读取，不是整体的原子快照）
+     */
+    @Override
+    public CacheStats stats() {
+        CacheStats total = new CacheStats(0, 0, 0, 0);
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                total = total.plus(segments[i].stats());
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * 模块四：集合框架&泛型
+ * W-TinyLFU缓存
+ *
+ * 纯LRU会被一次性访问（例如全表扫描）冲掉热点数据。W-TinyLFU把缓存分成三段：
+ * - 窗口（1%）：新条目先进入一个小的LRU窗口，吸收突发的新访问
+ * - 试用区（主区的20%）与保护区（主区的80%）：主区是分段LRU，试用区的条目再次被访问时晋升到保护区，
+ *   保护区满了就把最久未使用的条目降回试用区
+ * 条目被挤出窗口时成为"候选者"，与试用区最久未使用的"受害者"比较FrequencySketch估计的访问频率，
+ * 只有候选者更频繁时才淘汰受害者、让候选者进入主区，否则淘汰候选者自己。
+ * 三段都是以哨兵节点为头的双向链表，节点同时保存在HashMap中，所有操作都是O(1)。
+ * 非线程安全，并发访问请使用StripedCache。
+ */
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class TinyLfuCache<K, V> implements Cache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        // 过期时间（ticker的纳秒值），0表示不过期
+        long expiresAt;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 双向循环链表，头部是最久未使用的一端
+     */
+    private static final class AccessQueue<K, V> {
+        final Node<K, V> head = new Node<>(null, null, 0);
+        int size;
+
+        AccessQueue() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node<K, V> first() {
+            return head.next == head ? null : head.next;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            remove(node);
+            addLast(node);
+        }
+
+        void clear() {
+            head.prev = head;
+            head.next = head;
+            size = 0;
+        }
+    }
+
+    private final HashMap<K, Node<K, V>> data = new HashMap<>();
+    private final AccessQueue<K, V> window = new AccessQueue<>();
+    private final AccessQueue<K, V> probation = new AccessQueue<>();
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+    private final FrequencySketch sketch;
+    private final int windowMaximum;
+    private final int mainMaximum;
+    private final int protectedMaximum;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    public TinyLfuCache(int maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param expireAfterWrite 写入后多久过期，0表示不过期
+     */
+    public TinyLfuCache(int maximumSize, long expireAfterWrite, TimeUnit unit) {
+        this(maximumSize, expireAfterWrite, unit, System::nanoTime);
+    }
+
+    /**
+     * @param ticker 纳秒时钟，测试时可以传入可控的时钟
+     */
+    public TinyLfuCache(int maximumSize, long expireAfterWrite, TimeUnit unit, LongSupplier ticker) {
+        if (maximumSize <= 0 || expireAfterWrite < 0) {
+            throw new IllegalArgumentException("maximumSize必须为正数，expireAfterWrite不能为负数");
+        }
+        this.sketch = new FrequencySketch(maximumSize);
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.protectedMaximum = mainMaximum * 4 / 5;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.ticker = ticker;
+    }
+
+    private long expiresAt() {
+        // 避免恰好算出0而被当成"不过期"
+        return expireAfterWriteNanos == 0 ? 0 : (ticker.getAsLong() + expireAfterWriteNanos) | 1;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return node.expiresAt != 0 && now - node.expiresAt >= 0;
+    }
+
+    private AccessQueue<K, V> queueOf(Node<K, V> node) {
+        return node.queue == WINDOW ? window : node.queue == PROBATION ? probation : protectedQueue;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        queueOf(node).remove(node);
+        data.remove(node.key);
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        if (expireAfterWriteNanos > 0 && isExpired(node, ticker.getAsLong())) {
+            removeNode(node);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        onAccess(node);
+        hitCount++;
+        return node.value;
+    }
+
+    // 记录访问频率并调整条目所在的段
+    private void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            // 在试用区再次被访问，晋升到保护区
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            while (protectedQueue.size > protectedMaximum) {
+                Node<K, V> demoted = protectedQueue.first();
+                protectedQueue.remove(demoted);
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protectedQueue.moveToLast(node);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.value = value;
+            node.expiresAt = expiresAt();
+            onAccess(node);
+            return;
+        }
+        sketch.increment(key);
+        node = new Node<>(key, value, expiresAt());
+        node.queue = WINDOW;
+        data.put(key, node);
+        window.addLast(node);
+        evict();
+    }
+
+    // 把超出窗口的条目作为候选者，与主区的受害者比较频率
+    private void evict() {
+        while (window.size > windowMaximum) {
+            Node<K, V> candidate = window.first();
+            window.remove(candidate);
+            candidate.queue = PROBATION;
+            if (probation.size + protectedQueue.size < mainMaximum) {
+                probation.addLast(candidate);
+                continue;
+            }
+            Node<K, V> victim = probation.first();
+            if (victim == null) {
+                victim = protectedQueue.first();
+            }
+            if (victim != null && admit(candidate, victim)) {
+                removeNode(victim);
+                probation.addLast(candidate);
+            } else {
+                data.remove(candidate.key);
+                evictionCount++;
+            }
+        }
+    }
+
+    // 受害者已过期，或候选者的访问频率更高时，接纳候选者
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        if (expireAfterWriteNanos > 0 && isExpired(victim, ticker.getAsLong())) {
+            expirationCount++;
+            return true;
+        }
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            evictionCount++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public V remove(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        removeNode(node);
+        return node.value;
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public void cleanUp() {
+        if (expireAfterWriteNanos == 0) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        cleanUp(window, now);
+        cleanUp(probation, now);
+        cleanUp(protectedQueue, now);
+    }
+
+    private void cleanUp(AccessQueue<K, V> queue, long now) {
+        Node<K, V> node = queue.head.next;
+        while (node != queue.head) {
+            Node<K, V> next = node.next;
+            if (isExpired(node, now)) {
+                removeNode(node);
+                expirationCount++;
+            }
+            node = next;
+        }
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, expirationCount);
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * 模块五：IO流&文件处理
+ * 示例7：FileChannel读写的缓冲区分配
+ *
+ * 用FileChannel按固定大小的块反复读取一个文件，比较每次读取使用的缓冲区：
+ * - 每次ByteBuffer.allocate：堆缓冲区，每次读取产生一块垃圾，JDK内部还要经过临时的直接缓冲区再复制一次
+ * - 每次ByteBuffer.allocateDirect：没有额外复制，但分配需要清零内存，释放依赖GC
+ * - 复用一个堆缓冲区：不产生垃圾，但仍然多复制一次
+ * - DirectBufferPool：每次申请、归还池中的直接缓冲区，稳定状态下不分配
+ * 报告耗时、吞吐量，以及读取线程在堆上分配的字节数（每次读取平均）。
+ * 然后用多个线程同时从池中申请缓冲区，最后演示泄漏检测。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java DirectBufferBenchmark [文件大小MB] [块大小KB] [遍数]
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public class DirectBufferBenchmark {
+    interface Reader {
+        long read(FileChannel channel, long position, int chunk) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int chunk = (args.length > 1 ? Integer.parseInt(args[1]) : 64) << 10;
+        int passes = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        System.out.println("===== FileChannel读写的缓冲区分配 =====");
+        Path file = Files.createTempFile("direct-buffer", ".dat");
+        try {
+            byte[] block = new byte[1 << 20];
+            new Random(42).nextBytes(block);
+            try (OutputStream out = Files.newOutputStream(file)) {
+                for (int i = 0; i < megabytes; i++) {
+                    out.write(block);
+                }
+            }
+            System.out.printf("文件: %d MB，块大小: %d KB，遍数: %d%n", megabytes, chunk >> 10, passes);
+            System.out.printf("%n%-28s %10s %10s %16s%n", "方式", "耗时(ms)", "MB/s", "每次读取堆分配(B)");
+
+            ByteBuffer reused = ByteBuffer.allocate(chunk);
+            DirectBufferPool pool = new DirectBufferPool();
+            Reader[] readers = {
+                    (channel, position, size) -> channel.read(ByteBuffer.allocate(size), position),
+                    (channel, position, size) -> channel.read(ByteBuffer.allocateDirect(size), position),
+                    (channel, position, size) -> {
+                        reused.clear();
+                        return channel.read(reused, position);
+                    },
+                    (channel, position, size) -> {
+                        try (DirectBufferPool.Lease lease = pool.acquire(size)) {
+                            return channel.read(lease.buffer(), position);
+                        }
+                    }
+            };
+            String[] names = {"每次ByteBuffer.allocate", "每次ByteBuffer.allocateDirect", "复用一个堆缓冲区", "DirectBufferPool"};
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // 预热
+                for (Reader reader : readers) {
+                    readAll(channel, reader, chunk, 1);
+                }
+                for (int i = 0; i < readers.length; i++) {
+                    measure(names[i], channel, readers[i], chunk, passes);
+                }
+            }
+            System.out.println("\n单线程: " + pool.stats());
+            printDirectMemory();
+
+            concurrent(file, chunk, passes);
+            leakDemo();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long readAll(FileChannel channel, Reader reader, int chunk, int passes) throws IOException {
+        long total = 0;
+        long size = channel.size();
+        for (int pass = 0; pass < passes; pass++) {
+            for (long position = 0; position < size; position += chunk) {
+                total += reader.read(channel, position, chunk);
+            }
+        }
+        return total;
+    }
+
+    private static void measure(String name, FileChannel channel, Reader reader, int chunk, int passes)
+            throws IOException {
+        long reads = (channel.size() + chunk - 1) / chunk * passes;
+        long allocatedBefore = allocatedBytes();
+        long begin = System.nanoTime();
+        long bytes = readAll(channel, reader, chunk, passes);
+        long elapsed = System.nanoTime() - begin;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%-28s %10.0f %10.1f %16s%n", name, elapsed / 1e6, bytes / 1048576.0 / (elapsed / 1e9),
+                allocated < 0 ? "不支持" : String.valueOf(allocated / reads));
+    }
+
+    // 当前线程在堆上分配的字节数（HotSpot扩展），不支持时返回-1
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void printDirectMemory() {
+        for (BufferPoolMXBean bean : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(bean.getName())) {
+                System.out.printf("JVM直接内存: %d个缓冲区，%d KB%n", bean.getCount(), bean.getMemoryUsed() >> 10);
+            }
+        }
+    }
+
+    // 多个线程共用一个池，混合不同大小的申请
+    private static void concurrent(Path file, int chunk, int passes) throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        DirectBufferPool pool = new DirectBufferPool();
+        Thread[] workers = new Thread[threads];
+        long[] bytes = new long[threads];
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(index);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    bytes[index] = readAll(channel, (ch, position, size) -> {
+                        try (DirectBufferPool.Lease lease = pool.acquire(size >> random.nextInt(4))) {
+                            return ch.read(lease.buffer(), position);
+                        }
+                    }, chunk, Math.max(1, passes / threads));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            workers[t].start();
+        }
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += bytes[t];
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%n%d个线程共用一个池: %.0f ms，%.1f MB/s%n", threads, elapsed / 1e6,
+                total / 1048576.0 / (elapsed / 1e9));
+        System.out.println(pool.stats());
+    }
+
+    private static void leakDemo() throws InterruptedException {
+        System.out.println("\n===== 泄漏检测 =====");
+        DirectBufferPool pool = new DirectBufferPool(DirectBufferPool.DEFAULT_MAX_POOLED_SIZE,
+                DirectBufferPool.DEFAULT_LOCAL_CACHE_SIZE, DirectBufferPool.DEFAULT_MAX_ARENA_BYTES, true);
+        pool.acquire(8192).buffer().putInt(42);  // 忘记close()
+        for (int i = 0; i < 10 && pool.stats().leaks == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            pool.checkLeaks();
+        }
+        System.out.println(pool.stats());
+    }
+}
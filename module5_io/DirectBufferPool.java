@@ -0,0 +1,342 @@
+/**
+ * 模块五：IO流&文件处理
+ * 按大小分级的直接缓冲区池
+ *
+ * 用堆缓冲区读写FileChannel时，JDK内部会先把数据复制到一个临时的直接缓冲区；
+ * 而每次都ByteBuffer.allocateDirect代价很高（需要清零内存，释放依赖GC），所以直接缓冲区应该复用。
+ * - 大小分级：申请的大小向上取整到2的幂（最小4KB，最大maxPooledSize），每级单独缓存；
+ *   超过maxPooledSize的申请直接分配，用完由GC回收
+ * - 线程本地缓存：每个线程每级最多缓存localCacheSize个缓冲区，同一线程反复申请释放不需要任何同步
+ * - 共享区：线程本地缓存满了，缓冲区放入各级共享的无锁队列，其他线程可以取用；
+ *   共享区保留的总字节数不超过maxArenaBytes，超出的缓冲区交给GC回收
+ * - 租约：acquire返回Lease，用完close()归还。Lease与缓冲区一一对应、随缓冲区一起复用，
+ *   稳定状态下申请和归还都不分配对象
+ * - 泄漏检测：每个Lease有一个弱引用；Lease没有close()就变得不可达时，弱引用进入引用队列，
+ *   下次acquire或checkLeaks()时报告泄漏。recordAcquireSite为true时还记录申请位置的调用栈（开销大，仅用于调试）
+ * - 统计：申请次数、线程本地/共享区命中、新分配、泄漏、正在使用和已分配的字节数等，见stats()
+ *
+ * 用法：
+ *   try (DirectBufferPool.Lease lease = DirectBufferPool.shared().acquire(8192)) {
+ *       ByteBuffer buffer = lease.buffer();
+ *       channel.read(buffer);
+ *   }
+ */
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DirectBufferPool {
+    public static final int MIN_SIZE = 4096;
+    public static final int DEFAULT_MAX_POOLED_SIZE = 4 << 20;
+    public static final int DEFAULT_LOCAL_CACHE_SIZE = 8;
+    public static final long DEFAULT_MAX_ARENA_BYTES = 64L << 20;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+
+    private final int maxPooledSize;
+    private final int localCacheSize;
+    private final long maxArenaBytes;
+    private final boolean recordAcquireSite;
+
+    // 共享区：每级一个无锁队列
+    private final ConcurrentLinkedQueue<Lease>[] arena;
+    private final AtomicLong arenaBytes = new AtomicLong();
+    private final ThreadLocal<LocalCache> localCache;
+
+    // 所有池化缓冲区的弱引用，保证弱引用本身在缓冲区被回收前不会被回收
+    private final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+    private final ReferenceQueue<Lease> collected = new ReferenceQueue<>();
+
+    // 统计
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder arenaHits = new LongAdder();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder unpooled = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final AtomicLong inUseBytes = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    private static final class SharedHolder {
+        static final DirectBufferPool INSTANCE = new DirectBufferPool();
+    }
+
+    /**
+     * 进程内共享的缓冲区池（默认参数）
+     */
+    public static DirectBufferPool shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * 一个直接缓冲区的租约，close()时归还到池中。不能在close()之后继续使用buffer()
+     */
+    public static final class Lease implements AutoCloseable {
+        private final DirectBufferPool pool;
+        private final ByteBuffer buffer;
+        private final int sizeClass;
+        private final Tracker tracker;
+        private boolean inUse;
+
+        private Lease(DirectBufferPool pool, ByteBuffer buffer, int sizeClass) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+            this.tracker = sizeClass < 0 ? null : new Tracker(this, pool.collected, buffer.capacity());
+        }
+
+        /**
+         * 缓冲区：position为0，limit为申请的大小，容量可能更大
+         */
+        public ByteBuffer buffer() {
+            if (!inUse) {
+                throw new IllegalStateException("缓冲区已归还");
+            }
+            return buffer;
+        }
+
+        public int capacity() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public void close() {
+            if (!inUse) {
+                throw new IllegalStateException("缓冲区重复归还");
+            }
+            inUse = false;
+            pool.release(this);
+        }
+    }
+
+    /**
+     * Lease的弱引用：Lease在使用中被回收就是泄漏
+     */
+    private static final class Tracker extends WeakReference<Lease> {
+        final int capacity;
+        volatile boolean inUse;
+        volatile Throwable acquireSite;
+
+        Tracker(Lease lease, ReferenceQueue<Lease> queue, int capacity) {
+            super(lease, queue);
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * 线程本地缓存：每级一个栈
+     */
+    private static final class LocalCache {
+        final Lease[][] stacks;
+        final int[] sizes;
+
+        LocalCache(int classes, int capacity) {
+            stacks = new Lease[classes][capacity];
+            sizes = new int[classes];
+        }
+    }
+
+    /**
+     * 池的使用情况快照
+     */
+    public static final class Stats {
+        public final long acquires;
+        public final long localHits;
+        public final long arenaHits;
+        public final long allocations;
+        public final long unpooled;
+        public final long discarded;
+        public final long leaks;
+        public final long inUseBytes;
+        public final long allocatedBytes;
+        public final long arenaBytes;
+
+        Stats(long acquires, long localHits, long arenaHits, long allocations, long unpooled, long discarded,
+              long leaks, long inUseBytes, long allocatedBytes, long arenaBytes) {
+            this.acquires = acquires;
+            this.localHits = localHits;
+            this.arenaHits = arenaHits;
+            this.allocations = allocations;
+            this.unpooled = unpooled;
+            this.discarded = discarded;
+            this.leaks = leaks;
+            this.inUseBytes = inUseBytes;
+            this.allocatedBytes = allocatedBytes;
+            this.arenaBytes = arenaBytes;
+        }
+
+        /** 不需要新分配的申请所占的比例 */
+        public double hitRate() {
+            return acquires == 0 ? 0 : (double) (localHits + arenaHits) / acquires;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("申请=%d, 线程本地命中=%d, 共享区命中=%d, 新分配=%d, 超大不池化=%d, 丢弃=%d, 泄漏=%d, "
+                            + "命中率=%.1f%%, 使用中=%dKB, 已分配=%dKB, 共享区=%dKB",
+                    acquires, localHits, arenaHits, allocations, unpooled, discarded, leaks, hitRate() * 100,
+                    inUseBytes >> 10, allocatedBytes >> 10, arenaBytes >> 10);
+        }
+    }
+
+    public DirectBufferPool() {
+        this(DEFAULT_MAX_POOLED_SIZE, DEFAULT_LOCAL_CACHE_SIZE, DEFAULT_MAX_ARENA_BYTES, false);
+    }
+
+    /**
+     * @param maxPooledSize     池化的最大缓冲区（向上取整到2的幂），更大的申请直接分配
+     * @param localCacheSize    每个线程每级最多缓存的缓冲区数，0表示不用线程本地缓存
+     * @param maxArenaBytes     共享区最多保留的字节数
+     * @param recordAcquireSite 是否记录申请位置的调用栈，用于定位泄漏
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DirectBufferPool(int maxPooledSize, int localCacheSize, long maxArenaBytes, boolean recordAcquireSite) {
+        if (maxPooledSize < MIN_SIZE || maxPooledSize > (1 << 30)) {
+            throw new IllegalArgumentException("maxPooledSize必须在" + MIN_SIZE + "到2^30之间: " + maxPooledSize);
+        }
+        if (localCacheSize < 0 || maxArenaBytes < 0) {
+            throw new IllegalArgumentException("缓存大小不能为负数");
+        }
+        this.maxPooledSize = roundUp(maxPooledSize);
+        this.localCacheSize = localCacheSize;
+        this.maxArenaBytes = maxArenaBytes;
+        this.recordAcquireSite = recordAcquireSite;
+        int classes = sizeClass(this.maxPooledSize) + 1;
+        arena = new ConcurrentLinkedQueue[classes];
+        for (int i = 0; i < classes; i++) {
+            arena[i] = new ConcurrentLinkedQueue<>();
+        }
+        localCache = ThreadLocal.withInitial(() -> new LocalCache(classes, localCacheSize));
+    }
+
+    private static int roundUp(int size) {
+        return size <= MIN_SIZE ? MIN_SIZE : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    // 4KB为第0级，8KB为第1级……
+    private static int sizeClass(int size) {
+        return size <= MIN_SIZE ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * 申请至少size字节的直接缓冲区
+     */
+    public Lease acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size不能为负数: " + size);
+        }
+        acquires.increment();
+        Lease lease;
+        if (size > maxPooledSize) {
+            unpooled.increment();
+            lease = new Lease(this, ByteBuffer.allocateDirect(size), -1);
+        } else {
+            lease = take(sizeClass(size));
+            if (recordAcquireSite) {
+                lease.tracker.acquireSite = new Throwable("申请位置");
+            }
+            lease.tracker.inUse = true;
+            inUseBytes.addAndGet(lease.capacity());
+        }
+        lease.inUse = true;
+        lease.buffer.limit(size);
+        return lease;
+    }
+
+    private Lease take(int sizeClass) {
+        if (localCacheSize > 0) {
+            LocalCache cache = localCache.get();
+            int n = cache.sizes[sizeClass];
+            if (n > 0) {
+                Lease[] stack = cache.stacks[sizeClass];
+                Lease lease = stack[--n];
+                stack[n] = null;
+                cache.sizes[sizeClass] = n;
+                localHits.increment();
+                return lease;
+            }
+        }
+        Lease lease = arena[sizeClass].poll();
+        if (lease != null) {
+            arenaBytes.addAndGet(-lease.capacity());
+            arenaHits.increment();
+            return lease;
+        }
+        // 没有可复用的缓冲区时顺便检查泄漏，不在命中路径上增加开销
+        checkLeaks();
+        lease = new Lease(this, ByteBuffer.allocateDirect(MIN_SIZE << sizeClass), sizeClass);
+        trackers.add(lease.tracker);
+        allocations.increment();
+        allocatedBytes.addAndGet(lease.capacity());
+        return lease;
+    }
+
+    private void release(Lease lease) {
+        if (lease.sizeClass < 0) {
+            // 超大缓冲区不池化，交给GC回收
+            return;
+        }
+        lease.buffer.clear();
+        lease.buffer.order(ByteOrder.BIG_ENDIAN);
+        lease.tracker.inUse = false;
+        lease.tracker.acquireSite = null;
+        inUseBytes.addAndGet(-lease.capacity());
+        if (localCacheSize > 0) {
+            LocalCache cache = localCache.get();
+            int n = cache.sizes[lease.sizeClass];
+            if (n < localCacheSize) {
+                cache.stacks[lease.sizeClass][n] = lease;
+                cache.sizes[lease.sizeClass] = n + 1;
+                return;
+            }
+        }
+        if (arenaBytes.addAndGet(lease.capacity()) <= maxArenaBytes) {
+            arena[lease.sizeClass].offer(lease);
+            return;
+        }
+        // 共享区已满，丢弃缓冲区：清除弱引用（不会进入引用队列），直接内存由GC回收
+        arenaBytes.addAndGet(-lease.capacity());
+        trackers.remove(lease.tracker);
+        lease.tracker.clear();
+        allocatedBytes.addAndGet(-lease.capacity());
+        discarded.increment();
+    }
+
+    /**
+     * 处理已被GC回收的缓冲区，返回新发现的泄漏数。
+     * 在使用中被回收的是泄漏；空闲时被回收的是退出线程的本地缓存中的缓冲区，不算泄漏
+     */
+    public int checkLeaks() {
+        int found = 0;
+        Tracker tracker;
+        while ((tracker = (Tracker) collected.poll()) != null) {
+            if (!trackers.remove(tracker)) {
+                continue;
+            }
+            allocatedBytes.addAndGet(-tracker.capacity);
+            if (tracker.inUse) {
+                found++;
+                leaks.increment();
+                inUseBytes.addAndGet(-tracker.capacity);
+                System.err.println("DirectBufferPool: " + tracker.capacity + "字节的缓冲区没有close()就被回收了"
+                        + (tracker.acquireSite == null ? "（创建池时启用recordAcquireSite可记录申请位置）" : ""));
+                if (tracker.acquireSite != null) {
+                    tracker.acquireSite.printStackTrace();
+                }
+            }
+        }
+        return found;
+    }
+
+    public Stats stats() {
+        return new Stats(acquires.sum(), localHits.sum(), arenaHits.sum(), allocations.sum(), unpooled.sum(),
+                discarded.sum(), leaks.sum(), inUseBytes.get(), allocatedBytes.get(), arenaBytes.get());
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * 模块五：IO流&文件处理
+ * 示例6：批量文件复制
+ *
+ * 比较Files.copy逐个复制与FileTransferService（transferTo + 池化直接缓冲区 + 并行复制）：
+ * - 大量小文件：每个文件的开销（打开、关闭、分配缓冲区）占主要部分，并行复制能让多个文件的IO重叠
+ * - 少量大文件：transferTo让数据留在内核中，不经过Java堆；Linux上的Files.copy同样在内核中复制，
+ *   两者单线程吞吐量相近。FileTransferService每个检查点都要把数据刷到磁盘，这是断点续传的代价
+ * 每种方式都复制到一个空的目标目录，报告MB/s和文件/s。
+ * 最后演示断点续传：复制大文件时中断，再次复制从最后一个检查点继续。
+ * 文件刚生成时还在页缓存中，测得的是不受磁盘限制的复制开销。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java FileTransferBenchmark [小文件数] [大文件MB] [线程数]
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class FileTransferBenchmark {
+    private static final int LARGE_FILES = 4;
+
+    public static void main(String[] args) throws Exception {
+        int smallFiles = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int largeMegabytes = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        System.out.println("===== 批量文件复制 =====");
+        Path root = Files.createTempDirectory("file-transfer");
+        try {
+            Random random = new Random(42);
+
+            Path small = root.resolve("small");
+            long smallBytes = 0;
+            for (int i = 0; i < smallFiles; i++) {
+                // 1KB~64KB，每100个文件一个子目录
+                byte[] data = new byte[1024 + random.nextInt(63 * 1024)];
+                random.nextBytes(data);
+                Path file = small.resolve("dir" + i / 100).resolve("file" + i + ".dat");
+                Files.createDirectories(file.getParent());
+                Files.write(file, data);
+                smallBytes += data.length;
+            }
+            System.out.printf("%n大量小文件: %d个，共%.1f MB，线程数: %d%n", smallFiles, smallBytes / 1048576.0, threads);
+            compare(small, root.resolve("small-copy"), threads);
+
+            Path large = root.resolve("large");
+            Files.createDirectories(large);
+            for (int i = 0; i < LARGE_FILES; i++) {
+                generate(large.resolve("large" + i + ".dat"), (long) largeMegabytes << 20, random);
+            }
+            System.out.printf("%n少量大文件: %d个，每个%d MB，线程数: %d%n", LARGE_FILES, largeMegabytes, threads);
+            compare(large, root.resolve("large-copy"), threads);
+
+            resumeDemo(large.resolve("large0.dat"), root.resolve("resumed.dat"));
+        } finally {
+            deleteRecursively(root);
+        }
+    }
+
+    private static void compare(Path source, Path target, int threads) throws IOException {
+        System.out.printf("%-32s %10s %10s %12s%n", "方式", "耗时(ms)", "MB/s", "文件/s");
+
+        // Files.copy逐个复制
+        Map<Path, Path> jobs = new LinkedHashMap<>();
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path)) {
+                    jobs.put(path, target.resolve(source.relativize(path).toString()));
+                }
+            }
+        }
+        long bytes = 0;
+        long begin = System.nanoTime();
+        for (Map.Entry<Path, Path> job : jobs.entrySet()) {
+            Files.createDirectories(job.getValue().getParent());
+            Files.copy(job.getKey(), job.getValue(), StandardCopyOption.REPLACE_EXISTING);
+            bytes += Files.size(job.getValue());
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-32s %10.0f %10.1f %12.0f%n", "Files.copy", elapsed / 1e6,
+                bytes / 1048576.0 / (elapsed / 1e9), jobs.size() / (elapsed / 1e9));
+        deleteRecursively(target);
+
+        for (int n : new int[]{1, threads}) {
+            try (FileTransferService service = new FileTransferService(n, FileTransferService.DEFAULT_BUFFER_SIZE,
+                    FileTransferService.DEFAULT_CHECKPOINT_INTERVAL)) {
+                FileTransferService.Report report = service.copyTree(source, target);
+                System.out.printf("%-32s %10.0f %10.1f %12.0f%n", "FileTransferService(" + n + "线程)",
+                        report.elapsedNanos() / 1e6, report.megabytesPerSecond(), report.filesPerSecond());
+                if (!report.failures().isEmpty()) {
+                    System.out.println("失败: " + report.failures());
+                }
+            }
+            deleteRecursively(target);
+        }
+    }
+
+    private static void resumeDemo(Path source, Path target) throws Exception {
+        System.out.println("\n===== 断点续传 =====");
+        long interval = 16L << 20;
+        try (FileTransferService service = new FileTransferService(1, FileTransferService.DEFAULT_BUFFER_SIZE, interval)) {
+            Path checkpoint = target.resolveSibling(target.getFileName() + FileTransferService.CHECKPOINT_SUFFIX);
+            Thread worker = new Thread(() -> {
+                try {
+                    service.copy(source, target);
+                    System.out.println("复制在中断前已完成");
+                } catch (IOException e) {
+                    System.out.println("复制被中断: " + e.getClass().getSimpleName());
+                }
+            });
+            worker.start();
+            // 等第一个检查点写入后中断复制线程
+            while (worker.isAlive() && !Files.exists(checkpoint)) {
+                Thread.sleep(1);
+            }
+            worker.interrupt();
+            worker.join();
+
+            long begin = System.nanoTime();
+            long copied = service.copy(source, target);
+            long size = Files.size(source);
+            System.out.printf("再次复制: 文件%d MB，本次复制%.1f MB，从检查点跳过%.1f MB，%.0f ms%n",
+                    size >> 20, copied / 1048576.0, (size - copied) / 1048576.0, (System.nanoTime() - begin) / 1e6);
+            System.out.println("累计: " + service.totals());
+        }
+    }
+
+    // 用随机数据块重复填充，避免生成大文件本身太慢
+    private static void generate(Path file, long size, Random random) throws IOException {
+        byte[] block = new byte[1 << 20];
+        random.nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                block[0]++;
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
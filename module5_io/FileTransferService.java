@@ -0,0 +1,445 @@
+/**
+ * 模块五：IO流&文件处理
+ * 批量文件复制/传输服务
+ *
+ * Files.copy一次只复制一个文件，也不能在中断后从断点继续。本类面向本地卷之间的大批量复制：
+ * - 大文件用FileChannel.transferTo复制，数据在内核中从源文件直接进入目标文件（Linux上是sendfile），
+ *   不经过Java堆；transferTo不支持或一次没有传输任何数据时，退回到池化的直接缓冲区读写
+ * - 小于一个缓冲区的小文件只需一次read和一次write，直接用池化的直接缓冲区复制；
+ *   缓冲区从DirectBufferPool.shared()申请，用完归还，复制时不分配新的直接缓冲区
+ * - copyAll/copyTree在固定大小的线程池中同时复制多个文件，同时进行的复制数不超过线程数；
+ *   单个文件失败不影响其他文件，失败的文件记录在报告中
+ * - 断点续传：大于检查点间隔的文件先写入"目标文件.part"，每复制checkpointInterval字节
+ *   把目标文件刷到磁盘，再把偏移量原子地写入"目标文件.ckpt"；再次复制同一文件时，
+ *   源文件大小和修改时间都没变就从检查点继续。复制完成后.part原子地改名为目标文件
+ * - copyTree跳过大小和修改时间都与源文件相同的目标文件（复制完成后目标文件的修改时间设为源文件的），
+ *   中断后重新运行只会复制还没完成的文件
+ * - 每批复制和服务启动以来的累计结果都用Report报告：文件数、字节数、MB/s、文件/s
+ */
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class FileTransferService implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 256 << 10;
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 64L << 20;
+    public static final String PART_SUFFIX = ".part";
+    public static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    // 每次transferTo最多传输的字节数，Linux的sendfile单次也最多传输约2GB
+    private static final long MAX_TRANSFER = 1L << 30;
+
+    private final int parallelism;
+    private final int bufferSize;
+    private final long checkpointInterval;
+    private final ExecutorService executor;
+    private final DirectBufferPool buffers = DirectBufferPool.shared();
+
+    // 服务启动以来的累计结果
+    private final long createdAt = System.nanoTime();
+    private final Counters total = new Counters();
+
+    /**
+     * 一次复制的结果
+     */
+    public static final class Report {
+        private final long files;
+        private final long bytes;
+        private final long resumedBytes;
+        private final long skipped;
+        private final long elapsedNanos;
+        private final Map<Path, IOException> failures;
+
+        Report(long files, long bytes, long resumedBytes, long skipped, long elapsedNanos,
+               Map<Path, IOException> failures) {
+            this.files = files;
+            this.bytes = bytes;
+            this.resumedBytes = resumedBytes;
+            this.skipped = skipped;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        /** 复制完成的文件数 */
+        public long files() {
+            return files;
+        }
+
+        /** 实际复制的字节数（不含从检查点继续时跳过的部分） */
+        public long bytes() {
+            return bytes;
+        }
+
+        /** 从检查点继续时不需要再复制的字节数 */
+        public long resumedBytes() {
+            return resumedBytes;
+        }
+
+        /** 目标文件已是最新而跳过的文件数 */
+        public long skipped() {
+            return skipped;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** 复制失败的源文件及原因 */
+        public Map<Path, IOException> failures() {
+            return failures;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes / 1048576.0 / (elapsedNanos / 1e9);
+        }
+
+        public double filesPerSecond() {
+            return elapsedNanos == 0 ? 0 : files / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("文件=%d, 字节=%d, 续传跳过=%d, 已是最新=%d, 失败=%d, 耗时=%.0fms, %.1f MB/s, %.0f 文件/s",
+                    files, bytes, resumedBytes, skipped, failures.size(), elapsedNanos / 1e6,
+                    megabytesPerSecond(), filesPerSecond());
+        }
+    }
+
+    /**
+     * 多个线程同时累加的计数器
+     */
+    private static final class Counters {
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder resumedBytes = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+
+        Report report(long elapsedNanos, Map<Path, IOException> failures) {
+            return new Report(files.sum(), bytes.sum(), resumedBytes.sum(), skipped.sum(), elapsedNanos, failures);
+        }
+    }
+
+    /**
+     * 使用默认缓冲区大小和检查点间隔，线程数为CPU核数
+     */
+    public FileTransferService() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BUFFER_SIZE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param parallelism        同时复制的最大文件数
+     * @param bufferSize         直接缓冲区大小，不超过它的文件只用一次读写复制
+     * @param checkpointInterval 检查点间隔，大于它的文件支持断点续传
+     */
+    public FileTransferService(int parallelism, int bufferSize, long checkpointInterval) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism必须为正数: " + parallelism);
+        }
+        if (bufferSize < 4096) {
+            throw new IllegalArgumentException("缓冲区至少为4096字节: " + bufferSize);
+        }
+        if (checkpointInterval < bufferSize) {
+            throw new IllegalArgumentException("检查点间隔不能小于缓冲区大小: " + checkpointInterval);
+        }
+        this.parallelism = parallelism;
+        this.bufferSize = bufferSize;
+        this.checkpointInterval = checkpointInterval;
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "file-transfer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 在调用线程中复制一个文件，目标文件已存在时被替换。返回本次实际复制的字节数
+     */
+    public long copy(Path source, Path target) throws IOException {
+        Counters counters = new Counters();
+        copyFile(source, target, counters);
+        return counters.bytes.sum();
+    }
+
+    /**
+     * 移动文件：同一个卷内直接改名；跨卷时先复制（支持断点续传）再删除源文件
+     */
+    public void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            copyFile(source, target, new Counters());
+            Files.delete(source);
+        }
+    }
+
+    /**
+     * 并行复制多个文件（源文件 -> 目标文件），同时进行的复制数不超过parallelism。
+     * 单个文件失败不影响其他文件，失败记录在报告中
+     */
+    public Report copyAll(Map<Path, Path> jobs) throws IOException {
+        return copyAll(jobs, false);
+    }
+
+    /**
+     * 把源目录下的所有文件复制到目标目录，保持目录结构；
+     * 大小和修改时间都与源文件相同的目标文件被跳过，中断后重新运行只复制还没完成的文件
+     */
+    public Report copyTree(Path sourceDir, Path targetDir) throws IOException {
+        Map<Path, Path> jobs = new LinkedHashMap<>();
+        try (Stream<Path> paths = Files.walk(sourceDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = targetDir.resolve(sourceDir.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else if (Files.isRegularFile(path)) {
+                    jobs.put(path, target);
+                }
+            }
+        }
+        return copyAll(jobs, true);
+    }
+
+    private Report copyAll(Map<Path, Path> jobs, boolean skipUpToDate) throws IOException {
+        long begin = System.nanoTime();
+        Counters counters = new Counters();
+        List<Path> sources = new ArrayList<>(jobs.size());
+        List<Future<?>> futures = new ArrayList<>(jobs.size());
+        for (Map.Entry<Path, Path> job : jobs.entrySet()) {
+            Path source = job.getKey();
+            Path target = job.getValue();
+            sources.add(source);
+            futures.add(executor.submit(() -> {
+                if (skipUpToDate && isUpToDate(source, target)) {
+                    counters.skipped.increment();
+                    total.skipped.increment();
+                } else {
+                    copyFile(source, target, counters);
+                }
+                return null;
+            }));
+        }
+        Map<Path, IOException> failures = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        failures.put(sources.get(i), (IOException) cause);
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else {
+                        throw new IOException(cause);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // 中断正在复制的文件，已写入的检查点保留，下次可以继续
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("批量复制被中断");
+        }
+        return counters.report(System.nanoTime() - begin, Collections.unmodifiableMap(failures));
+    }
+
+    /**
+     * 服务启动以来的累计结果，耗时为服务运行的时间
+     */
+    public Report totals() {
+        return total.report(System.nanoTime() - createdAt, Collections.emptyMap());
+    }
+
+    private boolean isUpToDate(Path source, Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return false;
+        }
+        BasicFileAttributes s = Files.readAttributes(source, BasicFileAttributes.class);
+        BasicFileAttributes t = Files.readAttributes(target, BasicFileAttributes.class);
+        return s.size() == t.size() && s.lastModifiedTime().equals(t.lastModifiedTime());
+    }
+
+    private void copyFile(Path source, Path target, Counters counters) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = attrs.size();
+        long copied;
+        if (size <= checkpointInterval) {
+            copied = copySmall(source, target, size);
+        } else {
+            copied = copyResumable(source, target, attrs, counters);
+        }
+        // 目标文件的修改时间与源文件相同，copyTree据此跳过已复制的文件
+        Files.setLastModifiedTime(target, attrs.lastModifiedTime());
+        counters.files.increment();
+        counters.bytes.add(copied);
+        total.files.increment();
+        total.bytes.add(copied);
+    }
+
+    // 不需要检查点的文件直接写目标文件
+    private long copySmall(Path source, Path target, long size) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (size <= bufferSize) {
+                copyBuffered(in, out, 0, size);
+            } else {
+                transfer(in, out, 0, size);
+            }
+        }
+        return size;
+    }
+
+    private long copyResumable(Path source, Path target, BasicFileAttributes attrs, Counters counters)
+            throws IOException {
+        Path part = sibling(target, PART_SUFFIX);
+        Path checkpoint = sibling(target, CHECKPOINT_SUFFIX);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        long position = readCheckpoint(checkpoint, size, modified);
+        long resumed;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (position > out.size()) {
+                // .part比检查点短（被截断或删除过），只能从头复制
+                position = 0;
+            }
+            // 检查点之后写入的数据不一定完整，丢弃
+            out.truncate(position);
+            resumed = position;
+            counters.resumedBytes.add(resumed);
+            total.resumedBytes.add(resumed);
+            while (position < size) {
+                long count = Math.min(checkpointInterval, size - position);
+                transfer(in, out, position, count);
+                position += count;
+                // 先把数据刷到磁盘再记录检查点，检查点之前的数据在断电后也是完整的
+                out.force(false);
+                if (position < size) {
+                    writeCheckpoint(checkpoint, size, modified, position);
+                }
+            }
+            if (in.size() != size) {
+                throw new IOException("源文件在复制过程中被修改: " + source);
+            }
+        }
+        moveReplacing(part, target);
+        Files.deleteIfExists(checkpoint);
+        return size - resumed;
+    }
+
+    /**
+     * 用transferTo复制[position, position + count)，写到out的相同偏移处
+     */
+    private void transfer(FileChannel in, FileChannel out, long position, long count) throws IOException {
+        long end = position + count;
+        out.position(position);
+        while (position < end) {
+            long n = in.transferTo(position, Math.min(end - position, MAX_TRANSFER), out);
+            if (n <= 0) {
+                // transferTo没有传输数据：源文件变短了，或者通道不支持直接传输
+                if (in.size() < end) {
+                    throw new IOException("源文件在复制过程中被截断");
+                }
+                copyBuffered(in, out, position, end - position);
+                return;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * 通过池化的直接缓冲区复制[position, position + count)
+     */
+    private void copyBuffered(FileChannel in, FileChannel out, long position, long count) throws IOException {
+        try (DirectBufferPool.Lease lease = buffers.acquire(bufferSize)) {
+            ByteBuffer buffer = lease.buffer();
+            long end = position + count;
+            while (position < end) {
+                buffer.clear();
+                if (end - position < buffer.capacity()) {
+                    buffer.limit((int) (end - position));
+                }
+                int n = in.read(buffer, position);
+                if (n < 0) {
+                    throw new IOException("源文件在复制过程中被截断");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += out.write(buffer, position);
+                }
+            }
+        }
+    }
+
+    // 检查点内容：源文件大小、源文件修改时间、已写入磁盘的偏移量
+    private static long readCheckpoint(Path checkpoint, long size, long modified) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpoint))) {
+            if (in.readLong() != size || in.readLong() != modified) {
+                return 0;
+            }
+            long position = in.readLong();
+            return position >= 0 && position <= size ? position : 0;
+        } catch (IOException e) {
+            // 没有检查点或检查点不完整，从头复制
+            return 0;
+        }
+    }
+
+    private static void writeCheckpoint(Path checkpoint, long size, long modified, long position) throws IOException {
+        Path tmp = sibling(checkpoint, ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeLong(position);
+        }
+        moveReplacing(tmp, checkpoint);
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Path sibling(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    /**
+     * 关闭线程池，正在进行的复制会完成
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * 模块五：IO流&文件处理
+ * 示例8：目录遍历
+ *
+ * 生成一棵目录树，统计所有.log文件的个数和总大小，比较：
+ * - Files.walk：单线程，流中只有Path，取大小还要再读一次属性
+ * - Files.walkFileTree：单线程，visitFile直接拿到属性
+ * - ParallelFileWalker：按目录并行（工作窃取），遍历时预取属性，glob过滤在工作线程中完成，
+ *   分别用不同的IO并发上限运行
+ * 最后用open()流式遍历，输出队列只有1000个条目，调用方处理得慢时内存占用仍然有界。
+ * 刚生成的目录树在页缓存中，测得的是CPU和系统调用开销；
+ * 在网络共享或冷缓存的磁盘上，每次读取都要等待IO，并发带来的提升会大得多。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java FileWalkBenchmark [文件数] [每个目录的文件数]
+ */
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class FileWalkBenchmark {
+    interface Task {
+        long[] run() throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int filesPerDirectory = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("===== 目录遍历 =====");
+        Path root = Files.createTempDirectory("file-walk");
+        try {
+            long begin = System.nanoTime();
+            int directories = generate(root, files, filesPerDirectory);
+            System.out.printf("目录树: %d个文件，%d个目录，生成耗时%.0f ms，CPU核数: %d%n", files, directories,
+                    (System.nanoTime() - begin) / 1e6, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%n%-32s %10s %12s  %s%n", "方式", "耗时(ms)", "条目/s", "结果");
+
+            // 预热：让目录和inode进入缓存
+            walkFileTree(root);
+
+            measure("Files.walk", files + directories, () -> {
+                long count = 0;
+                long bytes = 0;
+                try (Stream<Path> paths = Files.walk(root)) {
+                    for (Path path : (Iterable<Path>) paths::iterator) {
+                        if (path.getFileName().toString().endsWith(".log") && Files.isRegularFile(path)) {
+                            count++;
+                            bytes += Files.size(path);
+                        }
+                    }
+                }
+                return new long[]{count, bytes};
+            });
+            measure("Files.walkFileTree", files + directories, () -> walkFileTree(root));
+            for (int concurrency : new int[]{1, 4, 16}) {
+                measure("ParallelFileWalker(IO并发" + concurrency + ")", files + directories, () -> {
+                    LongAdder count = new LongAdder();
+                    LongAdder bytes = new LongAdder();
+                    new ParallelFileWalker(concurrency).glob("*.log").walk(root, entry -> {
+                        count.increment();
+                        bytes.add(entry.size());
+                    });
+                    return new long[]{count.sum(), bytes.sum()};
+                });
+            }
+
+            // 流式遍历：调用方每个条目都做一点工作，工作线程受输出队列容量限制
+            System.out.println("\n===== 有界的流式输出 =====");
+            ParallelFileWalker walker = new ParallelFileWalker(8).glob("*.log").queueCapacity(1000);
+            long maxQueued = 0;
+            long consumed = 0;
+            try (ParallelFileWalker.Walk walk = walker.open(root)) {
+                while (walk.hasNext()) {
+                    walk.next();
+                    consumed++;
+                    if (consumed % 1000 == 0) {
+                        Thread.sleep(1);
+                        ParallelFileWalker.Stats stats = walk.stats();
+                        maxQueued = Math.max(maxQueued, stats.matched - consumed);
+                    }
+                }
+                System.out.println("已取出: " + consumed + "，工作线程领先调用方最多: " + maxQueued + "个条目");
+                System.out.println("统计: " + walk.stats());
+            }
+        } finally {
+            deleteRecursively(root);
+        }
+    }
+
+    private static long[] walkFileTree(Path root) throws IOException {
+        long[] result = new long[2];
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.getFileName().toString().endsWith(".log")) {
+                    result[0]++;
+                    result[1] += attrs.size();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result;
+    }
+
+    private static void measure(String name, long entries, Task task) throws IOException {
+        long begin = System.nanoTime();
+        long[] result = task.run();
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-32s %10.0f %12.0f  .log文件=%d, 总大小=%d%n", name, elapsed / 1e6,
+                entries / (elapsed / 1e9), result[0], result[1]);
+    }
+
+    // 随机的多层目录：每个目录放filesPerDirectory个文件，新目录挂在随机的已有目录下
+    private static int generate(Path root, int files, int filesPerDirectory) throws IOException {
+        Random random = new Random(42);
+        List<Path> directories = new ArrayList<>();
+        directories.add(root);
+        byte[] data = new byte[4096];
+        for (int i = 0; i < files; i++) {
+            if (i % filesPerDirectory == 0 && i > 0) {
+                Path parent = directories.get(random.nextInt(directories.size()));
+                Path directory = parent.resolve("dir" + directories.size());
+                Files.createDirectory(directory);
+                directories.add(directory);
+            }
+            Path directory = directories.get(directories.size() - 1);
+            String suffix = random.nextInt(4) == 0 ? ".log" : ".txt";
+            Files.write(directory.resolve("file" + i + suffix), Arrays.copyOf(data, random.nextInt(data.length)));
+        }
+        return directories.size();
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,486 @@
+/**
+ * 模块五：IO流&文件处理
+ * 按窗口内存映射的大文件读取器
+ *
+ * Files.readAllBytes/readAllLines会把整个文件读到堆上，几十GB的日志文件根本放不下。
+ * 本类用FileChannel.map把文件的一段（窗口，默认64MB）映射到内存，读完一个窗口再映射下一个：
+ * - 文件内容由操作系统的页缓存按需载入，不经过堆，堆内存占用与文件大小无关
+ * - 按行遍历时不创建String：回调收到的Line只记录行在映射中的位置和长度，
+ *   需要时再按字节比较、查找或解码；Line对象在整个遍历过程中复用
+ * - 一行跨越窗口末尾时，从这一行的开头重新映射窗口；单行超过窗口大小时窗口加倍
+ * - 随机访问：按字节偏移读取，或取出某个偏移所在的整行
+ * - 并行：把文件按字节数平均切成若干段，每个切分点向后移到下一行的开头，
+ *   各段在线程池中独立映射、互不共享状态，结果按段的顺序返回
+ * 查找换行符时每次读取8个字节，用位运算判断其中是否有'\n'，只有包含时才逐字节检查。
+ * 映射的内存在MappedByteBuffer被回收时才解除映射，close()只关闭文件通道。
+ */
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class MappedFileReader implements Closeable {
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    // 单个MappedByteBuffer最多映射的字节数
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * 逐行处理的回调
+     */
+    public interface LineConsumer {
+        void accept(Line line) throws IOException;
+    }
+
+    /**
+     * 并行处理每一段的任务
+     */
+    public interface SegmentProcessor<R> {
+        R process(Segment segment) throws IOException;
+    }
+
+    /**
+     * 一行的内容（不含行尾的\n或\r\n），只在回调期间有效，之后会被复用
+     */
+    public static final class Line {
+        private ByteBuffer buffer;
+        private int start;
+        private int length;
+        private long offset;
+
+        private void set(ByteBuffer buffer, int start, int length, long offset) {
+            this.buffer = buffer;
+            this.start = start;
+            this.length = length;
+            this.offset = offset;
+        }
+
+        /**
+         * 行首在文件中的字节偏移
+         */
+        public long offset() {
+            return offset;
+        }
+
+        /**
+         * 行的字节数
+         */
+        public int length() {
+            return length;
+        }
+
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        public byte byteAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+            }
+            return buffer.get(start + index);
+        }
+
+        /**
+         * 从from开始查找字节b，返回行内下标，找不到时返回-1
+         */
+        public int indexOf(byte b, int from) {
+            for (int i = Math.max(from, 0); i < length; i++) {
+                if (buffer.get(start + i) == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean startsWith(byte[] prefix) {
+            return prefix.length <= length && regionMatches(0, prefix);
+        }
+
+        /**
+         * 行中是否包含pattern（按字节比较，例如查找日志中的"ERROR"）
+         */
+        public boolean contains(byte[] pattern) {
+            if (pattern.length == 0) {
+                return true;
+            }
+            byte first = pattern[0];
+            for (int i = 0, last = length - pattern.length; i <= last; i++) {
+                if (buffer.get(start + i) == first && regionMatches(i, pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean regionMatches(int from, byte[] pattern) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer.get(start + from + j) != pattern[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 把[from, to)之间的数字解析为long，例如CSV中的一列
+         */
+        public long parseLong(int from, int to) {
+            if (from < 0 || to > length || from >= to) {
+                throw new NumberFormatException("范围无效: [" + from + ", " + to + ")");
+            }
+            boolean negative = buffer.get(start + from) == '-';
+            long value = 0;
+            for (int i = negative ? from + 1 : from; i < to; i++) {
+                int digit = buffer.get(start + i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("不是数字: " + toString());
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * 把整行复制到dst的dstOffset处
+         */
+        public void copyTo(byte[] dst, int dstOffset) {
+            for (int i = 0; i < length; i++) {
+                dst[dstOffset + i] = buffer.get(start + i);
+            }
+        }
+
+        /**
+         * 解码为字符串（会创建对象，只在需要时调用）
+         */
+        public String toString(Charset charset) {
+            byte[] bytes = new byte[length];
+            copyTo(bytes, 0);
+            return new String(bytes, charset);
+        }
+
+        @Override
+        public String toString() {
+            return toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 文件中以行首开始、以行首（或文件末尾）结束的一段
+     */
+    public final class Segment {
+        private final int index;
+        private final long start;
+        private final long end;
+
+        private Segment(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public long start() {
+            return start;
+        }
+
+        public long end() {
+            return end;
+        }
+
+        /**
+         * 遍历本段中的每一行，返回行数
+         */
+        public long forEachLine(LineConsumer consumer) throws IOException {
+            return MappedFileReader.this.forEachLine(start, end, consumer);
+        }
+    }
+
+    // 随机访问使用的窗口，不可变，多个线程可以同时读取
+    private static final class Window {
+        final long start;
+        final MappedByteBuffer buffer;
+
+        Window(long start, MappedByteBuffer buffer) {
+            this.start = start;
+            this.buffer = buffer;
+        }
+
+        boolean covers(long offset) {
+            return offset >= start && offset - start < buffer.limit();
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private volatile Window randomAccessWindow;
+
+    private MappedFileReader(Path path, int windowSize) throws IOException {
+        if (windowSize < 4096) {
+            throw new IllegalArgumentException("窗口至少为4096字节: " + windowSize);
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    public static MappedFileReader open(Path path) throws IOException {
+        return open(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize 每次映射的字节数，越大映射次数越少，但占用的虚拟地址空间越多
+     */
+    public static MappedFileReader open(Path path, int windowSize) throws IOException {
+        return new MappedFileReader(path, windowSize);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private MappedByteBuffer map(long start, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.min(length, Math.min(size - start, MAX_WINDOW_SIZE)));
+        // 按小端读取long时与字节在文件中的顺序一致：最低字节是偏移最小的字节
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // ---------- 按行遍历 ----------
+
+    /**
+     * 遍历文件中的每一行，返回行数
+     */
+    public long forEachLine(LineConsumer consumer) throws IOException {
+        return forEachLine(0, size, consumer);
+    }
+
+    /**
+     * 遍历行首在[from, to)之间的行，from必须是行首；最后一行可以超出to
+     */
+    public long forEachLine(long from, long to, LineConsumer consumer) throws IOException {
+        to = Math.min(to, size);
+        if (from >= to) {
+            return 0;
+        }
+        Line line = new Line();
+        long windowStart = from;
+        long mappedSize = windowSize;
+        MappedByteBuffer window = map(windowStart, mappedSize);
+        long position = from;
+        long count = 0;
+        while (position < to) {
+            int relative = (int) (position - windowStart);
+            int limit = window.limit();
+            int newline = indexOfNewline(window, relative, limit);
+            if (newline < 0 && windowStart + limit < size) {
+                // 这一行越过了窗口末尾：从行首重新映射，整个窗口都放不下这一行时把窗口加倍
+                if (relative == 0) {
+                    if (limit == MAX_WINDOW_SIZE) {
+                        throw new IOException("行超过" + MAX_WINDOW_SIZE + "字节，偏移: " + position);
+                    }
+                    mappedSize = Math.min((long) limit * 2, MAX_WINDOW_SIZE);
+                }
+                windowStart = position;
+                window = map(windowStart, mappedSize);
+                continue;
+            }
+            int end = newline < 0 ? limit : newline;
+            int contentEnd = end > relative && window.get(end - 1) == '\r' ? end - 1 : end;
+            line.set(window, relative, contentEnd - relative, position);
+            consumer.accept(line);
+            count++;
+            position = windowStart + (newline < 0 ? limit : newline + 1);
+        }
+        return count;
+    }
+
+    // 在[from, limit)中查找'\n'，找不到时返回-1
+    private static int indexOfNewline(ByteBuffer buffer, int from, int limit) {
+        int i = from;
+        for (int wordEnd = limit - Long.BYTES; i <= wordEnd; i += Long.BYTES) {
+            long x = buffer.getLong(i) ^ NEWLINES;
+            // x中某个字节为0（即原字节为'\n'）时，该字节的最高位在结果中为1
+            long found = (x - LOW_BITS) & ~x & HIGH_BITS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ---------- 随机访问 ----------
+
+    private Window windowFor(long offset) throws IOException {
+        if (offset < 0 || offset >= size) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", size: " + size);
+        }
+        Window window = randomAccessWindow;
+        if (window == null || !window.covers(offset)) {
+            // 窗口按windowSize对齐，相邻的访问落在同一个窗口中
+            long start = offset - offset % windowSize;
+            window = new Window(start, map(start, windowSize));
+            randomAccessWindow = window;
+        }
+        return window;
+    }
+
+    /**
+     * 读取offset处的一个字节
+     */
+    public byte byteAt(long offset) throws IOException {
+        Window window = windowFor(offset);
+        return window.buffer.get((int) (offset - window.start));
+    }
+
+    /**
+     * 从offset开始读取最多length个字节到dst，返回实际读取的字节数（到文件末尾时为-1）
+     */
+    public int read(long offset, byte[] dst, int dstOffset, int length) throws IOException {
+        if (offset >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (total < length && offset < size) {
+            Window window = windowFor(offset);
+            ByteBuffer view = window.buffer.duplicate();
+            view.position((int) (offset - window.start));
+            int n = Math.min(length - total, view.remaining());
+            view.get(dst, dstOffset + total, n);
+            total += n;
+            offset += n;
+        }
+        return total;
+    }
+
+    /**
+     * 包含offset的那一行的行首
+     */
+    public long lineStart(long offset) throws IOException {
+        long p = Math.min(offset, size);
+        while (p > 0 && byteAt(p - 1) != '\n') {
+            p--;
+        }
+        return p;
+    }
+
+    /**
+     * offset处或之后的第一个行首，没有时返回文件大小
+     */
+    public long nextLineStart(long offset) throws IOException {
+        if (offset <= 0) {
+            return 0;
+        }
+        long p = offset;
+        while (p < size && byteAt(p - 1) != '\n') {
+            p++;
+        }
+        return Math.min(p, size);
+    }
+
+    /**
+     * 把包含offset的那一行交给consumer，offset超出文件时返回false
+     */
+    public boolean readLineAt(long offset, LineConsumer consumer) throws IOException {
+        if (offset < 0 || offset >= size) {
+            return false;
+        }
+        long start = lineStart(offset);
+        return forEachLine(start, start + 1, consumer) > 0;
+    }
+
+    // ---------- 并行处理 ----------
+
+    /**
+     * 把文件切成最多parts段，每段的起止位置都是行首
+     */
+    public List<Segment> split(int parts) throws IOException {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("段数必须为正数: " + parts);
+        }
+        List<Segment> segments = new ArrayList<>(parts);
+        long start = 0;
+        for (int i = 1; i <= parts && start < size; i++) {
+            long end = i == parts ? size : Math.max(start, nextLineStart(size / parts * i));
+            if (end > start) {
+                segments.add(new Segment(segments.size(), start, end));
+                start = end;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * 把文件切成parts段，在executor中并行处理，按段的顺序返回各段的结果
+     */
+    public <R> List<R> processSegments(int parts, ExecutorService executor, SegmentProcessor<R> processor)
+            throws IOException, InterruptedException {
+        List<Callable<R>> tasks = new ArrayList<>();
+        for (Segment segment : split(parts)) {
+            tasks.add(() -> processor.process(segment));
+        }
+        List<R> results = new ArrayList<>(tasks.size());
+        for (Future<R> future : executor.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 关闭文件通道；已经映射的窗口在被回收之前仍然可以读取
+     */
+    @Override
+    public void close() throws IOException {
+        randomAccessWindow = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * 模块五：IO流&文件处理
+ * 示例4：大文件读取方式对比
+ *
+ * 生成一个CSV格式的日志文件（编号,级别,耗时毫秒,消息），统计行数、ERROR行数和耗时总和，比较：
+ * - Files.readAllLines：整个文件解码成List<String>放在堆上（文件超过最大堆的1/4时跳过）
+ * - BufferedReader.readLine：逐行读取，每行一个String
+ * - MappedFileReader：按窗口映射，行只是映射中的偏移量，不创建String
+ * - MappedFileReader并行：按行边界切成多段，在线程池中同时处理
+ * 每种方式都报告耗时、吞吐量和运行期间的堆内存峰值（各堆内存池峰值之和，GC后重置）。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java MappedReaderBenchmark [文件大小MB] [线程数]
+ */
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MappedReaderBenchmark {
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "WARN", "DEBUG", "ERROR"};
+    private static final byte[] ERROR = "ERROR".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 统计结果
+     */
+    static final class Stats {
+        long lines;
+        long errors;
+        long totalLatency;
+
+        void add(Stats other) {
+            lines += other.lines;
+            errors += other.errors;
+            totalLatency += other.totalLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("行数=%d, ERROR=%d, 耗时总和=%d", lines, errors, totalLatency);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("===== 大文件读取方式对比 =====");
+        Path file = Files.createTempFile("mapped-reader", ".csv");
+        try {
+            long begin = System.nanoTime();
+            generate(file, (long) megabytes << 20);
+            long size = Files.size(file);
+            System.out.printf("生成测试文件: %s，%.1f MB，%.0f ms%n", file, size / 1048576.0, (System.nanoTime() - begin) / 1e6);
+            System.out.println("最大堆: " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + "MB，线程数: " + threads);
+            System.out.printf("%n%-28s %10s %10s %14s  %s%n", "方式", "耗时(ms)", "MB/s", "堆峰值(MB)", "结果");
+
+            if (size < Runtime.getRuntime().maxMemory() / 4) {
+                measure("Files.readAllLines", size, () -> {
+                    Stats stats = new Stats();
+                    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                    for (String line : lines) {
+                        countString(line, stats);
+                    }
+                    return stats;
+                });
+            } else {
+                System.out.printf("%-28s 文件超过最大堆的1/4，跳过%n", "Files.readAllLines");
+            }
+            measure("BufferedReader.readLine", size, () -> {
+                Stats stats = new Stats();
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        countString(line, stats);
+                    }
+                }
+                return stats;
+            });
+            measure("MappedFileReader", size, () -> {
+                Stats stats = new Stats();
+                try (MappedFileReader reader = MappedFileReader.open(file)) {
+                    reader.forEachLine(line -> countLine(line, stats));
+                }
+                return stats;
+            });
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                measure("MappedFileReader并行(" + threads + "线程)", size, () -> {
+                    Stats stats = new Stats();
+                    try (MappedFileReader reader = MappedFileReader.open(file)) {
+                        // 段数多于线程数，各线程的工作量更均匀
+                        List<Stats> parts = reader.processSegments(threads * 4, executor, segment -> {
+                            Stats part = new Stats();
+                            segment.forEachLine(line -> countLine(line, part));
+                            return part;
+                        });
+                        for (Stats part : parts) {
+                            stats.add(part);
+                        }
+                    }
+                    return stats;
+                });
+            } finally {
+                executor.shutdown();
+            }
+
+            // 随机访问：直接定位到文件中间的某一行
+            try (MappedFileReader reader = MappedFileReader.open(file)) {
+                long offset = size / 2;
+                reader.readLineAt(offset, line ->
+                        System.out.println("\n偏移" + offset + "所在的行（行首偏移" + line.offset() + "）: " + line));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    interface Task {
+        Stats run() throws Exception;
+    }
+
+    private static void measure(String name, long size, Task task) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+        }
+        long begin = System.nanoTime();
+        Stats stats = task.run();
+        long elapsed = System.nanoTime() - begin;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("%-28s %10.0f %10.1f %14.1f  %s%n", name, elapsed / 1e6,
+                size / 1048576.0 / (elapsed / 1e9), peak / 1048576.0, stats);
+    }
+
+    // 编号,级别,耗时毫秒,消息
+    static void countString(String line, Stats stats) {
+        int first = line.indexOf(',');
+        int second = line.indexOf(',', first + 1);
+        int third = line.indexOf(',', second + 1);
+        stats.lines++;
+        if (line.startsWith("ERROR", first + 1)) {
+            stats.errors++;
+        }
+        stats.totalLatency += Long.parseLong(line.substring(second + 1, third));
+    }
+
+    private static void countLine(MappedFileReader.Line line, Stats stats) {
+        int first = line.indexOf((byte) ',', 0);
+        int second = line.indexOf((byte) ',', first + 1);
+        int third = line.indexOf((byte) ',', second + 1);
+        stats.lines++;
+        if (second - first - 1 == ERROR.length && line.byteAt(first + 1) == 'E') {
+            stats.errors++;
+        }
+        stats.totalLatency += line.parseLong(second + 1, third);
+    }
+
+    static void generate(Path file, long targetBytes) throws IOException {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        long written = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            for (long id = 0; written < targetBytes; id++) {
+                sb.setLength(0);
+                sb.append(id).append(',').append(LEVELS[random.nextInt(LEVELS.length)]).append(',')
+                        .append(random.nextInt(2000)).append(",请求处理完成 user=").append(random.nextInt(1_000_000))
+                        .append(" path=/api/v1/orders/").append(random.nextInt(100_000)).append('\n');
+                byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                written += bytes.length;
+            }
+        }
+    }
+}
@@ -4,7 +4,11 @@
  * 
  * 本示例展示了Java NIO (New IO)的使用，
  * 包括Path、Paths、Files工具类，以及
- * 通道（Channel）和缓冲区（Buffer）的基本操作。
+ * 通道（Channel）和缓冲区（Buffer）的基本操作（缓冲区从DirectBufferPool申请），
+ * 最后用MappedFileReader按窗口内存映射读取大文件，
+ * 用ParallelLineProcessor按行边界分块并行处理文件，
+ * 用FileTransferService批量复制文件，
+ * 用ParallelFileWalker并行遍历目录树。
  */
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -12,7 +16,11 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class NIOExample {
@@ -98,6 +106,19 @@ public class NIOExample {
             System.out.println("按行读取文件异常: " + e.getMessage());
         }
         
+        // 大文件：按窗口内存映射，行只是映射中的偏移量，堆内存占用与文件大小无关
+        try (MappedFileReader reader = MappedFileReader.open(testFile)) {
+            System.out.println("\n使用MappedFileReader按行读取:");
+            long count = reader.forEachLine(line ->
+                System.out.println("偏移" + line.offset() + "，" + line.length() + "字节: " + line));
+            System.out.println("共" + count + "行，文件大小: " + reader.size() + " 字节");
+        
+            // 随机访问：取出某个字节偏移所在的整行
+            reader.readLineAt(reader.size() - 1, line -> System.out.println("最后一个字节所在的行: " + line));
+        } catch (IOException e) {
+            System.out.println("内存映射读取异常: " + e.getMessage());
+        }
+        
         // 使用Stream读取文件
         try {
             System.out.println("\n使用Stream读取文件内容:");
@@ -108,6 +129,18 @@ public class NIOExample {
             System.out.println("使用Stream读取文件异常: " + e.getMessage());
         }
         
+        // 并行按行处理：文件按行边界切块，各块在ForkJoinPool中独立解码，结果按文件顺序合并
+        try {
+            ParallelLineProcessor processor = new ParallelLineProcessor(testFile);
+            Map<Integer, Long> byLength = processor.collect(
+                    Collectors.groupingBy(String::length, TreeMap::new, Collectors.counting()));
+            System.out.println("\n使用ParallelLineProcessor按行长度分组: " + byLength);
+            processor.forEachOrdered(line -> line.contains("内容") ? line : null,
+                    line -> System.out.println("按顺序输出包含\"内容\"的行: " + line));
+        } catch (IOException e) {
+            System.out.println("并行按行处理异常: " + e.getMessage());
+        }
+        
         // 复制文件
         Path copyTarget = Paths.get("nio_test/files_copy.txt");
         try {
@@ -126,6 +159,23 @@ public class NIOExample {
             System.out.println("移动文件异常: " + e.getMessage());
         }
         
+        // 批量复制：transferTo + 池化直接缓冲区，多个文件并行复制，大文件支持断点续传
+        try (FileTransferService transfer = new FileTransferService()) {
+            Path transferDir = Paths.get("nio_test/transfer");
+            Files.createDirectories(transferDir);
+            Map<Path, Path> jobs = new LinkedHashMap<>();
+            jobs.put(testFile, transferDir.resolve("files_test.txt"));
+            jobs.put(moveTarget, transferDir.resolve("files_moved.txt"));
+            FileTransferService.Report report = transfer.copyAll(jobs);
+            System.out.println("\n使用FileTransferService批量复制: " + report);
+            
+            // 同一个卷内直接改名，跨卷时先复制再删除源文件
+            transfer.move(transferDir.resolve("files_moved.txt"), transferDir.resolve("files_renamed.txt"));
+            System.out.println("FileTransferService移动文件成功");
+        } catch (IOException e) {
+            System.out.println("批量复制异常: " + e.getMessage());
+        }
+        
         // 获取文件属性
         try {
             System.out.println("\n文件属性:");
@@ -155,9 +205,17 @@ public class NIOExample {
                 StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
             
             String text = "这是通过Channel写入的文本";
-            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            byte[] data = text.getBytes(StandardCharsets.UTF_8);
             
-            channel.write(buffer);
+            // 从池中申请直接缓冲区：堆缓冲区写入时JDK还要先复制到临时的直接缓冲区
+            try (DirectBufferPool.Lease lease = DirectBufferPool.shared().acquire(data.length)) {
+                ByteBuffer buffer = lease.buffer();
+                buffer.put(data);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
             System.out.println("通过Channel写入文件成功");
             
         } catch (IOException e) {
@@ -167,23 +225,26 @@ public class NIOExample {
         // 使用通道读取文件
         try (FileChannel channel = FileChannel.open(channelFile, StandardOpenOption.READ)) {
             
-            // 创建缓冲区
-            ByteBuffer buffer = ByteBuffer.allocate(1024);
-            
-            // 读取数据到缓冲区
-            int bytesRead = channel.read(buffer);
-            
-            if (bytesRead > 0) {
-                // 切换缓冲区为读模式
-                buffer.flip();
+            // 从池中申请缓冲区，用完归还，反复读写时不再分配新的缓冲区
+            try (DirectBufferPool.Lease lease = DirectBufferPool.shared().acquire(1024)) {
+                ByteBuffer buffer = lease.buffer();
                 
-                // 从缓冲区读取数据
-                byte[] bytes = new byte[buffer.remaining()];
-                buffer.get(bytes);
+                // 读取数据到缓冲区
+                int bytesRead = channel.read(buffer);
                 
-                String content = new String(bytes, StandardCharsets.UTF_8);
-                System.out.println("通过Channel读取的内容: " + content);
+                if (bytesRead > 0) {
+                    // 切换缓冲区为读模式
+                    buffer.flip();
+                    
+                    // 从缓冲区读取数据
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    
+                    String content = new String(bytes, StandardCharsets.UTF_8);
+                    System.out.println("通过Channel读取的内容: " + content);
+                }
             }
+            System.out.println("缓冲区池: " + DirectBufferPool.shared().stats());
             
         } catch (IOException e) {
             System.out.println("通道读取异常: " + e.getMessage());
@@ -225,6 +286,18 @@ public class NIOExample {
                 }
             });
             
+            // 大目录树：多个线程并行读取目录，遍历时一并取得大小和修改时间，过滤在遍历中完成
+            System.out.println("\n使用ParallelFileWalker并行遍历*.txt:");
+            ParallelFileWalker walker = new ParallelFileWalker(4).glob("*.txt");
+            try (ParallelFileWalker.Walk walk = walker.open(walkDir)) {
+                while (walk.hasNext()) {
+                    ParallelFileWalker.Entry entry = walk.next();
+                    System.out.println("文件: " + entry.path() + "，" + entry.size() + " 字节，修改时间: "
+                            + entry.lastModifiedTime());
+                }
+                System.out.println("统计: " + walk.stats());
+            }
+            
         } catch (IOException e) {
             System.out.println("文件遍历异常: " + e.getMessage());
         }
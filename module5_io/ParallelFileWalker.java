@@ -0,0 +1,550 @@
+/**
+ * 模块五：IO流&文件处理
+ * 并行目录遍历
+ *
+ * Files.walk和Files.walkFileTree在一个线程里逐个读取目录、逐个读取文件属性，
+ * 目录很多或者在网络共享上（每次读取都要等一个往返）时，时间几乎都花在等待IO上。本类：
+ * - 每个目录是一个ForkJoin任务（CountedCompleter），读到子目录就fork一个新任务，
+ *   空闲线程从其他线程的队列中窃取目录，目录树不均衡时也能保持所有线程忙碌
+ * - IO并发上限：线程池的线程数就是同时读取的目录数上限（ioConcurrency），
+ *   网络共享可以设得比CPU核数大很多，本地磁盘不宜过大
+ * - 属性预取：遍历时每个条目只读取一次BasicFileAttributes（不跟随符号链接），
+ *   大小、修改时间随条目一起交给调用方，不需要再次访问文件系统
+ * - 过滤下推：glob/regex在工作线程中匹配，不匹配的条目不会进入输出；
+ *   excludeDirectories匹配的目录整个跳过，不会被读取
+ * - 有界的流式输出：open()返回的Walk从一个容量有限的队列中取条目，
+ *   调用方处理得慢时工作线程阻塞等待，内存占用与目录树大小无关；walk()直接在工作线程中处理条目
+ * - 统计：已扫描条目数、目录数、匹配数、匹配文件的总大小、错误数和每秒条目数，遍历中也可以随时查看
+ * 输出不保证顺序。读取失败的目录记录在错误中，不中断遍历。
+ */
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class ParallelFileWalker {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    // 最多保留的错误数，错误总数见Stats
+    private static final int MAX_RECORDED_ERRORS = 100;
+
+    private final int ioConcurrency;
+    private PathMatcher fileMatcher;
+    private boolean matchRelativePath;
+    private PathMatcher excludedDirectories;
+    private int maxDepth = Integer.MAX_VALUE;
+    private boolean includeDirectories;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * 遍历到的一个文件或目录，属性在遍历时已经读取
+     */
+    public static final class Entry {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+
+        Entry(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            this.attributes = attributes;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        public BasicFileAttributes attributes() {
+            return attributes;
+        }
+
+        public long size() {
+            return attributes.size();
+        }
+
+        public FileTime lastModifiedTime() {
+            return attributes.lastModifiedTime();
+        }
+
+        public boolean isDirectory() {
+            return attributes.isDirectory();
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+
+    /**
+     * 遍历统计的快照
+     */
+    public static final class Stats {
+        public final long entries;
+        public final long directories;
+        public final long matched;
+        public final long matchedBytes;
+        public final long errors;
+        public final long elapsedNanos;
+
+        Stats(long entries, long directories, long matched, long matchedBytes, long errors, long elapsedNanos) {
+            this.entries = entries;
+            this.directories = directories;
+            this.matched = matched;
+            this.matchedBytes = matchedBytes;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double entriesPerSecond() {
+            return elapsedNanos == 0 ? 0 : entries / (elapsedNanos / 1e9);
+        }
+
+        public double directoriesPerSecond() {
+            return elapsedNanos == 0 ? 0 : directories / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("扫描=%d, 目录=%d, 匹配=%d, 匹配大小=%.1fMB, 错误=%d, 耗时=%.0fms, %.0f 条目/s, %.0f 目录/s",
+                    entries, directories, matched, matchedBytes / 1048576.0, errors, elapsedNanos / 1e6,
+                    entriesPerSecond(), directoriesPerSecond());
+        }
+    }
+
+    /**
+     * 使用CPU核数2倍（至少8）的IO并发
+     */
+    public ParallelFileWalker() {
+        this(Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * @param ioConcurrency 同时读取的目录数上限（即工作线程数）
+     */
+    public ParallelFileWalker(int ioConcurrency) {
+        if (ioConcurrency <= 0) {
+            throw new IllegalArgumentException("ioConcurrency必须为正数: " + ioConcurrency);
+        }
+        this.ioConcurrency = ioConcurrency;
+    }
+
+    /**
+     * 只输出匹配glob的条目。模式包含'/'时匹配相对于根目录的路径（如"src/**.java"），否则只匹配文件名（如"*.log"）
+     */
+    public ParallelFileWalker glob(String pattern) {
+        this.fileMatcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        this.matchRelativePath = pattern.indexOf('/') >= 0;
+        return this;
+    }
+
+    /**
+     * 只输出相对于根目录的路径匹配正则表达式的条目
+     */
+    public ParallelFileWalker regex(String pattern) {
+        this.fileMatcher = FileSystems.getDefault().getPathMatcher("regex:" + pattern);
+        this.matchRelativePath = true;
+        return this;
+    }
+
+    /**
+     * 跳过目录名匹配glob的整个目录（如"{.git,node_modules}"），这些目录不会被读取
+     */
+    public ParallelFileWalker excludeDirectories(String pattern) {
+        this.excludedDirectories = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        return this;
+    }
+
+    /**
+     * 最大深度，根目录的直接子条目深度为1
+     */
+    public ParallelFileWalker maxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth不能为负数: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * 输出中是否包含目录（默认只输出非目录条目）
+     */
+    public ParallelFileWalker includeDirectories(boolean includeDirectories) {
+        this.includeDirectories = includeDirectories;
+        return this;
+    }
+
+    /**
+     * open()输出队列的容量，决定流式输出时最多缓存的条目数
+     */
+    public ParallelFileWalker queueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity必须为正数: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * 遍历root，在工作线程中对每个匹配的条目调用action（action会被多个线程同时调用）。
+     * action抛出的异常终止遍历并重新抛出
+     */
+    public Stats walk(Path root, Consumer<? super Entry> action) throws IOException {
+        Traversal traversal = new Traversal(root, action, null);
+        traversal.start();
+        traversal.awaitCompletion();
+        return traversal.stats();
+    }
+
+    /**
+     * 开始在后台遍历root，通过返回的Walk按到达顺序取出匹配的条目；用完必须close()
+     */
+    public Walk open(Path root) throws IOException {
+        Walk walk = new Walk(queueCapacity);
+        walk.traversal = new Traversal(root, walk::put, () -> walk.put(Walk.END));
+        walk.traversal.start();
+        return walk;
+    }
+
+    /**
+     * 流式遍历的结果：有界队列的消费端
+     */
+    public static final class Walk implements Iterator<Entry>, AutoCloseable {
+        // 遍历结束的标记
+        private static final Entry END = new Entry(null, null);
+
+        private final BlockingQueue<Entry> queue;
+        private Traversal traversal;
+        private Entry next;
+        private boolean finished;
+        private volatile boolean closed;
+
+        Walk(int capacity) {
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // 工作线程调用：队列满时等待消费端。遍历失败或取消后不再等待输出条目，
+        // 但结束标记必须送达，否则消费端会一直阻塞在take()上
+        private void put(Entry entry) {
+            boolean interrupted = false;
+            try {
+                while (!closed && (entry == END || !traversal.cancelled)) {
+                    try {
+                        if (queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                            return;
+                        }
+                    } catch (InterruptedException e) {
+                        if (entry != END) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("遍历被中断");
+                        }
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                Entry entry = queue.take();
+                if (entry == END) {
+                    finished = true;
+                    traversal.rethrow();
+                    return false;
+                }
+                next = entry;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待遍历结果时被中断");
+            }
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = next;
+            next = null;
+            return entry;
+        }
+
+        /**
+         * 以Stream的形式消费剩余的条目，关闭Stream时关闭Walk
+         */
+        public Stream<Entry> stream() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                    Spliterator.NONNULL | Spliterator.DISTINCT), false).onClose(this::close);
+        }
+
+        /** 当前的统计，遍历进行中也可以调用 */
+        public Stats stats() {
+            return traversal.stats();
+        }
+
+        /** 读取失败的路径（最多保留前100个） */
+        public List<IOException> errors() {
+            return traversal.errorList();
+        }
+
+        /**
+         * 停止遍历：不再读取新的目录，正在等待输出的工作线程随即退出
+         */
+        @Override
+        public void close() {
+            closed = true;
+            traversal.cancel();
+            queue.clear();
+        }
+    }
+
+    /**
+     * 一次遍历的状态
+     */
+    private final class Traversal {
+        private final Path root;
+        private final Consumer<? super Entry> output;
+        private final Runnable onFinish;
+        private final ForkJoinPool pool = new ForkJoinPool(ioConcurrency);
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder directories = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder matchedBytes = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final List<IOException> errorList = Collections.synchronizedList(new ArrayList<>());
+        private final long begin = System.nanoTime();
+        private volatile long end;
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private DirectoryTask rootTask;
+
+        Traversal(Path root, Consumer<? super Entry> output, Runnable onFinish) {
+            this.root = root;
+            this.output = output;
+            this.onFinish = onFinish;
+        }
+
+        void start() throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(root, BasicFileAttributes.class);
+            if (!attributes.isDirectory()) {
+                // 根是文件时只检查它自己；它相对于根的路径为空，因此总是按文件名匹配
+                entries.increment();
+                Path name = root.getFileName();
+                if (fileMatcher == null || name != null && fileMatcher.matches(name)) {
+                    emit(new Entry(root, attributes));
+                }
+                finish();
+                return;
+            }
+            directories.increment();
+            if (includeDirectories && matches(root)) {
+                emit(new Entry(root, attributes));
+            }
+            if (maxDepth == 0) {
+                finish();
+                return;
+            }
+            rootTask = new DirectoryTask(null, root, 0);
+            pool.execute(rootTask);
+        }
+
+        void awaitCompletion() throws IOException {
+            if (rootTask != null) {
+                try {
+                    rootTask.get();
+                } catch (InterruptedException e) {
+                    cancel();
+                    Thread.currentThread().interrupt();
+                    throw new IOException("遍历被中断", e);
+                } catch (ExecutionException e) {
+                    // 异常已记录在failure中
+                }
+            }
+            rethrow();
+        }
+
+        void rethrow() {
+            Throwable t = failure;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (end == 0) {
+                end = System.nanoTime();
+            }
+            pool.shutdownNow();
+        }
+
+        // 根任务完成（包括因异常结束）时调用；多个子任务失败时根任务会收到多次异常，只处理第一次
+        void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            end = System.nanoTime();
+            pool.shutdown();
+            if (onFinish != null) {
+                onFinish.run();
+            }
+        }
+
+        boolean matches(Path path) {
+            if (fileMatcher == null) {
+                return true;
+            }
+            Path name = matchRelativePath ? root.relativize(path) : path.getFileName();
+            return name != null && fileMatcher.matches(name);
+        }
+
+        void emit(Entry entry) {
+            matched.increment();
+            if (!entry.isDirectory()) {
+                matchedBytes.add(entry.size());
+            }
+            output.accept(entry);
+        }
+
+        void recordError(IOException e) {
+            errors.increment();
+            if (errorList.size() < MAX_RECORDED_ERRORS) {
+                errorList.add(e);
+            }
+        }
+
+        Stats stats() {
+            long stop = end == 0 ? System.nanoTime() : end;
+            return new Stats(entries.sum(), directories.sum(), matched.sum(), matchedBytes.sum(), errors.sum(),
+                    stop - begin);
+        }
+
+        List<IOException> errorList() {
+            synchronized (errorList) {
+                return new ArrayList<>(errorList);
+            }
+        }
+
+        /**
+         * 读取一个目录：子目录fork为新任务，其余条目在本任务中匹配输出。
+         * 所有子任务完成后，父任务才算完成
+         */
+        private final class DirectoryTask extends CountedCompleter<Void> {
+            private static final long serialVersionUID = 1L;
+
+            private final Path dir;
+            private final int depth;
+
+            DirectoryTask(DirectoryTask parent, Path dir, int depth) {
+                super(parent);
+                this.dir = dir;
+                this.depth = depth;
+            }
+
+            @Override
+            public void compute() {
+                if (!cancelled) {
+                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                        for (Path path : stream) {
+                            if (cancelled) {
+                                break;
+                            }
+                            visit(path);
+                        }
+                    } catch (IOException e) {
+                        recordError(e);
+                    } catch (DirectoryIteratorException e) {
+                        // 目录的迭代器把读取错误包装成DirectoryIteratorException
+                        recordError(e.getCause());
+                    }
+                }
+                tryComplete();
+            }
+
+            private void visit(Path path) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    // 条目在列出后被删除等情况
+                    recordError(e);
+                    return;
+                }
+                entries.increment();
+                int childDepth = depth + 1;
+                if (attributes.isDirectory()) {
+                    if (excludedDirectories != null && excludedDirectories.matches(path.getFileName())) {
+                        return;
+                    }
+                    directories.increment();
+                    if (includeDirectories && matches(path)) {
+                        emit(new Entry(path, attributes));
+                    }
+                    if (childDepth < maxDepth) {
+                        addToPendingCount(1);
+                        new DirectoryTask(this, path, childDepth).fork();
+                    }
+                } else if (matches(path)) {
+                    emit(new Entry(path, attributes));
+                }
+            }
+
+            @Override
+            public void onCompletion(CountedCompleter<?> caller) {
+                if (getCompleter() == null) {
+                    finish();
+                }
+            }
+
+            @Override
+            public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller) {
+                // action抛出的异常：记录下来并停止遍历，异常逐级传到根任务
+                if (failure == null) {
+                    failure = ex;
+                }
+                cancelled = true;
+                if (getCompleter() == null) {
+                    finish();
+                }
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * 模块五：IO流&文件处理
+ * 示例5：并行按行处理的扩展性
+ *
+ * 用MappedReaderBenchmark生成同样格式的CSV日志（编号,级别,耗时毫秒,消息），
+ * 统计行数、ERROR行数和耗时总和（每行都解码为String再解析），比较：
+ * - Files.lines()：单线程
+ * - Files.lines().parallel()：流的并行版本，行仍由一个BufferedReader顺序读出
+ * - ParallelLineProcessor：按行边界切块，每块在ForkJoinPool中独立映射、解码、解析，
+ *   分别用1、2、4……个线程的线程池运行，观察吞吐量随线程数的变化
+ * 最后用forEachOrdered按文件顺序取出所有ERROR行的编号，验证顺序。
+ * 扩展性取决于CPU核数和文件是否已在页缓存中，先预热一遍再计时。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java ParallelLineBenchmark [文件大小MB] [最大线程数]
+ */
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class ParallelLineBenchmark {
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("===== 并行按行处理 =====");
+        Path file = Files.createTempFile("parallel-lines", ".csv");
+        try {
+            MappedReaderBenchmark.generate(file, (long) megabytes << 20);
+            long size = Files.size(file);
+            System.out.printf("测试文件: %.1f MB，CPU核数: %d%n", size / 1048576.0, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%n%-32s %10s %10s %8s  %s%n", "方式", "耗时(ms)", "MB/s", "加速比", "结果");
+
+            // 预热：让文件进入页缓存，并让JIT编译解析代码
+            linesStream(file, false);
+            processor(file, 1);
+
+            long sequential = measure("Files.lines()", size, 0, () -> linesStream(file, false));
+            measure("Files.lines().parallel()", size, sequential, () -> linesStream(file, true));
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                int n = threads;
+                measure("ParallelLineProcessor(" + n + "线程)", size, sequential, () -> processor(file, n));
+            }
+
+            // 按文件顺序取出ERROR行的编号
+            ParallelLineProcessor processor = new ParallelLineProcessor(file);
+            long[] state = {-1, 0};
+            long errors = processor.forEachOrdered(line -> line.contains(",ERROR,")
+                    ? Long.parseLong(line.substring(0, line.indexOf(','))) : null, id -> {
+                        if (id <= state[0]) {
+                            throw new IllegalStateException("顺序错误: " + id + " 在 " + state[0] + " 之后");
+                        }
+                        state[0] = id;
+                        state[1]++;
+                    });
+            System.out.println("\nforEachOrdered按顺序取出ERROR行: " + errors + "行，最后一个编号: " + state[0]);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    interface Task {
+        MappedReaderBenchmark.Stats run() throws Exception;
+    }
+
+    private static MappedReaderBenchmark.Stats linesStream(Path file, boolean parallel) throws IOException {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return (parallel ? lines.parallel() : lines).collect(MappedReaderBenchmark.Stats::new,
+                    (stats, line) -> MappedReaderBenchmark.countString(line, stats), MappedReaderBenchmark.Stats::add);
+        }
+    }
+
+    private static MappedReaderBenchmark.Stats processor(Path file, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ParallelLineProcessor processor = new ParallelLineProcessor(file, ParallelLineProcessor.DEFAULT_CHUNK_SIZE,
+                    pool, StandardCharsets.UTF_8);
+            return processor.collect(MappedReaderBenchmark.Stats::new,
+                    (stats, line) -> MappedReaderBenchmark.countString(line, stats), (a, b) -> {
+                        a.add(b);
+                        return a;
+                    });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 返回耗时（纳秒）；baseline为0时不计算加速比
+    private static long measure(String name, long size, long baseline, Task task) throws Exception {
+        long begin = System.nanoTime();
+        MappedReaderBenchmark.Stats stats = task.run();
+        long elapsed = System.nanoTime() - begin;
+        String speedup = baseline == 0 ? "1.00" : String.format("%.2f", (double) baseline / elapsed);
+        System.out.printf("%-32s %10.0f %10.1f %8s  %s%n", name, elapsed / 1e6,
+                size / 1048576.0 / (elapsed / 1e9), speedup, stats);
+        return elapsed;
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * 模块五：IO流&文件处理
+ * 按行边界分块的并行行处理引擎
+ *
+ * Files.lines().parallel()的Spliterator只能从BufferedReader中按批次顺序读出行再分给其他线程，
+ * 读取和UTF-8解码都在一个线程里，文件越大越难并行。本类直接按字节切分文件：
+ * - 文件按chunkSize（默认8MB）切成若干块，每个切分点向后移到下一行的开头（MappedFileReader.split）
+ * - 每块由ForkJoin任务独立映射、查找换行、解码UTF-8，块之间不共享任何状态
+ * - collect：每块一个累加容器，按块在文件中的顺序两两合并（ForkJoin的分治结构天然保持顺序），
+ *   因此可以直接使用Collectors.toList()、groupingBy等收集器
+ * - forEachOrdered：各块并行处理，结果按文件顺序交给调用线程；同时处理的块数有上限，内存占用有界
+ * - forEach：不关心顺序时，直接在工作线程中处理每一行
+ * 每个任务复用一个字节数组解码，每行只创建一个String。
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+public class ParallelLineProcessor {
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private final Path path;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    private final Charset charset;
+
+    /**
+     * 使用默认块大小、公共ForkJoinPool和UTF-8
+     */
+    public ParallelLineProcessor(Path path) {
+        this(path, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param chunkSize 每块的字节数（近似值，块在行边界结束）
+     * @param pool      执行各块任务的线程池
+     * @param charset   必须与ASCII兼容（如UTF-8、ISO-8859-1、GBK）：分块和分行直接查找0x0A字节，
+     *                  UTF-16/UTF-32等编码中换行不是单个0x0A字节，会被拒绝
+     */
+    public ParallelLineProcessor(Path path, int chunkSize, ForkJoinPool pool, Charset charset) {
+        if (chunkSize < 4096) {
+            throw new IllegalArgumentException("块大小至少为4096字节: " + chunkSize);
+        }
+        if (!isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("不支持按字节分行的字符集: " + charset);
+        }
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+        this.charset = charset;
+    }
+
+    // 回车、换行各编码为一个字节0x0D、0x0A（不带BOM），按字节查找换行才不会切开字符
+    static boolean isAsciiCompatible(Charset charset) {
+        return charset.canEncode() && Arrays.equals("\r\n".getBytes(charset), new byte[]{'\r', '\n'});
+    }
+
+    /**
+     * 解码一块中的所有行，交给consumer
+     */
+    private long decodeChunk(MappedFileReader.Segment chunk, Consumer<String> consumer) throws IOException {
+        byte[][] scratch = {new byte[256]};
+        return chunk.forEachLine(line -> {
+            int length = line.length();
+            if (length > scratch[0].length) {
+                scratch[0] = new byte[Math.max(length, scratch[0].length * 2)];
+            }
+            line.copyTo(scratch[0], 0);
+            consumer.accept(new String(scratch[0], 0, length, charset));
+        });
+    }
+
+    private List<MappedFileReader.Segment> chunks(MappedFileReader reader) throws IOException {
+        long parts = Math.max(1, (reader.size() + chunkSize - 1) / chunkSize);
+        return reader.split((int) Math.min(parts, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 对[from, to)之间的块分治：左右两半并行处理，再按顺序合并
+     */
+    private final class CollectTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<MappedFileReader.Segment> chunks;
+        private final int from;
+        private final int to;
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, ? super String> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        CollectTask(List<MappedFileReader.Segment> chunks, int from, int to, Supplier<A> supplier,
+                    BiConsumer<A, ? super String> accumulator, BinaryOperator<A> combiner) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from == 1) {
+                A container = supplier.get();
+                try {
+                    decodeChunk(chunks.get(from), line -> accumulator.accept(container, line));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return container;
+            }
+            int mid = (from + to) >>> 1;
+            CollectTask<A> left = new CollectTask<>(chunks, from, mid, supplier, accumulator, combiner);
+            left.fork();
+            A right = new CollectTask<>(chunks, mid, to, supplier, accumulator, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * 用收集器并行收集所有行，合并顺序与行在文件中的顺序一致
+     */
+    public <A, R> R collect(Collector<? super String, A, R> collector) throws IOException {
+        A container = collect(collector.supplier(), collector.accumulator(), collector.combiner());
+        return collector.finisher().apply(container);
+    }
+
+    /**
+     * 每块一个supplier创建的容器，accumulator把行加入容器，combiner按文件顺序合并相邻的两个容器
+     */
+    public <A> A collect(Supplier<A> supplier, BiConsumer<A, ? super String> accumulator, BinaryOperator<A> combiner)
+            throws IOException {
+        try (MappedFileReader reader = MappedFileReader.open(path)) {
+            List<MappedFileReader.Segment> chunks = chunks(reader);
+            if (chunks.isEmpty()) {
+                return supplier.get();
+            }
+            return pool.invoke(new CollectTask<>(chunks, 0, chunks.size(), supplier, accumulator, combiner));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 并行处理每一行，不保证顺序；action会被多个线程同时调用。返回行数
+     */
+    public long forEach(Consumer<? super String> action) throws IOException {
+        LongAdder lines = new LongAdder();
+        collect(() -> null, (ignored, line) -> {
+            action.accept(line);
+            lines.increment();
+        }, (a, b) -> null);
+        return lines.sum();
+    }
+
+    /**
+     * 各块并行地把每一行交给mapper，结果按行在文件中的顺序交给调用线程中的sink。
+     * 最多同时处理maxChunksInFlight块，已处理但还没轮到的结果只保存在这些块中。
+     * mapper返回null的行被跳过（可用于过滤）。返回交给sink的结果数
+     */
+    public <R> long forEachOrdered(Function<? super String, ? extends R> mapper, Consumer<? super R> sink,
+                                   int maxChunksInFlight) throws IOException {
+        if (maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("maxChunksInFlight必须为正数: " + maxChunksInFlight);
+        }
+        try (MappedFileReader reader = MappedFileReader.open(path)) {
+            List<MappedFileReader.Segment> chunks = chunks(reader);
+            Deque<ForkJoinTask<List<R>>> inFlight = new ArrayDeque<>();
+            try {
+                return deliverOrdered(chunks, inFlight, mapper, sink, maxChunksInFlight);
+            } finally {
+                // 出现异常时取消还没开始的块
+                for (ForkJoinTask<List<R>> task : inFlight) {
+                    task.cancel(false);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // ForkJoinTask.join()把任务中的受检异常包装后重新抛出
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <R> long deliverOrdered(List<MappedFileReader.Segment> chunks, Deque<ForkJoinTask<List<R>>> inFlight,
+                                    Function<? super String, ? extends R> mapper, Consumer<? super R> sink,
+                                    int maxChunksInFlight) {
+        int next = 0;
+        long delivered = 0;
+        while (next < chunks.size() || !inFlight.isEmpty()) {
+            while (next < chunks.size() && inFlight.size() < maxChunksInFlight) {
+                MappedFileReader.Segment chunk = chunks.get(next++);
+                inFlight.addLast(pool.submit(() -> {
+                    List<R> results = new ArrayList<>();
+                    decodeChunk(chunk, line -> {
+                        R result = mapper.apply(line);
+                        if (result != null) {
+                            results.add(result);
+                        }
+                    });
+                    return results;
+                }));
+            }
+            // 按顺序等待最早提交的块，期间其他块继续在线程池中处理
+            for (R result : inFlight.removeFirst().join()) {
+                sink.accept(result);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * 同时处理的块数为线程池并行度的2倍
+     */
+    public <R> long forEachOrdered(Function<? super String, ? extends R> mapper, Consumer<? super R> sink)
+            throws IOException {
+        return forEachOrdered(mapper, sink, pool.getParallelism() * 2);
+    }
+}
@@ -0,0 +1,444 @@
+/**
+ * 模块六：多线程&并发编程
+ * 支持批量提交的写时复制列表
+ *
+ * CopyOnWriteArrayList每次add()都要复制整个数组，逐个注册n个监听器的总代价是O(n²)。
+ * 本类同样把元素保存在一个volatile数组中，读操作和遍历不加锁、直接读取当前数组（快照），
+ * 但写操作可以成批提交：
+ * - addAll()：整批元素只复制一次数组
+ * - 写事务：beginTransaction()得到一个可修改的私有副本，所有修改在commit()时一次性发布，
+ *   未提交就close()则全部丢弃；update(Consumer)是它的简便写法
+ * 事务期间持有写锁，其他写操作会等待，但读操作不受影响，只会看到提交前的快照。
+ * 事务不可重入：持有事务的线程再直接修改列表或开始新事务会抛出IllegalStateException，
+ * 否则外层事务提交时会覆盖这些修改。
+ *
+ * @param <E> 元素类型
+ */
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+class BatchedCopyOnWriteList<E> extends AbstractList<E> implements RandomAccess {
+    private static final Object[] EMPTY = new Object[0];
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Object[] array = EMPTY;
+
+    BatchedCopyOnWriteList() {
+    }
+
+    BatchedCopyOnWriteList(Collection<? extends E> initial) {
+        array = toObjectArray(initial);
+    }
+
+    // ===== 读操作：不加锁 =====
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) array[index];
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    /**
+     * 返回当前内容的不可变快照，之后的修改对它不可见
+     */
+    @SuppressWarnings("unchecked")
+    List<E> snapshot() {
+        return Collections.unmodifiableList((List<E>) Arrays.asList(array));
+    }
+
+    /**
+     * 遍历创建迭代器时的快照，不会抛出ConcurrentModificationException，也不支持remove
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator<>(array);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (Object element : array) {
+            action.accept((E) element);
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] current = array;
+        return Arrays.copyOf(current, current.length);
+    }
+
+    // ===== 单个元素的写操作：与CopyOnWriteArrayList相同，每次复制整个数组 =====
+
+    @Override
+    public boolean add(E element) {
+        lockForWrite();
+        try {
+            Object[] current = array;
+            Object[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = element;
+            array = next;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        lockForWrite();
+        try {
+            Object[] current = array;
+            if (index < 0 || index > current.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+            }
+            Object[] next = new Object[current.length + 1];
+            System.arraycopy(current, 0, next, 0, index);
+            next[index] = element;
+            System.arraycopy(current, index, next, index + 1, current.length - index);
+            array = next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        lockForWrite();
+        try {
+            Object[] current = array;
+            E old = (E) current[index];
+            Object[] next = Arrays.copyOf(current, current.length);
+            next[index] = element;
+            array = next;
+            return old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        lockForWrite();
+        try {
+            Object[] current = array;
+            E old = (E) current[index];
+            array = removeAt(current, index);
+            return old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lockForWrite();
+        try {
+            Object[] current = array;
+            int index = indexOf(current, o);
+            if (index < 0) {
+                return false;
+            }
+            array = removeAt(current, index);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lockForWrite();
+        try {
+            array = EMPTY;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ===== 批量写操作：整批只复制一次 =====
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        Object[] added = toObjectArray(elements);
+        if (added.length == 0) {
+            return false;
+        }
+        lockForWrite();
+        try {
+            Object[] current = array;
+            Object[] next = Arrays.copyOf(current, current.length + added.length);
+            System.arraycopy(added, 0, next, current.length, added.length);
+            array = next;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        return update(list -> list.removeAll(elements));
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        return update(list -> list.retainAll(elements));
+    }
+
+    /**
+     * 在一个写事务中执行一批修改并提交，返回列表是否发生了变化
+     */
+    boolean update(Consumer<? super List<E>> mutation) {
+        try (Transaction tx = beginTransaction()) {
+            mutation.accept(tx);
+            return tx.commit();
+        }
+    }
+
+    // 获取写锁；写锁是可重入的，同一线程在事务中再次写入必须拒绝
+    private void lockForWrite() {
+        if (writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("当前线程已有未结束的写事务");
+        }
+        writeLock.lock();
+    }
+
+    /**
+     * 开始一个写事务：获取写锁并复制一份当前数组，必须在finally或try-with-resources中close()
+     */
+    Transaction beginTransaction() {
+        lockForWrite();
+        return new Transaction(array);
+    }
+
+    /**
+     * 写事务：在私有副本上修改，commit()时一次性发布
+     *
+     * 事务对象只能在创建它的线程中使用。
+     */
+    final class Transaction extends AbstractList<E> implements RandomAccess, AutoCloseable {
+        private final Object[] base;
+        private Object[] elements;
+        private int size;
+        private boolean dirty;
+        private boolean open = true;
+
+        private Transaction(Object[] base) {
+            this.base = base;
+            this.elements = base;
+            this.size = base.length;
+        }
+
+        // 第一次修改时才真正复制，只读的事务不产生任何复制
+        private void ensureWritable(int minCapacity) {
+            checkOpen();
+            if (elements == base) {
+                elements = Arrays.copyOf(base, Math.max(minCapacity, size));
+            } else if (minCapacity > elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(minCapacity, elements.length + (elements.length >> 1) + 8));
+            }
+            dirty = true;
+        }
+
+        private void checkOpen() {
+            if (!open) {
+                throw new IllegalStateException("事务已结束");
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            checkOpen();
+            checkIndex(index);
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            ensureWritable(size + 1);
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = element;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E set(int index, E element) {
+            checkIndex(index);
+            ensureWritable(size);
+            E old = (E) elements[index];
+            elements[index] = element;
+            return old;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E remove(int index) {
+            checkIndex(index);
+            ensureWritable(size);
+            E old = (E) elements[index];
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            elements[--size] = null;
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            return batchRemove(c, false);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            return batchRemove(c, true);
+        }
+
+        // 一趟遍历保留幸存的元素，而不是逐个删除时每次移动数组
+        private boolean batchRemove(Collection<?> c, boolean retain) {
+            checkOpen();
+            if (c == null) {
+                throw new NullPointerException();
+            }
+            int first = 0;
+            while (first < size && c.contains(elements[first]) == retain) {
+                first++;
+            }
+            if (first == size) {
+                return false;
+            }
+            ensureWritable(size);
+            int w = first;
+            for (int r = first + 1; r < size; r++) {
+                Object element = elements[r];
+                if (c.contains(element) == retain) {
+                    elements[w++] = element;
+                }
+            }
+            Arrays.fill(elements, w, size, null);
+            size = w;
+            modCount++;
+            return true;
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+
+        /**
+         * 发布本事务的全部修改并释放写锁，返回是否有修改
+         */
+        boolean commit() {
+            checkOpen();
+            boolean changed = dirty;
+            if (changed) {
+                array = size == elements.length ? elements : Arrays.copyOf(elements, size);
+            }
+            release();
+            return changed;
+        }
+
+        /**
+         * 放弃本事务的修改并释放写锁
+         */
+        void rollback() {
+            checkOpen();
+            release();
+        }
+
+        private void release() {
+            open = false;
+            elements = null;
+            writeLock.unlock();
+        }
+
+        /**
+         * 未提交的事务在close()时自动回滚
+         */
+        @Override
+        public void close() {
+            if (open) {
+                rollback();
+            }
+        }
+    }
+
+    // toArray()不一定返回Object[]（例如JDK 8的Arrays.asList(String[])返回String[]），
+    // 直接作为底层数组时，之后写入其他类型的元素会抛出ArrayStoreException
+    private static Object[] toObjectArray(Collection<?> elements) {
+        Object[] array = elements.toArray();
+        return array.getClass() == Object[].class ? array : Arrays.copyOf(array, array.length, Object[].class);
+    }
+
+    private static int indexOf(Object[] elements, Object o) {
+        for (int i = 0; i < elements.length; i++) {
+            if (o == null ? elements[i] == null : o.equals(elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object[] removeAt(Object[] current, int index) {
+        if (current.length == 1) {
+            return EMPTY;
+        }
+        Object[] next = new Object[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        return next;
+    }
+
+    /**
+     * 基于数组快照的只读迭代器
+     */
+    static final class SnapshotIterator<E> implements Iterator<E> {
+        private final Object[] snapshot;
+        private int cursor;
+
+        SnapshotIterator(Object[] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= snapshot.length) {
+                throw new NoSuchElementException();
+            }
+            return (E) snapshot[cursor++];
+        }
+    }
+}
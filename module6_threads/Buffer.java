@@ -0,0 +1,152 @@
+/**
+ * 模块六：多线程&并发编程
+ * 线程安全的缓冲区，用于生产者消费者模式
+ */
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+class Buffer implements IntQueue {
+    private Queue<Integer> queue = new LinkedList<>();
+    private int capacity;
+    // 是否打印每次放入/取出的日志（基准测试时关闭，避免测到的是控制台输出）
+    private final boolean verbose;
+    
+    public Buffer(int capacity) {
+        this(capacity, true);
+    }
+    
+    public Buffer(int capacity, boolean verbose) {
+        this.capacity = capacity;
+        this.verbose = verbose;
+    }
+    
+    // 生产者调用，向缓冲区放入数据
+    @Override
+    public synchronized void put(int data) throws InterruptedException {
+        // 如果缓冲区已满，等待
+        while (queue.size() == capacity) {
+            if (verbose) {
+                System.out.println("缓冲区已满，生产者等待...");
+            }
+            wait();
+        }
+        
+        // 放入数据
+        queue.offer(data);
+        if (verbose) {
+            System.out.println("放入数据: " + data + "，当前缓冲区大小: " + queue.size());
+        }
+        
+        // 唤醒可能在等待的消费者
+        notifyAll();
+    }
+    
+    // 消费者调用，从缓冲区获取数据
+    @Override
+    public synchronized int get() throws InterruptedException {
+        // 如果缓冲区为空，等待
+        while (queue.isEmpty()) {
+            if (verbose) {
+                System.out.println("缓冲区为空，消费者等待...");
+            }
+            wait();
+        }
+        
+        // 获取数据
+        int data = queue.poll();
+        if (verbose) {
+            System.out.println("获取数据: " + data + "，当前缓冲区大小: " + queue.size());
+        }
+        
+        // 唤醒可能在等待的生产者
+        notifyAll();
+        
+        return data;
+    }
+    
+    // 批量放入src[off, off+len)：每次持有锁时放入尽可能多的数据，只唤醒一次
+    public synchronized void putAll(int[] src, int off, int len) throws InterruptedException {
+        if (off < 0 || len < 0 || off > src.length - len) {
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + src.length);
+        }
+        
+        int end = off + len;
+        while (off < end) {
+            // 如果缓冲区已满，等待
+            while (queue.size() == capacity) {
+                if (verbose) {
+                    System.out.println("缓冲区已满，生产者等待...");
+                }
+                wait();
+            }
+            
+            // 放入当前剩余空间能容纳的全部数据
+            int batch = Math.min(end - off, capacity - queue.size());
+            for (int i = 0; i < batch; i++) {
+                queue.offer(src[off++]);
+            }
+            if (verbose) {
+                System.out.println("批量放入数据: " + batch + " 个，当前缓冲区大小: " + queue.size());
+            }
+            
+            // 整批数据只唤醒一次
+            notifyAll();
+        }
+    }
+    
+    // 批量取出最多max个数据到dst中，缓冲区为空时不等待，返回实际取出的个数
+    public synchronized int drainTo(int[] dst, int max) {
+        int count = Math.max(0, Math.min(Math.min(max, dst.length), queue.size()));
+        for (int i = 0; i < count; i++) {
+            dst[i] = queue.poll();
+        }
+        
+        if (count > 0) {
+            if (verbose) {
+                System.out.println("批量获取数据: " + count + " 个，当前缓冲区大小: " + queue.size());
+            }
+            notifyAll();
+        }
+        return count;
+    }
+    
+    // 同drainTo(dst, max)，但缓冲区为空时最多等待timeout直到有数据，超时返回0
+    public synchronized int drainTo(int[] dst, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
+        
+        while (queue.isEmpty() && max > 0 && dst.length > 0) {
+            if (remaining <= 0) {
+                return 0;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        
+        return drainTo(dst, max);
+    }
+    
+    // 取出一个数据，缓冲区为空时最多等待timeout，超时返回null
+    public synchronized Integer poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
+        
+        while (queue.isEmpty()) {
+            if (remaining <= 0) {
+                return null;
+            }
+            // 被唤醒（或虚假唤醒）后重新计算剩余等待时间
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        
+        Integer data = queue.poll();
+        if (verbose) {
+            System.out.println("获取数据: " + data + "，当前缓冲区大小: " + queue.size());
+        }
+        notifyAll();
+        
+        return data;
+    }
+}
@@ -16,9 +16,16 @@ public class ConcurrentTools {
         // 1. 线程池
         System.out.println("\n===== 线程池示例 =====");
         
-        // 创建固定大小的线程池
-        ExecutorService fixedPool = Executors.newFixedThreadPool(3);
-        System.out.println("创建了固定大小为3的线程池");
+        // 创建固定大小的线程池（可通过 -Dexecutor.mode=virtual 等切换为虚拟线程，见ExecutorFactory）
+        ExecutorService fixedPool = ExecutorFactory.fromSystemProperties(ExecutorFactory.Mode.FIXED, 3);
+        System.out.println("创建了线程池，模式: " + ExecutorFactory.effectiveMode(ExecutorFactory.Mode.FIXED));
+        
+        // 用带指标的装饰器包装线程池，并每秒打印一次排队深度、排队时间和执行时间
+        InstrumentedExecutorService instrumentedPool = new InstrumentedExecutorService("fixedPool", fixedPool);
+        fixedPool = instrumentedPool;
+        InstrumentedExecutorService.SnapshotDumper dumper =
+                new InstrumentedExecutorService.SnapshotDumper(System.out).register(instrumentedPool);
+        dumper.start(1, TimeUnit.SECONDS);
         
         // 提交任务到线程池
         for (int i = 1; i <= 5; i++) {
@@ -45,12 +52,15 @@ public class ConcurrentTools {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        dumper.close();
+        System.out.println("线程池指标: " + instrumentedPool.snapshot());
         
         // 2. Callable与Future
         System.out.println("\n===== Callable与Future示例 =====");
         
         // 创建线程池
-        ExecutorService executorService = Executors.newCachedThreadPool();
+        InstrumentedExecutorService executorService = new InstrumentedExecutorService("executorService",
+                ExecutorFactory.fromSystemProperties(ExecutorFactory.Mode.CACHED, 3));
         
         // 创建Callable任务
         Callable<Integer> task = () -> {
@@ -81,15 +91,29 @@ public class ConcurrentTools {
         
         // 关闭线程池
         executorService.shutdown();
+        System.out.println("线程池指标: " + executorService.snapshot());
+        
+        // 大数组的求和交给ForkJoin并行归约引擎（见ParallelReducer）
+        long[] numbers = new long[10000000];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = i + 1;
+        }
+        ParallelReducer reducer = new ParallelReducer(new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+        System.out.println("ForkJoin并行求和 1~" + numbers.length + ": " + reducer.sum(numbers));
+        System.out.println("ForkJoin并行求最大值: " + reducer.reduce(numbers, Long.MIN_VALUE, Math::max));
+        reducer.pool().shutdown();
         
         // 3. 并发集合
         System.out.println("\n===== 并发集合示例 =====");
         
         // ConcurrentHashMap示例
         Map<String, Integer> concurrentMap = new ConcurrentHashMap<>();
+        // 统计每个线程写入次数的计数Map，同时记录键上的竞争情况
+        ContentionTrackingMap<String> writeCounts = new ContentionTrackingMap<>();
         
         // 创建多个线程操作ConcurrentHashMap
-        ExecutorService mapService = Executors.newFixedThreadPool(3);
+        InstrumentedExecutorService mapService =
+                new InstrumentedExecutorService("mapService", Executors.newFixedThreadPool(3));
         
         for (int i = 0; i < 3; i++) {
             final int threadId = i;
@@ -97,6 +121,7 @@ public class ConcurrentTools {
                 for (int j = 1; j <= 5; j++) {
                     String key = "thread" + threadId + "-" + j;
                     concurrentMap.put(key, j);
+                    writeCounts.incrementAndGet("thread" + threadId);
                     System.out.println("线程" + threadId + "添加键值对: " + key + " -> " + j);
                     
                     try {
@@ -114,15 +139,18 @@ public class ConcurrentTools {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        System.out.println("线程池指标: " + mapService.snapshot());
         
         System.out.println("ConcurrentHashMap大小: " + concurrentMap.size());
         System.out.println("ConcurrentHashMap内容: " + concurrentMap);
+        System.out.println("各线程写入次数: " + writeCounts.hottestKeys(3));
         
         // CopyOnWriteArrayList示例
         List<String> copyOnWriteList = new CopyOnWriteArrayList<>();
         
         // 创建多个线程操作CopyOnWriteArrayList
-        ExecutorService listService = Executors.newFixedThreadPool(3);
+        InstrumentedExecutorService listService =
+                new InstrumentedExecutorService("listService", Executors.newFixedThreadPool(3));
         
         for (int i = 0; i < 3; i++) {
             final int threadId = i;
@@ -152,10 +180,21 @@ public class ConcurrentTools {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        System.out.println("线程池指标: " + listService.snapshot());
         
         System.out.println("CopyOnWriteArrayList大小: " + copyOnWriteList.size());
         System.out.println("CopyOnWriteArrayList内容: " + copyOnWriteList);
         
+        // 批量注册：整批监听器只复制一次数组，读线程遍历的始终是提交前或提交后的完整快照
+        BatchedCopyOnWriteList<String> registry = new BatchedCopyOnWriteList<>();
+        try (BatchedCopyOnWriteList<String>.Transaction tx = registry.beginTransaction()) {
+            for (int i = 0; i < 1000; i++) {
+                tx.add("listener-" + i);
+            }
+            tx.commit();
+        }
+        System.out.println("BatchedCopyOnWriteList一次提交注册的监听器数: " + registry.size());
+        
         // 4. 原子类
         System.out.println("\n===== 原子类示例 =====");
         
@@ -163,7 +202,8 @@ public class ConcurrentTools {
         AtomicInteger atomicInt = new AtomicInteger(0);
         
         // 创建多个线程操作AtomicInteger
-        ExecutorService atomicService = Executors.newFixedThreadPool(5);
+        InstrumentedExecutorService atomicService =
+                new InstrumentedExecutorService("atomicService", Executors.newFixedThreadPool(5));
         
         for (int i = 0; i < 5; i++) {
             atomicService.execute(() -> {
@@ -179,6 +219,7 @@ public class ConcurrentTools {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        System.out.println("线程池指标: " + atomicService.snapshot());
         
         System.out.println("AtomicInteger最终值: " + atomicInt.get());
         System.out.println("预期值: 5000");
@@ -197,7 +238,10 @@ public class ConcurrentTools {
         // 5. ScheduledExecutorService示例
         System.out.println("\n===== ScheduledExecutorService示例 =====");
         
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+        // 可通过 -Dscheduler.type=wheel 切换为时间轮调度器（见TimingWheelScheduler）
+        ScheduledExecutorService scheduler = "wheel".equals(System.getProperty("scheduler.type"))
+                ? new TimingWheelScheduler(10, TimeUnit.MILLISECONDS)
+                : Executors.newScheduledThreadPool(1);
         
         // 延迟执行任务
         scheduler.schedule(() -> {
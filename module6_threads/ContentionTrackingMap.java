@@ -0,0 +1,190 @@
+/**
+ * 模块六：多线程&并发编程
+ * 带竞争统计的并发计数Map
+ *
+ * 用ConcurrentHashMap.merge(key, 1, Integer::sum)做计数时，每次更新都要装箱，
+ * 并且同一个键的所有更新都会在该键所在的桶（bin）上串行执行。少数热点键会让其他线程排队，
+ * 但从外面完全看不出来。
+ *
+ * 本类为每个键保存一个可变的long单元格：
+ * - 第一次访问某个键时才通过computeIfAbsent创建单元格，之后的更新只是对单元格做CAS，不装箱
+ * - CAS失败说明有其他线程在同时更新同一个键，失败次数即该键的竞争次数
+ * 更新只发生在各个键自己的单元格上，ConcurrentHashMap的桶不会成为竞争点，
+ * 因此只统计真正发生冲突的位置：通过hottestKeys()可以找出竞争最激烈的键。
+ *
+ * @param <K> 键类型
+ */
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+class ContentionTrackingMap<K> {
+    private final ConcurrentHashMap<K, Cell> cells;
+
+    ContentionTrackingMap() {
+        this.cells = new ConcurrentHashMap<>();
+    }
+
+    ContentionTrackingMap(int initialCapacity) {
+        this.cells = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    /**
+     * 某个键的计数单元格
+     *
+     * 更新次数和冲突次数记在单独的LongAdder中：如果也对单元格本身做原子自增，
+     * 统计就会在被测量的缓存行上再制造一次竞争，使报告的冲突偏高。
+     */
+    static final class Cell {
+        private static final AtomicLongFieldUpdater<Cell> VALUE =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "value");
+
+        volatile long value;
+        // 成功的更新次数
+        final LongAdder updates = new LongAdder();
+        // CAS失败（与其他线程冲突）的次数
+        final LongAdder retries = new LongAdder();
+
+        long accumulate(long x, LongBinaryOperator op) {
+            long failures = 0;
+            long current;
+            long next;
+            do {
+                current = value;
+                next = op.applyAsLong(current, x);
+                if (VALUE.compareAndSet(this, current, next)) {
+                    break;
+                }
+                failures++;
+            } while (true);
+            record(failures);
+            return next;
+        }
+
+        long update(LongUnaryOperator fn) {
+            long failures = 0;
+            long current;
+            long next;
+            do {
+                current = value;
+                next = fn.applyAsLong(current);
+                if (VALUE.compareAndSet(this, current, next)) {
+                    break;
+                }
+                failures++;
+            } while (true);
+            record(failures);
+            return next;
+        }
+
+        long add(long delta) {
+            long failures = 0;
+            long current;
+            while (!VALUE.compareAndSet(this, current = value, current + delta)) {
+                failures++;
+            }
+            record(failures);
+            return current + delta;
+        }
+
+        private void record(long failures) {
+            updates.increment();
+            if (failures != 0) {
+                retries.add(failures);
+            }
+        }
+    }
+
+    private Cell cell(K key) {
+        Cell cell = cells.get(key);  // 快速路径：无锁读取
+        if (cell == null) {
+            cell = cells.computeIfAbsent(key, k -> new Cell());
+        }
+        return cell;
+    }
+
+    /**
+     * 给key的计数加上delta，返回更新后的值
+     */
+    long addTo(K key, long delta) {
+        return cell(key).add(delta);
+    }
+
+    long incrementAndGet(K key) {
+        return cell(key).add(1);
+    }
+
+    /**
+     * 相当于merge(key, x, op)，但值始终是原始long，op必须无副作用（CAS冲突时会被重复调用）
+     */
+    long merge(K key, long x, LongBinaryOperator op) {
+        return cell(key).accumulate(x, op);
+    }
+
+    /**
+     * 相当于compute(key, fn)，不存在的键按0计算；fn同样必须无副作用
+     */
+    long compute(K key, LongUnaryOperator fn) {
+        return cell(key).update(fn);
+    }
+
+    /**
+     * 获取key的当前值，不存在时返回0
+     */
+    long get(K key) {
+        Cell cell = cells.get(key);
+        return cell == null ? 0 : cell.value;
+    }
+
+    int size() {
+        return cells.size();
+    }
+
+    /**
+     * 单个键的统计
+     */
+    static final class KeyStats {
+        final Object key;
+        final long value;
+        final long updates;
+        final long retries;
+
+        KeyStats(Object key, long value, long updates, long retries) {
+            this.key = key;
+            this.value = value;
+            this.updates = updates;
+            this.retries = retries;
+        }
+
+        // 平均每次更新的冲突次数
+        double contentionRatio() {
+            return updates == 0 ? 0 : (double) retries / updates;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s 值=%-10d 更新=%-10d 冲突=%-10d 冲突率=%.3f",
+                    key, value, updates, retries, contentionRatio());
+        }
+    }
+
+    /**
+     * 冲突次数最多的前n个键（冲突相同时按更新次数排序）
+     */
+    List<KeyStats> hottestKeys(int n) {
+        List<KeyStats> all = new ArrayList<>(cells.size());
+        for (Map.Entry<K, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            all.add(new KeyStats(entry.getKey(), cell.value, cell.updates.sum(), cell.retries.sum()));
+        }
+        all.sort(Comparator.comparingLong((KeyStats s) -> s.retries)
+                .thenComparingLong(s -> s.updates).reversed());
+        return all.subList(0, Math.min(n, all.size()));
+    }
+}
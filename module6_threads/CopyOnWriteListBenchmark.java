@@ -0,0 +1,154 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例14：写时复制列表基准测试
+ *
+ * 分两部分比较CopyOnWriteArrayList、BatchedCopyOnWriteList和PersistentVectorList：
+ * 1. 启动注册：单线程一次性注册n个监听器，比较逐个add()、addAll()和写事务的耗时。
+ *    CopyOnWriteArrayList逐个add()是O(n²)，批量提交和持久化向量接近O(n)
+ * 2. 稳定运行：多个线程按给定读写比例操作一个固定大小的注册表，
+ *    读操作完整遍历列表（相当于通知所有监听器），写操作替换其中一个元素
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java CopyOnWriteListBenchmark [预热毫秒] [测量毫秒] [线程数列表] [写比例列表] [注册数量列表]
+ * 例如：
+ *   java CopyOnWriteListBenchmark 200 500 1,4,8 1,10,50 1000,10000
+ */
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+public class CopyOnWriteListBenchmark {
+    // 稳定运行阶段注册表中的元素数
+    private static final int REGISTRY_SIZE = 1000;
+
+    public static void main(String[] args) {
+        long warmupMillis = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        long measureMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int[] threadCounts = MicroBenchmark.parseIntList(args.length > 2 ? args[2] : "1,4,8");
+        int[] writePercents = MicroBenchmark.parseIntList(args.length > 3 ? args[3] : "1,10,50");
+        int[] burstSizes = MicroBenchmark.parseIntList(args.length > 4 ? args[4] : "1000,10000,50000");
+
+        System.out.println("===== 写时复制列表基准测试 =====");
+        runStartupBurst(burstSizes);
+        runSteadyState(warmupMillis, measureMillis, threadCounts, writePercents);
+    }
+
+    private static void runStartupBurst(int[] burstSizes) {
+        System.out.println("\n===== 启动注册：单线程注册n个元素的耗时(ms) =====");
+        System.out.printf("%-40s", "方式");
+        for (int n : burstSizes) {
+            System.out.printf(" %12s", "n=" + n);
+        }
+        System.out.println();
+
+        Map<String, BurstLoader> loaders = new LinkedHashMap<>();
+        loaders.put("CopyOnWriteArrayList.add", (n, items) -> {
+            List<Object> list = new CopyOnWriteArrayList<>();
+            for (Object item : items) {
+                list.add(item);
+            }
+            return list.size();
+        });
+        loaders.put("CopyOnWriteArrayList.addAll", (n, items) -> {
+            List<Object> list = new CopyOnWriteArrayList<>();
+            list.addAll(items);
+            return list.size();
+        });
+        loaders.put("BatchedCopyOnWriteList.add", (n, items) -> {
+            List<Object> list = new BatchedCopyOnWriteList<>();
+            for (Object item : items) {
+                list.add(item);
+            }
+            return list.size();
+        });
+        loaders.put("BatchedCopyOnWriteList.transaction", (n, items) -> {
+            BatchedCopyOnWriteList<Object> list = new BatchedCopyOnWriteList<>();
+            try (BatchedCopyOnWriteList<Object>.Transaction tx = list.beginTransaction()) {
+                for (Object item : items) {
+                    tx.add(item);  // 逐个加入私有副本
+                }
+                tx.commit();       // 一次性发布
+            }
+            return list.size();
+        });
+        loaders.put("PersistentVectorList.add", (n, items) -> {
+            List<Object> list = new PersistentVectorList<>();
+            for (Object item : items) {
+                list.add(item);
+            }
+            return list.size();
+        });
+
+        for (Map.Entry<String, BurstLoader> entry : loaders.entrySet()) {
+            System.out.printf("%-40s", entry.getKey());
+            for (int n : burstSizes) {
+                List<Object> items = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    items.add("listener-" + i);
+                }
+                System.out.printf(" %12.2f", bestOf(3, entry.getValue(), n, items) / 1e6);
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+     * 一次注册n个元素，返回最终大小
+     */
+    interface BurstLoader {
+        int load(int n, List<Object> items);
+    }
+
+    // 取多次运行中的最短耗时（纳秒），第一次运行兼作预热
+    private static long bestOf(int rounds, BurstLoader loader, int n, List<Object> items) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long begin = System.nanoTime();
+            int size = loader.load(n, items);
+            best = Math.min(best, System.nanoTime() - begin);
+            MicroBenchmark.blackhole = size;
+        }
+        return best;
+    }
+
+    private static void runSteadyState(long warmupMillis, long measureMillis,
+                                       int[] threadCounts, int[] writePercents) {
+        Map<String, Supplier<List<Integer>>> lists = new LinkedHashMap<>();
+        lists.put("CopyOnWriteArrayList", CopyOnWriteArrayList::new);
+        lists.put("BatchedCopyOnWriteList", BatchedCopyOnWriteList::new);
+        lists.put("PersistentVectorList", PersistentVectorList::new);
+
+        List<Integer> initial = new ArrayList<>(REGISTRY_SIZE);
+        for (int i = 0; i < REGISTRY_SIZE; i++) {
+            initial.add(i);
+        }
+
+        for (int writePercent : writePercents) {
+            System.out.println("\n===== 稳定运行：" + REGISTRY_SIZE + "个元素，写比例" + writePercent + "% =====");
+            System.out.println(MicroBenchmark.Result.header());
+            for (Map.Entry<String, Supplier<List<Integer>>> entry : lists.entrySet()) {
+                for (int threads : threadCounts) {
+                    List<Integer> list = entry.getValue().get();
+                    list.addAll(initial);
+                    String name = entry.getKey() + "[write=" + writePercent + "%]";
+                    long[] sums = new long[threads];
+                    System.out.println(MicroBenchmark.measure(name, threads, warmupMillis, measureMillis,
+                            (threadIndex, iteration) -> {
+                                if (iteration % 100 < writePercent) {
+                                    int index = (int) ((iteration * 31 + threadIndex) % REGISTRY_SIZE);
+                                    list.set(index, (int) iteration);
+                                    return index;
+                                }
+                                // 遍历快照，相当于通知所有监听器
+                                list.forEach(value -> sums[threadIndex] += value);
+                                return sums[threadIndex];
+                            }));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * 模块六：多线程&并发编程
+ * 计数器公共接口
+ * 
+ * UnsafeCounter、SynchronizedCounter、LockCounter以及
+ * PaddedStripedCounter等高并发计数器都实现该接口，
+ * 调用方只依赖接口，便于在同一负载下替换实现并比较吞吐量。
+ */
+interface Counter {
+    // 计数加1
+    void increment();
+    
+    // 获取当前计数值
+    int getCount();
+}
@@ -0,0 +1,84 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例6：计数器与锁策略基准测试
+ *
+ * ThreadSynchronization.main只用两个线程各自增1000次并打印结果，
+ * 无法反映吞吐量和扩展性。本示例基于MicroBenchmark，
+ * 在1、2、4、8、16、32个线程下，按不同读写比例（getCount/increment）
+ * 测量各个计数器的吞吐量（ops/s）与p99延迟，便于发现性能回退。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java CounterBenchmark [预热毫秒] [测量毫秒] [线程数列表] [读比例列表]
+ * 例如：
+ *   java CounterBenchmark 200 500 1,2,4,8,16,32 0,50,90
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class CounterBenchmark {
+    public static void main(String[] args) {
+        long warmupMillis = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        long measureMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int[] threadCounts = MicroBenchmark.parseIntList(args.length > 2 ? args[2] : "1,2,4,8,16,32");
+        int[] readPercents = MicroBenchmark.parseIntList(args.length > 3 ? args[3] : "0,50,90");
+
+        System.out.println("===== 计数器基准测试 =====");
+        System.out.println("预热: " + warmupMillis + " ms，测量: " + measureMillis + " ms");
+
+        // 参与比较的计数器实现，每次测量都创建新的实例
+        Map<String, Supplier<Counter>> counters = new LinkedHashMap<>();
+        counters.put("UnsafeCounter", UnsafeCounter::new);
+        counters.put("SynchronizedCounter", SynchronizedCounter::new);
+        counters.put("LockCounter", LockCounter::new);
+        counters.put("AtomicIntegerCounter", AtomicIntegerCounter::new);
+        counters.put("PaddedStripedCounter", PaddedStripedCounter::new);
+        counters.put("ThreadLocalCounter", ThreadLocalCounter::new);
+        counters.put("SloppyCounter", () -> new SloppyCounter(1024));
+        counters.put("StateHolder.readWrite", StateHolder::readWrite);
+        counters.put("StateHolder.stamped", StateHolder::stamped);
+        counters.put("StateHolder.seqLock", StateHolder::seqLock);
+
+        for (int readPercent : readPercents) {
+            System.out.println("\n===== 读比例: " + readPercent + "% =====");
+            System.out.println(MicroBenchmark.Result.header());
+
+            for (Map.Entry<String, Supplier<Counter>> entry : counters.entrySet()) {
+                for (int threads : threadCounts) {
+                    Counter counter = entry.getValue().get();
+                    String name = entry.getKey() + "[read=" + readPercent + "%]";
+                    MicroBenchmark.Result result = MicroBenchmark.measure(
+                            name, threads, warmupMillis, measureMillis,
+                            (threadIndex, iteration) -> {
+                                // 按迭代序号决定读还是写，避免在热路径上生成随机数
+                                if (iteration % 100 < readPercent) {
+                                    return counter.getCount();
+                                }
+                                counter.increment();
+                                return 0;
+                            });
+                    System.out.println(result);
+                }
+            }
+        }
+    }
+}
+
+/**
+ * ConcurrentTools中AtomicInteger用法的Counter适配
+ */
+class AtomicIntegerCounter implements Counter {
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    @Override
+    public void increment() {
+        count.incrementAndGet();  // 原子自增操作
+    }
+
+    @Override
+    public int getCount() {
+        return count.get();
+    }
+}
@@ -0,0 +1,422 @@
+/**
+ * 模块六：多线程&并发编程
+ * 死锁检测与锁顺序监控
+ *
+ * 死锁发生后线程只是静静地挂起，服务看起来"还活着"，很难发现。本类提供两层防护：
+ * 1. 死锁检测：后台线程定期调用ThreadMXBean.findDeadlockedThreads()，
+ *    同时覆盖synchronized监视器和ReentrantLock等同步器，发现死锁后输出相关线程的完整栈
+ * 2. 锁顺序检查：通过newLock()创建的TrackedLock会记录"持有A时再获取B"这样的加锁顺序，
+ *    一旦某个线程以相反的顺序加锁（即顺序图中出现环），立即报告锁顺序反转，
+ *    此时两个线程未必真的死锁了，但只要时机不巧就会死锁
+ *
+ * 开销是有界的，可以在高负载下常开：
+ * - 死锁检测的代价与线程数成正比，频率由检测周期控制
+ * - 加锁时只需在本线程持有的锁（通常只有0~2个）上各做一次哈希查找，
+ *   只有第一次出现的新顺序才会加全局锁、遍历顺序图并抓取调用栈
+ * - 顺序图的边数有上限，超出后不再记录新的顺序
+ */
+import java.io.PrintStream;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+class DeadlockWatchdog implements AutoCloseable {
+    static final int DEFAULT_MAX_EDGES = 10_000;
+
+    // 记录加锁顺序时保留的栈深度
+    private static final int MAX_STACK_DEPTH = 24;
+
+    /**
+     * 检测结果的接收者
+     */
+    interface Listener {
+        void deadlockDetected(ThreadInfo[] threads);
+
+        void lockOrderInversion(LockOrderInversion inversion);
+    }
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final Listener listener;
+    private final int maxEdges;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "deadlock-watchdog");
+        thread.setDaemon(true);  // 不阻止JVM退出
+        return thread;
+    });
+
+    // 已报告过的死锁（按线程ID集合去重），死锁线程不会自行恢复，每组只报告一次
+    private final Set<String> reportedDeadlocks = ConcurrentHashMap.newKeySet();
+    private final LongAdder deadlockCount = new LongAdder();
+    private final LongAdder inversionCount = new LongAdder();
+
+    // 顺序图：修改只在graphLock下进行，读取无锁
+    private final Object graphLock = new Object();
+    private final AtomicInteger edgeCount = new AtomicInteger();
+    private final ThreadLocal<HeldLocks> heldLocks = ThreadLocal.withInitial(HeldLocks::new);
+
+    DeadlockWatchdog(PrintStream out) {
+        this(new PrintingListener(out), DEFAULT_MAX_EDGES);
+    }
+
+    DeadlockWatchdog(Listener listener, int maxEdges) {
+        this.listener = listener;
+        this.maxEdges = maxEdges;
+    }
+
+    /**
+     * 开始按固定周期检测死锁
+     */
+    DeadlockWatchdog start(long period, TimeUnit unit) {
+        timer.scheduleWithFixedDelay(this::checkDeadlocks, period, period, unit);
+        return this;
+    }
+
+    /**
+     * 立即检测一次，返回新发现的死锁线程数
+     */
+    int checkDeadlocks() {
+        boolean synchronizers = threadMXBean.isSynchronizerUsageSupported();
+        long[] ids = synchronizers
+                ? threadMXBean.findDeadlockedThreads()
+                : threadMXBean.findMonitorDeadlockedThreads();
+        if (ids == null) {
+            return 0;
+        }
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        if (!reportedDeadlocks.add(Arrays.toString(sorted))) {
+            return 0;
+        }
+        deadlockCount.increment();
+        ThreadInfo[] infos = threadMXBean.getThreadInfo(sorted,
+                threadMXBean.isObjectMonitorUsageSupported(), synchronizers);
+        listener.deadlockDetected(infos);
+        return sorted.length;
+    }
+
+    long deadlocksDetected() {
+        return deadlockCount.sum();
+    }
+
+    long inversionsDetected() {
+        return inversionCount.sum();
+    }
+
+    /**
+     * 创建一个记录加锁顺序的可重入锁
+     */
+    TrackedLock newLock(String name) {
+        return new TrackedLock(name, new ReentrantLock());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 记录加锁顺序的Lock包装
+     *
+     * 只有lock()和lockInterruptibly()会检查顺序：tryLock()不会无限等待，不会造成死锁，
+     * 成功后只记入本线程持有的锁。
+     */
+    final class TrackedLock implements Lock {
+        private final String name;
+        private final Lock delegate;
+        // 先持有本锁、再获取的锁 -> 第一次观察到该顺序时的记录
+        private final Map<TrackedLock, OrderEdge> successors = new ConcurrentHashMap<>();
+
+        private TrackedLock(String name, Lock delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        String name() {
+            return name;
+        }
+
+        @Override
+        public void lock() {
+            beforeAcquire(this);
+            delegate.lock();
+            heldLocks.get().push(this);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            beforeAcquire(this);
+            delegate.lockInterruptibly();
+            heldLocks.get().push(this);
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (delegate.tryLock()) {
+                heldLocks.get().push(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            if (delegate.tryLock(time, unit)) {
+                heldLocks.get().push(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            delegate.unlock();
+            heldLocks.get().remove(this);
+        }
+
+        @Override
+        public Condition newCondition() {
+            return delegate.newCondition();
+        }
+
+        @Override
+        public String toString() {
+            return "TrackedLock[" + name + "]";
+        }
+    }
+
+    /**
+     * 顺序图中的一条边：某线程在持有from时获取了to
+     */
+    static final class OrderEdge {
+        final TrackedLock from;
+        final TrackedLock to;
+        final String threadName;
+        final StackTraceElement[] stack;
+
+        OrderEdge(TrackedLock from, TrackedLock to, String threadName, StackTraceElement[] stack) {
+            this.from = from;
+            this.to = to;
+            this.threadName = threadName;
+            this.stack = stack;
+        }
+    }
+
+    /**
+     * 锁顺序反转报告：新出现的顺序与已有的顺序构成环
+     */
+    static final class LockOrderInversion {
+        // 新出现的顺序
+        final OrderEdge edge;
+        // 已有的反向路径（edge.to -> ... -> edge.from）
+        final List<OrderEdge> conflictingPath;
+
+        LockOrderInversion(OrderEdge edge, List<OrderEdge> conflictingPath) {
+            this.edge = edge;
+            this.conflictingPath = conflictingPath;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("锁顺序反转: 线程\"").append(edge.threadName).append("\"持有")
+                    .append(edge.from.name).append("时获取").append(edge.to.name)
+                    .append("，而已有顺序为 ").append(edge.to.name);
+            for (OrderEdge e : conflictingPath) {
+                sb.append(" -> ").append(e.to.name);
+            }
+            sb.append('\n');
+            appendStack(sb, "本次加锁 (线程\"" + edge.threadName + "\")", edge.stack);
+            for (OrderEdge e : conflictingPath) {
+                appendStack(sb, e.from.name + " -> " + e.to.name + " (线程\"" + e.threadName + "\"首次加锁)",
+                        e.stack);
+            }
+            return sb.toString();
+        }
+
+        private static void appendStack(StringBuilder sb, String title, StackTraceElement[] stack) {
+            sb.append("  ").append(title).append(":\n");
+            for (StackTraceElement frame : stack) {
+                sb.append("\tat ").append(frame).append('\n');
+            }
+        }
+    }
+
+    // 阻塞加锁前检查本线程持有的每个锁与目标锁之间的顺序
+    private void beforeAcquire(TrackedLock lock) {
+        HeldLocks held = heldLocks.get();
+        if (held.size == 0 || held.contains(lock)) {
+            return;  // 没有持有其他锁，或者是重入
+        }
+        for (int i = 0; i < held.size; i++) {
+            TrackedLock prior = held.locks[i];
+            if (!prior.successors.containsKey(lock)) {
+                recordEdge(prior, lock);
+            }
+        }
+    }
+
+    private void recordEdge(TrackedLock from, TrackedLock to) {
+        if (edgeCount.get() >= maxEdges) {
+            return;  // 超出上限后不再记录新顺序，开销保持有界
+        }
+        OrderEdge edge = new OrderEdge(from, to, Thread.currentThread().getName(), captureStack());
+        LockOrderInversion inversion = null;
+        synchronized (graphLock) {
+            if (from.successors.putIfAbsent(to, edge) != null) {
+                return;  // 其他线程刚刚记录了同样的顺序
+            }
+            edgeCount.incrementAndGet();
+            List<OrderEdge> path = findPath(to, from);
+            if (path != null) {
+                inversion = new LockOrderInversion(edge, path);
+            }
+        }
+        if (inversion != null) {
+            inversionCount.increment();
+            listener.lockOrderInversion(inversion);
+        }
+    }
+
+    // 在顺序图中查找从source到target的路径（深度优先），不存在时返回null
+    private static List<OrderEdge> findPath(TrackedLock source, TrackedLock target) {
+        List<OrderEdge> path = new ArrayList<>();
+        Set<TrackedLock> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        return dfs(source, target, visited, path) ? path : null;
+    }
+
+    private static boolean dfs(TrackedLock current, TrackedLock target,
+                               Set<TrackedLock> visited, List<OrderEdge> path) {
+        if (!visited.add(current)) {
+            return false;
+        }
+        for (OrderEdge edge : current.successors.values()) {
+            path.add(edge);
+            if (edge.to == target || dfs(edge.to, target, visited, path)) {
+                return true;
+            }
+            path.remove(path.size() - 1);
+        }
+        return false;
+    }
+
+    // 抓取当前调用栈，去掉监控本身的栈帧
+    private static StackTraceElement[] captureStack() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        int skip = 0;
+        while (skip < stack.length && stack[skip].getClassName().startsWith(DeadlockWatchdog.class.getName())) {
+            skip++;
+        }
+        return Arrays.copyOfRange(stack, skip, Math.min(stack.length, skip + MAX_STACK_DEPTH));
+    }
+
+    /**
+     * 本线程当前持有的TrackedLock（重入时会出现多次）
+     */
+    private static final class HeldLocks {
+        TrackedLock[] locks = new TrackedLock[4];
+        int size;
+
+        boolean contains(TrackedLock lock) {
+            for (int i = 0; i < size; i++) {
+                if (locks[i] == lock) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void push(TrackedLock lock) {
+            if (size == locks.length) {
+                locks = Arrays.copyOf(locks, size * 2);
+            }
+            locks[size++] = lock;
+        }
+
+        // 移除最后一次出现，允许不按加锁的相反顺序解锁
+        void remove(TrackedLock lock) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (locks[i] == lock) {
+                    System.arraycopy(locks, i + 1, locks, i, size - i - 1);
+                    locks[--size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 默认的接收者：把报告打印到输出流
+     */
+    static final class PrintingListener implements Listener {
+        private final PrintStream out;
+
+        PrintingListener(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void deadlockDetected(ThreadInfo[] threads) {
+            StringBuilder sb = new StringBuilder("检测到死锁，涉及" + threads.length + "个线程:\n");
+            for (ThreadInfo info : threads) {
+                if (info != null) {
+                    sb.append(format(info));
+                }
+            }
+            out.print(sb);
+        }
+
+        @Override
+        public void lockOrderInversion(LockOrderInversion inversion) {
+            out.print(inversion);
+        }
+    }
+
+    /**
+     * 输出线程的完整栈（ThreadInfo.toString()最多只输出8帧）
+     */
+    static String format(ThreadInfo info) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('"').append(info.getThreadName()).append("\" id=").append(info.getThreadId())
+                .append(' ').append(info.getThreadState());
+        if (info.getLockName() != null) {
+            sb.append(" 等待 ").append(info.getLockName());
+        }
+        if (info.getLockOwnerName() != null) {
+            sb.append(" 持有者 \"").append(info.getLockOwnerName()).append("\" id=").append(info.getLockOwnerId());
+        }
+        sb.append('\n');
+        StackTraceElement[] stack = info.getStackTrace();
+        MonitorInfo[] monitors = info.getLockedMonitors();
+        for (int i = 0; i < stack.length; i++) {
+            sb.append("\tat ").append(stack[i]).append('\n');
+            for (MonitorInfo monitor : monitors) {
+                if (monitor.getLockedStackDepth() == i) {
+                    sb.append("\t- 已锁定 ").append(monitor).append('\n');
+                }
+            }
+        }
+        LockInfo[] synchronizers = info.getLockedSynchronizers();
+        if (synchronizers.length > 0) {
+            sb.append("\t持有的同步器: ").append(Arrays.toString(synchronizers)).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * 模块六：多线程&并发编程
+ * Disruptor风格的多阶段事件流水线
+ *
+ * 核心思想：
+ * - 事件环：构造时预先创建好全部事件对象，生产者只是改写槽位中的字段，稳态下不分配内存
+ * - 序号：每个阶段维护一个"已处理到第几个事件"的序号（PaddedAtomicLong），
+ *   阶段之间不传递对象，只比较序号
+ * - 序号屏障：某个阶段只能处理"生产者已发布"且"所有上游阶段都已处理"的事件
+ * - 扇出：多个处理器依赖同一组上游，各自独立处理每个事件
+ * - 扇入：下游处理器同时依赖多个上游，取它们序号的最小值
+ * 整个过程没有锁，等待时交给WaitStrategy。
+ *
+ * 使用方式（单生产者）：
+ *   EventPipeline<Order> pipeline = new EventPipeline<>(Order::new, 1024, WaitStrategy.yielding());
+ *   pipeline.handleEventsWith(parse).then(enrichA, enrichB).then(persist);
+ *   pipeline.start();
+ *   long seq = pipeline.next();
+ *   pipeline.get(seq).id = 42;
+ *   pipeline.publish(seq);
+ *   pipeline.shutdown();
+ *
+ * @param <E> 事件类型，必须是可变对象，会被反复复用
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+class EventPipeline<E> {
+    // 序号初始值，第一个事件的序号为0
+    static final long INITIAL_SEQUENCE = -1L;
+
+    private final Object[] events;
+    private final int mask;
+    private final int capacity;
+    private final WaitStrategy waitStrategy;
+
+    // 生产者已发布的最大序号
+    private final PaddedAtomicLong cursor = new PaddedAtomicLong(INITIAL_SEQUENCE);
+    // 生产者已申请的最大序号（只由生产者线程访问）
+    private long claimed = INITIAL_SEQUENCE;
+    // 生产者缓存的"最慢消费者序号"，避免每次申请都遍历所有末端阶段
+    private long cachedGatingSequence = INITIAL_SEQUENCE;
+
+    private final List<EventProcessor<E>> processors = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    // 末端阶段的序号，生产者不能超过其中最慢的一个
+    private PaddedAtomicLong[] gatingSequences = new PaddedAtomicLong[0];
+    private volatile boolean running;
+    private boolean started;
+
+    /**
+     * 事件处理器
+     */
+    interface EventHandler<E> {
+        /**
+         * @param event      事件对象（不要在方法外保存引用，槽位会被复用）
+         * @param sequence   事件序号
+         * @param endOfBatch 是否为本批可处理事件中的最后一个，可用于批量刷盘等操作
+         */
+        void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+    }
+
+    /**
+     * 把一个long参数写入事件，使用无捕获的lambda时不会产生额外对象
+     */
+    interface EventTranslator<E> {
+        void translateTo(E event, long sequence, long arg);
+    }
+
+    EventPipeline(Supplier<E> factory, int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity <= 0 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("容量必须在1到2^30之间: " + requestedCapacity);
+        }
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        this.events = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            events[i] = factory.get();  // 预先创建全部事件对象
+        }
+    }
+
+    /**
+     * 第一阶段：直接依赖生产者
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    final Stage handleEventsWith(EventHandler<E>... handlers) {
+        return createStage(new PaddedAtomicLong[0], handlers);
+    }
+
+    /**
+     * 扇入：新阶段依赖多个已有阶段（取它们中最慢的一个）
+     */
+    @SafeVarargs
+    final Stage after(Stage... upstream) {
+        List<PaddedAtomicLong> dependencies = new ArrayList<>();
+        for (Stage stage : upstream) {
+            for (PaddedAtomicLong sequence : stage.sequences) {
+                dependencies.add(sequence);
+            }
+        }
+        return new Stage(dependencies.toArray(new PaddedAtomicLong[0]));
+    }
+
+    private Stage createStage(PaddedAtomicLong[] dependencies, EventHandler<E>[] handlers) {
+        if (started) {
+            throw new IllegalStateException("流水线已启动，不能再添加处理阶段");
+        }
+        if (handlers.length == 0) {
+            throw new IllegalArgumentException("每个阶段至少需要一个处理器");
+        }
+        SequenceBarrier barrier = new SequenceBarrier(dependencies);
+        PaddedAtomicLong[] stageSequences = new PaddedAtomicLong[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            EventProcessor<E> processor = new EventProcessor<>(this, barrier, handlers[i]);
+            processors.add(processor);
+            stageSequences[i] = processor.sequence;
+        }
+        return new Stage(stageSequences);
+    }
+
+    /**
+     * 启动所有处理器线程
+     */
+    void start() {
+        if (started) {
+            throw new IllegalStateException("流水线已启动");
+        }
+        if (processors.isEmpty()) {
+            throw new IllegalStateException("流水线中没有任何处理阶段");
+        }
+        started = true;
+        running = true;
+
+        // 找出没有被任何阶段依赖的末端处理器，生产者需要等待它们
+        List<PaddedAtomicLong> gating = new ArrayList<>();
+        for (EventProcessor<E> candidate : processors) {
+            boolean dependedOn = false;
+            for (EventProcessor<E> other : processors) {
+                for (PaddedAtomicLong dependency : other.barrier.dependencies) {
+                    if (dependency == candidate.sequence) {
+                        dependedOn = true;
+                    }
+                }
+            }
+            if (!dependedOn) {
+                gating.add(candidate.sequence);
+            }
+        }
+        gatingSequences = gating.toArray(new PaddedAtomicLong[0]);
+
+        for (int i = 0; i < processors.size(); i++) {
+            Thread thread = new Thread(processors.get(i), "pipeline-stage-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * 申请下一个事件槽位（只能由一个生产者线程调用），环已满时按等待策略等待最慢的末端阶段
+     */
+    long next() {
+        long nextSequence = claimed + 1;
+        long wrapPoint = nextSequence - capacity;
+        if (wrapPoint > cachedGatingSequence) {
+            int counter = 0;
+            long minSequence;
+            while (wrapPoint > (minSequence = minimumSequence(gatingSequences, nextSequence))) {
+                counter = waitStrategy.idle(counter);
+            }
+            cachedGatingSequence = minSequence;
+        }
+        claimed = nextSequence;
+        return nextSequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(long sequence) {
+        return (E) events[(int) sequence & mask];
+    }
+
+    /**
+     * 发布已写好的事件，下游阶段随后即可看到它
+     */
+    void publish(long sequence) {
+        cursor.lazySet(sequence);
+    }
+
+    /**
+     * 申请、写入并发布一个事件
+     */
+    void publishEvent(EventTranslator<E> translator, long arg) {
+        long sequence = next();
+        translator.translateTo(get(sequence), sequence, arg);
+        publish(sequence);
+    }
+
+    /**
+     * 等待所有已发布的事件都被末端阶段处理完，然后停止所有处理器线程
+     */
+    void shutdown() throws InterruptedException {
+        long published = cursor.get();
+        WaitStrategy drainWait = WaitStrategy.parking();
+        int counter = 0;
+        while (minimumSequence(gatingSequences, published) < published) {
+            counter = drainWait.idle(counter);
+        }
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    static long minimumSequence(PaddedAtomicLong[] sequences, long minimum) {
+        for (PaddedAtomicLong sequence : sequences) {
+            long value = sequence.get();
+            if (value < minimum) {
+                minimum = value;
+            }
+        }
+        return minimum;
+    }
+
+    /**
+     * 流水线中的一个阶段（可包含多个并行处理器），用于描述阶段之间的依赖关系
+     */
+    final class Stage {
+        private final PaddedAtomicLong[] sequences;
+
+        private Stage(PaddedAtomicLong[] sequences) {
+            this.sequences = sequences;
+        }
+
+        /**
+         * 下一阶段：依赖当前阶段的全部处理器。传入多个处理器即为扇出，
+         * 再接一个then即为扇入。
+         */
+        @SafeVarargs
+        @SuppressWarnings("varargs")
+        final Stage then(EventHandler<E>... handlers) {
+            return createStage(sequences, handlers);
+        }
+
+        /**
+         * 按序号分区的扇出：partitions个处理器轮流处理事件，每个事件只被其中一个处理
+         */
+        Stage thenPartitioned(int partitions, EventHandler<E> handler) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            EventHandler<E>[] handlers = new EventHandler[partitions];
+            for (int p = 0; p < partitions; p++) {
+                final int partition = p;
+                handlers[p] = (event, sequence, endOfBatch) -> {
+                    if ((sequence % partitions) == partition) {
+                        handler.onEvent(event, sequence, endOfBatch);
+                    }
+                };
+            }
+            return createStage(sequences, handlers);
+        }
+    }
+
+    /**
+     * 序号屏障：计算某个阶段当前可以处理到的最大序号
+     */
+    final class SequenceBarrier {
+        private final PaddedAtomicLong[] dependencies;
+
+        SequenceBarrier(PaddedAtomicLong[] dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * 等待序号sequence可用，返回当前可处理的最大序号；流水线停止时返回INITIAL_SEQUENCE - 1
+         */
+        long waitFor(long sequence) {
+            int counter = 0;
+            long available;
+            while ((available = minimumSequence(dependencies, cursor.get())) < sequence) {
+                if (!running) {
+                    return INITIAL_SEQUENCE - 1;
+                }
+                counter = waitStrategy.idle(counter);
+            }
+            return available;
+        }
+    }
+
+    /**
+     * 事件处理器线程：批量处理屏障放行的全部事件后再更新自己的序号
+     */
+    static final class EventProcessor<E> implements Runnable {
+        private final EventPipeline<E> pipeline;
+        private final EventPipeline<E>.SequenceBarrier barrier;
+        private final EventHandler<E> handler;
+        final PaddedAtomicLong sequence = new PaddedAtomicLong(INITIAL_SEQUENCE);
+
+        EventProcessor(EventPipeline<E> pipeline, EventPipeline<E>.SequenceBarrier barrier,
+                       EventHandler<E> handler) {
+            this.pipeline = pipeline;
+            this.barrier = barrier;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            long nextSequence = sequence.get() + 1;
+            while (true) {
+                long available = barrier.waitFor(nextSequence);
+                if (available < INITIAL_SEQUENCE) {
+                    return;  // 流水线已停止
+                }
+                while (nextSequence <= available) {
+                    try {
+                        handler.onEvent(pipeline.get(nextSequence), nextSequence, nextSequence == available);
+                    } catch (Exception e) {
+                        // 单个事件处理失败不能阻塞整条流水线，记录后继续处理
+                        System.err.println("事件处理失败，序号: " + nextSequence + "，原因: " + e);
+                    }
+                    nextSequence++;
+                }
+                sequence.lazySet(available);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例8：多阶段事件流水线
+ *
+ * 本示例把ThreadCommunication中"一个生产者+一个消费者"的结构扩展为多阶段流水线：
+ *   解析(parse) -> 并行的两个补全阶段(enrichA, enrichB，扇出) -> 持久化(persist，扇入)
+ * 事件对象在环中预先分配并被反复复用，各阶段之间只通过序号协调，没有锁。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java EventPipelineExample [事件数量]
+ */
+public class EventPipelineExample {
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("===== 多阶段事件流水线示例 =====");
+
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        EventPipeline<PipelineEvent> pipeline =
+                new EventPipeline<>(PipelineEvent::new, 1024, WaitStrategy.yielding());
+
+        // 第一阶段：解析原始数据
+        EventPipeline.EventHandler<PipelineEvent> parse =
+                (event, sequence, endOfBatch) -> event.parsed = event.raw * 2;
+
+        // 第二阶段（扇出）：两个补全处理器并行处理同一个事件的不同字段
+        EventPipeline.EventHandler<PipelineEvent> enrichA =
+                (event, sequence, endOfBatch) -> event.enrichedA = event.parsed + 1;
+        EventPipeline.EventHandler<PipelineEvent> enrichB =
+                (event, sequence, endOfBatch) -> event.enrichedB = event.parsed - 1;
+
+        // 第三阶段（扇入）：等两个补全处理器都完成后再持久化
+        PersistHandler persist = new PersistHandler();
+
+        pipeline.handleEventsWith(parse).then(enrichA, enrichB).then(persist);
+        pipeline.start();
+        System.out.println("流水线已启动，环容量: " + pipeline.capacity() + "，事件数量: " + eventCount);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= eventCount; i++) {
+            // 无捕获的方法引用，发布事件时不会分配新对象
+            pipeline.publishEvent(EventPipelineExample::translate, i);
+        }
+        pipeline.shutdown();
+        long elapsed = System.nanoTime() - start;
+
+        // 每个事件的 enrichedA + enrichedB = 4 * raw，因此总和 = 4 * (1 + 2 + ... + n)
+        long expected = 4L * eventCount * (eventCount + 1L) / 2;
+        System.out.println("持久化事件数: " + persist.count + "，批次数: " + persist.batches);
+        System.out.println("校验和: " + persist.checksum + "，预期值: " + expected
+                + (persist.checksum == expected ? "（通过）" : "（失败）"));
+        System.out.printf("耗时: %d ms，吞吐量: %,.0f 个/秒%n",
+                elapsed / 1000000, eventCount * 1e9 / elapsed);
+    }
+
+    static void translate(PipelineEvent event, long sequence, long raw) {
+        event.raw = raw;
+    }
+}
+
+/**
+ * 流水线中流转的事件，所有字段都会被复用
+ */
+class PipelineEvent {
+    long raw;
+    long parsed;
+    long enrichedA;
+    long enrichedB;
+}
+
+/**
+ * 持久化阶段：累计校验和，并利用endOfBatch统计批次（真实场景中可在此批量刷盘）
+ */
+class PersistHandler implements EventPipeline.EventHandler<PipelineEvent> {
+    long count;
+    long batches;
+    long checksum;
+
+    @Override
+    public void onEvent(PipelineEvent event, long sequence, boolean endOfBatch) {
+        checksum += event.enrichedA + event.enrichedB;
+        count++;
+        if (endOfBatch) {
+            batches++;
+        }
+    }
+}
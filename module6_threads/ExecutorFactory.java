@@ -0,0 +1,233 @@
+/**
+ * 模块六：多线程&并发编程
+ * 可配置的线程池工厂
+ *
+ * ConcurrentTools中的任务大多在Thread.sleep()上阻塞，这正是阻塞I/O型负载：
+ * 平台线程（每个线程对应一个操作系统线程）在几千个并发任务时就会耗尽，
+ * 而虚拟线程（JDK 21+）在阻塞时会让出底层载体线程，可以轻松支撑数十万个并发任务。
+ *
+ * 支持的模式（系统属性 executor.mode）：
+ * - fixed：固定大小线程池（executor.threads，默认3）
+ * - cached：按需创建线程的缓存线程池
+ * - virtual：每个任务一个虚拟线程
+ * - virtual-bounded：每个任务一个虚拟线程，但最多executor.maxConcurrency个任务同时执行
+ *
+ * 本目录的代码按JDK 8编写，虚拟线程相关API通过反射调用。在低于JDK 21的环境中，
+ * 通过系统属性选择虚拟线程模式时打印警告并退回平台线程池，直接调用create()则抛出UnsupportedOperationException。
+ */
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+class ExecutorFactory {
+    enum Mode {
+        FIXED("fixed"),
+        CACHED("cached"),
+        VIRTUAL("virtual"),
+        VIRTUAL_BOUNDED("virtual-bounded");
+
+        private final String configName;
+
+        Mode(String configName) {
+            this.configName = configName;
+        }
+
+        static Mode parse(String text) {
+            for (Mode mode : values()) {
+                if (mode.configName.equalsIgnoreCase(text) || mode.name().equalsIgnoreCase(text)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("未知的线程池模式: " + text
+                    + "，可选值: fixed, cached, virtual, virtual-bounded");
+        }
+
+        @Override
+        public String toString() {
+            return configName;
+        }
+    }
+
+    /**
+     * 按系统属性创建线程池，没有配置时使用defaultMode和defaultThreads；
+     * 配置了虚拟线程模式但JVM不支持时，打印警告并使用平台线程池
+     */
+    static ExecutorService fromSystemProperties(Mode defaultMode, int defaultThreads) {
+        Mode configured = configuredMode(defaultMode);
+        Mode mode = effectiveMode(defaultMode);
+        if (mode != configured) {
+            System.err.println("警告: 当前JDK(" + System.getProperty("java.version") + ")不支持虚拟线程，"
+                    + "executor.mode=" + configured + " 改为使用 " + mode);
+        }
+        int threads = Integer.getInteger("executor.threads", defaultThreads);
+        int maxConcurrency = Integer.getInteger("executor.maxConcurrency", 1000);
+        return create(mode, mode == Mode.VIRTUAL_BOUNDED ? maxConcurrency : threads);
+    }
+
+    /**
+     * 读取系统属性executor.mode，没有配置时返回defaultMode
+     */
+    static Mode configuredMode(Mode defaultMode) {
+        String configured = System.getProperty("executor.mode");
+        return configured == null ? defaultMode : Mode.parse(configured);
+    }
+
+    /**
+     * 实际使用的模式：不支持虚拟线程时，虚拟线程模式退回defaultMode（defaultMode本身是虚拟线程模式时退回FIXED）
+     */
+    static Mode effectiveMode(Mode defaultMode) {
+        Mode mode = configuredMode(defaultMode);
+        if (isVirtual(mode) && !isVirtualThreadSupported()) {
+            return isVirtual(defaultMode) ? Mode.FIXED : defaultMode;
+        }
+        return mode;
+    }
+
+    private static boolean isVirtual(Mode mode) {
+        return mode == Mode.VIRTUAL || mode == Mode.VIRTUAL_BOUNDED;
+    }
+
+    /**
+     * @param size FIXED模式下为线程数，VIRTUAL_BOUNDED模式下为最大并发任务数，其余模式忽略
+     */
+    static ExecutorService create(Mode mode, int size) {
+        switch (mode) {
+            case FIXED:
+                return Executors.newFixedThreadPool(size);
+            case CACHED:
+                return Executors.newCachedThreadPool();
+            case VIRTUAL:
+                return newVirtualThreadPerTaskExecutor();
+            case VIRTUAL_BOUNDED:
+                return new BoundedExecutorService(newVirtualThreadPerTaskExecutor(), size);
+            default:
+                throw new IllegalArgumentException("未知的线程池模式: " + mode);
+        }
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // 通过反射调用JDK 21的Executors.newVirtualThreadPerTaskExecutor()
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("虚拟线程需要JDK 21及以上版本，当前版本: "
+                    + System.getProperty("java.version"), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+
+    /**
+     * 限制并发数的执行器包装
+     *
+     * 每个任务仍然立即拿到自己的（虚拟）线程，但在真正执行前要先获取信号量许可，
+     * 因此同时执行的任务最多maxConcurrency个。对虚拟线程来说，
+     * 在信号量上阻塞几乎没有成本，这比用固定大小的池来限流更合适。
+     */
+    static final class BoundedExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final int maxConcurrency;
+
+        BoundedExecutorService(ExecutorService delegate, int maxConcurrency) {
+            if (maxConcurrency <= 0) {
+                throw new IllegalArgumentException("maxConcurrency必须大于0: " + maxConcurrency);
+            }
+            this.delegate = delegate;
+            this.maxConcurrency = maxConcurrency;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (command == null) {
+                throw new NullPointerException();
+            }
+            delegate.execute(new PermitTask(command));
+        }
+
+        /**
+         * 先获取许可再执行的任务包装
+         */
+        private final class PermitTask implements Runnable {
+            private final Runnable task;
+
+            PermitTask(Runnable task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+        int maxConcurrency() {
+            return maxConcurrency;
+        }
+
+        // 当前正在执行（已拿到许可）的任务数
+        int activeCount() {
+            return maxConcurrency - permits.availablePermits();
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        // 返回从未开始执行的原始任务，而不是内部的包装
+        @Override
+        public List<Runnable> shutdownNow() {
+            List<Runnable> pending = delegate.shutdownNow();
+            List<Runnable> tasks = new ArrayList<>(pending.size());
+            for (Runnable runnable : pending) {
+                tasks.add(runnable instanceof PermitTask ? ((PermitTask) runnable).task : runnable);
+            }
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
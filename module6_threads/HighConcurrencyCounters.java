@@ -0,0 +1,86 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例5：高并发计数器
+ *
+ * 本示例展示了在大量线程同时自增同一个计数器时，
+ * 如何通过分段（striping）、缓存行填充、线程本地累加以及
+ * 允许有界误差的"松散"计数来避免synchronized和Lock带来的竞争。
+ *
+ * 编译运行（依赖同目录下各个计数器类）：
+ *   javac *.java
+ *   java HighConcurrencyCounters
+ */
+import java.util.concurrent.CountDownLatch;
+
+public class HighConcurrencyCounters {
+    public static void main(String[] args) {
+        System.out.println("===== 高并发计数器示例 =====");
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        long expected = (long) threads * perThread;
+
+        System.out.println("线程数: " + threads + "，每个线程自增次数: " + perThread);
+        System.out.println("预期值应为: " + expected);
+
+        // 所有计数器都实现Counter接口，使用同一段负载代码进行比较
+        Counter[] counters = {
+                new UnsafeCounter(),
+                new SynchronizedCounter(),
+                new LockCounter(),
+                new PaddedStripedCounter(),
+                new ThreadLocalCounter(),
+                new SloppyCounter(1024)
+        };
+
+        for (Counter counter : counters) {
+            long start = System.nanoTime();
+            runWorkload(counter, threads, perThread);
+            long elapsed = System.nanoTime() - start;
+
+            double opsPerSec = expected * 1e9 / elapsed;
+            System.out.printf("%-22s 最终值: %-10d 耗时: %6d ms  吞吐量: %,.0f ops/s%n",
+                    counter.getClass().getSimpleName(), counter.getCount(),
+                    elapsed / 1000000, opsPerSec);
+        }
+
+        System.out.println("\n注意：UnsafeCounter的结果通常小于预期值；"
+                + "SloppyCounter在工作线程退出前未刷新的部分不会计入，误差上界为 线程数 × (阈值-1)");
+    }
+
+    /**
+     * 启动threads个线程，每个线程对counter自增perThread次，等待全部完成后返回
+     */
+    static void runWorkload(Counter counter, int threads, int perThread) {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    startSignal.await();  // 所有线程同时开始，制造最大竞争
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    counter.increment();
+                }
+                if (counter instanceof SloppyCounter) {
+                    ((SloppyCounter) counter).flush();  // 线程退出前把本地余量刷新到全局
+                }
+            });
+            workers[t].start();
+        }
+
+        startSignal.countDown();
+
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * 模块六：多线程&并发编程
+ * 带运行指标的线程池装饰器
+ *
+ * 包装任意ExecutorService，在不修改任务代码的前提下统计：
+ * - 排队深度：已提交但尚未开始执行的任务数（及峰值）
+ * - 排队时间：从提交到开始执行的耗时直方图
+ * - 执行时间：任务本身运行的耗时直方图
+ * - 正在执行的任务数（即忙碌线程数，及峰值）
+ * - 提交、完成、失败、拒绝的任务数
+ *
+ * 指标可以通过snapshot()随时拉取，也可以用SnapshotDumper定期打印。
+ * 计数使用LongAdder，直方图记录不分配对象，每个任务只额外包装一个Runnable。
+ */
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+class InstrumentedExecutorService extends AbstractExecutorService {
+    private final String name;
+    private final ExecutorService delegate;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong peakQueueDepth = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicLong peakActive = new AtomicLong();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    InstrumentedExecutorService(String name, ExecutorService delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    String name() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        submitted.increment();
+        updatePeak(peakQueueDepth, queueDepth.incrementAndGet());
+        try {
+            delegate.execute(new InstrumentedTask(command, System.nanoTime()));
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 记录排队和执行耗时的任务包装
+     */
+    private final class InstrumentedTask implements Runnable {
+        private final Runnable task;
+        private final long enqueuedAt;
+
+        InstrumentedTask(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            queueDepth.decrementAndGet();
+            updatePeak(peakActive, active.incrementAndGet());
+            waitTime.record(startedAt - enqueuedAt);
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            } finally {
+                runTime.record(System.nanoTime() - startedAt);
+                active.decrementAndGet();
+                if (success) {
+                    completed.increment();
+                } else {
+                    failed.increment();
+                }
+            }
+        }
+    }
+
+    private static void updatePeak(AtomicLong peak, long value) {
+        long current;
+        while (value > (current = peak.get())) {
+            if (peak.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 拉取当前指标快照
+     */
+    Snapshot snapshot() {
+        return new Snapshot(name, submitted.sum(), completed.sum(), failed.sum(), rejected.sum(),
+                queueDepth.get(), peakQueueDepth.get(), active.get(), peakActive.get(),
+                waitTime.snapshot(), runTime.snapshot());
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    /**
+     * 返回从未开始执行的原始任务（而不是内部的包装），这些任务不再计入排队深度
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = delegate.shutdownNow();
+        List<Runnable> tasks = new ArrayList<>(pending.size());
+        for (Runnable runnable : pending) {
+            if (runnable instanceof InstrumentedTask) {
+                queueDepth.decrementAndGet();
+                tasks.add(((InstrumentedTask) runnable).task);
+            } else {
+                tasks.add(runnable);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 线程池指标快照（不可变）
+     */
+    static final class Snapshot {
+        final String name;
+        final long submitted;
+        final long completed;
+        final long failed;
+        final long rejected;
+        final long queueDepth;
+        final long peakQueueDepth;
+        final long active;
+        final long peakActive;
+        final LatencyHistogram.Snapshot waitTime;
+        final LatencyHistogram.Snapshot runTime;
+
+        Snapshot(String name, long submitted, long completed, long failed, long rejected,
+                 long queueDepth, long peakQueueDepth, long active, long peakActive,
+                 LatencyHistogram.Snapshot waitTime, LatencyHistogram.Snapshot runTime) {
+            this.name = name;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.queueDepth = queueDepth;
+            this.peakQueueDepth = peakQueueDepth;
+            this.active = active;
+            this.peakActive = peakActive;
+            this.waitTime = waitTime;
+            this.runTime = runTime;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + name + "] 提交=" + submitted + " 完成=" + completed + " 失败=" + failed
+                    + " 拒绝=" + rejected + " 排队=" + queueDepth + "(峰值" + peakQueueDepth + ")"
+                    + " 执行中=" + active + "(峰值" + peakActive + ")"
+                    + "\n    排队时间: " + waitTime
+                    + "\n    执行时间: " + runTime;
+        }
+    }
+
+    /**
+     * 定期打印已注册线程池指标快照的后台任务
+     */
+    static final class SnapshotDumper implements AutoCloseable {
+        private final List<InstrumentedExecutorService> executors = new CopyOnWriteArrayList<>();
+        private final PrintStream out;
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dumper");
+            thread.setDaemon(true);  // 不阻止JVM退出
+            return thread;
+        });
+
+        SnapshotDumper(PrintStream out) {
+            this.out = out;
+        }
+
+        SnapshotDumper register(InstrumentedExecutorService executor) {
+            executors.add(executor);
+            return this;
+        }
+
+        SnapshotDumper start(long period, TimeUnit unit) {
+            timer.scheduleAtFixedRate(this::dump, period, period, unit);
+            return this;
+        }
+
+        void dump() {
+            for (InstrumentedExecutorService executor : executors) {
+                out.println(executor.snapshot());
+            }
+        }
+
+        @Override
+        public void close() {
+            timer.shutdownNow();
+        }
+    }
+}
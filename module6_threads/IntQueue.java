@@ -0,0 +1,15 @@
+/**
+ * 模块六：多线程&并发编程
+ * 阻塞式int队列接口
+ * 
+ * 生产者消费者示例只依赖put(int)/get()两个方法，
+ * 基于wait/notifyAll的Buffer和无锁的IntRingBuffer都实现该接口，
+ * 因此同一段生产者消费者代码可以运行在任意一种缓冲区上。
+ */
+interface IntQueue {
+    // 放入数据，缓冲区已满时阻塞等待
+    void put(int data) throws InterruptedException;
+    
+    // 取出数据，缓冲区为空时阻塞等待
+    int get() throws InterruptedException;
+}
@@ -0,0 +1,236 @@
+/**
+ * 模块六：多线程&并发编程
+ * 无锁有界环形缓冲区（int专用）
+ *
+ * 与基于LinkedList<Integer>和wait/notifyAll的Buffer相比：
+ * - 容量固定且为2的幂，数组在构造时一次性分配，下标用位运算计算
+ * - 直接存放int，不会为每个元素装箱成Integer
+ * - 读写通过CAS或单写者的lazySet完成，不需要获取监视器锁
+ * - 队列满/空时由WaitStrategy决定如何等待，不会唤醒所有等待线程
+ *
+ * 根据生产者和消费者的数量选择实现：
+ * - spsc：单生产者单消费者，只需要两个序号，开销最低
+ * - mpsc：多生产者单消费者，生产者用CAS抢占槽位
+ * - mpmc：多生产者多消费者，生产者和消费者都用CAS
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+
+abstract class IntRingBuffer implements IntQueue {
+    // tryGet()在缓冲区为空时的返回值，合法的int值都不会等于它
+    static final long EMPTY = Long.MIN_VALUE;
+
+    protected final int capacity;
+    protected final int mask;
+    protected final int[] elements;
+    protected final WaitStrategy waitStrategy;
+
+    protected IntRingBuffer(int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity <= 0 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("容量必须在1到2^30之间: " + requestedCapacity);
+        }
+        // 向上取整为2的幂
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new int[capacity];
+        this.waitStrategy = waitStrategy;
+    }
+
+    static IntRingBuffer spsc(int capacity, WaitStrategy waitStrategy) {
+        return new Spsc(capacity, waitStrategy);
+    }
+
+    static IntRingBuffer mpsc(int capacity, WaitStrategy waitStrategy) {
+        return new Mpsc(capacity, waitStrategy);
+    }
+
+    static IntRingBuffer mpmc(int capacity, WaitStrategy waitStrategy) {
+        return new Mpmc(capacity, waitStrategy);
+    }
+
+    /**
+     * 尝试放入数据，缓冲区已满时立即返回false
+     */
+    abstract boolean offer(int data);
+
+    /**
+     * 尝试取出数据，缓冲区为空时立即返回EMPTY
+     */
+    abstract long tryGet();
+
+    /**
+     * 当前元素个数（并发修改时只是近似值）
+     */
+    abstract int size();
+
+    int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void put(int data) throws InterruptedException {
+        int counter = 0;
+        while (!offer(data)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            counter = waitStrategy.idle(counter);
+        }
+    }
+
+    @Override
+    public int get() throws InterruptedException {
+        int counter = 0;
+        long value;
+        while ((value = tryGet()) == EMPTY) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            counter = waitStrategy.idle(counter);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 单生产者单消费者
+     *
+     * tail只由生产者写、head只由消费者写，双方各自缓存对方的序号，
+     * 只有在缓存值显示"满"或"空"时才去读取对方的volatile序号。
+     */
+    static final class Spsc extends IntRingBuffer {
+        private final PaddedAtomicLong head = new PaddedAtomicLong();
+        private final PaddedAtomicLong tail = new PaddedAtomicLong();
+        // 生产者缓存的head，消费者缓存的tail（只由各自线程访问）
+        private long cachedHead;
+        private long cachedTail;
+
+        Spsc(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+        }
+
+        @Override
+        boolean offer(int data) {
+            long currentTail = tail.get();
+            if (currentTail - cachedHead >= capacity) {
+                cachedHead = head.get();
+                if (currentTail - cachedHead >= capacity) {
+                    return false;
+                }
+            }
+            elements[(int) currentTail & mask] = data;
+            tail.lazySet(currentTail + 1);  // 先写数据再发布序号
+            return true;
+        }
+
+        @Override
+        long tryGet() {
+            long currentHead = head.get();
+            if (currentHead >= cachedTail) {
+                cachedTail = tail.get();
+                if (currentHead >= cachedTail) {
+                    return EMPTY;
+                }
+            }
+            int data = elements[(int) currentHead & mask];
+            head.lazySet(currentHead + 1);
+            return data;
+        }
+
+        @Override
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+    }
+
+    /**
+     * 多生产者的公共部分：每个槽位带一个序号（Dmitry Vyukov的有界队列算法）
+     *
+     * 槽位i的序号等于pos表示可写入第pos个元素，等于pos+1表示第pos个元素已写入可读取。
+     * 生产者CAS推进tail抢到槽位后写入数据，再更新槽位序号发布数据。
+     */
+    abstract static class Sequenced extends IntRingBuffer {
+        protected final AtomicLongArray sequences;
+        protected final PaddedAtomicLong head = new PaddedAtomicLong();
+        protected final PaddedAtomicLong tail = new PaddedAtomicLong();
+
+        Sequenced(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+            this.sequences = new AtomicLongArray(this.capacity);
+            for (int i = 0; i < this.capacity; i++) {
+                sequences.lazySet(i, i);
+            }
+        }
+
+        @Override
+        boolean offer(int data) {
+            while (true) {
+                long pos = tail.get();
+                int index = (int) pos & mask;
+                long diff = sequences.get(index) - pos;
+                if (diff == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        elements[index] = data;
+                        sequences.lazySet(index, pos + 1);
+                        return true;
+                    }
+                } else if (diff < 0) {
+                    return false;  // 槽位还没被消费，缓冲区已满
+                }
+                // diff > 0：其他生产者已抢到该位置，重读tail重试
+            }
+        }
+
+        @Override
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+    }
+
+    /**
+     * 多生产者单消费者：消费者独占head，不需要CAS
+     */
+    static final class Mpsc extends Sequenced {
+        Mpsc(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+        }
+
+        @Override
+        long tryGet() {
+            long pos = head.get();
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                return EMPTY;  // 生产者尚未发布该位置
+            }
+            int data = elements[index];
+            sequences.lazySet(index, pos + capacity);  // 槽位留给下一圈的生产者
+            head.lazySet(pos + 1);
+            return data;
+        }
+    }
+
+    /**
+     * 多生产者多消费者：消费者也需要CAS推进head
+     */
+    static final class Mpmc extends Sequenced {
+        Mpmc(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+        }
+
+        @Override
+        long tryGet() {
+            while (true) {
+                long pos = head.get();
+                int index = (int) pos & mask;
+                long diff = sequences.get(index) - (pos + 1);
+                if (diff == 0) {
+                    if (head.compareAndSet(pos, pos + 1)) {
+                        int data = elements[index];
+                        sequences.lazySet(index, pos + capacity);
+                        return data;
+                    }
+                } else if (diff < 0) {
+                    return EMPTY;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * 模块六：多线程&并发编程
+ * 线程安全的对数线性延迟直方图（HdrHistogram的简化版）
+ *
+ * 每个2的幂区间 [2^e, 2^(e+1)) 再等分成32个子桶，
+ * 因此无论数值大小，记录误差都不超过约3%，而全部桶只占用不到2000个long。
+ * 记录时只有几次原子操作且不分配对象，适合放在热路径上。
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class LatencyHistogram {
+    // 每个2的幂区间的子桶数 = 2^SUB_BUCKET_BITS
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * 记录一个非负数值（通常为纳秒），负数按0处理
+     */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        totalSum.addAndGet(value);
+        long currentMax;
+        while (value > (currentMax = maxValue.get())) {
+            if (maxValue.compareAndSet(currentMax, value)) {
+                break;
+            }
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);  // 取值范围 [SUB_BUCKET_COUNT, 2*SUB_BUCKET_COUNT)
+        return (shift + 1) * SUB_BUCKET_COUNT + (mantissa - SUB_BUCKET_COUNT);
+    }
+
+    // 桶中数值的上界
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long mantissa = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        long upper = ((mantissa + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;  // 最高的桶会溢出
+    }
+
+    /**
+     * 生成当前数据的快照（并发记录时各统计量之间可能有极小的不一致）
+     */
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long max = maxValue.get();
+        return new Snapshot(count,
+                count == 0 ? 0 : (double) totalSum.get() / count,
+                percentile(copy, count, 0.50, max),
+                percentile(copy, count, 0.90, max),
+                percentile(copy, count, 0.99, max),
+                percentile(copy, count, 0.999, max),
+                max);
+    }
+
+    private static long percentile(long[] buckets, long count, double p, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 直方图快照（不可变）
+     */
+    static final class Snapshot {
+        final long count;
+        final double mean;
+        final long p50;
+        final long p90;
+        final long p99;
+        final long p999;
+        final long max;
+
+        Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        // 以微秒为单位输出（记录值为纳秒）
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                    count, mean / 1000, p50 / 1000.0, p90 / 1000.0, p99 / 1000.0, p999 / 1000.0, max / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * 模块六：多线程&并发编程
+ * 使用Lock接口的线程安全计数器类
+ */
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+class LockCounter implements Counter {
+    private int count = 0;
+    private Lock lock = new ReentrantLock();
+    
+    @Override
+    public void increment() {
+        lock.lock();  // 获取锁
+        try {
+            count++;
+        } finally {
+            lock.unlock();  // 在finally块中释放锁
+        }
+    }
+    
+    @Override
+    public int getCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
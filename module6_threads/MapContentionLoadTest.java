@@ -0,0 +1,86 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例13：ConcurrentHashMap热点键竞争负载测试
+ *
+ * ConcurrentTools中3个线程各写5个不同的键，完全没有竞争。
+ * 本示例按Zipf分布回放倾斜的键访问，在不同线程数下比较三种计数方式：
+ * - ConcurrentHashMap.merge(key, 1L, Long::sum)：每次更新都装箱，并在桶上加锁
+ * - ConcurrentHashMap<K, LongAdder>：更新不加锁，但每个键占用的内存较多
+ * - ContentionTrackingMap：每个键一个long单元格做CAS，同时统计每个键的冲突次数
+ * 每种倾斜度测试结束后，打印ContentionTrackingMap统计出的冲突最多的键。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java MapContentionLoadTest [预热毫秒] [测量毫秒] [线程数列表] [键数量] [Zipf指数列表]
+ * 例如：
+ *   java MapContentionLoadTest 200 500 1,2,4,8,16 10000 0,0.99,1.2
+ */
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MapContentionLoadTest {
+    private static final int TOP_N = 5;
+
+    public static void main(String[] args) {
+        long warmupMillis = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        long measureMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int[] threadCounts = MicroBenchmark.parseIntList(args.length > 2 ? args[2] : "1,2,4,8,16");
+        int keyCount = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        String[] exponents = (args.length > 4 ? args[4] : "0,0.99,1.2").split(",");
+
+        // 预先生成所有键，避免在热路径上拼接字符串
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key-" + i;
+        }
+
+        System.out.println("===== ConcurrentHashMap热点键竞争负载测试 =====");
+        System.out.println("键数量: " + keyCount + "，预热: " + warmupMillis + " ms，测量: " + measureMillis + " ms");
+
+        for (String text : exponents) {
+            double exponent = Double.parseDouble(text.trim());
+            ZipfianGenerator zipf = new ZipfianGenerator(keyCount, exponent, true, 42);
+            System.out.printf("%n===== Zipf指数: %s（最热的键占%.1f%%的访问） =====%n",
+                    text.trim(), zipf.probability(0) * 100);
+            System.out.println(MicroBenchmark.Result.header());
+
+            ContentionTrackingMap<String> tracked = null;
+            int trackedThreads = 0;
+            for (int threads : threadCounts) {
+                ConcurrentHashMap<String, Long> boxed = new ConcurrentHashMap<>(keyCount);
+                System.out.println(MicroBenchmark.measure("CHM.merge[s=" + text.trim() + "]",
+                        threads, warmupMillis, measureMillis,
+                        (threadIndex, iteration) -> boxed.merge(keys[zipf.next()], 1L, Long::sum)));
+
+                ConcurrentHashMap<String, LongAdder> adders = new ConcurrentHashMap<>(keyCount);
+                System.out.println(MicroBenchmark.measure("CHM<LongAdder>[s=" + text.trim() + "]",
+                        threads, warmupMillis, measureMillis,
+                        (threadIndex, iteration) -> {
+                            String key = keys[zipf.next()];
+                            LongAdder adder = adders.get(key);
+                            if (adder == null) {
+                                adder = adders.computeIfAbsent(key, k -> new LongAdder());
+                            }
+                            adder.increment();
+                            return 0;
+                        }));
+
+                ContentionTrackingMap<String> map = new ContentionTrackingMap<>(keyCount);
+                System.out.println(MicroBenchmark.measure("ContentionTrackingMap[s=" + text.trim() + "]",
+                        threads, warmupMillis, measureMillis,
+                        (threadIndex, iteration) -> map.incrementAndGet(keys[zipf.next()])));
+                if (threads >= trackedThreads) {
+                    tracked = map;
+                    trackedThreads = threads;
+                }
+            }
+
+            if (tracked != null) {
+                System.out.println("\n" + trackedThreads + "个线程时冲突最多的键：");
+                for (ContentionTrackingMap.KeyStats stats : tracked.hottestKeys(TOP_N)) {
+                    System.out.println("  " + stats);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * 模块六：多线程&并发编程
+ * 微基准测试工具
+ *
+ * 一个简化版的JMH风格测试框架：多个线程在同一时刻开始，
+ * 先预热再测量，统计吞吐量（ops/s）以及采样得到的延迟分位数（p50/p99）。
+ * 为了不让计时本身拖慢被测操作，每64次操作只采样一次延迟。
+ *
+ * 模块六中的各个Benchmark类都基于该工具实现。
+ */
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+class MicroBenchmark {
+    // 每隔多少次操作采样一次延迟（必须是2的幂）
+    private static final int SAMPLE_INTERVAL = 64;
+
+    // 每个线程最多保留的延迟样本数，超出后循环覆盖
+    private static final int MAX_SAMPLES_PER_THREAD = 1 << 16;
+
+    private static final int PHASE_WARMUP = 0;
+    private static final int PHASE_MEASURE = 1;
+    private static final int PHASE_STOP = 2;
+
+    // 防止JIT把没有使用结果的操作优化掉
+    static volatile long blackhole;
+
+    /**
+     * 被测操作，每次调用执行一次操作并返回任意结果（结果会被"吃掉"防止死代码消除）
+     */
+    interface Operation {
+        long run(int threadIndex, long iteration) throws Exception;
+    }
+
+    /**
+     * 一次测量的结果
+     */
+    static class Result {
+        final String name;
+        final int threads;
+        final long operations;
+        final long elapsedNanos;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long maxNanos;
+
+        Result(String name, int threads, long operations, long elapsedNanos,
+               long p50Nanos, long p99Nanos, long maxNanos) {
+            this.name = name;
+            this.threads = threads;
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        double opsPerSecond() {
+            return operations * 1e9 / elapsedNanos;
+        }
+
+        static String header() {
+            return String.format("%-40s %7s %16s %10s %10s %10s",
+                    "Benchmark", "Threads", "ops/s", "p50(ns)", "p99(ns)", "max(ns)");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %7d %,16.0f %10d %10d %10d",
+                    name, threads, opsPerSecond(), p50Nanos, p99Nanos, maxNanos);
+        }
+    }
+
+    /**
+     * 用threads个线程执行operation：先预热warmupMillis毫秒，再测量measureMillis毫秒
+     */
+    static Result measure(String name, int threads, long warmupMillis, long measureMillis,
+                          Operation operation) {
+        final long[] opCounts = new long[threads];
+        final long[][] samples = new long[threads][];
+        final int[] sampleCounts = new int[threads];
+        final Object failureLock = new Object();
+        final Throwable[] failure = new Throwable[1];
+
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        final Phase sharedPhase = new Phase();
+
+        for (int t = 0; t < threads; t++) {
+            final int threadIndex = t;
+            workers[t] = new Thread(() -> {
+                long[] threadSamples = new long[MAX_SAMPLES_PER_THREAD];
+                int sampleCount = 0;
+                long iteration = 0;
+                long ops = 0;
+                long sink = 0;
+                try {
+                    ready.countDown();
+                    start.await();
+
+                    // 预热阶段：让JIT完成编译，结果不计入统计
+                    while (sharedPhase.value == PHASE_WARMUP) {
+                        sink ^= operation.run(threadIndex, iteration++);
+                    }
+
+                    // 测量阶段
+                    while (sharedPhase.value == PHASE_MEASURE) {
+                        if ((ops & (SAMPLE_INTERVAL - 1)) == 0) {
+                            long begin = System.nanoTime();
+                            sink ^= operation.run(threadIndex, iteration++);
+                            threadSamples[sampleCount++ & (MAX_SAMPLES_PER_THREAD - 1)] =
+                                    System.nanoTime() - begin;
+                        } else {
+                            sink ^= operation.run(threadIndex, iteration++);
+                        }
+                        ops++;
+                    }
+                } catch (Throwable e) {
+                    synchronized (failureLock) {
+                        if (failure[0] == null) {
+                            failure[0] = e;
+                        }
+                    }
+                }
+                opCounts[threadIndex] = ops;
+                samples[threadIndex] = threadSamples;
+                sampleCounts[threadIndex] = Math.min(sampleCount, MAX_SAMPLES_PER_THREAD);
+                blackhole = sink;
+            }, name + "-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+
+        long elapsed;
+        try {
+            ready.await();
+            start.countDown();
+            Thread.sleep(warmupMillis);
+
+            long begin = System.nanoTime();
+            sharedPhase.value = PHASE_MEASURE;
+            Thread.sleep(measureMillis);
+            sharedPhase.value = PHASE_STOP;
+            elapsed = System.nanoTime() - begin;
+
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("基准测试被中断: " + name, e);
+        }
+
+        synchronized (failureLock) {
+            if (failure[0] != null) {
+                throw new IllegalStateException("基准测试执行失败: " + name, failure[0]);
+            }
+        }
+
+        long totalOps = 0;
+        int totalSamples = 0;
+        for (int t = 0; t < threads; t++) {
+            totalOps += opCounts[t];
+            totalSamples += sampleCounts[t];
+        }
+
+        // 合并所有线程的延迟样本并计算分位数
+        long[] merged = new long[totalSamples];
+        int pos = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(samples[t], 0, merged, pos, sampleCounts[t]);
+            pos += sampleCounts[t];
+        }
+        Arrays.sort(merged);
+
+        return new Result(name, threads, totalOps, elapsed,
+                percentile(merged, 0.50), percentile(merged, 0.99),
+                merged.length == 0 ? 0 : merged[merged.length - 1]);
+    }
+
+    // 已排序数组的分位数
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // 解析形如"1,2,4,8"的整数列表参数
+    static int[] parseIntList(String text) {
+        String[] parts = text.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * 所有工作线程共享的阶段标志
+     */
+    private static final class Phase {
+        volatile int value = PHASE_WARMUP;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * 模块六：多线程&并发编程
+ * 缓存行填充的原子long
+ * 
+ * 多个频繁写入的变量如果落在同一个缓存行（通常64字节）上，
+ * 一个CPU核心的写入会使其他核心的缓存行失效，这就是"伪共享"。
+ * 这里利用类继承保证字段布局：父类的填充字段一定排在子类字段之前，
+ * 因此value前后各有56字节的填充，独占一个缓存行。
+ */
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+class PaddedAtomicLong extends PaddedAtomicLongValue {
+    // 右侧填充，防止后面分配的对象与value共享缓存行
+    protected long p9, p10, p11, p12, p13, p14, p15;
+    
+    private static final AtomicLongFieldUpdater<PaddedAtomicLongValue> UPDATER =
+            AtomicLongFieldUpdater.newUpdater(PaddedAtomicLongValue.class, "value");
+    
+    public PaddedAtomicLong() {
+    }
+    
+    public PaddedAtomicLong(long initialValue) {
+        this.value = initialValue;
+    }
+    
+    public long get() {
+        return value;
+    }
+    
+    public void set(long newValue) {
+        value = newValue;
+    }
+    
+    // 延迟写入（store-store屏障），单写者场景下比volatile写更廉价
+    public void lazySet(long newValue) {
+        UPDATER.lazySet(this, newValue);
+    }
+    
+    public boolean compareAndSet(long expect, long update) {
+        return UPDATER.compareAndSet(this, expect, update);
+    }
+    
+    public long getAndAdd(long delta) {
+        return UPDATER.getAndAdd(this, delta);
+    }
+    
+    public long addAndGet(long delta) {
+        return UPDATER.addAndGet(this, delta);
+    }
+    
+    public long incrementAndGet() {
+        return UPDATER.incrementAndGet(this);
+    }
+    
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
+
+/**
+ * 左侧填充
+ */
+class PaddedAtomicLongLhs {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ * 实际存放的值
+ */
+class PaddedAtomicLongValue extends PaddedAtomicLongLhs {
+    protected volatile long value;
+}
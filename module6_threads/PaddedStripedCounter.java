@@ -0,0 +1,75 @@
+/**
+ * 模块六：多线程&并发编程
+ * 缓存行填充的分段计数器（类似LongAdder）
+ *
+ * 每个线程根据探针值选择一个槽位进行CAS自增，不同槽位之间间隔128字节，
+ * 避免伪共享（128字节同时覆盖了相邻缓存行预取的情况）。
+ * CAS失败说明该槽位有竞争，线程会重新选择槽位，使竞争逐渐分散。
+ * getCount()/sum()需要累加所有槽位，适合"写多读少"的场景。
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class PaddedStripedCounter implements Counter {
+    // 槽位间隔：16个long = 128字节
+    private static final int PAD = 16;
+
+    // 每个线程的探针值，决定线程落在哪个槽位
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> {
+        int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return new int[] { h == 0 ? 1 : h };
+    });
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public PaddedStripedCounter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PaddedStripedCounter(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes必须大于0: " + stripes);
+        }
+        // 槽位数向上取整为2的幂，用位运算代替取模
+        int n = Integer.highestOneBit(stripes - 1) << 1;
+        if (n <= 0) {
+            n = 1;
+        }
+        this.mask = n - 1;
+        // 第0个槽位之前也留出填充，避免与数组头共享缓存行
+        this.cells = new AtomicLongArray((n + 1) * PAD);
+    }
+
+    @Override
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        int[] probe = PROBE.get();
+        int index = ((probe[0] & mask) + 1) * PAD;
+        long current = cells.get(index);
+        if (!cells.compareAndSet(index, current, current + delta)) {
+            // 发生竞争：用xorshift换一个槽位，下次尽量避开
+            int h = probe[0];
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            probe[0] = h;
+            cells.getAndAdd(index, delta);
+        }
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get((i + 1) * PAD);
+        }
+        return sum;
+    }
+
+    @Override
+    public int getCount() {
+        return (int) sum();
+    }
+}
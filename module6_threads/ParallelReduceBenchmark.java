@@ -0,0 +1,108 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例11：并行归约基准测试
+ *
+ * 比较三种对大数组求和的方式：
+ * - 顺序for循环
+ * - LongStream.parallel().sum()
+ * - ParallelReducer（可指定ForkJoinPool的并行度）
+ * 在不同并行度下测量耗时和相对顺序循环的加速比。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java -Xmx2g ParallelReduceBenchmark [数组长度] [并行度列表]
+ */
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class ParallelReduceBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+
+    // 防止JIT把结果未被使用的计算优化掉
+    static volatile long blackhole;
+
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 50000000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] parallelisms = args.length > 1 ? MicroBenchmark.parseIntList(args[1]) : defaultParallelisms(cores);
+
+        System.out.println("===== 并行归约基准测试 =====");
+        System.out.println("数组长度: " + length + "，CPU核心数: " + cores);
+
+        long[] longs = new long[length];
+        int[] ints = new int[length];
+        for (int i = 0; i < length; i++) {
+            longs[i] = i;
+            ints[i] = i;
+        }
+
+        System.out.println("\n===== long[] 求和 =====");
+        double sequential = time("顺序for循环", () -> {
+            long sum = 0;
+            for (long value : longs) {
+                sum += value;
+            }
+            return sum;
+        }, 0);
+        time("LongStream.parallel()", () -> LongStream.of(longs).parallel().sum(), sequential);
+        for (int parallelism : parallelisms) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            ParallelReducer reducer = new ParallelReducer(pool);
+            time("ParallelReducer(并行度=" + parallelism + ")", () -> reducer.sum(longs), sequential);
+            pool.shutdown();
+        }
+
+        System.out.println("\n===== int[] 求和 =====");
+        sequential = time("顺序for循环", () -> {
+            long sum = 0;
+            for (int value : ints) {
+                sum += value;
+            }
+            return sum;
+        }, 0);
+        time("IntStream.parallel()", () -> IntStream.of(ints).parallel().asLongStream().sum(), sequential);
+        ParallelReducer commonReducer = new ParallelReducer();
+        time("ParallelReducer(公共池)", () -> commonReducer.sum(ints), sequential);
+        time("ParallelReducer自定义运算(max)", () -> commonReducer.reduce(ints, Integer.MIN_VALUE, Math::max), sequential);
+    }
+
+    static int[] defaultParallelisms(int cores) {
+        int[] values = new int[32];
+        int count = 0;
+        for (int p = 1; p < cores; p <<= 1) {
+            values[count++] = p;
+        }
+        values[count++] = cores;
+        return Arrays.copyOf(values, count);
+    }
+
+    interface Job {
+        long run();
+    }
+
+    /**
+     * 预热后多次测量取平均耗时，baselineMillis大于0时同时打印加速比
+     */
+    static double time(String name, Job job, double baselineMillis) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            blackhole = job.run();
+        }
+        long result = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            result = job.run();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURE_ROUNDS;
+        blackhole = result;
+
+        if (baselineMillis > 0) {
+            System.out.printf("%-34s %8.2f ms  加速比: %5.2fx  结果: %d%n", name, millis, baselineMillis / millis, result);
+        } else {
+            System.out.printf("%-34s %8.2f ms  %15s 结果: %d%n", name, millis, "", result);
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ * 模块六：多线程&并发编程
+ * 基于ForkJoin工作窃取的并行归约引擎
+ *
+ * 把数组递归地一分为二，左半部分fork给其他线程窃取，右半部分由当前线程继续处理，
+ * 直到区间足够小再顺序计算，最后逐层合并结果。
+ *
+ * 拆分阈值是自适应的：
+ * - 叶子区间大小 = max(minChunk, 数组长度 / (并行度 × 8))，保证每个线程大约有8个任务可供窃取
+ * - 如果当前线程的任务队列里已经积压了足够多未被窃取的任务，说明其他线程都很忙，
+ *   继续拆分只会增加开销，此时直接顺序计算（getSurplusQueuedTaskCount启发式）
+ *
+ * 用户提供的运算符必须满足结合律（如加法、乘法、最小值、最大值），identity为该运算的单位元。
+ * 注意：浮点加法在数学上满足结合律，但由于舍入误差，并行结果与顺序结果可能在最后几位有差异。
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+class ParallelReducer {
+    // 默认的最小叶子区间，太小的任务调度开销会超过计算本身
+    static final int DEFAULT_MIN_CHUNK = 1 << 13;
+
+    // 本线程积压的任务数超过该值时停止拆分
+    private static final int SURPLUS_LIMIT = 3;
+
+    private final ForkJoinPool pool;
+    private final int minChunk;
+
+    ParallelReducer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MIN_CHUNK);
+    }
+
+    ParallelReducer(ForkJoinPool pool) {
+        this(pool, DEFAULT_MIN_CHUNK);
+    }
+
+    ParallelReducer(ForkJoinPool pool, int minChunk) {
+        if (minChunk <= 0) {
+            throw new IllegalArgumentException("minChunk必须大于0: " + minChunk);
+        }
+        this.pool = pool;
+        this.minChunk = minChunk;
+    }
+
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    // 根据数组长度和并行度计算叶子区间大小
+    int threshold(int length) {
+        return Math.max(minChunk, length / (pool.getParallelism() << 3));
+    }
+
+    // ===== int[] =====
+
+    /**
+     * int数组求和，结果用long保存，避免溢出
+     */
+    long sum(int[] array) {
+        return invoke(new IntSumTask(array, 0, array.length, threshold(array.length)));
+    }
+
+    int reduce(int[] array, int identity, IntBinaryOperator op) {
+        return (int) invoke(new IntReduceTask(array, 0, array.length, threshold(array.length), identity, op));
+    }
+
+    int min(int[] array) {
+        return reduce(array, Integer.MAX_VALUE, Math::min);
+    }
+
+    int max(int[] array) {
+        return reduce(array, Integer.MIN_VALUE, Math::max);
+    }
+
+    // ===== long[] =====
+
+    long sum(long[] array) {
+        return invoke(new LongSumTask(array, 0, array.length, threshold(array.length)));
+    }
+
+    long reduce(long[] array, long identity, LongBinaryOperator op) {
+        return invoke(new LongReduceTask(array, 0, array.length, threshold(array.length), identity, op));
+    }
+
+    long min(long[] array) {
+        return reduce(array, Long.MAX_VALUE, Math::min);
+    }
+
+    long max(long[] array) {
+        return reduce(array, Long.MIN_VALUE, Math::max);
+    }
+
+    // ===== double[] =====
+
+    double sum(double[] array) {
+        DoubleSumTask task = new DoubleSumTask(array, 0, array.length, threshold(array.length));
+        pool.invoke(task);
+        return task.result;
+    }
+
+    double reduce(double[] array, double identity, DoubleBinaryOperator op) {
+        DoubleReduceTask task = new DoubleReduceTask(array, 0, array.length, threshold(array.length), identity, op);
+        pool.invoke(task);
+        return task.result;
+    }
+
+    double min(double[] array) {
+        return reduce(array, Double.POSITIVE_INFINITY, Math::min);
+    }
+
+    double max(double[] array) {
+        return reduce(array, Double.NEGATIVE_INFINITY, Math::max);
+    }
+
+    private long invoke(LongResultTask task) {
+        pool.invoke(task);
+        return task.result;
+    }
+
+    /**
+     * 结果为long的归约任务骨架：结果保存在字段中，避免RecursiveTask<Long>的装箱
+     */
+    abstract static class LongResultTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int lo;
+        final int hi;
+        final int threshold;
+        long result;
+
+        LongResultTask(int lo, int hi, int threshold) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+        }
+
+        abstract long leaf(int from, int to);
+
+        abstract LongResultTask child(int from, int to);
+
+        abstract long combine(long left, long right);
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold || getSurplusQueuedTaskCount() > SURPLUS_LIMIT) {
+                result = leaf(lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            LongResultTask left = child(lo, mid);
+            LongResultTask right = child(mid, hi);
+            left.fork();        // 左半部分交给其他线程窃取
+            right.compute();    // 右半部分由当前线程直接计算
+            left.join();
+            result = combine(left.result, right.result);
+        }
+    }
+
+    /**
+     * 结果为double的归约任务骨架
+     */
+    abstract static class DoubleResultTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int lo;
+        final int hi;
+        final int threshold;
+        double result;
+
+        DoubleResultTask(int lo, int hi, int threshold) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+        }
+
+        abstract double leaf(int from, int to);
+
+        abstract DoubleResultTask child(int from, int to);
+
+        abstract double combine(double left, double right);
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold || getSurplusQueuedTaskCount() > SURPLUS_LIMIT) {
+                result = leaf(lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            DoubleResultTask left = child(lo, mid);
+            DoubleResultTask right = child(mid, hi);
+            left.fork();
+            right.compute();
+            left.join();
+            result = combine(left.result, right.result);
+        }
+    }
+
+    // 求和单独实现，叶子循环中没有接口调用，JIT可以充分展开和向量化
+    static final class IntSumTask extends LongResultTask {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] array;
+
+        IntSumTask(int[] array, int lo, int hi, int threshold) {
+            super(lo, hi, threshold);
+            this.array = array;
+        }
+
+        @Override
+        long leaf(int from, int to) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += array[i];
+            }
+            return sum;
+        }
+
+        @Override
+        LongResultTask child(int from, int to) {
+            return new IntSumTask(array, from, to, threshold);
+        }
+
+        @Override
+        long combine(long left, long right) {
+            return left + right;
+        }
+    }
+
+    static final class IntReduceTask extends LongResultTask {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] array;
+        private final int identity;
+        private final IntBinaryOperator op;
+
+        IntReduceTask(int[] array, int lo, int hi, int threshold, int identity, IntBinaryOperator op) {
+            super(lo, hi, threshold);
+            this.array = array;
+            this.identity = identity;
+            this.op = op;
+        }
+
+        @Override
+        long leaf(int from, int to) {
+            int acc = identity;
+            for (int i = from; i < to; i++) {
+                acc = op.applyAsInt(acc, array[i]);
+            }
+            return acc;
+        }
+
+        @Override
+        LongResultTask child(int from, int to) {
+            return new IntReduceTask(array, from, to, threshold, identity, op);
+        }
+
+        @Override
+        long combine(long left, long right) {
+            return op.applyAsInt((int) left, (int) right);
+        }
+    }
+
+    static final class LongSumTask extends LongResultTask {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] array;
+
+        LongSumTask(long[] array, int lo, int hi, int threshold) {
+            super(lo, hi, threshold);
+            this.array = array;
+        }
+
+        @Override
+        long leaf(int from, int to) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += array[i];
+            }
+            return sum;
+        }
+
+        @Override
+        LongResultTask child(int from, int to) {
+            return new LongSumTask(array, from, to, threshold);
+        }
+
+        @Override
+        long combine(long left, long right) {
+            return left + right;
+        }
+    }
+
+    static final class LongReduceTask extends LongResultTask {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] array;
+        private final long identity;
+        private final LongBinaryOperator op;
+
+        LongReduceTask(long[] array, int lo, int hi, int threshold, long identity, LongBinaryOperator op) {
+            super(lo, hi, threshold);
+            this.array = array;
+            this.identity = identity;
+            this.op = op;
+        }
+
+        @Override
+        long leaf(int from, int to) {
+            long acc = identity;
+            for (int i = from; i < to; i++) {
+                acc = op.applyAsLong(acc, array[i]);
+            }
+            return acc;
+        }
+
+        @Override
+        LongResultTask child(int from, int to) {
+            return new LongReduceTask(array, from, to, threshold, identity, op);
+        }
+
+        @Override
+        long combine(long left, long right) {
+            return op.applyAsLong(left, right);
+        }
+    }
+
+    static final class DoubleSumTask extends DoubleResultTask {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] array;
+
+        DoubleSumTask(double[] array, int lo, int hi, int threshold) {
+            super(lo, hi, threshold);
+            this.array = array;
+        }
+
+        @Override
+        double leaf(int from, int to) {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += array[i];
+            }
+            return sum;
+        }
+
+        @Override
+        DoubleResultTask child(int from, int to) {
+            return new DoubleSumTask(array, from, to, threshold);
+        }
+
+        @Override
+        double combine(double left, double right) {
+            return left + right;
+        }
+    }
+
+    static final class DoubleReduceTask extends DoubleResultTask {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] array;
+        private final double identity;
+        private final DoubleBinaryOperator op;
+
+        DoubleReduceTask(double[] array, int lo, int hi, int threshold, double identity, DoubleBinaryOperator op) {
+            super(lo, hi, threshold);
+            this.array = array;
+            this.identity = identity;
+            this.op = op;
+        }
+
+        @Override
+        double leaf(int from, int to) {
+            double acc = identity;
+            for (int i = from; i < to; i++) {
+                acc = op.applyAsDouble(acc, array[i]);
+            }
+            return acc;
+        }
+
+        @Override
+        DoubleResultTask child(int from, int to) {
+            return new DoubleReduceTask(array, from, to, threshold, identity, op);
+        }
+
+        @Override
+        double combine(double left, double right) {
+            return op.applyAsDouble(left, right);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/**
+ * 模块六：多线程&并发编程
+ * 基于持久化向量（结构共享）的并发列表
+ *
+ * 元素保存在一棵32叉的不可变字典树中（与Clojure的PersistentVector相同的结构），
+ * 最后不足32个的元素单独放在尾部数组里：
+ * - 追加元素通常只复制长度不超过32的尾部数组；尾部满32个时，把它挂到树上，
+ *   只复制从根到该叶子路径上的log32(n)个节点，其余节点新旧版本共享
+ * - set()同样只复制一条路径
+ * - 每次修改都生成新的不可变版本，通过volatile引用发布，读操作和遍历不加锁
+ * 中间位置的插入和删除无法共享结构，需要重建整个向量（O(n)），
+ * 适合以追加为主、很少删除的注册表场景。
+ *
+ * @param <E> 元素类型
+ */
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+class PersistentVectorList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Vector root = Vector.EMPTY;
+
+    /**
+     * 不可变的向量版本
+     */
+    static final class Vector {
+        static final Vector EMPTY = new Vector(0, BITS, new Object[WIDTH], new Object[0]);
+
+        final int size;
+        final int shift;        // 根节点所在层的位移，每层5位
+        final Object[] tree;    // 内部节点为Object[32]，叶子节点存放元素
+        final Object[] tail;
+
+        Vector(int size, int shift, Object[] tree, Object[] tail) {
+            this.size = size;
+            this.shift = shift;
+            this.tree = tree;
+            this.tail = tail;
+        }
+
+        // 尾部数组第一个元素的下标
+        int tailOffset() {
+            return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+        }
+
+        // 返回包含下标index的叶子数组
+        Object[] leafFor(int index) {
+            if (index >= tailOffset()) {
+                return tail;
+            }
+            Object[] node = tree;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Object[]) node[(index >>> level) & MASK];
+            }
+            return node;
+        }
+
+        Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return leafFor(index)[index & MASK];
+        }
+
+        Vector append(Object element) {
+            // 尾部未满：只复制尾部
+            if (size - tailOffset() < WIDTH) {
+                Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+                newTail[tail.length] = element;
+                return new Vector(size + 1, shift, tree, newTail);
+            }
+            // 尾部已满：挂到树上，再开始一个新的尾部
+            Object[] newTree;
+            int newShift = shift;
+            if ((size >>> BITS) > (1 << shift)) {
+                // 根节点已满，树增加一层
+                newTree = new Object[WIDTH];
+                newTree[0] = tree;
+                newTree[1] = newPath(shift, tail);
+                newShift += BITS;
+            } else {
+                newTree = pushTail(shift, tree, tail);
+            }
+            return new Vector(size + 1, newShift, newTree, new Object[]{element});
+        }
+
+        private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+            int subIndex = ((size - 1) >>> level) & MASK;
+            Object[] copy = parent.clone();
+            if (level == BITS) {
+                copy[subIndex] = leaf;
+            } else {
+                Object[] child = (Object[]) parent[subIndex];
+                copy[subIndex] = child != null
+                        ? pushTail(level - BITS, child, leaf)
+                        : newPath(level - BITS, leaf);
+            }
+            return copy;
+        }
+
+        private static Object[] newPath(int level, Object[] leaf) {
+            if (level == 0) {
+                return leaf;
+            }
+            Object[] node = new Object[WIDTH];
+            node[0] = newPath(level - BITS, leaf);
+            return node;
+        }
+
+        Vector set(int index, Object element) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            if (index >= tailOffset()) {
+                Object[] newTail = tail.clone();
+                newTail[index & MASK] = element;
+                return new Vector(size, shift, tree, newTail);
+            }
+            return new Vector(size, shift, assoc(shift, tree, index, element), tail);
+        }
+
+        private static Object[] assoc(int level, Object[] node, int index, Object element) {
+            Object[] copy = node.clone();
+            if (level == 0) {
+                copy[index & MASK] = element;
+            } else {
+                int subIndex = (index >>> level) & MASK;
+                copy[subIndex] = assoc(level - BITS, (Object[]) node[subIndex], index, element);
+            }
+            return copy;
+        }
+
+        Object[] toArray() {
+            Object[] result = new Object[size];
+            for (int base = 0; base < size; base += WIDTH) {
+                Object[] leaf = leafFor(base);
+                System.arraycopy(leaf, 0, result, base, Math.min(WIDTH, size - base));
+            }
+            return result;
+        }
+
+        static Vector of(Object[] elements, int length) {
+            Vector vector = EMPTY;
+            for (int i = 0; i < length; i++) {
+                vector = vector.append(elements[i]);
+            }
+            return vector;
+        }
+    }
+
+    PersistentVectorList() {
+    }
+
+    PersistentVectorList(Collection<? extends E> initial) {
+        Object[] elements = initial.toArray();
+        root = Vector.of(elements, elements.length);
+    }
+
+    // ===== 读操作：不加锁 =====
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) root.get(index);
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * 遍历创建迭代器时的版本，按叶子数组顺序读取，不会抛出ConcurrentModificationException
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new VectorIterator<>(root);
+    }
+
+    /**
+     * 按叶子数组逐段遍历，比迭代器少一层间接调用
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        Vector vector = root;
+        for (int base = 0; base < vector.size; base += WIDTH) {
+            Object[] leaf = vector.leafFor(base);
+            int end = Math.min(WIDTH, vector.size - base);
+            for (int i = 0; i < end; i++) {
+                action.accept((E) leaf[i]);
+            }
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        return root.toArray();
+    }
+
+    // ===== 写操作：串行执行，每次发布一个新版本 =====
+
+    @Override
+    public boolean add(E element) {
+        writeLock.lock();
+        try {
+            root = root.append(element);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 整批追加，只发布一次新版本
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        Object[] added = elements.toArray();
+        if (added.length == 0) {
+            return false;
+        }
+        writeLock.lock();
+        try {
+            Vector vector = root;
+            for (Object element : added) {
+                vector = vector.append(element);
+            }
+            root = vector;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        writeLock.lock();
+        try {
+            Vector current = root;
+            E old = (E) current.get(index);
+            root = current.set(index, element);
+            return old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // 以下操作需要重建向量
+
+    @Override
+    public void add(int index, E element) {
+        writeLock.lock();
+        try {
+            Vector current = root;
+            if (index < 0 || index > current.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size);
+            }
+            if (index == current.size) {
+                root = current.append(element);
+                return;
+            }
+            Object[] elements = current.toArray();
+            Object[] next = new Object[elements.length + 1];
+            System.arraycopy(elements, 0, next, 0, index);
+            next[index] = element;
+            System.arraycopy(elements, index, next, index + 1, elements.length - index);
+            root = Vector.of(next, next.length);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        writeLock.lock();
+        try {
+            Vector current = root;
+            E old = (E) current.get(index);
+            root = without(current, index);
+            return old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        writeLock.lock();
+        try {
+            Vector current = root;
+            for (int i = 0; i < current.size; i++) {
+                Object element = current.get(i);
+                if (o == null ? element == null : o.equals(element)) {
+                    root = without(current, i);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            root = Vector.EMPTY;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Vector without(Vector current, int index) {
+        Object[] elements = current.toArray();
+        System.arraycopy(elements, index + 1, elements, index, elements.length - index - 1);
+        return Vector.of(elements, elements.length - 1);
+    }
+
+    /**
+     * 基于某个版本的只读迭代器，每32个元素才查找一次叶子
+     */
+    static final class VectorIterator<E> implements Iterator<E> {
+        private final Vector vector;
+        private Object[] leaf;
+        private int index;
+
+        VectorIterator(Vector vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < vector.size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (index >= vector.size) {
+                throw new NoSuchElementException();
+            }
+            if ((index & MASK) == 0) {
+                leaf = vector.leafFor(index);
+            }
+            return (E) leaf[index++ & MASK];
+        }
+    }
+}
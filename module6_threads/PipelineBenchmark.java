@@ -0,0 +1,136 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例9：流水线吞吐量基准测试
+ *
+ * 在相同的阶段数下比较三种多阶段流水线的吞吐量：
+ * - Buffer链：每两个阶段之间一个基于wait/notifyAll的Buffer
+ * - IntRingBuffer链：每两个阶段之间一个SPSC无锁环形缓冲区
+ * - EventPipeline：所有阶段共享一个预分配的事件环，只通过序号协调
+ * 每个阶段对数据做相同的计算，最终阶段累计校验和，三者结果必须一致。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java PipelineBenchmark [事件数量] [阶段数]
+ */
+public class PipelineBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int stages = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        System.out.println("===== 流水线吞吐量基准测试 =====");
+        System.out.println("事件数量: " + eventCount + "，阶段数: " + stages);
+
+        // 先各运行一次作为预热，再正式测量
+        for (int round = 0; round < 2; round++) {
+            boolean warmup = round == 0;
+            System.out.println(warmup ? "\n===== 预热 =====" : "\n===== 测量 =====");
+
+            IntQueue[] buffers = new IntQueue[stages];
+            for (int i = 0; i < stages; i++) {
+                buffers[i] = new Buffer(1024, false);
+            }
+            report("Buffer链(wait/notifyAll)", eventCount, runQueueChain(buffers, eventCount));
+
+            IntQueue[] rings = new IntQueue[stages];
+            for (int i = 0; i < stages; i++) {
+                rings[i] = IntRingBuffer.spsc(1024, WaitStrategy.yielding());
+            }
+            report("IntRingBuffer链(SPSC)", eventCount, runQueueChain(rings, eventCount));
+
+            report("EventPipeline", eventCount, runEventPipeline(stages, eventCount));
+        }
+    }
+
+    // 每个阶段执行的计算
+    static int stageWork(int value) {
+        return value * 31 + 7;
+    }
+
+    /**
+     * 生产者 -> queues[0] -> 阶段0 -> queues[1] -> 阶段1 -> ... -> 阶段n-1(累计校验和)
+     * 返回{耗时纳秒, 校验和}
+     */
+    static long[] runQueueChain(IntQueue[] queues, int eventCount) throws InterruptedException {
+        int stages = queues.length;
+        long[] checksum = new long[1];
+        Thread[] workers = new Thread[stages];
+
+        for (int s = 0; s < stages; s++) {
+            final IntQueue in = queues[s];
+            final IntQueue out = s + 1 < stages ? queues[s + 1] : null;
+            workers[s] = new Thread(() -> {
+                long sum = 0;
+                try {
+                    for (int i = 0; i < eventCount; i++) {
+                        int value = stageWork(in.get());
+                        if (out != null) {
+                            out.put(value);
+                        } else {
+                            sum += value;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                if (out == null) {
+                    checksum[0] = sum;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (int i = 1; i <= eventCount; i++) {
+            queues[0].put(i);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new long[] {System.nanoTime() - start, checksum[0]};
+    }
+
+    /**
+     * 相同计算在EventPipeline上的线性多阶段版本，返回{耗时纳秒, 校验和}
+     */
+    static long[] runEventPipeline(int stages, int eventCount) throws InterruptedException {
+        EventPipeline<IntEvent> pipeline = new EventPipeline<>(IntEvent::new, 1024, WaitStrategy.yielding());
+        long[] checksum = new long[1];
+
+        EventPipeline.EventHandler<IntEvent> work = (event, sequence, endOfBatch) -> event.value = stageWork(event.value);
+        EventPipeline.EventHandler<IntEvent> last = (event, sequence, endOfBatch) -> {
+            event.value = stageWork(event.value);
+            checksum[0] += event.value;
+        };
+
+        EventPipeline<IntEvent>.Stage stage = pipeline.handleEventsWith(stages == 1 ? last : work);
+        for (int s = 1; s < stages; s++) {
+            stage = stage.then(s == stages - 1 ? last : work);
+        }
+        pipeline.start();
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= eventCount; i++) {
+            pipeline.publishEvent(PipelineBenchmark::translate, i);
+        }
+        pipeline.shutdown();
+        return new long[] {System.nanoTime() - start, checksum[0]};
+    }
+
+    static void translate(IntEvent event, long sequence, long value) {
+        event.value = (int) value;
+    }
+
+    static void report(String name, int eventCount, long[] result) {
+        System.out.printf("%-28s 耗时: %6d ms  吞吐量: %,14.0f 个/秒  校验和: %d%n",
+                name, result[0] / 1000000, eventCount * 1e9 / result[0], result[1]);
+    }
+}
+
+/**
+ * 只携带一个int的可复用事件
+ */
+class IntEvent {
+    int value;
+}
@@ -0,0 +1,91 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例7：无锁环形缓冲区
+ *
+ * 本示例展示了IntRingBuffer的三种实现（SPSC、MPSC、MPMC）
+ * 配合三种等待策略（忙等待、让出CPU、休眠退避）的使用，
+ * 每种组合都传递相同数量的数据，并通过校验和确认没有数据丢失或重复。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java RingBufferExample [每个生产者的数据量]
+ */
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RingBufferExample {
+    public static void main(String[] args) {
+        System.out.println("===== 无锁环形缓冲区示例 =====");
+
+        int perProducer = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("CPU核心数: " + cores + "，每个生产者的数据量: " + perProducer);
+        if (cores < 4) {
+            System.out.println("注意：核心数少于线程数时，忙等待策略会明显变慢");
+        }
+
+        String[] strategyNames = {"busySpin", "yielding", "parking"};
+        WaitStrategy[] strategies = {WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.parking()};
+
+        for (int s = 0; s < strategies.length; s++) {
+            System.out.println("\n===== 等待策略: " + strategyNames[s] + " =====");
+            transfer("SPSC 1生产者/1消费者", IntRingBuffer.spsc(1024, strategies[s]), 1, 1, perProducer);
+            transfer("MPSC 2生产者/1消费者", IntRingBuffer.mpsc(1024, strategies[s]), 2, 1, perProducer);
+            transfer("MPMC 2生产者/2消费者", IntRingBuffer.mpmc(1024, strategies[s]), 2, 2, perProducer);
+        }
+    }
+
+    /**
+     * 用producers个生产者和consumers个消费者通过queue传递数据，并校验数据完整性
+     */
+    static void transfer(String name, IntQueue queue, int producers, int consumers, int perProducer) {
+        long total = (long) producers * perProducer;
+        AtomicLong consumedSum = new AtomicLong();
+        Thread[] threads = new Thread[producers + consumers];
+
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 1; i <= perProducer; i++) {
+                        queue.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+
+        for (int c = 0; c < consumers; c++) {
+            // 把总数尽量平均分给各个消费者
+            long share = total / consumers + (c < total % consumers ? 1 : 0);
+            threads[producers + c] = new Thread(() -> {
+                long sum = 0;
+                try {
+                    for (long i = 0; i < share; i++) {
+                        sum += queue.get();
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                consumedSum.addAndGet(sum);
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long expectedSum = (long) producers * perProducer * (perProducer + 1L) / 2;
+        System.out.printf("%-22s 耗时: %6d ms  吞吐量: %,14.0f 个/秒  校验: %s%n",
+                name, elapsed / 1000000, total * 1e9 / elapsed,
+                consumedSum.get() == expectedSum ? "通过" : "失败(" + consumedSum.get() + ")");
+    }
+}
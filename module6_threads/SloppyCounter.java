@@ -0,0 +1,62 @@
+/**
+ * 模块六：多线程&并发编程
+ * 近似（松散）计数器
+ *
+ * 每个线程先在本地累加，累计到threshold次才向全局计数器提交一次，
+ * 全局计数器上的竞争因此降低为原来的1/threshold。
+ * 代价是getCount()读到的值可能偏小：每个线程最多有threshold-1次尚未提交，
+ * 误差上界为 已注册线程数 × (threshold-1)，可通过maxError()查询。
+ * 线程在结束前应调用flush()提交本地余量。
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class SloppyCounter implements Counter {
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicInteger registeredThreads = new AtomicInteger();
+    private final int threshold;
+
+    private final ThreadLocal<long[]> local = ThreadLocal.withInitial(() -> {
+        registeredThreads.incrementAndGet();
+        return new long[1];
+    });
+
+    public SloppyCounter(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold必须大于0: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void increment() {
+        long[] pending = local.get();
+        if (++pending[0] >= threshold) {
+            global.addAndGet(pending[0]);
+            pending[0] = 0;
+        }
+    }
+
+    // 把当前线程尚未提交的计数刷新到全局计数器
+    public void flush() {
+        long[] pending = local.get();
+        if (pending[0] != 0) {
+            global.addAndGet(pending[0]);
+            pending[0] = 0;
+        }
+    }
+
+    // getCount()与真实值之间的最大误差
+    public long maxError() {
+        return (long) registeredThreads.get() * (threshold - 1);
+    }
+
+    public long sum() {
+        return global.get();
+    }
+
+    @Override
+    public int getCount() {
+        return (int) sum();
+    }
+}
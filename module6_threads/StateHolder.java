@@ -0,0 +1,253 @@
+/**
+ * 模块六：多线程&并发编程
+ * 读多写少的状态容器
+ *
+ * 状态由三个字段组成：更新次数count、累计值sum、最大值max，读操作必须看到三者一致的组合
+ * （例如不能看到count已经加1而sum还没加上）。LockCounter的读和写使用同一把互斥锁，
+ * 监控面板频繁轮询时，读线程之间也会互相阻塞。本接口提供四种实现：
+ * - exclusive：读写都使用ReentrantLock，与LockCounter相同，作为对照
+ * - readWrite：ReentrantReadWriteLock，读线程之间可以并行，但每次读仍要修改锁状态（共享计数）
+ * - stamped：StampedLock乐观读，读操作不写任何共享变量，只在读取前后校验版本号，失败时退化为读锁
+ * - seqLock：顺序锁，写线程在修改前后各把序号加1，读线程发现序号为奇数或前后不一致就重读
+ * 后两种实现的读操作不修改共享内存，读线程越多优势越明显；写操作较多时读线程重试也会增多。
+ *
+ * 所有实现同时实现Counter接口（increment()相当于update(1)），可以直接放进计数器基准测试。
+ */
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+interface StateHolder extends Counter {
+    /**
+     * 记录一次状态变化：count加1，sum加上value，max取较大值
+     */
+    void update(long value);
+
+    /**
+     * 一致地读取全部字段到out中：out[0]=count，out[1]=sum，out[2]=max
+     * 由调用方提供数组，读操作不分配对象
+     */
+    void read(long[] out);
+
+    @Override
+    default void increment() {
+        update(1);
+    }
+
+    static StateHolder exclusive() {
+        return new Exclusive();
+    }
+
+    static StateHolder readWrite() {
+        return new ReadWrite();
+    }
+
+    static StateHolder stamped() {
+        return new Stamped();
+    }
+
+    static StateHolder seqLock() {
+        return new SeqLock();
+    }
+
+    /**
+     * 读写共用一把互斥锁
+     */
+    final class Exclusive implements StateHolder {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long count;
+        private long sum;
+        private long max = Long.MIN_VALUE;
+
+        @Override
+        public void update(long value) {
+            lock.lock();
+            try {
+                count++;
+                sum += value;
+                max = Math.max(max, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void read(long[] out) {
+            lock.lock();
+            try {
+                out[0] = count;
+                out[1] = sum;
+                out[2] = max;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int getCount() {
+            lock.lock();
+            try {
+                return (int) count;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 读锁共享、写锁互斥
+     */
+    final class ReadWrite implements StateHolder {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long count;
+        private long sum;
+        private long max = Long.MIN_VALUE;
+
+        @Override
+        public void update(long value) {
+            lock.writeLock().lock();
+            try {
+                count++;
+                sum += value;
+                max = Math.max(max, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void read(long[] out) {
+            lock.readLock().lock();
+            try {
+                out[0] = count;
+                out[1] = sum;
+                out[2] = max;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int getCount() {
+            lock.readLock().lock();
+            try {
+                return (int) count;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * StampedLock乐观读
+     */
+    final class Stamped implements StateHolder {
+        private final StampedLock lock = new StampedLock();
+        private long count;
+        private long sum;
+        private long max = Long.MIN_VALUE;
+
+        @Override
+        public void update(long value) {
+            long stamp = lock.writeLock();
+            try {
+                count++;
+                sum += value;
+                max = Math.max(max, value);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void read(long[] out) {
+            long stamp = lock.tryOptimisticRead();
+            out[0] = count;
+            out[1] = sum;
+            out[2] = max;
+            if (!lock.validate(stamp)) {
+                // 读取期间有写操作，退化为读锁重新读取
+                stamp = lock.readLock();
+                try {
+                    out[0] = count;
+                    out[1] = sum;
+                    out[2] = max;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+        }
+
+        @Override
+        public int getCount() {
+            long stamp = lock.tryOptimisticRead();
+            long current = count;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    current = count;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return (int) current;
+        }
+    }
+
+    /**
+     * 顺序锁：序号为奇数表示正在写
+     *
+     * 数据字段也声明为volatile：读线程先读序号、再读数据、最后再读一次序号，
+     * 全部是volatile读，才能保证读到的数据不早于第一次、不晚于第二次读到的序号。
+     * 在x86上volatile读就是普通的读，代价只落在写操作上。
+     */
+    final class SeqLock implements StateHolder {
+        private static final AtomicLongFieldUpdater<SeqLock> SEQUENCE =
+                AtomicLongFieldUpdater.newUpdater(SeqLock.class, "sequence");
+
+        private final WaitStrategy waitStrategy = WaitStrategy.yielding();
+        private volatile long sequence;
+        private volatile long count;
+        private volatile long sum;
+        private volatile long max = Long.MIN_VALUE;
+
+        @Override
+        public void update(long value) {
+            // 写线程之间用CAS把序号从偶数改为奇数来互斥
+            long seq;
+            int idle = 0;
+            while (((seq = sequence) & 1) != 0 || !SEQUENCE.compareAndSet(this, seq, seq + 1)) {
+                idle = waitStrategy.idle(idle);
+            }
+            count = count + 1;
+            sum = sum + value;
+            if (value > max) {
+                max = value;
+            }
+            sequence = seq + 2;  // 写完成，序号恢复为偶数
+        }
+
+        @Override
+        public void read(long[] out) {
+            int idle = 0;
+            while (true) {
+                long before = sequence;
+                if ((before & 1) == 0) {
+                    out[0] = count;
+                    out[1] = sum;
+                    out[2] = max;
+                    if (sequence == before) {
+                        return;
+                    }
+                }
+                idle = waitStrategy.idle(idle);
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return (int) count;  // 单个volatile字段本身就是一致的
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例15：读多写少状态容器基准测试
+ *
+ * 在95/5和99/1的读写比例下，比较StateHolder四种实现随线程数增加的吞吐量。
+ * 每次写操作都记录同一个值3，因此任何一致的快照都满足 sum == 3 × count；
+ * 读线程每次都校验这个不变式，一旦读到不一致的组合（"撕裂读"）立即报错。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java StateHolderBenchmark [预热毫秒] [测量毫秒] [线程数列表] [读比例列表]
+ * 例如：
+ *   java StateHolderBenchmark 200 500 1,2,4,8,16 95,99
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class StateHolderBenchmark {
+    private static final long VALUE = 3;
+
+    public static void main(String[] args) {
+        long warmupMillis = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        long measureMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int[] threadCounts = MicroBenchmark.parseIntList(args.length > 2 ? args[2] : "1,2,4,8,16");
+        int[] readPercents = MicroBenchmark.parseIntList(args.length > 3 ? args[3] : "95,99");
+
+        System.out.println("===== 读多写少状态容器基准测试 =====");
+        System.out.println("预热: " + warmupMillis + " ms，测量: " + measureMillis + " ms");
+
+        Map<String, Supplier<StateHolder>> holders = new LinkedHashMap<>();
+        holders.put("Exclusive(ReentrantLock)", StateHolder::exclusive);
+        holders.put("ReadWrite(RRWLock)", StateHolder::readWrite);
+        holders.put("Stamped(optimistic)", StateHolder::stamped);
+        holders.put("SeqLock", StateHolder::seqLock);
+
+        for (int readPercent : readPercents) {
+            System.out.println("\n===== 读写比例: " + readPercent + "/" + (100 - readPercent) + " =====");
+            System.out.println(MicroBenchmark.Result.header());
+
+            for (Map.Entry<String, Supplier<StateHolder>> entry : holders.entrySet()) {
+                for (int threads : threadCounts) {
+                    StateHolder holder = entry.getValue().get();
+                    long[][] buffers = new long[threads][3];  // 每个线程自己的读缓冲区
+                    String name = entry.getKey() + "[" + readPercent + "/" + (100 - readPercent) + "]";
+                    System.out.println(MicroBenchmark.measure(name, threads, warmupMillis, measureMillis,
+                            (threadIndex, iteration) -> {
+                                if (iteration % 100 >= readPercent) {
+                                    holder.update(VALUE);
+                                    return 0;
+                                }
+                                long[] out = buffers[threadIndex];
+                                holder.read(out);
+                                if (out[1] != out[0] * VALUE) {
+                                    throw new IllegalStateException("读到不一致的状态: count=" + out[0]
+                                            + " sum=" + out[1]);
+                                }
+                                return out[0];
+                            }));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * 模块六：多线程&并发编程
+ * 使用synchronized方法的线程安全计数器类
+ */
+class SynchronizedCounter implements Counter {
+    private int count = 0;
+    
+    // 使用synchronized关键字修饰方法
+    @Override
+    public synchronized void increment() {
+        count++;
+    }
+    
+    @Override
+    public synchronized int getCount() {
+        return count;
+    }
+}
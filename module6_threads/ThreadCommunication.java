@@ -6,10 +6,9 @@
  * 包括wait/notify机制、生产者消费者模式，
  * 以及CountDownLatch和CyclicBarrier的使用。
  */
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 public class ThreadCommunication {
     public static void main(String[] args) {
@@ -70,43 +69,16 @@ public class ThreadCommunication {
         
         // 创建共享缓冲区
         Buffer buffer = new Buffer(5);  // 缓冲区容量为5
+        runProducerConsumer(buffer);
         
-        // 创建生产者线程
-        Thread producer = new Thread(() -> {
-            try {
-                for (int i = 1; i <= 10; i++) {
-                    buffer.put(i);
-                    System.out.println("生产者: 生产数据 " + i);
-                    Thread.sleep(500);
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        });
-        
-        // 创建消费者线程
-        Thread consumer = new Thread(() -> {
-            try {
-                for (int i = 1; i <= 10; i++) {
-                    int data = buffer.get();
-                    System.out.println("消费者: 消费数据 " + data);
-                    Thread.sleep(1000);
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        });
+        // 同样的生产者消费者代码运行在无锁环形缓冲区上
+        System.out.println("\n===== 生产者消费者模式（无锁环形缓冲区） =====");
+        IntRingBuffer ringBuffer = IntRingBuffer.spsc(8, WaitStrategy.parking());  // 容量需为2的幂
+        runProducerConsumer(ringBuffer);
         
-        // 启动线程
-        producer.start();
-        consumer.start();
-        
-        try {
-            producer.join();
-            consumer.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        // 批量生产与消费：一次获取锁处理一批数据
+        System.out.println("\n===== 批量生产者消费者模式 =====");
+        runBatchProducerConsumer(new Buffer(8));
         
         // 3. CountDownLatch
         System.out.println("\n===== CountDownLatch示例 =====");
@@ -165,50 +137,99 @@ public class ThreadCommunication {
             }).start();
         }
     }
-}
-
-/**
- * 线程安全的缓冲区，用于生产者消费者模式
- */
-class Buffer {
-    private Queue<Integer> queue = new LinkedList<>();
-    private int capacity;
-    
-    public Buffer(int capacity) {
-        this.capacity = capacity;
-    }
     
-    // 生产者调用，向缓冲区放入数据
-    public synchronized void put(int data) throws InterruptedException {
-        // 如果缓冲区已满，等待
-        while (queue.size() == capacity) {
-            System.out.println("缓冲区已满，生产者等待...");
-            wait();
-        }
+    /**
+     * 批量生产者消费者模式：生产者每次放入一批数据，
+     * 消费者用带超时的drainTo等待第一个数据，并在同一次加锁中取走缓冲区中已有的数据
+     */
+    static void runBatchProducerConsumer(Buffer buffer) {
+        final int total = 20;
+        
+        Thread producer = new Thread(() -> {
+            int[] batch = new int[5];
+            try {
+                for (int start = 1; start <= total; start += batch.length) {
+                    for (int i = 0; i < batch.length; i++) {
+                        batch[i] = start + i;
+                    }
+                    buffer.putAll(batch, 0, batch.length);
+                    System.out.println("生产者: 批量生产数据 " + start + " ~ " + (start + batch.length - 1));
+                    Thread.sleep(300);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
         
-        // 放入数据
-        queue.offer(data);
-        System.out.println("放入数据: " + data + "，当前缓冲区大小: " + queue.size());
+        Thread consumer = new Thread(() -> {
+            int[] batch = new int[8];
+            int received = 0;
+            try {
+                while (received < total) {
+                    // 一次加锁：等到第一个数据后，连同已到达的数据一起取走
+                    int count = buffer.drainTo(batch, batch.length, 1, TimeUnit.SECONDS);
+                    if (count == 0) {
+                        System.out.println("消费者: 等待超时，继续等待");
+                        continue;
+                    }
+                    received += count;
+                    System.out.println("消费者: 本批消费 " + count + " 个数据，累计 " + received);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
         
-        // 唤醒可能在等待的消费者
-        notifyAll();
+        producer.start();
+        consumer.start();
+        
+        try {
+            producer.join();
+            consumer.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
     }
     
-    // 消费者调用，从缓冲区获取数据
-    public synchronized int get() throws InterruptedException {
-        // 如果缓冲区为空，等待
-        while (queue.isEmpty()) {
-            System.out.println("缓冲区为空，消费者等待...");
-            wait();
-        }
+    /**
+     * 生产者消费者模式：一个生产者放入10个数据，一个消费者取出10个数据
+     */
+    static void runProducerConsumer(IntQueue buffer) {
+        // 创建生产者线程
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 1; i <= 10; i++) {
+                    buffer.put(i);
+                    System.out.println("生产者: 生产数据 " + i);
+                    Thread.sleep(500);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
         
-        // 获取数据
-        int data = queue.poll();
-        System.out.println("获取数据: " + data + "，当前缓冲区大小: " + queue.size());
+        // 创建消费者线程
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 1; i <= 10; i++) {
+                    int data = buffer.get();
+                    System.out.println("消费者: 消费数据 " + data);
+                    Thread.sleep(1000);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
         
-        // 唤醒可能在等待的生产者
-        notifyAll();
+        // 启动线程
+        producer.start();
+        consumer.start();
         
-        return data;
+        try {
+            producer.join();
+            consumer.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
     }
 }
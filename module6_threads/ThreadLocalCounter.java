@@ -0,0 +1,40 @@
+/**
+ * 模块六：多线程&并发编程
+ * 线程本地累加计数器
+ *
+ * 每个线程第一次自增时注册一个独占缓存行的槽位，之后只有该线程写入，
+ * 因此自增不需要CAS，只需一次lazySet；sum()遍历所有已注册的槽位。
+ * 线程结束后其槽位仍保留（计数不会丢失），适合线程数量有限且稳定的线程池场景。
+ */
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class ThreadLocalCounter implements Counter {
+    private final List<PaddedAtomicLong> cells = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<PaddedAtomicLong> localCell = ThreadLocal.withInitial(() -> {
+        PaddedAtomicLong cell = new PaddedAtomicLong();
+        cells.add(cell);  // 每个线程只注册一次
+        return cell;
+    });
+
+    @Override
+    public void increment() {
+        PaddedAtomicLong cell = localCell.get();
+        // 单写者：读-改-写无需原子性，lazySet保证其他线程最终可见
+        cell.lazySet(cell.get() + 1);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (PaddedAtomicLong cell : cells) {
+            sum += cell.get();
+        }
+        return sum;
+    }
+
+    @Override
+    public int getCount() {
+        return (int) sum();
+    }
+}
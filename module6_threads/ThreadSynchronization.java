@@ -4,10 +4,10 @@
  * 
  * 本示例展示了Java中线程同步的各种方式，
  * 包括synchronized关键字、Lock接口的使用，
- * 以及死锁的产生和避免。
+ * 以及死锁的产生、检测和避免。
  */
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class ThreadSynchronization {
     public static void main(String[] args) {
@@ -205,6 +205,9 @@ public class ThreadSynchronization {
             }
         });
         
+        // 启动死锁监控，每500毫秒检测一次，发现死锁时打印相关线程的栈
+        DeadlockWatchdog watchdog = new DeadlockWatchdog(System.out).start(500, TimeUnit.MILLISECONDS);
+        
         // 启动线程
         deadlockThread1.start();
         deadlockThread2.start();
@@ -216,6 +219,7 @@ public class ThreadSynchronization {
             e.printStackTrace();
         }
         
+        System.out.println("死锁监控发现的死锁数: " + watchdog.deadlocksDetected());
         System.out.println("注意：上面的线程可能已经进入死锁状态，程序不会自动退出");
         System.out.println("在实际应用中，应该避免这种情况的发生");
         
@@ -277,62 +281,41 @@ public class ThreadSynchronization {
         }
         
         System.out.println("安全线程执行完毕，没有发生死锁");
-    }
-}
-
-/**
- * 不安全的计数器类（没有同步机制）
- */
-class UnsafeCounter {
-    private int count = 0;
-    
-    public void increment() {
-        count++;  // 非原子操作
-    }
-    
-    public int getCount() {
-        return count;
-    }
-}
-
-/**
- * 使用synchronized方法的线程安全计数器类
- */
-class SynchronizedCounter {
-    private int count = 0;
-    
-    // 使用synchronized关键字修饰方法
-    public synchronized void increment() {
-        count++;
-    }
-    
-    public synchronized int getCount() {
-        return count;
-    }
-}
-
-/**
- * 使用Lock接口的线程安全计数器类
- */
-class LockCounter {
-    private int count = 0;
-    private Lock lock = new ReentrantLock();
-    
-    public void increment() {
-        lock.lock();  // 获取锁
+        
+        // 7. 提前发现锁顺序反转
+        System.out.println("\n===== 锁顺序检查 =====");
+        
+        // 两个线程先后以相反的顺序获取锁，由于没有同时运行所以这次没有死锁，
+        // 但TrackedLock记录了加锁顺序，会立即报告这个隐患
+        Lock accountA = watchdog.newLock("accountA");
+        Lock accountB = watchdog.newLock("accountB");
+        Thread transfer1 = new Thread(() -> transfer(accountA, accountB), "transfer-A-to-B");
+        Thread transfer2 = new Thread(() -> transfer(accountB, accountA), "transfer-B-to-A");
         try {
-            count++;
-        } finally {
-            lock.unlock();  // 在finally块中释放锁
+            transfer1.start();
+            transfer1.join();
+            transfer2.start();
+            transfer2.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+        
+        System.out.println("发现的锁顺序反转数: " + watchdog.inversionsDetected());
+        watchdog.close();
     }
     
-    public int getCount() {
-        lock.lock();
+    // 先锁住转出账户，再锁住转入账户
+    private static void transfer(Lock from, Lock to) {
+        from.lock();
         try {
-            return count;
+            to.lock();
+            try {
+                System.out.println(Thread.currentThread().getName() + ": 转账完成");
+            } finally {
+                to.unlock();
+            }
         } finally {
-            lock.unlock();
+            from.unlock();
         }
     }
 }
@@ -0,0 +1,114 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例12：定时器调度与取消基准测试
+ *
+ * 模拟"大量超时任务，大部分在到期前被取消"的场景：
+ * 分批调度共N个延迟1~60秒的任务，随后全部取消，分别统计调度和取消的吞吐量。
+ * 时间轮的cancel()只是把任务交给ticker线程，取消耗时一直计到ticker把它们全部从槽中摘除为止
+ * （其中包括最多一个tick的等待），与在调用线程中同步移除的ScheduledThreadPoolExecutor可比。
+ * 比较JDK的ScheduledThreadPoolExecutor（开启取消即移除，堆操作O(log n)）
+ * 与TimingWheelScheduler（O(1)）。
+ * 最后检查周期短于一个tick的固定速率任务能否每个tick都执行。
+ *
+ * 编译运行：
+ *   javac *.java
+ *   java -Xmx2g TimerBenchmark [总任务数] [每批任务数]
+ */
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class TimerBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+        System.out.println("===== 定时器调度与取消基准测试 =====");
+        System.out.println("总任务数: " + total + "，每批: " + batch);
+
+        // 预先生成延迟，避免把随机数生成算进耗时
+        long[] delays = new long[batch];
+        Random random = new Random(42);
+        for (int i = 0; i < batch; i++) {
+            delays[i] = 1000 + random.nextInt(59000);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "\n===== 预热 =====" : "\n===== 测量 =====");
+
+            ScheduledThreadPoolExecutor jdk = new ScheduledThreadPoolExecutor(1);
+            jdk.setRemoveOnCancelPolicy(true);  // 取消时立即从堆中移除，否则被取消的任务会一直占用内存直到到期
+            run("ScheduledThreadPoolExecutor", jdk, delays, round == 0 ? batch : total);
+            jdk.shutdownNow();
+
+            TimingWheelScheduler wheel = new TimingWheelScheduler(1, TimeUnit.MILLISECONDS);
+            run("TimingWheelScheduler", wheel, delays, round == 0 ? batch : total);
+            wheel.shutdownNow();
+        }
+
+        checkShortPeriod();
+    }
+
+    /**
+     * 周期短于一个tick的固定速率任务：每个tick应执行一次，而不是等时间轮转完一圈
+     */
+    static void checkShortPeriod() throws InterruptedException {
+        System.out.println("\n===== 周期短于tick的任务 =====");
+        TimingWheelScheduler wheel = new TimingWheelScheduler(10, TimeUnit.MILLISECONDS);
+        AtomicInteger runs = new AtomicInteger();
+        wheel.scheduleAtFixedRate(runs::incrementAndGet, 0, 2, TimeUnit.MILLISECONDS);
+        Thread.sleep(1000);
+        wheel.shutdownNow();
+        // 1秒约100个tick，每个tick最多执行一次；留出调度抖动的余量
+        System.out.println("tick=10ms，周期=2ms，1秒内执行: " + runs.get() + "次");
+        if (runs.get() < 50) {
+            throw new IllegalStateException("周期任务没有在下一个tick重新执行: " + runs.get() + "次");
+        }
+    }
+
+    static void run(String name, ScheduledExecutorService scheduler, long[] delays, int total) {
+        Runnable noop = () -> { };
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[delays.length];
+        long scheduleNanos = 0;
+        long cancelNanos = 0;
+        long removedBefore = scheduler instanceof TimingWheelScheduler
+                ? ((TimingWheelScheduler) scheduler).removedCancelledCount() : 0;
+
+        for (int done = 0; done < total; done += delays.length) {
+            int count = Math.min(delays.length, total - done);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                futures[i] = scheduler.schedule(noop, delays[i], TimeUnit.MILLISECONDS);
+            }
+            long scheduled = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                futures[i].cancel(false);
+                futures[i] = null;
+            }
+            if (scheduler instanceof TimingWheelScheduler) {
+                awaitRemoved((TimingWheelScheduler) scheduler, removedBefore + count);
+                removedBefore += count;
+            }
+            long cancelled = System.nanoTime();
+
+            scheduleNanos += scheduled - start;
+            cancelNanos += cancelled - scheduled;
+        }
+
+        System.out.printf("%-28s 调度: %,12.0f 个/秒 (%6d ms)  取消: %,12.0f 个/秒 (%6d ms)%n",
+                name, total * 1e9 / scheduleNanos, scheduleNanos / 1000000,
+                total * 1e9 / cancelNanos, cancelNanos / 1000000);
+    }
+
+    // 等待ticker线程处理完expected个取消请求
+    static void awaitRemoved(TimingWheelScheduler wheel, long expected) {
+        while (wheel.removedCancelledCount() < expected) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
@@ -0,0 +1,551 @@
+/**
+ * 模块六：多线程&并发编程
+ * 分层时间轮调度器
+ *
+ * ScheduledThreadPoolExecutor用堆（DelayedWorkQueue）保存任务，添加和取消都是O(log n)，
+ * 当有数百万个超时任务（且大部分最终会被取消）时，堆操作和锁竞争会成为瓶颈。
+ *
+ * 时间轮把时间划分成固定长度的刻度（tick），每一层是一个有wheelSize个槽的环：
+ * - 第0层每个槽代表1个tick，第1层每个槽代表wheelSize个tick，依此类推
+ * - 任务按到期时间直接放入对应层的对应槽（双向链表），添加和取消都是O(1)
+ * - 第0层转完一圈时，把上一层当前槽中的任务重新分配到更低的层（级联），类似Linux内核定时器
+ * 任务的触发精度为一个tick：周期短于一个tick的周期任务（或落后需要追赶的固定速率任务）每个tick最多执行一次。
+ *
+ * 线程模型：所有时间轮操作只由一个ticker线程执行；其他线程添加/取消任务时只是
+ * 把任务压入无锁栈，由ticker线程在下一个tick批量处理，因此调用方不需要加锁。
+ * 默认任务直接在ticker线程上执行（适合短小的超时回调），也可以指定执行任务的Executor。
+ */
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+class TimingWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+    private static final int TERMINATED = 3;
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int levels;
+    private final Bucket[][] wheels;
+    private final Executor taskExecutor;
+    private final long startNanos;
+
+    // 其他线程新提交/取消的任务，由ticker线程在每个tick开始时一次性取走。
+    // 这是以任务对象本身为节点的无锁栈，入栈不额外分配对象；
+    // 时间轮按到期时间放置任务，因此不需要保持提交顺序。
+    private final AtomicReference<WheelTask<?>> pendingTasks = new AtomicReference<>();
+    private final AtomicReference<WheelTask<?>> cancelledTasks = new AtomicReference<>();
+    // 已提交且尚未完成或取消的任务数
+    private final AtomicLong liveTasks = new AtomicLong();
+    // ticker线程已处理（从槽中摘除）的取消请求数，只由ticker线程写入
+    private volatile long removedCancelled;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private final Thread ticker;
+    private volatile int state = RUNNING;
+
+    // 当前tick（只由ticker线程访问）
+    private long currentTick;
+
+    /**
+     * 默认：每层256个槽、4层，任务在ticker线程上执行
+     */
+    TimingWheelScheduler(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, 256, 4, null);
+    }
+
+    /**
+     * @param wheelSize    每层的槽数，会向上取整为2的幂
+     * @param levels       层数，可覆盖的时间范围为 tick × wheelSize^levels，更远的任务会在最高层多转几圈
+     * @param taskExecutor 执行到期任务的执行器，为null时在ticker线程上直接执行
+     */
+    TimingWheelScheduler(long tickDuration, TimeUnit unit, int wheelSize, int levels, Executor taskExecutor) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration必须大于0: " + tickDuration);
+        }
+        if (wheelSize < 2 || wheelSize > (1 << 16)) {
+            throw new IllegalArgumentException("wheelSize必须在2到65536之间: " + wheelSize);
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        if (levels < 1 || (long) bits * levels > 62) {
+            throw new IllegalArgumentException("层数不合法: " + levels);
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheelBits = bits;
+        this.wheelMask = (1 << bits) - 1;
+        this.levels = levels;
+        this.taskExecutor = taskExecutor;
+        this.wheels = new Bucket[levels][1 << bits];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::runTicker, "timing-wheel-ticker");
+        this.ticker.start();
+    }
+
+    // ===== ScheduledExecutorService =====
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return enqueue(new WheelTask<Void>(command, null, triggerTime(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (callable == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return enqueue(new WheelTask<>(callable, triggerTime(delay, unit)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("period必须大于0: " + period);
+        }
+        return enqueue(new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay必须大于0: " + delay);
+        }
+        // 用负数周期表示"固定延迟"
+        return enqueue(new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    private long triggerTime(long delay, TimeUnit unit) {
+        return System.nanoTime() + unit.toNanos(Math.max(delay, 0));
+    }
+
+    private <V> WheelTask<V> enqueue(WheelTask<V> task) {
+        // 先计数再检查状态，保证关闭时ticker不会漏掉刚提交的任务
+        liveTasks.incrementAndGet();
+        if (state != RUNNING) {
+            liveTasks.decrementAndGet();
+            throw new RejectedExecutionException("调度器已关闭");
+        }
+        pushPending(task);
+        return task;
+    }
+
+    // ===== 生命周期 =====
+
+    /**
+     * 不再接受新任务；已提交的一次性任务仍会按时执行，周期任务被取消
+     */
+    @Override
+    public void shutdown() {
+        if (state == RUNNING) {
+            state = SHUTDOWN;
+        }
+    }
+
+    /**
+     * 立即停止，返回所有尚未执行的任务
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        if (state < STOP) {
+            state = STOP;
+        }
+        LockSupport.unpark(ticker);
+        if (Thread.currentThread() != ticker) {
+            try {
+                terminated.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Runnable> remaining = new ArrayList<>();
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                bucket.drainTo(remaining);
+            }
+        }
+        for (WheelTask<?> task = pendingTasks.getAndSet(null); task != null; task = task.nextPending) {
+            if (!task.isCancelled()) {
+                remaining.add(task);
+            }
+        }
+        return remaining;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return state == TERMINATED;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    // 尚未完成或取消的任务数
+    long pendingCount() {
+        return liveTasks.get();
+    }
+
+    // ticker线程已处理完的取消请求数：cancel()只是入栈，真正从槽中摘除发生在之后的tick中
+    long removedCancelledCount() {
+        return removedCancelled;
+    }
+
+    // ===== ticker线程 =====
+
+    private void runTicker() {
+        boolean periodicCancelled = false;
+        try {
+            while (state != STOP) {
+                waitForNextTick();
+                if (state == STOP) {
+                    break;
+                }
+                currentTick++;
+
+                removeCancelledTasks();
+                cascade();
+                transferPendingTasks();
+                expireCurrentSlot();
+
+                if (state == SHUTDOWN) {
+                    if (!periodicCancelled) {
+                        cancelPeriodicTasks();
+                        periodicCancelled = true;
+                    }
+                    if (liveTasks.get() == 0) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            state = TERMINATED;
+            terminated.countDown();
+        }
+    }
+
+    private void waitForNextTick() {
+        long deadline = startNanos + (currentTick + 1) * tickNanos;
+        long remaining;
+        // 处理落后时不睡眠，连续推进tick直到追上当前时间
+        while ((remaining = deadline - System.nanoTime()) > 0 && state != STOP) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void removeCancelledTasks() {
+        WheelTask<?> task = cancelledTasks.getAndSet(null);
+        long removed = 0;
+        while (task != null) {
+            WheelTask<?> next = task.nextCancelled;
+            task.nextCancelled = null;
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+            }
+            removed++;
+            task = next;
+        }
+        if (removed != 0) {
+            removedCancelled += removed;
+        }
+    }
+
+    private void transferPendingTasks() {
+        WheelTask<?> task = pendingTasks.getAndSet(null);
+        while (task != null) {
+            WheelTask<?> next = task.nextPending;
+            task.nextPending = null;
+            if (state != RUNNING && task.isPeriodic()) {
+                task.cancel(false);
+            } else if (!task.isCancelled()) {
+                place(task, currentTick);
+            }
+            task = next;
+        }
+    }
+
+    /**
+     * 把任务放入合适的层和槽：到期时间距今不足wheelSize^(k+1)个tick的放入第k层。
+     * 已过期的任务放入earliestTick：当前槽过期之前为currentTick，
+     * 过期过程中（当前槽已被取走）必须是currentTick + 1，否则任务要等时间轮转完一整圈
+     */
+    private void place(WheelTask<?> task, long earliestTick) {
+        long deadlineTick = Math.max(ticksFor(task.deadlineNanos), earliestTick);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((deadlineTick >>> (wheelBits * level)) & wheelMask);
+        task.deadlineTick = deadlineTick;
+        wheels[level][slot].add(task);
+    }
+
+    // 到期时间对应的tick（向上取整，保证不会提前触发）
+    private long ticksFor(long deadlineNanos) {
+        long elapsed = deadlineNanos - startNanos;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * 低层转完一圈时，把上一层当前槽中的任务重新分配到更低的层
+     */
+    private void cascade() {
+        for (int level = 1; level < levels; level++) {
+            long lowerBitsMask = (1L << (wheelBits * level)) - 1;
+            if ((currentTick & lowerBitsMask) != 0) {
+                break;
+            }
+            int slot = (int) ((currentTick >>> (wheelBits * level)) & wheelMask);
+            WheelTask<?> task = wheels[level][slot].takeAll();
+            while (task != null) {
+                WheelTask<?> next = task.next;
+                task.next = null;
+                task.prev = null;
+                place(task, currentTick);
+                task = next;
+            }
+        }
+    }
+
+    private void expireCurrentSlot() {
+        WheelTask<?> task = wheels[0][(int) (currentTick & wheelMask)].takeAll();
+        while (task != null) {
+            WheelTask<?> next = task.next;
+            task.next = null;
+            task.prev = null;
+            if (task.deadlineTick > currentTick) {
+                place(task, currentTick + 1);  // 来自最高层的超远任务，还没到期
+            } else if (!task.isCancelled()) {
+                if (taskExecutor == null) {
+                    task.run();
+                } else {
+                    try {
+                        taskExecutor.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        task.cancel(false);
+                    }
+                }
+            }
+            task = next;
+        }
+    }
+
+    private void cancelPeriodicTasks() {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                for (WheelTask<?> task = bucket.head; task != null; ) {
+                    WheelTask<?> next = task.next;
+                    if (task.isPeriodic()) {
+                        task.cancel(false);
+                        bucket.remove(task);
+                    }
+                    task = next;
+                }
+            }
+        }
+    }
+
+    // 周期任务执行完后重新放回时间轮
+    private void reschedule(WheelTask<?> task) {
+        if (state != RUNNING) {
+            task.cancel(false);
+        } else if (Thread.currentThread() == ticker) {
+            // 只在expireCurrentSlot中直接执行任务时发生，当前槽已被取走
+            place(task, currentTick + 1);
+        } else {
+            pushPending(task);
+        }
+    }
+
+    private void pushPending(WheelTask<?> task) {
+        WheelTask<?> top;
+        do {
+            top = pendingTasks.get();
+            task.nextPending = top;
+        } while (!pendingTasks.compareAndSet(top, task));
+    }
+
+    private void pushCancelled(WheelTask<?> task) {
+        WheelTask<?> top;
+        do {
+            top = cancelledTasks.get();
+            task.nextCancelled = top;
+        } while (!cancelledTasks.compareAndSet(top, task));
+    }
+
+    /**
+     * 时间轮的一个槽：任务组成的双向链表（只由ticker线程访问）
+     */
+    private static final class Bucket {
+        WheelTask<?> head;
+        WheelTask<?> tail;
+
+        void add(WheelTask<?> task) {
+            task.bucket = this;
+            task.prev = tail;
+            task.next = null;
+            if (tail == null) {
+                head = task;
+            } else {
+                tail.next = task;
+            }
+            tail = task;
+        }
+
+        void remove(WheelTask<?> task) {
+            if (task.prev == null) {
+                head = task.next;
+            } else {
+                task.prev.next = task.next;
+            }
+            if (task.next == null) {
+                tail = task.prev;
+            } else {
+                task.next.prev = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+        }
+
+        // 摘下整条链表并返回表头，节点之间的next指针保持不变
+        WheelTask<?> takeAll() {
+            WheelTask<?> first = head;
+            for (WheelTask<?> task = first; task != null; task = task.next) {
+                task.bucket = null;
+            }
+            head = null;
+            tail = null;
+            return first;
+        }
+
+        void drainTo(Collection<Runnable> out) {
+            for (WheelTask<?> task = takeAll(); task != null; ) {
+                WheelTask<?> next = task.next;
+                task.next = null;
+                task.prev = null;
+                if (!task.isCancelled()) {
+                    out.add(task);
+                }
+                task = next;
+            }
+        }
+    }
+
+    /**
+     * 时间轮中的任务，同时作为返回给调用方的ScheduledFuture
+     */
+    private final class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        // 0：一次性任务；正数：固定速率周期；负数：固定延迟
+        private final long period;
+        private volatile long deadlineNanos;
+
+        // 在待处理栈/取消栈中的下一个任务（由入栈的CAS发布）
+        WheelTask<?> nextPending;
+        WheelTask<?> nextCancelled;
+
+        // 以下字段只由ticker线程访问
+        long deadlineTick;
+        Bucket bucket;
+        WheelTask<?> prev;
+        WheelTask<?> next;
+
+        WheelTask(Runnable runnable, V result, long deadlineNanos, long period) {
+            super(runnable, result);
+            this.deadlineNanos = deadlineNanos;
+            this.period = period;
+        }
+
+        WheelTask(Callable<V> callable, long deadlineNanos) {
+            super(callable);
+            this.deadlineNanos = deadlineNanos;
+            this.period = 0;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                pushCancelled(this);  // 由ticker线程在下一个tick从槽中摘除，O(1)
+            }
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (super.runAndReset()) {
+                deadlineNanos = period > 0 ? deadlineNanos + period : System.nanoTime() - period;
+                reschedule(this);
+            }
+        }
+
+        // 任务完成、失败或被取消时调用
+        @Override
+        protected void done() {
+            liveTasks.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * 模块六：多线程&并发编程
+ * 不安全的计数器类（没有同步机制）
+ */
+class UnsafeCounter implements Counter {
+    private int count = 0;
+    
+    @Override
+    public void increment() {
+        count++;  // 非原子操作
+    }
+    
+    @Override
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * 模块六：多线程&并发编程
+ * 示例10：虚拟线程负载测试
+ *
+ * 同时提交大量"睡眠"任务（模拟阻塞I/O），观察不同线程池模式能否让它们并发完成：
+ * 虚拟线程模式下10万个睡眠1秒的任务大约1秒多就能全部完成，
+ * 而固定大小的平台线程池只能按线程数分批执行。
+ *
+ * 编译运行（虚拟线程模式需要JDK 21及以上）：
+ *   javac *.java
+ *   java VirtualThreadLoadTest [模式] [任务数] [每个任务睡眠毫秒]
+ * 例如：
+ *   java VirtualThreadLoadTest virtual 100000 1000
+ *   java VirtualThreadLoadTest virtual-bounded 100000 10
+ *   java VirtualThreadLoadTest fixed 2000 10
+ */
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualThreadLoadTest {
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorFactory.Mode mode = ExecutorFactory.Mode.parse(args.length > 0 ? args[0] : "virtual");
+        int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        long sleepMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        // 与ExecutorFactory.fromSystemProperties一致：virtual-bounded模式读取最大并发数，其余模式读取线程数
+        int size = mode == ExecutorFactory.Mode.VIRTUAL_BOUNDED
+                ? Integer.getInteger("executor.maxConcurrency", 10000)
+                : Integer.getInteger("executor.threads", 200);
+
+        System.out.println("===== 虚拟线程负载测试 =====");
+        System.out.println("模式: " + mode + "，任务数: " + taskCount + "，每个任务睡眠: " + sleepMillis + " ms");
+        System.out.println("JDK版本: " + System.getProperty("java.version")
+                + "，支持虚拟线程: " + ExecutorFactory.isVirtualThreadSupported());
+
+        ExecutorService executor;
+        try {
+            executor = ExecutorFactory.create(mode, size);
+        } catch (UnsupportedOperationException e) {
+            System.out.println("无法创建执行器: " + e.getMessage());
+            return;
+        }
+
+        CountDownLatch done = new CountDownLatch(taskCount);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger peakConcurrent = new AtomicInteger();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < taskCount; i++) {
+            executor.execute(() -> {
+                // 记录同时处于睡眠中的任务数峰值
+                int now = concurrent.incrementAndGet();
+                peakConcurrent.accumulateAndGet(now, Math::max);
+                try {
+                    Thread.sleep(sleepMillis);  // 模拟阻塞I/O
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrent.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        long submitted = System.nanoTime();
+
+        done.await();
+        long finished = System.nanoTime();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.println("提交耗时: " + (submitted - start) / 1000000 + " ms");
+        System.out.println("全部完成耗时: " + (finished - start) / 1000000 + " ms");
+        System.out.println("并发执行的任务数峰值: " + peakConcurrent.get());
+        System.out.printf("吞吐量: %,.0f 个任务/秒%n", taskCount * 1e9 / (finished - start));
+    }
+}
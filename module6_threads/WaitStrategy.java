@@ -0,0 +1,89 @@
+/**
+ * 模块六：多线程&并发编程
+ * 等待策略
+ * 
+ * 无锁队列在"满"或"空"时没有wait/notify可用，只能由线程自己决定如何等待：
+ * - busySpin：一直空转，延迟最低，但会占满一个CPU核心
+ * - yielding：空转一段时间后让出CPU，适合线程数不超过核心数的场景
+ * - parking：空转、让出CPU之后再逐步加长休眠时间，CPU占用最低但唤醒延迟最高
+ */
+import java.util.concurrent.locks.LockSupport;
+
+interface WaitStrategy {
+    /**
+     * 执行一次等待
+     * @param counter 本轮已经等待的次数，从0开始
+     * @return 下一次调用时传入的等待次数
+     */
+    int idle(int counter);
+    
+    static WaitStrategy busySpin() {
+        return BusySpin.INSTANCE;
+    }
+    
+    static WaitStrategy yielding() {
+        return Yielding.INSTANCE;
+    }
+    
+    static WaitStrategy parking() {
+        return new Parking(100, 100, 1000, 1000000);
+    }
+    
+    /**
+     * 忙等待策略
+     */
+    final class BusySpin implements WaitStrategy {
+        static final BusySpin INSTANCE = new BusySpin();
+        
+        @Override
+        public int idle(int counter) {
+            return counter + 1;
+        }
+    }
+    
+    /**
+     * 先空转再让出CPU
+     */
+    final class Yielding implements WaitStrategy {
+        static final Yielding INSTANCE = new Yielding();
+        private static final int SPIN_TRIES = 100;
+        
+        @Override
+        public int idle(int counter) {
+            if (counter >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    }
+    
+    /**
+     * 空转 -> 让出CPU -> 指数退避休眠
+     */
+    final class Parking implements WaitStrategy {
+        private final int spinTries;
+        private final int yieldTries;
+        private final long minParkNanos;
+        private final long maxParkNanos;
+        
+        Parking(int spinTries, int yieldTries, long minParkNanos, long maxParkNanos) {
+            this.spinTries = spinTries;
+            this.yieldTries = yieldTries;
+            this.minParkNanos = minParkNanos;
+            this.maxParkNanos = maxParkNanos;
+        }
+        
+        @Override
+        public int idle(int counter) {
+            if (counter < spinTries) {
+                // 空转
+            } else if (counter < spinTries + yieldTries) {
+                Thread.yield();
+            } else {
+                int shift = Math.min(counter - spinTries - yieldTries, 20);
+                LockSupport.parkNanos(Math.min(minParkNanos << shift, maxParkNanos));
+            }
+            return counter + 1;
+        }
+    }
+}
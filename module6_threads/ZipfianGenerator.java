@@ -0,0 +1,92 @@
+/**
+ * 模块六：多线程&并发编程
+ * Zipf分布的键序号生成器
+ *
+ * 真实业务中的访问往往高度倾斜：排名第k的键被访问的概率与 1/k^s 成正比，
+ * s越大越集中（s=0即均匀分布，s≈1时前1%的键大约承担一半的访问）。
+ *
+ * 构造时预先计算累积分布表，每次生成只需一个随机数加一次二分查找，
+ * 生成器本身不可变，可以被多个线程共享（随机数取自ThreadLocalRandom）。
+ * scrambled为true时把排名打乱映射到键序号上，热点键不再集中在序号0、1、2……，
+ * 更接近真实场景中热点键哈希到任意桶的情况。
+ */
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+class ZipfianGenerator {
+    private final double[] cdf;
+    private final int[] rankToItem;
+
+    ZipfianGenerator(int items, double exponent) {
+        this(items, exponent, false, 0);
+    }
+
+    ZipfianGenerator(int items, double exponent, boolean scrambled, long seed) {
+        if (items <= 0) {
+            throw new IllegalArgumentException("items必须大于0: " + items);
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("exponent不能为负数: " + exponent);
+        }
+        cdf = new double[items];
+        double sum = 0;
+        for (int rank = 0; rank < items; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < items; rank++) {
+            cdf[rank] /= sum;
+        }
+        cdf[items - 1] = 1.0;  // 消除舍入误差
+
+        if (scrambled) {
+            // Fisher-Yates洗牌
+            rankToItem = new int[items];
+            for (int i = 0; i < items; i++) {
+                rankToItem[i] = i;
+            }
+            Random random = new Random(seed);
+            for (int i = items - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = rankToItem[i];
+                rankToItem[i] = rankToItem[j];
+                rankToItem[j] = tmp;
+            }
+        } else {
+            rankToItem = null;
+        }
+    }
+
+    int items() {
+        return cdf.length;
+    }
+
+    /**
+     * 生成下一个键序号，范围 [0, items)
+     */
+    int next() {
+        return itemAt(ThreadLocalRandom.current().nextDouble());
+    }
+
+    // 根据[0,1)之间的均匀随机数u查找对应的键序号
+    int itemAt(double u) {
+        int lo = 0;
+        int hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] > u) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return rankToItem == null ? lo : rankToItem[lo];
+    }
+
+    /**
+     * 排名第rank（从0开始）的键被访问的概率
+     */
+    double probability(int rank) {
+        return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+    }
+}